@@ -18,9 +18,8 @@ package io.yucca.microsoft.onedrive;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.client.config.RequestConfig;
 import org.glassfish.jersey.apache.connector.ApacheClientProperties;
-import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.jackson.JacksonFeature;
@@ -30,8 +29,8 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
 
 /**
@@ -50,24 +49,67 @@ public final class ClientFactory {
     private static final Logger LOG = LoggerFactory
         .getLogger(ClientFactory.class);
 
+    /**
+     * Name of the JSON feature in use, see
+     * org.glassfish.jersey.internal.InternalJsonFeature
+     */
+    private static final String JSON_FEATURE = "jersey.config.jsonFeature";
+
     private ClientFactory() {
     }
 
     /**
-     * Create a pooled Jersey client
+     * Create a pooled Jersey client, pool sizing is taken from the
+     * configuration
      * 
-     * <pre>
-     * max connections = 100
-     * max connections per route = 20
-     * </pre>
+     * @param configuration OneDriveConfiguration
+     * @param providers Object... providers
+     * @return Client
+     */
+    public static Client create(OneDriveConfiguration configuration,
+                                Object... providers) {
+        return create(configuration, new ConnectionPool(configuration),
+                      providers);
+    }
+
+    /**
+     * Create a pooled Jersey client. Requests are sent through the pooled
+     * Apache connector, entities with a known length are streamed over the
+     * same pooled connections, see {@link PooledConnectorProvider}. Throttling is
+     * controlled per client.
+     * 
+     * @param configuration OneDriveConfiguration
+     * @param pool ConnectionPool shutdown when the client is closed
+     * @param providers Object... providers
+     * @return Client
+     */
+    public static Client create(OneDriveConfiguration configuration,
+                                ConnectionPool pool, Object... providers) {
+        return create(configuration, pool,
+                      new ThrottlingController(configuration), providers);
+    }
+
+    /**
+     * Create a pooled Jersey client, all requests pass through the
+     * ThrottlingController
      * 
      * @param configuration OneDriveConfiguration
+     * @param pool ConnectionPool shutdown when the client is closed
+     * @param throttling ThrottlingController
      * @param providers Object... providers
      * @return Client
      */
     public static Client create(OneDriveConfiguration configuration,
+                                ConnectionPool pool,
+                                ThrottlingController throttling,
                                 Object... providers) {
         ClientConfig clientConfig = new ClientConfig(providers);
+        // a provided JSON provider must not be shadowed by the provider of the
+        // auto-discovered JacksonFeature, which backs off for another feature
+        if (containsJsonProvider(providers)) {
+            clientConfig.property(JSON_FEATURE, JsonCodecProvider.class
+                .getSimpleName());
+        }
         clientConfig.property(ClientProperties.READ_TIMEOUT,
                               configuration.getReadTimeout());
         clientConfig.property(ClientProperties.CONNECT_TIMEOUT,
@@ -75,47 +117,74 @@ public final class ClientFactory {
         LOG.debug("Client timeout values set, connection timeout: {}, read timeout: {}",
                   configuration.getConnectionTimeout(),
                   configuration.getReadTimeout());
-
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
-        connectionManager.setMaxTotal(100);
-        connectionManager.setDefaultMaxPerRoute(20);
-        LOG.debug("Client pooling values set, maximum: {}, per-route: {}", 100,
-                  20);
-
-        /**
-         * Allow restricted headers to be set. Prevents a warning in
-         * {@link UploadResumableAction} which specifies Content-Length
-         * {@link https://jersey.java.net/documentation/latest/client.html#d0e4832}
-         */
-        System.setProperty("sun.net.http.allowRestrictedHeaders", "true");
+        clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER,
+                              pool.getConnectionManager());
+        // wait no longer for a pooled connection than for a new connection
+        clientConfig.property(ApacheClientProperties.REQUEST_CONFIG,
+                              RequestConfig.custom()
+                                  .setConnectionRequestTimeout(configuration
+                                      .getConnectionTimeout())
+                                  .build());
+        // the connectors block, bound the asynchronous invoker threads by the
+        // number of connections so pending requests queue instead
+        clientConfig.property(ClientProperties.ASYNC_THREADPOOL_SIZE,
+                              configuration.getMaxConnections());
+        clientConfig.connectorProvider(new PooledConnectorProvider(throttling,
+                                                                   pool.getConcurrencyLimiter()));
+        clientConfig.register(pool);
 
         Client client = ClientBuilder.newBuilder().withConfig(clientConfig)
             .build();
         client.register(OneDriveContentMessageBodyReader.class);
         client.register(OneDriveContentMessageBodyWriter.class);
+        client.register(ContentLengthFilter.class);
         client.register(MultiPartWriter.class);
         client.register(JacksonFeature.class);
-        client.property(ApacheClientProperties.CONNECTION_MANAGER,
-                        connectionManager);
-        clientConfig.connectorProvider(new ApacheConnectorProvider());
+        if (configuration.getLeakDetectionThreshold() > 0) {
+            client.register(new ConnectionLeakDetector(configuration
+                .getLeakDetectionThreshold()));
+        }
         return client;
     }
 
+    private static boolean containsJsonProvider(Object... providers) {
+        for (Object provider : providers) {
+            if (provider instanceof JacksonJsonProvider) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
-     * Create an ObjectMapper
+     * Create an ObjectMapper and set it on the provider
      * 
      * @param jacksonProvider JacksonJsonProvider
      * @return ObjectMapper
      */
     public static ObjectMapper createMapper(JacksonJsonProvider jacksonProvider) {
+        ObjectMapper mapper = createMapper();
+        jacksonProvider.setMapper(mapper);
+        return mapper;
+    }
+
+    /**
+     * Create an ObjectMapper producing compact output. Modules, i.e. the
+     * Jackson Afterburner module for bytecode generated (de)serializers, can
+     * be registered if present on the classpath.
+     * 
+     * @param modules Module[] modules to register
+     * @return ObjectMapper
+     */
+    public static ObjectMapper createMapper(Module... modules) {
         ObjectMapper mapper = new ObjectMapper();
         // prevents inclusion of null values on serialization
         mapper.setSerializationInclusion(Include.NON_NULL);
-        // indent output on serialization
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
         // prevents mapping failure on unknown properties
         mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
-        jacksonProvider.setMapper(mapper);
+        for (Module module : modules) {
+            mapper.registerModule(module);
+        }
         return mapper;
     }
 }
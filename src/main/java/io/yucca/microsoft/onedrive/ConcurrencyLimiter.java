@@ -0,0 +1,309 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ConcurrencyLimiter adapts the number of transfers in flight per host, being
+ * uploads and downloads of content. The limit follows an additive increase,
+ * multiplicative decrease (AIMD) algorithm:
+ * <ul>
+ * <li>each successful transfer raises the limit by 1/limit, about one per
+ * round of transfers, as long as the limit is being used;</li>
+ * <li>a transfer answered with a latency above {@link #LATENCY_TOLERANCE}
+ * times the lowest latency seen lowers the limit by
+ * {@link #LATENCY_BACKOFF}. Only transfers without request entity, i.e.
+ * downloads, are measured, the latency of an upload depends on the size of
+ * the entity sent;</li>
+ * <li>a transfer throttled with 429 or 503, failed with a server error or an
+ * I/O failure halves the limit.</li>
+ * </ul>
+ * Requests are marked as transfer by the {@link #TRANSFER} property.
+ * 
+ * @author yucca.io
+ */
+public class ConcurrencyLimiter {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(ConcurrencyLimiter.class);
+
+    /**
+     * Request property marking a request as transfer
+     */
+    public static final String TRANSFER = "io.yucca.microsoft.onedrive.transfer";
+
+    static final double LATENCY_TOLERANCE = 2.0;
+
+    static final double LATENCY_BACKOFF = 0.9;
+
+    static final double DROP_BACKOFF = 0.5;
+
+    /**
+     * Weight by which the lowest latency drifts towards recent latencies, so
+     * it follows a permanent change in network conditions
+     */
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Integer> maxLimits = new ConcurrentHashMap<>();
+
+    private final int initialLimit;
+
+    private final int maxLimit;
+
+    /**
+     * Construct a ConcurrencyLimiter
+     * 
+     * @param configuration OneDriveConfiguration
+     */
+    public ConcurrencyLimiter(OneDriveConfiguration configuration) {
+        this(configuration.getTransferConcurrency(),
+             configuration.getMaxContentConnections());
+    }
+
+    /**
+     * Construct a ConcurrencyLimiter
+     * 
+     * @param initialLimit int initial transfers in flight per host
+     * @param maxLimit int maximum transfers in flight per host
+     */
+    public ConcurrencyLimiter(int initialLimit, int maxLimit) {
+        if (initialLimit < 1 || maxLimit < 1) {
+            throw new IllegalArgumentException("Limits must be at least 1");
+        }
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Set the maximum transfers in flight to the host of the uri, i.e. the
+     * connections per route of the pool
+     * 
+     * @param uri URI
+     * @param max int maximum transfers in flight
+     */
+    public void setMaxLimit(URI uri, int max) {
+        maxLimits.put(ThrottlingController.endpoint(uri), max);
+    }
+
+    /**
+     * Wait until a transfer may be started to the host of the uri
+     * 
+     * @param uri URI of the transfer
+     * @return Permit to be released when the transfer completes
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Permit acquire(URI uri) throws InterruptedException {
+        Limit limit = limit(ThrottlingController.endpoint(uri));
+        limit.acquire();
+        return new Permit(limit, System.nanoTime());
+    }
+
+    /**
+     * Get the current limit of transfers in flight to the host of the uri,
+     * the initial limit if no transfer was made
+     * 
+     * @param uri URI
+     * @return int limit
+     */
+    public int getLimit(URI uri) {
+        Limit limit = limits.get(ThrottlingController.endpoint(uri));
+        return limit == null ? Math.min(initialLimit, maxLimit(ThrottlingController
+            .endpoint(uri))) : limit.getLimit();
+    }
+
+    /**
+     * Get the number of transfers in flight to the host of the uri
+     * 
+     * @param uri URI
+     * @return int transfers in flight
+     */
+    public int getInFlight(URI uri) {
+        Limit limit = limits.get(ThrottlingController.endpoint(uri));
+        return limit == null ? 0 : limit.getInFlight();
+    }
+
+    /**
+     * Get the current limits per host
+     * 
+     * @return Map<String, Integer> limit by host
+     */
+    public Map<String, Integer> getLimits() {
+        Map<String, Integer> current = new TreeMap<>();
+        for (Map.Entry<String, Limit> entry : limits.entrySet()) {
+            current.put(entry.getKey(), entry.getValue().getLimit());
+        }
+        return current;
+    }
+
+    private Limit limit(String endpoint) {
+        Limit limit = limits.get(endpoint);
+        if (limit == null) {
+            int max = maxLimit(endpoint);
+            Limit created = new Limit(endpoint, Math.min(initialLimit, max),
+                                      max);
+            limit = limits.putIfAbsent(endpoint, created);
+            if (limit == null) {
+                limit = created;
+            }
+        }
+        return limit;
+    }
+
+    private int maxLimit(String endpoint) {
+        Integer max = maxLimits.get(endpoint);
+        return max == null ? maxLimit : max;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimiter [limits=" + getLimits() + "]";
+    }
+
+    /**
+     * Permit for one transfer in flight
+     */
+    public static class Permit {
+
+        private final Limit limit;
+
+        private final long started;
+
+        private boolean released;
+
+        Permit(Limit limit, long started) {
+            this.limit = limit;
+            this.started = started;
+        }
+
+        /**
+         * Release after a successful transfer
+         * 
+         * @param latency long latency in nanoseconds, i.e. until the response
+         *            headers were received
+         */
+        public void success(long latency) {
+            release(latency, false);
+        }
+
+        /**
+         * Release after a successful transfer of which the latency is not
+         * measured, i.e. an upload. The limit is raised but never lowered.
+         */
+        public void success() {
+            release(-1, false);
+        }
+
+        /**
+         * Release after a throttled or failed transfer
+         */
+        public void dropped() {
+            release(System.nanoTime() - started, true);
+        }
+
+        /**
+         * Get the time the permit was acquired
+         * 
+         * @return long System.nanoTime() on acquiring
+         */
+        public long getStarted() {
+            return started;
+        }
+
+        private synchronized void release(long latency, boolean dropped) {
+            if (!released) {
+                released = true;
+                limit.release(latency, dropped);
+            }
+        }
+    }
+
+    /**
+     * Limit of a single host
+     */
+    static class Limit {
+
+        private final String endpoint;
+
+        private final int max;
+
+        private double limit;
+
+        private int inFlight;
+
+        private double baseline;
+
+        Limit(String endpoint, int initial, int max) {
+            this.endpoint = endpoint;
+            this.limit = initial;
+            this.max = max;
+        }
+
+        synchronized void acquire() throws InterruptedException {
+            while (inFlight >= (int)limit) {
+                wait();
+            }
+            inFlight++;
+        }
+
+        synchronized void release(long latency, boolean dropped) {
+            // only raise a limit that is being used
+            boolean used = inFlight * 2 >= limit;
+            inFlight--;
+            int before = (int)limit;
+            if (dropped) {
+                limit = Math.max(1, limit * DROP_BACKOFF);
+            } else if (latency < 0) {
+                if (used) {
+                    limit = Math.min(max, limit + 1 / limit);
+                }
+            } else {
+                if (baseline == 0 || latency < baseline) {
+                    baseline = latency;
+                } else {
+                    baseline += (latency - baseline) * BASELINE_DRIFT;
+                }
+                if (latency > baseline * LATENCY_TOLERANCE) {
+                    limit = Math.max(1, limit * LATENCY_BACKOFF);
+                } else if (used) {
+                    limit = Math.min(max, limit + 1 / limit);
+                }
+            }
+            if ((int)limit != before) {
+                LOG.debug("Transfer limit of: {} changed from {} to {}",
+                          new Object[] { endpoint, before, (int)limit });
+            }
+            notifyAll();
+        }
+
+        synchronized int getLimit() {
+            return (int)limit;
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+    }
+}
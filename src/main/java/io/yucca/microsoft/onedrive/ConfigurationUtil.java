@@ -49,6 +49,39 @@ public final class ConfigurationUtil {
 
     public static final String DEBUG_LOGGING = "debugLogging";
 
+    public static final String MAX_CONNECTIONS = "maxConnections";
+
+    public static final String MAX_API_CONNECTIONS = "maxApiConnections";
+
+    public static final String MAX_CONTENT_CONNECTIONS = "maxContentConnections";
+
+    public static final String KEEP_ALIVE = "keepAlive";
+
+    public static final String IDLE_TIMEOUT = "idleTimeout";
+
+    public static final String VALIDATE_AFTER_INACTIVITY = "validateAfterInactivity";
+
+    public static final String LEAK_DETECTION_THRESHOLD = "leakDetectionThreshold";
+
+    public static final String METADATA_CACHE_SIZE = "metadataCacheSize";
+
+    public static final String METADATA_CACHE_TTL = "metadataCacheTtl";
+
+    public static final String PATH_CACHE_SIZE = "pathCacheSize";
+
+    public static final String TOKEN_RENEWAL_MARGIN = "tokenRenewalMargin";
+
+    public static final String THROTTLE_RATE = "throttleRate";
+
+    public static final String MAX_RETRIES = "maxRetries";
+
+    public static final String MAX_BACKOFF = "maxBackoff";
+
+    public static final String TRANSFER_CONCURRENCY = "transferConcurrency";
+
+    /**
+     * Shared by read and save, access is therefore synchronized on this class
+     */
     private static PropertiesConfiguration config = new PropertiesConfiguration();
 
     private ConfigurationUtil() {
@@ -62,7 +95,7 @@ public final class ConfigurationUtil {
      * @throws FileNotFoundException
      * @throws ConfigurationException
      */
-    public static OneDriveConfiguration read(String configurationFile)
+    public static synchronized OneDriveConfiguration read(String configurationFile)
         throws FileNotFoundException, ConfigurationException {
         LOG.info("Reading configuration from file: {}", configurationFile);
         File file = new File(configurationFile);
@@ -71,6 +104,7 @@ public final class ConfigurationUtil {
                                             + configurationFile
                                             + " does not exist");
         }
+        config.clear();
         config.setBasePath(file.getParent());
         config.load(file.getName());
         OneDriveConfiguration odc = new OneDriveConfiguration(configurationFile);
@@ -87,6 +121,49 @@ public final class ConfigurationUtil {
         odc.setDebugLogging(config
             .getBoolean(DEBUG_LOGGING,
                         OneDriveConfiguration.DEBUG_LOGGING_DEFAULT));
+        odc.setMaxConnections(config
+            .getInt(MAX_CONNECTIONS,
+                    OneDriveConfiguration.MAX_CONNECTIONS_DEFAULT));
+        odc.setMaxApiConnections(config
+            .getInt(MAX_API_CONNECTIONS,
+                    OneDriveConfiguration.MAX_API_CONNECTIONS_DEFAULT));
+        odc.setMaxContentConnections(config
+            .getInt(MAX_CONTENT_CONNECTIONS,
+                    OneDriveConfiguration.MAX_CONTENT_CONNECTIONS_DEFAULT));
+        odc.setKeepAlive(config
+            .getInt(KEEP_ALIVE, OneDriveConfiguration.KEEP_ALIVE_DEFAULT));
+        odc.setIdleTimeout(config
+            .getInt(IDLE_TIMEOUT, OneDriveConfiguration.IDLE_TIMEOUT_DEFAULT));
+        odc.setValidateAfterInactivity(config
+            .getInt(VALIDATE_AFTER_INACTIVITY,
+                    OneDriveConfiguration.VALIDATE_AFTER_INACTIVITY_DEFAULT));
+        odc.setLeakDetectionThreshold(config
+            .getInt(LEAK_DETECTION_THRESHOLD,
+                    OneDriveConfiguration.LEAK_DETECTION_THRESHOLD_DEFAULT));
+        odc.setMetadataCacheSize(config
+            .getInt(METADATA_CACHE_SIZE,
+                    OneDriveConfiguration.METADATA_CACHE_SIZE_DEFAULT));
+        odc.setMetadataCacheTtl(config
+            .getInt(METADATA_CACHE_TTL,
+                    OneDriveConfiguration.METADATA_CACHE_TTL_DEFAULT));
+        odc.setPathCacheSize(config
+            .getInt(PATH_CACHE_SIZE,
+                    OneDriveConfiguration.PATH_CACHE_SIZE_DEFAULT));
+        odc.setTokenRenewalMargin(config
+            .getInt(TOKEN_RENEWAL_MARGIN,
+                    OneDriveConfiguration.TOKEN_RENEWAL_MARGIN_DEFAULT));
+        odc.setThrottleRate(config
+            .getInt(THROTTLE_RATE,
+                    OneDriveConfiguration.THROTTLE_RATE_DEFAULT));
+        odc.setMaxRetries(config
+            .getInt(MAX_RETRIES,
+                    OneDriveConfiguration.MAX_RETRIES_DEFAULT));
+        odc.setMaxBackoff(config
+            .getInt(MAX_BACKOFF,
+                    OneDriveConfiguration.MAX_BACKOFF_DEFAULT));
+        odc.setTransferConcurrency(config
+            .getInt(TRANSFER_CONCURRENCY,
+                    OneDriveConfiguration.TRANSFER_CONCURRENCY_DEFAULT));
         return odc;
     }
 
@@ -126,6 +203,78 @@ public final class ConfigurationUtil {
             .setComment(DEBUG_LOGGING,
                         "Enables/disable debug logging of HTTP requests and responses.");
         config.setProperty(DEBUG_LOGGING, configuration.isDebugLogging());
+        config.getLayout()
+            .setComment(MAX_CONNECTIONS,
+                        "The maximum number of pooled HTTP connections.");
+        config.setProperty(MAX_CONNECTIONS, configuration.getMaxConnections());
+        config.getLayout()
+            .setComment(MAX_API_CONNECTIONS,
+                        "The maximum number of pooled HTTP connections to the OneDrive API host.");
+        config.setProperty(MAX_API_CONNECTIONS,
+                           configuration.getMaxApiConnections());
+        config.getLayout()
+            .setComment(MAX_CONTENT_CONNECTIONS,
+                        "The maximum number of pooled HTTP connections per upload or download host.");
+        config.setProperty(MAX_CONTENT_CONNECTIONS,
+                           configuration.getMaxContentConnections());
+        config.getLayout()
+            .setComment(KEEP_ALIVE,
+                        "The time in ms a pooled connection is kept alive for reuse.");
+        config.setProperty(KEEP_ALIVE, configuration.getKeepAlive());
+        config.getLayout()
+            .setComment(IDLE_TIMEOUT,
+                        "The time in ms after which an idle pooled connection is closed.");
+        config.setProperty(IDLE_TIMEOUT, configuration.getIdleTimeout());
+        config.getLayout()
+            .setComment(VALIDATE_AFTER_INACTIVITY,
+                        "The time in ms of inactivity after which a pooled connection is checked for staleness before reuse.");
+        config.setProperty(VALIDATE_AFTER_INACTIVITY,
+                           configuration.getValidateAfterInactivity());
+        config.getLayout()
+            .setComment(LEAK_DETECTION_THRESHOLD,
+                        "The number of unreturned connections after which these are reported, 0 disables leak detection.");
+        config.setProperty(LEAK_DETECTION_THRESHOLD,
+                           configuration.getLeakDetectionThreshold());
+        config.getLayout()
+            .setComment(METADATA_CACHE_SIZE,
+                        "The maximum number of items kept in the metadata cache, 0 disables the cache.");
+        config.setProperty(METADATA_CACHE_SIZE,
+                           configuration.getMetadataCacheSize());
+        config.getLayout()
+            .setComment(METADATA_CACHE_TTL,
+                        "The time in milliseconds a cached item is used before it is revalidated, 0 always revalidates.");
+        config.setProperty(METADATA_CACHE_TTL,
+                           configuration.getMetadataCacheTtl());
+        config.getLayout()
+            .setComment(PATH_CACHE_SIZE,
+                        "The maximum number of path to identifier mappings kept to resolve path addresses, 0 disables resolving.");
+        config.setProperty(PATH_CACHE_SIZE,
+                           configuration.getPathCacheSize());
+        config.getLayout()
+            .setComment(TOKEN_RENEWAL_MARGIN,
+                        "Time in milliseconds before expiry at which the accessToken is renewed in the background.");
+        config.setProperty(TOKEN_RENEWAL_MARGIN,
+                           configuration.getTokenRenewalMargin());
+        config.getLayout()
+            .setComment(THROTTLE_RATE,
+                        "Requests per second per host allowed after the service throttled, halved on each further throttling response.");
+        config.setProperty(THROTTLE_RATE,
+                           configuration.getThrottleRate());
+        config.getLayout()
+            .setComment(MAX_RETRIES,
+                        "Maximum retries of idempotent requests throttled by the service with 429 or 503.");
+        config.setProperty(MAX_RETRIES,
+                           configuration.getMaxRetries());
+        config.getLayout()
+            .setComment(MAX_BACKOFF,
+                        "Maximum time in milliseconds to back off before retrying a throttled request.");
+        config.setProperty(MAX_BACKOFF,
+                           configuration.getMaxBackoff());
+        config.getLayout()
+            .setComment(TRANSFER_CONCURRENCY,
+                        "Initial number of concurrent transfers per host, adapted to latency and throttling up to the connections per route.");
+        config.setProperty(TRANSFER_CONCURRENCY,
+                           configuration.getTransferConcurrency());
     }
 
     /**
@@ -134,7 +283,7 @@ public final class ConfigurationUtil {
      * @param configuration OneDriveConfiguration
      * @throws ConfigurationException thrown if properties file cannot be saved
      */
-    public static void save(OneDriveConfiguration configuration)
+    public static synchronized void save(OneDriveConfiguration configuration)
         throws ConfigurationException {
         LOG.info("Saved configuration to file: {}",
                  configuration.getConfigurationFile());
@@ -151,8 +300,9 @@ public final class ConfigurationUtil {
      * @param configFile String properties filename
      * @throws ConfigurationException thrown if properties file cannot be saved
      */
-    public static void save(OneDriveConfiguration configuration,
-                            String configFile) throws ConfigurationException {
+    public static synchronized void save(OneDriveConfiguration configuration,
+                                         String configFile)
+        throws ConfigurationException {
         setProperties(configuration);
         config.save(new File(configFile));
     }
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ConnectionLeakDetector tracks the entity stream of every response, a
+ * connection is returned to the pool once the stream is closed, either by
+ * reading the entity, closing the Response or closing the OneDriveContent
+ * that wraps the stream. If more streams than the threshold are unreturned,
+ * the requests and the location where they were made are logged.
+ * <p>
+ * Recording the location of every request is costly, so the detector is meant
+ * for diagnosis and is disabled by default.
+ * </p>
+ * 
+ * @author yucca.io
+ */
+public class ConnectionLeakDetector implements ClientResponseFilter {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(ConnectionLeakDetector.class);
+
+    private final int threshold;
+
+    private final Set<TrackedInputStream> unreturned = Collections
+        .newSetFromMap(new ConcurrentHashMap<TrackedInputStream, Boolean>());
+
+    /**
+     * Constructor
+     * 
+     * @param threshold int number of unreturned connections after which these
+     *            are reported
+     */
+    public ConnectionLeakDetector(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be at least 1");
+        }
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext,
+                       ClientResponseContext responseContext)
+                           throws IOException {
+        if (!responseContext.hasEntity()) {
+            return;
+        }
+        TrackedInputStream tracked = new TrackedInputStream(responseContext
+            .getEntityStream(), requestContext.getMethod() + " "
+                                + requestContext.getUri());
+        responseContext.setEntityStream(tracked);
+        unreturned.add(tracked);
+        if (unreturned.size() > threshold) {
+            report();
+        }
+    }
+
+    /**
+     * Log every unreturned connection not reported before
+     */
+    private void report() {
+        for (TrackedInputStream tracked : unreturned) {
+            if (tracked.reported) {
+                continue;
+            }
+            tracked.reported = true;
+            LOG.warn("More than {} connections are not returned, connection of request: {} was acquired at:",
+                     threshold, tracked.request, tracked.origin);
+        }
+    }
+
+    /**
+     * Get the number of connections not returned
+     * 
+     * @return int
+     */
+    public int getUnreturned() {
+        return unreturned.size();
+    }
+
+    /**
+     * Get the requests of the connections not returned
+     * 
+     * @return List<String> method and URI of each request
+     */
+    public List<String> getUnreturnedRequests() {
+        List<String> requests = new ArrayList<>();
+        for (TrackedInputStream tracked : unreturned) {
+            requests.add(tracked.request);
+        }
+        return requests;
+    }
+
+    /**
+     * Entity stream deregistering itself on closing
+     */
+    private class TrackedInputStream extends FilterInputStream {
+
+        private final String request;
+
+        private final Throwable origin;
+
+        private volatile boolean reported;
+
+        TrackedInputStream(InputStream in, String request) {
+            super(in);
+            this.request = request;
+            this.origin = new Throwable("Connection acquired");
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                unreturned.remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.glassfish.jersey.client.ClientLifecycleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ConnectionPool manages the pooled HTTP connections used by the Jersey
+ * client. Connections to the OneDrive API host and to the hosts serving
+ * content, i.e. upload and download locations, have separate per-route
+ * limits. Idle and expired connections are evicted by a background thread and
+ * connections are validated before reuse after a period of inactivity.
+ * Transfers of content are further limited by a {@link ConcurrencyLimiter}.
+ * <p>
+ * The pool is registered with the client and shutdown when the client is
+ * closed.
+ * </p>
+ * 
+ * @author yucca.io
+ */
+public class ConnectionPool implements ClientLifecycleListener {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(ConnectionPool.class);
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final IdleConnectionEvictor evictor;
+
+    private final HttpRoute apiRoute;
+
+    private final ConcurrencyLimiter limiter;
+
+    /**
+     * Construct a ConnectionPool for the OneDrive API
+     * 
+     * @param configuration OneDriveConfiguration
+     */
+    public ConnectionPool(OneDriveConfiguration configuration) {
+        this(configuration, URI.create(OneDriveAPIConnectionImpl.ONEDRIVE_URL));
+    }
+
+    /**
+     * Construct a ConnectionPool
+     * 
+     * @param configuration OneDriveConfiguration
+     * @param apiURI URI of the API host
+     */
+    public ConnectionPool(OneDriveConfiguration configuration, URI apiURI) {
+        this.apiRoute = route(apiURI);
+        this.connectionManager = new PoolingHttpClientConnectionManager(configuration
+            .getKeepAlive(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(configuration.getMaxConnections());
+        connectionManager
+            .setDefaultMaxPerRoute(configuration.getMaxContentConnections());
+        connectionManager.setMaxPerRoute(apiRoute,
+                                         configuration.getMaxApiConnections());
+        connectionManager.setValidateAfterInactivity(configuration
+            .getValidateAfterInactivity());
+        this.evictor = new IdleConnectionEvictor(connectionManager,
+                                                 configuration.getIdleTimeout(),
+                                                 TimeUnit.MILLISECONDS);
+        evictor.start();
+        this.limiter = new ConcurrencyLimiter(configuration);
+        limiter.setMaxLimit(apiURI, configuration.getMaxApiConnections());
+        LOG.debug("Client pooling values set, maximum: {}, api: {}, content: {}, keep-alive: {}ms, idle timeout: {}ms",
+                  configuration.getMaxConnections(),
+                  configuration.getMaxApiConnections(),
+                  configuration.getMaxContentConnections(),
+                  configuration.getKeepAlive(), configuration.getIdleTimeout());
+    }
+
+    /**
+     * Build the route as determined by the HttpClient for a URI
+     * 
+     * @param uri URI
+     * @return HttpRoute
+     */
+    static HttpRoute route(URI uri) {
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort();
+        if (port == -1) {
+            port = secure ? 443 : 80;
+        }
+        return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()),
+                             null, secure);
+    }
+
+    /**
+     * Get the connection manager used by the Apache connector
+     * 
+     * @return HttpClientConnectionManager
+     */
+    public HttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Get the statistics of the complete pool
+     * 
+     * @return PoolStats leased, available and pending connections
+     */
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Get the statistics for connections to the OneDrive API host
+     * 
+     * @return PoolStats leased, available and pending connections
+     */
+    public PoolStats getApiStats() {
+        return connectionManager.getStats(apiRoute);
+    }
+
+    /**
+     * Get the statistics for connections to a host
+     * 
+     * @param uri URI to the host
+     * @return PoolStats leased, available and pending connections
+     */
+    public PoolStats getStats(URI uri) {
+        return connectionManager.getStats(route(uri));
+    }
+
+    /**
+     * Get the limiter adapting the number of transfers in flight per host
+     * within the connections per route
+     * 
+     * @return ConcurrencyLimiter
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return limiter;
+    }
+
+    @Override
+    public void onInit() {
+        // nothing to initialize
+    }
+
+    /**
+     * Shutdown the eviction thread and close all pooled connections
+     */
+    @Override
+    public void onClose() {
+        evictor.shutdown();
+        connectionManager.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool: " + getTotalStats();
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.io.IOException;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * ContentLengthFilter sets the Content-Length header of requests with an
+ * {@link OneDriveContent} entity to the length of the content. The
+ * {@link PooledConnectorProvider} streams the content to the server with this
+ * length, content of unknown length is chunked.
+ * 
+ * @author yucca.io
+ */
+public class ContentLengthFilter implements ClientRequestFilter {
+
+    @Override
+    public void filter(ClientRequestContext requestContext) throws IOException {
+        Object entity = requestContext.getEntity();
+        if (!(entity instanceof OneDriveContent) || requestContext
+            .getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH)) {
+            return;
+        }
+        long length = ((OneDriveContent)entity).getLength();
+        if (length > 0) {
+            requestContext.getHeaders().putSingle(HttpHeaders.CONTENT_LENGTH,
+                                                  length);
+        }
+    }
+
+}
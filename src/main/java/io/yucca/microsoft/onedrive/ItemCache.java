@@ -0,0 +1,364 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.yucca.microsoft.onedrive.actions.MetadataAction;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+/**
+ * Bounded cache of item metadata shared by all items of a connection. Items
+ * are keyed by identifier, a secondary index maps absolute paths and other
+ * addresses by which an item was requested to the identifier. The least
+ * recently used item is evicted when the cache is full.
+ * <p>
+ * A cached item is returned without a request until its time to live expires,
+ * after that it is revalidated with its eTag, a 304 Not Modified response
+ * renews the time to live. Mutating actions update or invalidate the cache.
+ * </p>
+ *
+ * @author yucca.io
+ */
+public class ItemCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ItemCache.class);
+
+    private final int maxSize;
+
+    private final long ttl;
+
+    private final Map<String, Entry> items;
+
+    private final Map<String, String> paths = new LinkedHashMap<>();
+
+    private long hits;
+
+    private long misses;
+
+    private long revalidations;
+
+    /**
+     * Constructor, size and time to live are taken from the configuration
+     * 
+     * @param configuration OneDriveConfiguration
+     */
+    public ItemCache(OneDriveConfiguration configuration) {
+        this(configuration.getMetadataCacheSize(),
+             configuration.getMetadataCacheTtl(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize int maximum number of cached items, 0 disables the cache
+     * @param ttl long time an item is used before it is revalidated
+     * @param unit TimeUnit of ttl
+     */
+    public ItemCache(final int maxSize, long ttl, TimeUnit unit) {
+        this.maxSize = maxSize;
+        this.ttl = unit.toNanos(ttl);
+        this.items = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    removeKeys(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Determine if items are cached
+     * 
+     * @return true if the maximum size is above 0
+     */
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Get item metadata, a copy of the cached item is returned if its time to
+     * live has not expired, otherwise the item is revalidated or requested
+     * 
+     * @param api OneDriveAPIConnection
+     * @param address ItemAddress of the item
+     * @return Item
+     */
+    public Item metadata(OneDriveAPIConnection api, ItemAddress address) {
+        if (!isEnabled()) {
+            return new MetadataAction(api, address).call();
+        }
+        Entry entry = get(address);
+        if (entry != null && entry.expires - System.nanoTime() > 0) {
+            return new Item(entry.item);
+        }
+        String eTag = (entry == null) ? null : entry.item.geteTag();
+        try {
+            Item item = new MetadataAction(api, address, eTag, null).call();
+            put(item, address);
+            missed();
+            return item;
+        } catch (NotModifiedException e) {
+            LOG.debug("Cached item: {} is not modified", address);
+            renew(entry);
+            return new Item(entry.item);
+        }
+    }
+
+    /**
+     * Get a copy of a cached item regardless of its time to live
+     * 
+     * @param address ItemAddress of the item
+     * @return Item or {@code null} if not cached
+     */
+    public synchronized Item getIfPresent(ItemAddress address) {
+        Entry entry = lookup(address);
+        return (entry == null) ? null : new Item(entry.item);
+    }
+
+    /**
+     * Put an item in the cache replacing a previous version. If the path of a
+     * cached folder changed, cached items below the previous path are removed
+     * 
+     * @param item Item
+     */
+    public void put(Item item) {
+        put(item, null);
+    }
+
+    /**
+     * Put a copy of an item in the cache, the address by which the item was
+     * requested is indexed as well
+     * 
+     * @param item Item
+     * @param address ItemAddress used to request the item, may be {@code null}
+     */
+    public synchronized void put(Item item, ItemAddress address) {
+        if (!isEnabled() || item == null || item.getId() == null) {
+            return;
+        }
+        Entry entry = new Entry(new Item(item), System.nanoTime() + ttl);
+        Entry previous = items.remove(item.getId());
+        if (previous != null) {
+            removeKeys(previous);
+            if (previous.path != null && !previous.path.equals(entry.path)) {
+                removeDescendants(previous.path);
+            }
+        }
+        if (entry.path != null) {
+            entry.keys.add(entry.path);
+        }
+        if (address != null && !(address instanceof IdAddress)) {
+            entry.keys.add(address.absolutePath());
+        }
+        for (String key : entry.keys) {
+            paths.put(key, item.getId());
+        }
+        items.put(item.getId(), entry);
+    }
+
+    /**
+     * Invalidate a cached item, used when its children changed
+     * 
+     * @param address ItemAddress of the item
+     */
+    public synchronized void invalidate(ItemAddress address) {
+        Entry entry = lookup(address);
+        if (entry != null) {
+            remove(entry);
+        } else if (!(address instanceof IdAddress)) {
+            paths.remove(address.absolutePath());
+        }
+    }
+
+    /**
+     * Invalidate a cached item by identifier
+     * 
+     * @param itemId String identifier of the item
+     */
+    public synchronized void invalidate(String itemId) {
+        Entry entry = items.get(itemId);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    /**
+     * Remove an item which is deleted or moved, cached items below it and its
+     * parent are removed as well
+     * 
+     * @param address ItemAddress of the item
+     */
+    public synchronized void remove(ItemAddress address) {
+        Entry entry = lookup(address);
+        if (entry == null) {
+            invalidate(address);
+            return;
+        }
+        remove(entry);
+        if (entry.path != null) {
+            removeDescendants(entry.path);
+        }
+        if (entry.item.getParentReference() != null
+            && entry.item.getParentReference().getId() != null) {
+            invalidate(entry.item.getParentReference().getId());
+        }
+    }
+
+    /**
+     * Remove all cached items
+     */
+    public synchronized void clear() {
+        items.clear();
+        paths.clear();
+    }
+
+    /**
+     * Get the number of cached items
+     * 
+     * @return int
+     */
+    public synchronized int size() {
+        return items.size();
+    }
+
+    /**
+     * Get the number of requests answered from the cache without a request
+     * 
+     * @return long
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of requests for items which were not cached or changed
+     * 
+     * @return long
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of expired items which were revalidated as not modified
+     * 
+     * @return long
+     */
+    public synchronized long getRevalidations() {
+        return revalidations;
+    }
+
+    private synchronized Entry get(ItemAddress address) {
+        Entry entry = lookup(address);
+        if (entry != null && entry.expires - System.nanoTime() > 0) {
+            hits++;
+        }
+        return entry;
+    }
+
+    private synchronized void missed() {
+        misses++;
+    }
+
+    private synchronized void renew(Entry entry) {
+        entry.expires = System.nanoTime() + ttl;
+        revalidations++;
+    }
+
+    private Entry lookup(ItemAddress address) {
+        String id = (address instanceof IdAddress) ? address.getAddress()
+                                                   : paths.get(address
+                                                       .absolutePath());
+        return (id == null) ? null : items.get(id);
+    }
+
+    private void remove(Entry entry) {
+        items.remove(entry.item.getId());
+        removeKeys(entry);
+    }
+
+    /**
+     * Remove the secondary keys of an entry, unless another item is indexed
+     * by the key in the mean time
+     */
+    private void removeKeys(Entry entry) {
+        for (String key : entry.keys) {
+            if (entry.item.getId().equals(paths.get(key))) {
+                paths.remove(key);
+            }
+        }
+    }
+
+    private void removeDescendants(String path) {
+        String prefix = path + "/";
+        List<String> ids = new LinkedList<>();
+        for (Iterator<Map.Entry<String, String>> it = paths.entrySet()
+            .iterator(); it.hasNext();) {
+            Map.Entry<String, String> e = it.next();
+            if (e.getKey().startsWith(prefix)) {
+                ids.add(e.getValue());
+                it.remove();
+            }
+        }
+        for (String id : ids) {
+            Entry entry = items.remove(id);
+            if (entry != null) {
+                removeKeys(entry);
+            }
+        }
+    }
+
+    /**
+     * Cached item with its indexed keys and expiry
+     */
+    private static class Entry {
+
+        private final Item item;
+
+        private final String path;
+
+        private final Set<String> keys = new HashSet<>();
+
+        private long expires;
+
+        Entry(Item item, long expires) {
+            this.item = item;
+            this.path = (item.getParentReference() == null
+                         || item.getParentReference().getPath() == null)
+                             ? null : item.getAbsolutePath();
+            this.expires = expires;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.net.URL;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -73,10 +74,16 @@ public class ItemCollection implements ItemIterable {
 
     @Override
     public ItemIterator iterator() {
+        return iterator(0, null);
+    }
+
+    @Override
+    public ItemIterator iterator(int lookAhead, Executor executor) {
         if (api == null) {
             throw new IllegalStateException("OneDriveAPIConnection must be set");
         }
-        return new ItemIterator(api, this);
+        return new ItemIterator(new PageIterator<>(this, ItemIterator
+            .childrenLoader(api), lookAhead, executor));
     }
 
     @Override
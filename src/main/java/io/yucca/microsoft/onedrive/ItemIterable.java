@@ -15,8 +15,8 @@
  */
 package io.yucca.microsoft.onedrive;
 
-import java.net.URL;
 import java.util.Iterator;
+import java.util.concurrent.Executor;
 
 import io.yucca.microsoft.onedrive.resources.Item;
 
@@ -25,14 +25,7 @@ import io.yucca.microsoft.onedrive.resources.Item;
  * 
  * @author yucca.io
  */
-public interface ItemIterable extends Iterable<Item> {
-
-    /**
-     * Get the link to next page
-     * 
-     * @return URL
-     */
-    URL getNextLink();
+public interface ItemIterable extends Iterable<Item>, PagedCollection {
 
     /**
      * Get Iterator for the paged collection
@@ -42,6 +35,16 @@ public interface ItemIterable extends Iterable<Item> {
     @Override
     Iterator<Item> iterator();
 
+    /**
+     * Get Iterator for the paged collection, fetching up to lookAhead next
+     * pages in the background while the current page is consumed
+     * 
+     * @param lookAhead int maximum number of pages fetched ahead
+     * @param executor Executor fetching the pages
+     * @return ItemIterator
+     */
+    ItemIterator iterator(int lookAhead, Executor executor);
+
     /**
      * Get iterator for the inner Item collection
      * 
@@ -57,11 +60,4 @@ public interface ItemIterable extends Iterable<Item> {
      * @return ItemIterable
      */
     ItemIterable setApi(OneDriveAPIConnection api);
-
-    /**
-     * See if collection has a next page
-     * 
-     * @return boolean true
-     */
-    boolean hasNextCollection();
 }
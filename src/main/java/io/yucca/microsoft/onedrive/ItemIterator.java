@@ -15,7 +15,8 @@
  */
 package io.yucca.microsoft.onedrive;
 
-import java.net.URISyntaxException;
+import java.net.URI;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -23,27 +24,26 @@ import io.yucca.microsoft.onedrive.actions.ListChildrenAction;
 import io.yucca.microsoft.onedrive.resources.Item;
 
 /**
- * ItemIterator, allows iterating over an ItemIterable
+ * ItemIterator, allows iterating over the items of all pages of an
+ * ItemIterable. Pages are obtained from a {@link PageIterator}, which may
+ * fetch next pages in the background.
  * <p>
  * When the top parameter is set as query parameter on a view.search action,
  * then the second last page contains a nextLink URL. When loading this page
- * this contains zero items which hogs the iterating logic, because not valid
- * item can be returned and NoSuchElementException is thrown. This could be
- * circumvented by checking if the page is valid in hasNextCollection()
+ * this contains zero items. Therefore empty pages are skipped in hasNext(), so
+ * it only returns true if an item can be returned.
  * </p>
  * 
  * @author yucca.io
  */
-public class ItemIterator implements Iterator<Item> {
+public class ItemIterator implements Iterator<Item>, AutoCloseable {
 
-    private final OneDriveAPIConnection api;
+    private final PageIterator<? extends ItemIterable> pages;
 
-    private ItemIterable page;
-
-    private Iterator<Item> innerIterator;
+    private Iterator<Item> innerIterator = Collections.<Item> emptyIterator();
 
     /**
-     * Construct an ItemIterator
+     * Construct an ItemIterator, fetching next pages when requested
      * 
      * @param api OneDriveAPIConnection connection to the OneDrive API, used for
      *            fetching next pages
@@ -51,26 +51,34 @@ public class ItemIterator implements Iterator<Item> {
      */
     public ItemIterator(final OneDriveAPIConnection api,
                         final ItemIterable collection) {
-        if (api == null) {
-            throw new IllegalArgumentException("OneDriveAPIConnection is null");
-        }
-        if (collection == null) {
-            throw new IllegalArgumentException("ItemCollection is null");
+        this(new PageIterator<>(collection, childrenLoader(api)));
+    }
+
+    /**
+     * Construct an ItemIterator
+     * 
+     * @param pages PageIterator<? extends ItemIterable> iterator over the
+     *            pages
+     */
+    public ItemIterator(final PageIterator<? extends ItemIterable> pages) {
+        if (pages == null) {
+            throw new IllegalArgumentException("PageIterator is null");
         }
-        this.api = api;
-        this.page = collection;
-        this.innerIterator = collection.innerIterator();
+        this.pages = pages;
     }
 
     /**
-     * Determines if the collection has a next item or a link for the next page
-     * collection exists
+     * Determines if a next item exists, fetching next pages until one holding
+     * an item is found
      * 
      * @return boolean true if a next item exists
      */
     @Override
     public boolean hasNext() {
-        return innerIterator.hasNext() || page.hasNextCollection();
+        while (!innerIterator.hasNext() && pages.hasNext()) {
+            innerIterator = pages.next().innerIterator();
+        }
+        return innerIterator.hasNext();
     }
 
     /**
@@ -81,24 +89,18 @@ public class ItemIterator implements Iterator<Item> {
      */
     @Override
     public Item next() {
-        if (innerIterator.hasNext()) {
+        if (hasNext()) {
             return innerIterator.next();
-        } else if (page.hasNextCollection()) {
-            loadNextCollection(page);
-            return next();
         }
         throw new NoSuchElementException();
     }
 
-    private void loadNextCollection(final ItemIterable collection) {
-        try {
-            this.page = ListChildrenAction
-                .byURI(api, collection.getNextLink().toURI());
-        } catch (URISyntaxException e) {
-            throw new NoSuchElementException("URL for next collection is invalid. "
-                                             + e.getMessage());
-        }
-        this.innerIterator = page.innerIterator();
+    /**
+     * Stop fetching next pages
+     */
+    @Override
+    public void close() {
+        pages.close();
     }
 
     @Override
@@ -106,4 +108,22 @@ public class ItemIterator implements Iterator<Item> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * PageLoader fetching pages of children or search results
+     * 
+     * @param api OneDriveAPIConnection
+     * @return PageLoader<ItemIterable>
+     */
+    static PageLoader<ItemIterable> childrenLoader(final OneDriveAPIConnection api) {
+        if (api == null) {
+            throw new IllegalArgumentException("OneDriveAPIConnection is null");
+        }
+        return new PageLoader<ItemIterable>() {
+
+            @Override
+            public ItemIterable load(URI uri) {
+                return ListChildrenAction.byURI(api, uri);
+            }
+        };
+    }
 }
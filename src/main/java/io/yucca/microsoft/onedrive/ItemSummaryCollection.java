@@ -0,0 +1,201 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.yucca.microsoft.onedrive.resources.ItemSummary;
+
+/**
+ * ItemSummaryCollection, a page of item summaries as returned by a projected
+ * children listing or delta enumeration. Iterating the collection iterates
+ * the summaries of all pages, next pages are fetched as they are needed.
+ * 
+ * @author yucca.io
+ */
+public class ItemSummaryCollection
+    implements PagedCollection, Iterable<ItemSummary> {
+
+    @JsonIgnore
+    private PageLoader<ItemSummaryCollection> loader;
+
+    private List<ItemSummary> value;
+
+    @JsonProperty("@odata.nextLink")
+    private URL nextLink;
+
+    @JsonProperty("@odata.deltaLink")
+    private URL deltaLink;
+
+    @JsonProperty("@delta.token")
+    private String token;
+
+    public List<ItemSummary> getValue() {
+        return value;
+    }
+
+    public void setValue(List<ItemSummary> value) {
+        this.value = value;
+    }
+
+    @Override
+    public URL getNextLink() {
+        return nextLink;
+    }
+
+    public void setNextLink(URL nextLink) {
+        this.nextLink = nextLink;
+    }
+
+    /**
+     * Get the link to continue a delta enumeration, only set on the last page
+     * of a delta enumeration
+     * 
+     * @return URL
+     */
+    public URL getDeltaLink() {
+        return deltaLink;
+    }
+
+    public void setDeltaLink(URL deltaLink) {
+        this.deltaLink = deltaLink;
+    }
+
+    /**
+     * Get the token to continue a delta enumeration
+     * 
+     * @return String
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    @Override
+    public boolean hasNextCollection() {
+        return !(this.nextLink == null || this.nextLink.toString().isEmpty());
+    }
+
+    /**
+     * Inject the loader of next pages
+     * 
+     * @param loader PageLoader<ItemSummaryCollection>
+     * @return ItemSummaryCollection
+     */
+    @JsonIgnore
+    public ItemSummaryCollection setLoader(PageLoader<ItemSummaryCollection> loader) {
+        this.loader = loader;
+        return this;
+    }
+
+    /**
+     * Get an iterator over the pages, starting with this page. Up to
+     * lookAhead next pages are fetched in the background while the current
+     * page is processed.
+     * 
+     * @param lookAhead int maximum number of pages fetched ahead
+     * @param executor Executor fetching the pages
+     * @return PageIterator<ItemSummaryCollection>
+     */
+    public PageIterator<ItemSummaryCollection> pageIterator(int lookAhead,
+                                                            Executor executor) {
+        if (loader == null) {
+            throw new IllegalStateException("PageLoader must be set");
+        }
+        return new PageIterator<>(this, loader, lookAhead, executor);
+    }
+
+    /**
+     * Get an iterator over the summaries of all pages, next pages are fetched
+     * when requested
+     * 
+     * @return SummaryIterator
+     */
+    @Override
+    public SummaryIterator iterator() {
+        return new SummaryIterator(pageIterator(0, null));
+    }
+
+    /**
+     * Get an iterator over the summaries of all pages
+     * 
+     * @param lookAhead int maximum number of pages fetched ahead
+     * @param executor Executor fetching the pages
+     * @return SummaryIterator
+     */
+    public SummaryIterator iterator(int lookAhead, Executor executor) {
+        return new SummaryIterator(pageIterator(lookAhead, executor));
+    }
+
+    /**
+     * Iterator over the summaries of all pages, empty pages are skipped
+     */
+    public static class SummaryIterator
+        implements Iterator<ItemSummary>, AutoCloseable {
+
+        private final PageIterator<ItemSummaryCollection> pages;
+
+        private Iterator<ItemSummary> inner = Collections
+            .<ItemSummary> emptyIterator();
+
+        SummaryIterator(PageIterator<ItemSummaryCollection> pages) {
+            this.pages = pages;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!inner.hasNext() && pages.hasNext()) {
+                List<ItemSummary> page = pages.next().getValue();
+                if (page != null) {
+                    inner = page.iterator();
+                }
+            }
+            return inner.hasNext();
+        }
+
+        @Override
+        public ItemSummary next() {
+            if (hasNext()) {
+                return inner.next();
+            }
+            throw new NoSuchElementException();
+        }
+
+        /**
+         * Stop fetching next pages
+         */
+        @Override
+        public void close() {
+            pages.close();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import io.yucca.microsoft.onedrive.resources.Item;
+
+/**
+ * ItemVisitor receives the items found by the {@link TreeCrawler}. Items are
+ * delivered one at a time on the thread that started the crawl, so an
+ * implementation need not be thread-safe, while a slow visitor holds back the
+ * workers listing the folders.
+ * 
+ * @author yucca.io
+ */
+public interface ItemVisitor {
+
+    /**
+     * Result of a visit controlling the continuation of the crawl
+     */
+    enum VisitResult {
+        /**
+         * Continue, if the item is a folder its children are visited
+         */
+        CONTINUE,
+        /**
+         * Continue without visiting the children of the folder
+         */
+        SKIP_SUBTREE,
+        /**
+         * Stop the crawl
+         */
+        TERMINATE
+    }
+
+    /**
+     * Visit an item, the item only holds the properties selected for the
+     * crawl
+     * 
+     * @param item Item
+     * @return VisitResult
+     */
+    VisitResult visit(Item item);
+
+    /**
+     * Invoked when the children of a folder could not be listed
+     * 
+     * @param folder Item the folder
+     * @param e OneDriveException the failure
+     * @return VisitResult, {@link VisitResult#SKIP_SUBTREE} is equal to
+     *         {@link VisitResult#CONTINUE}
+     */
+    VisitResult visitFailed(Item folder, OneDriveException e);
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * JsonBody is a request body that writes itself to a JsonGenerator, so it is
+ * generated without building an intermediate map or String. A body nested in
+ * another value, i.e. a batch request, is serialized the same way.
+ * 
+ * @author yucca.io
+ */
+@JsonSerialize(using = JsonBody.Serializer.class)
+public interface JsonBody {
+
+    /**
+     * Write the body as a single JSON value
+     * 
+     * @param generator JsonGenerator
+     * @throws IOException if writing fails
+     */
+    void writeTo(JsonGenerator generator) throws IOException;
+
+    /**
+     * Serializer writing a JsonBody nested in another value
+     */
+    class Serializer extends JsonSerializer<JsonBody> {
+
+        @Override
+        public void serialize(JsonBody value, JsonGenerator generator,
+                              SerializerProvider provider)
+            throws IOException {
+            value.writeTo(generator);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.resources.OneDriveError;
+import io.yucca.microsoft.onedrive.resources.UploadSession;
+
+/**
+ * JsonCodec reads and writes the JSON of requests and responses. An
+ * ObjectReader and ObjectWriter is built once per type and reused, so the
+ * (de)serializers are not looked up for every entity. The readers for the
+ * common response types are built up front. Parsers and generators never
+ * close the underlying stream, which is owned by the caller.
+ * 
+ * @author yucca.io
+ */
+public class JsonCodec {
+
+    private static final Class<?>[] PREBUILT = new Class<?>[] { Item.class,
+                                                                ItemCollection.class,
+                                                                SyncResponse.class,
+                                                                ItemSummaryCollection.class,
+                                                                OneDriveError.class,
+                                                                UploadSession.class };
+
+    private final ObjectMapper mapper;
+
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * 
+     * @param mapper ObjectMapper configured as by
+     *            {@link ClientFactory#createMapper(com.fasterxml.jackson.databind.Module...)}
+     */
+    public JsonCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+        for (Class<?> type : PREBUILT) {
+            reader(type);
+        }
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Get the reader for a type
+     * 
+     * @param type Class<?>
+     * @return ObjectReader
+     */
+    public ObjectReader reader(Class<?> type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = mapper.reader(type);
+            ObjectReader current = readers.putIfAbsent(type, reader);
+            if (current != null) {
+                reader = current;
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Get the writer for a type
+     * 
+     * @param type Class<?>
+     * @return ObjectWriter
+     */
+    public ObjectWriter writer(Class<?> type) {
+        ObjectWriter writer = writers.get(type);
+        if (writer == null) {
+            writer = mapper.writerFor(type);
+            ObjectWriter current = writers.putIfAbsent(type, writer);
+            if (current != null) {
+                writer = current;
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Read a value from a stream, the stream is not closed
+     * 
+     * @param in InputStream
+     * @param type Class<T> type of value
+     * @return T value or {@code null} if the stream is empty
+     * @throws IOException if reading or mapping fails
+     */
+    public <T> T read(InputStream in, Class<T> type) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() == null) {
+                return null;
+            }
+            return reader(type).readValue(parser);
+        }
+    }
+
+    /**
+     * Write a value to a stream, the stream is not closed
+     * 
+     * @param value Object
+     * @param out OutputStream
+     * @throws IOException if writing fails
+     */
+    public void write(Object value, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            writer(value.getClass()).writeValue(generator, value);
+        }
+    }
+
+    /**
+     * Write a body to a stream, the stream is not closed
+     * 
+     * @param body JsonBody
+     * @param out OutputStream
+     * @throws IOException if writing fails
+     */
+    public void write(JsonBody body, OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            body.writeTo(generator);
+        }
+    }
+
+    /**
+     * Generate a body as bytes
+     * 
+     * @param body JsonBody
+     * @return byte[] JSON
+     * @throws OneDriveException if writing fails
+     */
+    public byte[] toBytes(JsonBody body) {
+        ByteArrayBuilder bytes = new ByteArrayBuilder(mapper.getFactory()
+            ._getBufferRecycler());
+        try {
+            write(body, bytes);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new OneDriveException("Failure mapping to JSON", e);
+        } finally {
+            bytes.release();
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out)
+        throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+}
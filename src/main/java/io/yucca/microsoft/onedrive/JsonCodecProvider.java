@@ -0,0 +1,77 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+
+/**
+ * JacksonJaxbJsonProvider reading and writing entities of non-generic types
+ * by the {@link JsonCodec}, entities of generic types are handled by the
+ * default provider. {@link JsonBody} entities are generated directly onto the
+ * entity stream.
+ * 
+ * @author yucca.io
+ */
+public class JsonCodecProvider extends JacksonJaxbJsonProvider {
+
+    private final JsonCodec codec;
+
+    /**
+     * Constructor
+     * 
+     * @param codec JsonCodec
+     */
+    public JsonCodecProvider(JsonCodec codec) {
+        this.codec = codec;
+        setMapper(codec.getMapper());
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType,
+                           Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders,
+                           InputStream entityStream) throws IOException {
+        if (genericType != null && !type.equals(genericType)) {
+            return super.readFrom(type, genericType, annotations, mediaType,
+                                  httpHeaders, entityStream);
+        }
+        return codec.read(entityStream, type);
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType,
+                        Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        if (value instanceof JsonBody) {
+            codec.write((JsonBody)value, entityStream);
+        } else if (genericType != null && !type.equals(genericType)) {
+            super.writeTo(value, type, genericType, annotations, mediaType,
+                          httpHeaders, entityStream);
+        } else {
+            codec.write(value, entityStream);
+        }
+    }
+}
@@ -17,7 +17,9 @@ package io.yucca.microsoft.onedrive;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import io.yucca.microsoft.onedrive.actions.BatchAction;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
 import io.yucca.microsoft.onedrive.resources.Drive;
@@ -118,6 +120,17 @@ public interface OneDrive {
      */
     Collection<OneDriveItem> listChildren();
 
+    /**
+     * Stream the children in this drive, pages are fetched while the stream is
+     * consumed. Set the top parameter as page size hint, i.e. to the number of
+     * items to be shown.
+     * 
+     * @param parameters QueryParameters optional parameter to influence the way
+     *            the result is returned
+     * @return Stream<OneDriveItem> lazy stream of children
+     */
+    Stream<OneDriveItem> streamChildren(QueryParameters parameters);
+
     /**
      * Search for items in this drive matching the query
      * 
@@ -128,6 +141,17 @@ public interface OneDrive {
      */
     List<OneDriveItem> search(String query, QueryParameters parameters);
 
+    /**
+     * Stream the items in this drive matching the query, pages are fetched while
+     * the stream is consumed. Set the top parameter as page size hint.
+     * 
+     * @param query String search query
+     * @param parameters QueryParameters optional parameter to influence the way
+     *            the result is returned
+     * @return Stream<OneDriveItem> lazy stream of results
+     */
+    Stream<OneDriveItem> streamSearch(String query, QueryParameters parameters);
+
     /**
      * Upload the content into the drive root
      * 
@@ -147,6 +171,14 @@ public interface OneDrive {
      */
     OneDriveItem upload(OneDriveContent content);
 
+    /**
+     * Start a batch of metadata requests, which are executed in as few round
+     * trips as possible by {@link BatchAction#call()}
+     * 
+     * @return BatchAction.Builder
+     */
+    BatchAction.Builder newBatch();
+
     /**
      * Get the address for the drive
      * 
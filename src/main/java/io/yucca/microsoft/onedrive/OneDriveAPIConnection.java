@@ -75,4 +75,34 @@ public interface OneDriveAPIConnection {
      */
     ObjectMapper getMapper();
 
+    /**
+     * Get the JsonCodec reading and writing entities with the ObjectMapper
+     * 
+     * @return JsonCodec
+     */
+    JsonCodec getCodec();
+
+    /**
+     * Get the pool of HTTP connections, providing statistics on leased,
+     * available and pending connections
+     * 
+     * @return ConnectionPool
+     */
+    ConnectionPool getConnectionPool();
+
+    /**
+     * Get the cache of item metadata shared by the items using this connection
+     * 
+     * @return ItemCache
+     */
+    ItemCache getItemCache();
+
+    /**
+     * Get the resolver of path addresses to identifier addresses shared by the
+     * items using this connection
+     * 
+     * @return PathResolver
+     */
+    PathResolver getPathResolver();
+
 }
@@ -27,8 +27,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
-import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
 
 import io.yucca.microsoft.onedrive.util.JulFacade;
 
@@ -53,6 +51,14 @@ public class OneDriveAPIConnectionImpl
 
     private ObjectMapper mapper;
 
+    private JsonCodec codec;
+
+    private ConnectionPool pool;
+
+    private ItemCache cache;
+
+    private PathResolver resolver;
+
     private OneDriveSession session;
 
     /**
@@ -76,9 +82,13 @@ public class OneDriveAPIConnectionImpl
      */
     private void initialiseClient() {
         LOG.info("Initializing Jersey client");
-        JacksonJsonProvider jacksonProvider = new JacksonJaxbJsonProvider();
-        this.mapper = ClientFactory.createMapper(jacksonProvider);
-        this.client = ClientFactory.create(configuration, jacksonProvider);
+        this.codec = new JsonCodec(ClientFactory.createMapper());
+        this.mapper = codec.getMapper();
+        this.pool = new ConnectionPool(configuration);
+        this.cache = new ItemCache(configuration);
+        this.resolver = new PathResolver(configuration);
+        this.client = ClientFactory.create(configuration, pool,
+                                           new JsonCodecProvider(codec));
         this.session = new OneDriveSession(configuration, client);
         if (configuration.isDebugLogging()) {
             this.client.register(new LoggingFilter(new JulFacade(LOG), true));
@@ -107,6 +117,9 @@ public class OneDriveAPIConnectionImpl
 
     @Override
     public void close() {
+        if (session != null) {
+            session.close();
+        }
         if (client != null) {
             client.close();
         }
@@ -122,4 +135,24 @@ public class OneDriveAPIConnectionImpl
         return mapper;
     }
 
+    @Override
+    public JsonCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    @Override
+    public ItemCache getItemCache() {
+        return cache;
+    }
+
+    @Override
+    public PathResolver getPathResolver() {
+        return resolver;
+    }
+
 }
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+/**
+ * OneDriveAsync provides non-blocking operations on items in a drive. Requests
+ * are sent by the asynchronous invoker of the client, results are completed on
+ * the executor supplied by the caller. Failures complete the future
+ * exceptionally with a {@link OneDriveException}.
+ *
+ * @author yucca.io
+ */
+public interface OneDriveAsync {
+
+    /**
+     * Get item metadata
+     * 
+     * @param address ItemAddress address of item
+     * @return CompletableFuture<Item>
+     */
+    CompletableFuture<Item> metadata(ItemAddress address);
+
+    /**
+     * Get item metadata
+     * 
+     * @param address ItemAddress address of item
+     * @param eTag String optional etag of the cached item, if it matches the
+     *            future completes with {@link NotModifiedException}
+     * @param parameters QueryParameters optional parameter to influence the way
+     *            the result is returned
+     * @return CompletableFuture<Item>
+     */
+    CompletableFuture<Item> metadata(ItemAddress address, String eTag,
+                                     QueryParameters parameters);
+
+    /**
+     * List children in a folder, only the first collection is requested
+     * asynchronously, following collections are requested while iterating
+     * 
+     * @param address ItemAddress address of folder
+     * @param parameters QueryParameters optional parameter to influence the way
+     *            the result is returned
+     * @return CompletableFuture<ItemIterable>
+     */
+    CompletableFuture<ItemIterable> listChildren(ItemAddress address,
+                                                 QueryParameters parameters);
+
+    /**
+     * Upload content into a folder
+     * 
+     * @param content OneDriveContent
+     * @param parentAddress ItemAddress address of parent folder
+     * @param behavior ConflictBehavior behaviour if a naming conflict occurs,
+     *            if {@code null} then defaults to {@link ConflictBehavior#FAIL}
+     * @return CompletableFuture<Item> uploaded item
+     */
+    CompletableFuture<Item> upload(OneDriveContent content,
+                                   ItemAddress parentAddress,
+                                   ConflictBehavior behavior);
+
+    /**
+     * Download item content, the content must be closed after reading
+     * 
+     * @param address ItemAddress address of item
+     * @return CompletableFuture<OneDriveContent>
+     */
+    CompletableFuture<OneDriveContent> download(ItemAddress address);
+
+    /**
+     * Copy an item to a folder
+     * 
+     * @param address ItemAddress address of item
+     * @param name String optional new name of copied item, if {@code null} the
+     *            original name is used
+     * @param parentAddress ItemAddress address of parent folder
+     * @return CompletableFuture<URI> location of the asynchronous copy job,
+     *         used in polling
+     */
+    CompletableFuture<URI> copy(ItemAddress address, String name,
+                                ItemAddress parentAddress);
+
+    /**
+     * Move an item to a folder
+     * 
+     * @param address ItemAddress address of item
+     * @param name String optional new name of moved item, if {@code null} the
+     *            original name is used
+     * @param parentAddress ItemAddress address of parent folder
+     * @return CompletableFuture<Item> moved item
+     */
+    CompletableFuture<Item> move(ItemAddress address, String name,
+                                 ItemAddress parentAddress);
+
+    /**
+     * Delete an item
+     * 
+     * @param address ItemAddress address of item
+     * @param eTag String optional etag of the cached item, if set it must match
+     *            the remote item for deletion to succeed
+     * @return CompletableFuture<Void>
+     */
+    CompletableFuture<Void> delete(ItemAddress address, String eTag);
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.yucca.microsoft.onedrive.actions.CopyAction;
+import io.yucca.microsoft.onedrive.actions.DeleteAction;
+import io.yucca.microsoft.onedrive.actions.DownloadAction;
+import io.yucca.microsoft.onedrive.actions.ListChildrenAction;
+import io.yucca.microsoft.onedrive.actions.MetadataAction;
+import io.yucca.microsoft.onedrive.actions.MoveAction;
+import io.yucca.microsoft.onedrive.actions.UploadAction;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+/**
+ * OneDriveAsync implementation based on the asynchronous actions
+ *
+ * @author yucca.io
+ */
+public class OneDriveAsyncImpl implements OneDriveAsync {
+
+    private final OneDriveAPIConnection api;
+
+    private final Executor executor;
+
+    /**
+     * Constructor
+     * 
+     * @param api OneDriveAPIConnection connection to the OneDrive API
+     * @param executor Executor on which responses are handled and futures are
+     *            completed, dependent stages without an executor run here as
+     *            well
+     */
+    public OneDriveAsyncImpl(OneDriveAPIConnection api, Executor executor) {
+        this.api = api;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Item> metadata(ItemAddress address) {
+        return new MetadataAction(api, address).submit(executor);
+    }
+
+    @Override
+    public CompletableFuture<Item> metadata(ItemAddress address, String eTag,
+                                            QueryParameters parameters) {
+        return new MetadataAction(api, address, eTag, parameters)
+            .submit(executor);
+    }
+
+    @Override
+    public CompletableFuture<ItemIterable> listChildren(ItemAddress address,
+                                                        QueryParameters parameters) {
+        return new ListChildrenAction(api, address, null, parameters)
+            .submit(executor);
+    }
+
+    @Override
+    public CompletableFuture<Item> upload(OneDriveContent content,
+                                          ItemAddress parentAddress,
+                                          ConflictBehavior behavior) {
+        return new UploadAction(api, content, parentAddress,
+                                behavior == null ? ConflictBehavior.FAIL
+                                                 : behavior).submit(executor);
+    }
+
+    @Override
+    public CompletableFuture<OneDriveContent> download(ItemAddress address) {
+        return new DownloadAction(api, address).submit(executor);
+    }
+
+    @Override
+    public CompletableFuture<URI> copy(ItemAddress address, String name,
+                                       ItemAddress parentAddress) {
+        return new CopyAction(api, address, name, parentAddress)
+            .submit(executor);
+    }
+
+    @Override
+    public CompletableFuture<Item> move(ItemAddress address, String name,
+                                        ItemAddress parentAddress) {
+        return new MoveAction(api, address, name, parentAddress)
+            .submit(executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(ItemAddress address, String eTag) {
+        return new DeleteAction(api, address, eTag).submit(executor);
+    }
+
+}
@@ -28,6 +28,36 @@ public class OneDriveConfiguration {
 
     public static final boolean DEBUG_LOGGING_DEFAULT = false;
 
+    public static final int MAX_CONNECTIONS_DEFAULT = 100;
+
+    public static final int MAX_API_CONNECTIONS_DEFAULT = 20;
+
+    public static final int MAX_CONTENT_CONNECTIONS_DEFAULT = 20;
+
+    public static final int KEEP_ALIVE_DEFAULT = 60000;
+
+    public static final int IDLE_TIMEOUT_DEFAULT = 30000;
+
+    public static final int VALIDATE_AFTER_INACTIVITY_DEFAULT = 2000;
+
+    public static final int LEAK_DETECTION_THRESHOLD_DEFAULT = 0;
+
+    public static final int METADATA_CACHE_SIZE_DEFAULT = 10000;
+
+    public static final int METADATA_CACHE_TTL_DEFAULT = 0;
+
+    public static final int PATH_CACHE_SIZE_DEFAULT = 100000;
+
+    public static final int TOKEN_RENEWAL_MARGIN_DEFAULT = 300000;
+
+    public static final int THROTTLE_RATE_DEFAULT = 10;
+
+    public static final int MAX_RETRIES_DEFAULT = 5;
+
+    public static final int MAX_BACKOFF_DEFAULT = 60000;
+
+    public static final int TRANSFER_CONCURRENCY_DEFAULT = 4;
+
     private final String configurationFile;
 
     private String clientId;
@@ -46,6 +76,36 @@ public class OneDriveConfiguration {
 
     private boolean debugLogging = DEBUG_LOGGING_DEFAULT;
 
+    private int maxConnections = MAX_CONNECTIONS_DEFAULT;
+
+    private int maxApiConnections = MAX_API_CONNECTIONS_DEFAULT;
+
+    private int maxContentConnections = MAX_CONTENT_CONNECTIONS_DEFAULT;
+
+    private int keepAlive = KEEP_ALIVE_DEFAULT;
+
+    private int idleTimeout = IDLE_TIMEOUT_DEFAULT;
+
+    private int validateAfterInactivity = VALIDATE_AFTER_INACTIVITY_DEFAULT;
+
+    private int leakDetectionThreshold = LEAK_DETECTION_THRESHOLD_DEFAULT;
+
+    private int metadataCacheSize = METADATA_CACHE_SIZE_DEFAULT;
+
+    private int metadataCacheTtl = METADATA_CACHE_TTL_DEFAULT;
+
+    private int pathCacheSize = PATH_CACHE_SIZE_DEFAULT;
+
+    private int tokenRenewalMargin = TOKEN_RENEWAL_MARGIN_DEFAULT;
+
+    private int throttleRate = THROTTLE_RATE_DEFAULT;
+
+    private int maxRetries = MAX_RETRIES_DEFAULT;
+
+    private int maxBackoff = MAX_BACKOFF_DEFAULT;
+
+    private int transferConcurrency = TRANSFER_CONCURRENCY_DEFAULT;
+
     public OneDriveConfiguration(String configurationFile) {
         this.configurationFile = configurationFile;
     }
@@ -114,6 +174,126 @@ public class OneDriveConfiguration {
         this.debugLogging = debugLogging;
     }
 
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxApiConnections() {
+        return maxApiConnections;
+    }
+
+    public void setMaxApiConnections(int maxApiConnections) {
+        this.maxApiConnections = maxApiConnections;
+    }
+
+    public int getMaxContentConnections() {
+        return maxContentConnections;
+    }
+
+    public void setMaxContentConnections(int maxContentConnections) {
+        this.maxContentConnections = maxContentConnections;
+    }
+
+    public int getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(int keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(int idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    public void setValidateAfterInactivity(int validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    public int getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    public void setLeakDetectionThreshold(int leakDetectionThreshold) {
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    public int getMetadataCacheSize() {
+        return metadataCacheSize;
+    }
+
+    public void setMetadataCacheSize(int metadataCacheSize) {
+        this.metadataCacheSize = metadataCacheSize;
+    }
+
+    public int getMetadataCacheTtl() {
+        return metadataCacheTtl;
+    }
+
+    public void setMetadataCacheTtl(int metadataCacheTtl) {
+        this.metadataCacheTtl = metadataCacheTtl;
+    }
+
+    public int getPathCacheSize() {
+        return pathCacheSize;
+    }
+
+    public void setPathCacheSize(int pathCacheSize) {
+        this.pathCacheSize = pathCacheSize;
+    }
+
+    public int getTokenRenewalMargin() {
+        return tokenRenewalMargin;
+    }
+
+    public void setTokenRenewalMargin(int tokenRenewalMargin) {
+        this.tokenRenewalMargin = tokenRenewalMargin;
+    }
+
+    public int getThrottleRate() {
+        return throttleRate;
+    }
+
+    public void setThrottleRate(int throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public int getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(int maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public int getTransferConcurrency() {
+        return transferConcurrency;
+    }
+
+    public void setTransferConcurrency(int transferConcurrency) {
+        this.transferConcurrency = transferConcurrency;
+    }
+
     public String getConfigurationFile() {
         return configurationFile;
     }
@@ -45,7 +45,11 @@ public class OneDriveContentMessageBodyWriter
     @Override
     public long getSize(OneDriveContent t, Class<?> type, Type genericType,
                         Annotation[] annotations, MediaType mediaType) {
-        return 0;
+        try {
+            return t.getLength();
+        } catch (IOException e) {
+            return -1;
+        }
     }
 
     @Override
@@ -55,7 +59,6 @@ public class OneDriveContentMessageBodyWriter
                         OutputStream entityStream) throws IOException {
         InputStreamingOutput iso = new InputStreamingOutput(t.getInputStream());
         iso.write(entityStream);
-
     }
 
 }
@@ -17,6 +17,7 @@ package io.yucca.microsoft.onedrive;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
@@ -101,6 +102,27 @@ public interface OneDriveFolder extends OneDriveItem {
      */
     Collection<OneDriveItem> listChildren(QueryParameters parameters);
 
+    /**
+     * Stream the children in this folder, pages are fetched while the stream is
+     * consumed. Set the top parameter as page size hint, i.e. to the number of
+     * items to be shown.
+     * 
+     * @param parameters QueryParameters optional parameter to influence the way
+     *            the result is returned
+     * @return Stream<OneDriveItem> lazy stream of children
+     */
+    Stream<OneDriveItem> streamChildren(QueryParameters parameters);
+
+    /**
+     * Crawl the tree below this folder breadth-first, delivering every item to
+     * the visitor
+     * 
+     * @param visitor ItemVisitor receiving the items on the calling thread
+     * @param select String[] properties to retrieve for each item
+     * @see TreeCrawler
+     */
+    void crawl(ItemVisitor visitor, String... select);
+
     /**
      * Delete this folder and (recursively) all the children contents
      */
@@ -160,6 +182,17 @@ public interface OneDriveFolder extends OneDriveItem {
      */
     List<OneDriveItem> search(String query, QueryParameters parameters);
 
+    /**
+     * Stream the items in this folder matching the query, pages are fetched while
+     * the stream is consumed. Set the top parameter as page size hint.
+     * 
+     * @param query String search query
+     * @param parameters QueryParameters optional parameter to influence the way
+     *            the result is returned
+     * @return Stream<OneDriveItem> lazy stream of results
+     */
+    Stream<OneDriveItem> streamSearch(String query, QueryParameters parameters);
+
     /**
      * Upload the content into this folder
      * 
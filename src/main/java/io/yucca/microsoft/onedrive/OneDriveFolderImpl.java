@@ -15,14 +15,15 @@
  */
 package io.yucca.microsoft.onedrive;
 
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import io.yucca.microsoft.onedrive.actions.CopyAction;
 import io.yucca.microsoft.onedrive.actions.CreateAction;
 import io.yucca.microsoft.onedrive.actions.ListChildrenAction;
-import io.yucca.microsoft.onedrive.actions.MetadataAction;
 import io.yucca.microsoft.onedrive.actions.MoveAction;
 import io.yucca.microsoft.onedrive.actions.PollAction;
 import io.yucca.microsoft.onedrive.actions.SearchAction;
@@ -87,24 +88,46 @@ public class OneDriveFolderImpl extends OneDriveItemImpl
 
     @Override
     public OneDriveFolder getFolder(ItemAddress address) {
-        MetadataAction action = new MetadataAction(api, address, getEtag());
-        return new OneDriveFolderImpl(api, action.call());
+        return new OneDriveFolderImpl(api, api.getItemCache()
+            .metadata(api, address));
     }
 
     @Override
     public OneDriveFolder getFolder(String path) {
-        return getFolder(new PathAddress(getItem(), path));
+        return getFolder(descendantAddress(path));
     }
 
     @Override
     public OneDriveItem getItem(ItemAddress address) {
-        MetadataAction action = new MetadataAction(api, address, getEtag());
-        return new OneDriveItemImpl(api, action.call());
+        return new OneDriveItemImpl(api, api.getItemCache()
+            .metadata(api, address));
     }
 
     @Override
     public OneDriveItem getItem(String path) {
-        return getItem(new PathAddress(getItem(), path));
+        return getItem(descendantAddress(path));
+    }
+
+    /**
+     * Build the address of an item below this folder. The path of this folder
+     * is taken from its item or the path resolver, only if both are unknown
+     * the folder metadata is requested
+     * 
+     * @param path String path relative to this folder
+     * @return ItemAddress
+     */
+    private ItemAddress descendantAddress(String path) {
+        if (item == null) {
+            String folderPath = api.getPathResolver().getPath(itemId);
+            if (folderPath != null) {
+                String relative = folderPath.replaceAll("/drive/root:\\/?",
+                                                        "");
+                return new PathAddress(relative.isEmpty() ? path
+                                                          : relative + "/"
+                                                            + path);
+            }
+        }
+        return new PathAddress(item == null ? getItem() : item, path);
     }
 
     @Override
@@ -118,6 +141,18 @@ public class OneDriveFolderImpl extends OneDriveItemImpl
         return children;
     }
 
+    @Override
+    public Stream<OneDriveItem> streamChildren(QueryParameters parameters) {
+        ListChildrenAction action = new ListChildrenAction(api, getAddress(),
+                                                           null, parameters);
+        return OneDriveItemFactory.stream(api, action.call());
+    }
+
+    @Override
+    public void crawl(ItemVisitor visitor, String... select) {
+        new TreeCrawler(api).crawl(getAddress(), visitor, select);
+    }
+
     @Override
     public void delete() {
         super.delete();
@@ -128,6 +163,16 @@ public class OneDriveFolderImpl extends OneDriveItemImpl
         throw new UnsupportedOperationException("download is not supported for a item type: folder");
     }
 
+    @Override
+    public Path download(Path target) {
+        throw new UnsupportedOperationException("download is not supported for a item type: folder");
+    }
+
+    @Override
+    public Path download(Path target, int parallelism) {
+        throw new UnsupportedOperationException("download is not supported for a item type: folder");
+    }
+
     @Override
     public OneDriveFolder move(OneDriveFolder destination) {
         MoveAction action = new MoveAction(api, getAddress(), null,
@@ -166,6 +211,14 @@ public class OneDriveFolderImpl extends OneDriveItemImpl
         return children;
     }
 
+    @Override
+    public Stream<OneDriveItem> streamSearch(String query,
+                                             QueryParameters parameters) {
+        SearchAction action = new SearchAction(api, getAddress(), query,
+                                               parameters);
+        return OneDriveItemFactory.stream(api, action.call());
+    }
+
     @Override
     public OneDriveItem upload(OneDriveContent content,
                                ConflictBehavior behavior) {
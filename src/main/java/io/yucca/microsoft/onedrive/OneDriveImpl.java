@@ -18,11 +18,12 @@ package io.yucca.microsoft.onedrive;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Stream;
 
+import io.yucca.microsoft.onedrive.actions.BatchAction;
 import io.yucca.microsoft.onedrive.actions.CreateAction;
 import io.yucca.microsoft.onedrive.actions.DriveAction;
 import io.yucca.microsoft.onedrive.actions.ListChildrenAction;
-import io.yucca.microsoft.onedrive.actions.MetadataAction;
 import io.yucca.microsoft.onedrive.actions.SearchAction;
 import io.yucca.microsoft.onedrive.actions.SpecialFolderAction;
 import io.yucca.microsoft.onedrive.actions.UploadAction;
@@ -109,8 +110,8 @@ public class OneDriveImpl implements OneDrive {
 
     @Override
     public OneDriveFolder getRootFolder() {
-        MetadataAction action = new MetadataAction(api, getAddress());
-        return new OneDriveFolderImpl(api, action.call());
+        return new OneDriveFolderImpl(api, api.getItemCache()
+            .metadata(api, getAddress()));
     }
 
     @Override
@@ -123,8 +124,8 @@ public class OneDriveImpl implements OneDrive {
 
     @Override
     public OneDriveFolder getFolder(ItemAddress address) {
-        MetadataAction action = new MetadataAction(api, address);
-        return new OneDriveFolderImpl(api, action.call());
+        return new OneDriveFolderImpl(api, api.getItemCache()
+            .metadata(api, address));
     }
 
     @Override
@@ -134,8 +135,8 @@ public class OneDriveImpl implements OneDrive {
 
     @Override
     public OneDriveItem getItem(ItemAddress address) {
-        MetadataAction action = new MetadataAction(api, address);
-        return new OneDriveItemImpl(api, action.call());
+        return new OneDriveItemImpl(api, api.getItemCache()
+            .metadata(api, address));
     }
 
     @Override
@@ -158,6 +159,12 @@ public class OneDriveImpl implements OneDrive {
         return listChildren(null);
     }
 
+    @Override
+    public Stream<OneDriveItem> streamChildren(QueryParameters parameters) {
+        ListChildrenAction action = new ListChildrenAction(api, parameters);
+        return OneDriveItemFactory.stream(api, action.call());
+    }
+
     @Override
     public List<OneDriveItem> search(String query, QueryParameters parameters) {
         List<OneDriveItem> children = new LinkedList<>();
@@ -169,6 +176,14 @@ public class OneDriveImpl implements OneDrive {
         return children;
     }
 
+    @Override
+    public Stream<OneDriveItem> streamSearch(String query,
+                                             QueryParameters parameters) {
+        SearchAction action = new SearchAction(api, getAddress(), query,
+                                               parameters);
+        return OneDriveItemFactory.stream(api, action.call());
+    }
+
     @Override
     public OneDriveItem upload(OneDriveContent content,
                                ConflictBehavior behavior) {
@@ -182,6 +197,11 @@ public class OneDriveImpl implements OneDrive {
         return upload(content, ConflictBehavior.FAIL);
     }
 
+    @Override
+    public BatchAction.Builder newBatch() {
+        return BatchAction.Builder.newBatch(api);
+    }
+
     @Override
     public ItemAddress getAddress() {
         return new RootAddress();
@@ -15,6 +15,8 @@
  */
 package io.yucca.microsoft.onedrive;
 
+import java.nio.file.Path;
+
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.resources.Item;
 import io.yucca.microsoft.onedrive.resources.SpecialFolder;
@@ -48,6 +50,28 @@ public interface OneDriveItem {
      */
     OneDriveContent download();
 
+    /**
+     * Download the content into a file, an interrupted download is resumed
+     * from the last checkpoint
+     * 
+     * @param target Path file to which content is written, an existing file
+     *            is replaced when the download completes
+     * @return Path target file
+     */
+    Path download(Path target);
+
+    /**
+     * Download the content into a file, fetching multiple byte ranges
+     * concurrently
+     * 
+     * @param target Path file to which content is written, an existing file
+     *            is overwritten
+     * @param parallelism int maximum number of ranges downloaded at the same
+     *            time
+     * @return Path target file
+     */
+    Path download(Path target, int parallelism);
+
     /**
      * Move this item to the destination folder
      * 
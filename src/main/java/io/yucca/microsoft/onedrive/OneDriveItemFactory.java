@@ -15,6 +15,12 @@
  */
 package io.yucca.microsoft.onedrive;
 
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import io.yucca.microsoft.onedrive.resources.Item;
 
 /**
@@ -48,4 +54,45 @@ public final class OneDriveItemFactory {
                                         + item.getName());
         }
     }
+
+    /**
+     * Construct a lazy Stream of OneDriveItems over a paged collection. Items
+     * are created as they are consumed and next pages are only fetched when
+     * the items of the current page are consumed, so a short-circuiting
+     * operation like limit() or findFirst() stops fetching pages. Closing the
+     * stream stops fetching pages ahead.
+     * 
+     * @param api OneDriveAPIConnection connection to the OneDrive API
+     * @param collection ItemIterable first page of the collection
+     * @return Stream<OneDriveItem>
+     */
+    public static Stream<OneDriveItem> stream(final OneDriveAPIConnection api,
+                                              ItemIterable collection) {
+        final ItemIterator items = collection.iterator(0, null);
+        Iterator<OneDriveItem> iterator = new Iterator<OneDriveItem>() {
+
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public OneDriveItem next() {
+                return newInstance(api, items.next());
+            }
+        };
+        return StreamSupport
+            .stream(Spliterators
+                .spliteratorUnknownSize(iterator,
+                                        Spliterator.ORDERED
+                                                  | Spliterator.NONNULL),
+                    false)
+            .onClose(new Runnable() {
+
+                @Override
+                public void run() {
+                    items.close();
+                }
+            });
+    }
 }
@@ -15,12 +15,16 @@
  */
 package io.yucca.microsoft.onedrive;
 
+import java.nio.file.Path;
+
 import io.yucca.microsoft.onedrive.actions.CopyAction;
 import io.yucca.microsoft.onedrive.actions.DeleteAction;
 import io.yucca.microsoft.onedrive.actions.DownloadAction;
 import io.yucca.microsoft.onedrive.actions.MetadataAction;
 import io.yucca.microsoft.onedrive.actions.MoveAction;
 import io.yucca.microsoft.onedrive.actions.PollAction;
+import io.yucca.microsoft.onedrive.actions.RangedDownloadAction;
+import io.yucca.microsoft.onedrive.actions.ResumableDownloadAction;
 import io.yucca.microsoft.onedrive.actions.UpdateAction;
 import io.yucca.microsoft.onedrive.addressing.IdAddress;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
@@ -92,6 +96,18 @@ public class OneDriveItemImpl implements OneDriveItem {
         return new DownloadAction(api, getAddress()).call();
     }
 
+    @Override
+    public Path download(Path target) {
+        return new ResumableDownloadAction(api, getAddress(), target).call();
+    }
+
+    @Override
+    public Path download(Path target, int parallelism) {
+        return new RangedDownloadAction(api, getItem(), target,
+                                        RangedDownloadAction.FRAGMENTSIZE_10MB,
+                                        parallelism).call();
+    }
+
     @Override
     public OneDriveItem move(OneDriveFolder destination) {
         MoveAction action = new MoveAction(api, getAddress(), null,
@@ -115,10 +131,8 @@ public class OneDriveItemImpl implements OneDriveItem {
 
     @Override
     public void rename(String name) {
-        Item changed = item;
-        if (item == null) {
-            changed = new Item(itemId);
-        }
+        // only the name is sent, other properties are left untouched
+        Item changed = new Item(itemId);
         changed.setName(name);
         this.item = new UpdateAction(api, changed).call();
     }
@@ -130,6 +144,11 @@ public class OneDriveItemImpl implements OneDriveItem {
 
     @Override
     public Item getItem() {
+        ItemCache cache = api.getItemCache();
+        if (cache.isEnabled()) {
+            this.item = cache.metadata(api, getAddress());
+            return item;
+        }
         try {
             MetadataAction action = new MetadataAction(api, getAddress(),
                                                        getEtag(), null);
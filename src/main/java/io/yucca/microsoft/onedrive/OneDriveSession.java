@@ -15,12 +15,25 @@
  */
 package io.yucca.microsoft.onedrive;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.LinkedHashMap;
 import java.util.Map;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.Priorities;
 import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -85,6 +98,13 @@ public class OneDriveSession {
      */
     public static final String ONEDRIVE_OAUTH20_LOGOUT = "https://login.live.com/oauth20_logout.srf?client_id={client_id}&redirect_uri={redirect_uri}";
 
+    private static final String BEARER = "Bearer ";
+
+    /**
+     * Seconds to wait for background tasks on close
+     */
+    private static final int CLOSE_TIMEOUT = 10;
+
     /**
      * Default authentication scopes
      */
@@ -107,13 +127,27 @@ public class OneDriveSession {
 
     private final OneDriveConfiguration configuration;
 
+    private final long renewalMargin;
+
+    /**
+     * Refresh in flight, shared by all threads needing a new accessToken
+     */
+    private final AtomicReference<CompletableFuture<Token>> refreshing = new AtomicReference<>();
+
+    /**
+     * RefreshToken not yet written to the configuration file
+     */
+    private final AtomicReference<String> unsaved = new AtomicReference<>();
+
+    private final ScheduledThreadPoolExecutor executor;
+
     private OAuth2CodeGrantFlow flow;
 
     private String state;
 
-    private TokenResult accessToken;
+    private volatile Token token;
 
-    private long lastRefresh;
+    private ScheduledFuture<?> renewal;
 
     /**
      * Construct an OneDriveSession
@@ -122,15 +156,42 @@ public class OneDriveSession {
      * @param client Client used to connect to the OneDrive API
      */
     public OneDriveSession(OneDriveConfiguration configuration, Client client) {
+        this(configuration, client, null);
+    }
+
+    /**
+     * Construct an OneDriveSession using the given authorization flow
+     * 
+     * @param configuration OneDriveConfiguration
+     * @param client Client used to connect to the OneDrive API
+     * @param flow OAuth2CodeGrantFlow, if null the OneDrive flow is build
+     */
+    OneDriveSession(OneDriveConfiguration configuration, Client client,
+                    OAuth2CodeGrantFlow flow) {
         LOG.info("Initializing OneDrive session");
         this.configuration = configuration;
         this.client = client;
+        this.flow = flow;
         this.clientId = configuration.getClientId();
         this.clientSecret = configuration.getClientSecret();
         this.clientIdentifier = new ClientIdentifier(clientId, clientSecret);
         this.authorizationCode = configuration.getAuthorizationCode();
         this.scope = DEFAULT_SCOPE;
+        this.renewalMargin = configuration.getTokenRenewalMargin();
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "onedrive-session");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor.setRemoveOnCancelPolicy(true);
         this.initialize();
+        this.client.register(new BearerTokenFilter(),
+                             Priorities.AUTHENTICATION);
     }
 
     private void initialize() {
@@ -165,7 +226,7 @@ public class OneDriveSession {
         if (refreshToken != null && !refreshToken.isEmpty()) {
             Map<String, Object> props = new LinkedHashMap<>();
             props.put(REFRESH_TOKEN, refreshToken);
-            this.accessToken = new TokenResult(props);
+            this.token = new Token(new TokenResult(props), 0);
         }
     }
 
@@ -185,47 +246,135 @@ public class OneDriveSession {
     }
 
     /**
-     * Authorize and register the OAuth2 feature on the client
+     * Request an AccessToken or refresh if expired. Threads finding a valid
+     * accessToken return without locking, otherwise only one thread redeems
+     * or refreshes the token and the others wait for its outcome.
      */
-    private void redeemAccessToken() {
-        LOG.info("Authorizing and requesting an accessToken by url: {}",
-                 ONEDRIVE_OAUTH20_TOKEN_URI);
-        this.accessToken = flow.finish(authorizationCode, state);
-        this.lastRefresh = System.currentTimeMillis();
-        saveConfiguration();
-        LOG.info("Acquired a accessToken");
+    void requestAccessToken() {
+        Token current = token;
+        if (current == null || current.isExpired(System.currentTimeMillis())) {
+            renew(current);
+        }
     }
 
     /**
-     * Request an AccessToken or refresh if expired.
+     * Refresh an AccessToken, unless another thread already did so
      */
-    void requestAccessToken() {
-        if (!hasAccessToken()) {
-            if (!hasRefreshToken()) {
-                redeemAccessToken();
-            } else {
-                refreshAccessToken();
+    void refreshAccessToken() {
+        renew(token);
+    }
+
+    /**
+     * Replace the stale token, joining a refresh already in flight
+     * 
+     * @param stale Token that needs replacing, may be null
+     * @return Token current token
+     */
+    private Token renew(Token stale) {
+        while (true) {
+            CompletableFuture<Token> inFlight = refreshing.get();
+            if (inFlight != null) {
+                return await(inFlight);
+            }
+            CompletableFuture<Token> own = new CompletableFuture<>();
+            if (refreshing.compareAndSet(null, own)) {
+                try {
+                    Token current = token;
+                    if (current == stale || current == null
+                        || current.isExpired(System.currentTimeMillis())) {
+                        current = acquire(current);
+                        this.token = current;
+                    }
+                    own.complete(current);
+                    return current;
+                } catch (RuntimeException e) {
+                    own.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    refreshing.compareAndSet(own, null);
+                }
+            }
+        }
+    }
+
+    private Token await(CompletableFuture<Token> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
             }
-            this.client.register(flow.getOAuth2Feature());
-            LOG.debug("OAuth2 feauture registred on client");
+            throw new OneDriveException("Failure acquiring an accessToken",
+                                        e.getCause());
+        }
+    }
+
+    /**
+     * Redeem the authorization code or refresh the accessToken, only called
+     * by the thread owning the refresh
+     * 
+     * @param current Token may be null
+     * @return Token acquired
+     */
+    private Token acquire(Token current) {
+        TokenResult result;
+        long now = System.currentTimeMillis();
+        if (current == null || current.result.getRefreshToken() == null) {
+            LOG.info("Authorizing and requesting an accessToken by url: {}",
+                     ONEDRIVE_OAUTH20_TOKEN_URI);
+            result = flow.finish(authorizationCode, state);
+            LOG.info("Acquired a accessToken");
+        } else {
+            LOG.info("Refreshing accessToken");
+            result = flow.refreshAccessToken(current.result.getRefreshToken());
+            LOG.info("Refreshed accessToken, valid for {}s.",
+                     result.getExpiresIn());
+        }
+        Token acquired = new Token(result, now);
+        if (current == null || current.result.getAccessToken() == null) {
             LOG.info("Authorization to OneDrive API succeeded");
-        } else if (hasRefreshToken() && isTokenExpired()) {
-            refreshAccessToken();
         }
+        saveRefreshToken(result.getRefreshToken());
+        scheduleRenewal(acquired, now);
+        return acquired;
     }
 
     /**
-     * Refresh an AccessToken if expired
+     * Schedule renewal of the accessToken before it expires, so requests do
+     * not have to wait for a refresh
+     * 
+     * @param acquired Token
+     * @param now long time the token was acquired
      */
-    void refreshAccessToken() {
-        LOG.info("Refreshing accessToken");
-        this.accessToken = flow
-            .refreshAccessToken(accessToken.getRefreshToken());
-        this.lastRefresh = System.currentTimeMillis();
-        this.configuration.setRefreshToken(accessToken.getRefreshToken());
-        saveConfiguration();
-        LOG.info("Refreshed accessToken, valid for {}s.",
-                 accessToken.getExpiresIn());
+    private void scheduleRenewal(final Token acquired, long now) {
+        if (renewal != null) {
+            renewal.cancel(false);
+            renewal = null;
+        }
+        if (!acquired.hasExpiration() || acquired.result.getRefreshToken() == null
+            || executor.isShutdown()) {
+            return;
+        }
+        long lifetime = acquired.expiresAt - now;
+        long delay = lifetime > renewalMargin ? lifetime - renewalMargin
+                                              : lifetime / 2;
+        try {
+            renewal = executor.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        renew(acquired);
+                    } catch (RuntimeException e) {
+                        LOG.warn("Failure renewing accessToken in background, renewing on next request",
+                                 e);
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            LOG.debug("Scheduled renewal of accessToken in {}ms", delay);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Session is closed, accessToken renewal not scheduled");
+        }
     }
 
     /**
@@ -234,11 +383,8 @@ public class OneDriveSession {
      * @return true if token is expired
      */
     boolean isTokenExpired() {
-        if (!hasExpiration()) {
-            return true;
-        }
-        long now = System.currentTimeMillis();
-        if ((now - lastRefresh) > (accessToken.getExpiresIn() * 1000)) {
+        Token current = token;
+        if (current == null || current.isExpired(System.currentTimeMillis())) {
             LOG.info("AccessToken has expired.");
             return true;
         }
@@ -251,7 +397,8 @@ public class OneDriveSession {
      * @return boolean true if available
      */
     boolean hasAccessToken() {
-        return accessToken != null && accessToken.getAccessToken() != null;
+        Token current = token;
+        return current != null && current.result.getAccessToken() != null;
     }
 
     /**
@@ -260,7 +407,8 @@ public class OneDriveSession {
      * @return boolean true if available
      */
     boolean hasRefreshToken() {
-        return accessToken != null && accessToken.getRefreshToken() != null;
+        Token current = token;
+        return current != null && current.result.getRefreshToken() != null;
     }
 
     /**
@@ -269,7 +417,8 @@ public class OneDriveSession {
      * @return boolean true if set
      */
     boolean hasExpiration() {
-        return accessToken.getExpiresIn() != null;
+        Token current = token;
+        return current != null && current.hasExpiration();
     }
 
     /**
@@ -278,7 +427,51 @@ public class OneDriveSession {
      * @return TokenResult
      */
     TokenResult getAccessToken() {
-        return accessToken;
+        Token current = token;
+        return current == null ? null : current.result;
+    }
+
+    /**
+     * Save the refreshToken in the background. Saves requested while one is
+     * pending are coalesced, the pending save writes the latest token.
+     * 
+     * @param refreshToken String
+     */
+    private void saveRefreshToken(String refreshToken) {
+        if (refreshToken == null) {
+            return;
+        }
+        configuration.setRefreshToken(refreshToken);
+        if (unsaved.getAndSet(refreshToken) != null) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    flushRefreshToken();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            flushRefreshToken();
+        }
+    }
+
+    /**
+     * Write the pending refreshToken, if any
+     */
+    private void flushRefreshToken() {
+        String refreshToken = unsaved.getAndSet(null);
+        if (refreshToken == null) {
+            return;
+        }
+        configuration.setRefreshToken(refreshToken);
+        try {
+            saveConfiguration();
+        } catch (OneDriveException e) {
+            LOG.error("Failure saving refreshToken", e);
+        }
     }
 
     /**
@@ -302,6 +495,23 @@ public class OneDriveSession {
         return client;
     }
 
+    /**
+     * Close the session, cancels the scheduled renewal and waits for a pending
+     * save of the refreshToken
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+                LOG.warn("Session did not terminate within {}s",
+                         CLOSE_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushRefreshToken();
+    }
+
     /**
      * Logout from the OneDrive API
      */
@@ -312,6 +522,7 @@ public class OneDriveSession {
             .resolveTemplate(CLIENT_ID, clientId)
             .resolveTemplate(REDIRECT_URI, DEFAULT_REDIRECT_URI)
             .request(MediaType.TEXT_PLAIN_TYPE).get();
+        response.close();
         if (response.getStatus() == 200) {
             LOG.info("Succesfully logged from OneDrive API");
         } else {
@@ -368,4 +579,50 @@ public class OneDriveSession {
         }
     }
 
+    /**
+     * Immutable accessToken with its moment of expiry, published through a
+     * volatile field so readers need no locking
+     */
+    private static final class Token {
+
+        private final TokenResult result;
+
+        private final long expiresAt;
+
+        Token(TokenResult result, long acquired) {
+            this.result = result;
+            Long expiresIn = result.getExpiresIn();
+            this.expiresAt = expiresIn == null ? acquired
+                                               : acquired + expiresIn * 1000;
+        }
+
+        boolean hasExpiration() {
+            return result.getExpiresIn() != null;
+        }
+
+        boolean isExpired(long now) {
+            return result.getAccessToken() == null || !hasExpiration()
+                   || now >= expiresAt;
+        }
+    }
+
+    /**
+     * Adds the current accessToken as bearer token to each request
+     */
+    private class BearerTokenFilter implements ClientRequestFilter {
+
+        @Override
+        public void filter(ClientRequestContext requestContext)
+            throws IOException {
+            Token current = token;
+            if (current != null && current.result.getAccessToken() != null
+                && !requestContext.getHeaders()
+                    .containsKey(HttpHeaders.AUTHORIZATION)) {
+                requestContext.getHeaders()
+                    .add(HttpHeaders.AUTHORIZATION,
+                         BEARER + current.result.getAccessToken());
+            }
+        }
+    }
+
 }
@@ -0,0 +1,262 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * PageIterator iterates over the pages of a paged collection, i.e. children,
+ * search results or a delta enumeration, starting with the first page.
+ * <p>
+ * Without look-ahead a next page is fetched on the calling thread when it is
+ * requested. With a look-ahead, up to that number of next pages are fetched
+ * in the background on the executor while the current page is consumed. As
+ * each page holds the link to the next, pages are fetched one after another.
+ * A failure fetching a page is thrown when that page is requested, no pages
+ * are fetched after it. Closing the iterator stops fetching pages.
+ * </p>
+ * 
+ * @param <P> type of page
+ * @author yucca.io
+ */
+public class PageIterator<P extends PagedCollection>
+    implements Iterator<P>, AutoCloseable {
+
+    private final PageLoader<P> loader;
+
+    private final int lookAhead;
+
+    private final Executor executor;
+
+    /**
+     * Pages fetched or being fetched, in order
+     */
+    private final Deque<CompletableFuture<P>> ahead = new ArrayDeque<>();
+
+    private P first;
+
+    /**
+     * Link to the next page not yet requested
+     */
+    private URL next;
+
+    private boolean fetching;
+
+    private boolean closed;
+
+    /**
+     * Construct a PageIterator fetching next pages when requested
+     * 
+     * @param first P first page
+     * @param loader PageLoader<P> fetching next pages
+     */
+    public PageIterator(P first, PageLoader<P> loader) {
+        this(first, loader, 0, null);
+    }
+
+    /**
+     * Construct a PageIterator fetching next pages in the background
+     * 
+     * @param first P first page
+     * @param loader PageLoader<P> fetching next pages
+     * @param lookAhead int maximum number of pages fetched ahead, 0 disables
+     *            fetching in the background
+     * @param executor Executor fetching pages, required if lookAhead is
+     *            positive
+     */
+    public PageIterator(P first, PageLoader<P> loader, int lookAhead,
+                        Executor executor) {
+        if (first == null) {
+            throw new IllegalArgumentException("First page is null");
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("PageLoader is null");
+        }
+        if (lookAhead < 0) {
+            throw new IllegalArgumentException("Look-ahead must not be negative");
+        }
+        if (lookAhead > 0 && executor == null) {
+            throw new IllegalArgumentException("Executor is null");
+        }
+        this.first = first;
+        this.loader = loader;
+        this.lookAhead = lookAhead;
+        this.executor = executor;
+        synchronized (this) {
+            this.next = nextLink(first);
+            fill();
+        }
+    }
+
+    /**
+     * Determines if the first page is not yet returned or a next page exists
+     * 
+     * @return boolean true if a next page exists
+     */
+    @Override
+    public synchronized boolean hasNext() {
+        return first != null || !ahead.isEmpty() || next != null;
+    }
+
+    /**
+     * Obtain the next page, waiting for it if it is being fetched
+     * 
+     * @return P next page
+     * @throws OneDriveException if fetching the page failed
+     */
+    @Override
+    public P next() {
+        CompletableFuture<P> page;
+        URL link;
+        synchronized (this) {
+            if (first != null) {
+                P current = first;
+                this.first = null;
+                return current;
+            }
+            page = ahead.pollFirst();
+            link = next;
+            if (page == null) {
+                if (link == null) {
+                    throw new NoSuchElementException();
+                }
+                this.next = null;
+            }
+        }
+        if (page == null) {
+            P current = load(link);
+            synchronized (this) {
+                this.next = nextLink(current);
+            }
+            return current;
+        }
+        try {
+            return await(page);
+        } finally {
+            synchronized (this) {
+                fill();
+            }
+        }
+    }
+
+    /**
+     * Stop fetching pages, a page being fetched is completed but discarded
+     */
+    @Override
+    public synchronized void close() {
+        this.closed = true;
+        this.first = null;
+        this.next = null;
+        for (CompletableFuture<P> page : ahead) {
+            page.cancel(false);
+        }
+        ahead.clear();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Fetch the next page in the background if the look-ahead allows
+     */
+    private void fill() {
+        if (closed || fetching || next == null || ahead.size() >= lookAhead) {
+            return;
+        }
+        final URL link = next;
+        final CompletableFuture<P> page = new CompletableFuture<>();
+        this.next = null;
+        this.fetching = true;
+        ahead.addLast(page);
+        try {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        P loaded = load(link);
+                        fetched(loaded);
+                        page.complete(loaded);
+                    } catch (RuntimeException e) {
+                        fetched(null);
+                        page.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.fetching = false;
+            page.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Register a page fetched in the background, continues with its next page
+     * 
+     * @param page P fetched page, null if fetching failed
+     */
+    private synchronized void fetched(P page) {
+        this.fetching = false;
+        if (page != null && !closed) {
+            this.next = nextLink(page);
+            fill();
+        }
+    }
+
+    private P await(CompletableFuture<P> page) {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new OneDriveException("Interrupted while waiting for next page",
+                                        e);
+        } catch (CancellationException e) {
+            throw new NoSuchElementException("Iterator is closed");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new OneDriveException("Failure fetching next page",
+                                        e.getCause());
+        }
+    }
+
+    private P load(URL link) {
+        try {
+            return loader.load(link.toURI());
+        } catch (URISyntaxException e) {
+            throw new NoSuchElementException("URL for next page is invalid. "
+                                             + e.getMessage());
+        }
+    }
+
+    private URL nextLink(P page) {
+        return page.hasNextCollection() ? page.getNextLink() : null;
+    }
+}
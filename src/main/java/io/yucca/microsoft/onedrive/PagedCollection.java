@@ -0,0 +1,41 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URL;
+
+/**
+ * PagedCollection defines a page of a collection that is returned in pages,
+ * each page linking to the next
+ * 
+ * @author yucca.io
+ */
+public interface PagedCollection {
+
+    /**
+     * Get the link to next page
+     * 
+     * @return URL
+     */
+    URL getNextLink();
+
+    /**
+     * See if collection has a next page
+     * 
+     * @return boolean true
+     */
+    boolean hasNextCollection();
+}
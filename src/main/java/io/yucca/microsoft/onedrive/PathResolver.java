@@ -0,0 +1,260 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.addressing.PathAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.resources.ItemSummary;
+
+/**
+ * Resolves path addresses to identifier addresses from previously seen items,
+ * so repeated path based requests are not resolved by the service on every
+ * call. The mappings and folder eTags are updated from delta enumerations and
+ * local mutations, the least recently used mapping is evicted when full. An
+ * action requesting a resolved identifier which is no longer found removes
+ * the mapping and retries by path.
+ *
+ * @author yucca.io
+ */
+public class PathResolver {
+
+    private final int maxSize;
+
+    private final Map<String, Entry> paths;
+
+    private final Map<String, String> ids = new LinkedHashMap<>();
+
+    private long resolved;
+
+    /**
+     * Constructor, size is taken from the configuration
+     * 
+     * @param configuration OneDriveConfiguration
+     */
+    public PathResolver(OneDriveConfiguration configuration) {
+        this(configuration.getPathCacheSize());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize int maximum number of mappings, 0 disables resolving
+     */
+    public PathResolver(final int maxSize) {
+        this.maxSize = maxSize;
+        this.paths = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    ids.remove(eldest.getValue().id);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Resolve an address, a path address of a known item is rewritten to an
+     * identifier address
+     * 
+     * @param address ItemAddress
+     * @return ItemAddress identifier address or the address itself if the
+     *         path is unknown or the address is not path based
+     */
+    public synchronized ItemAddress resolve(ItemAddress address) {
+        if (!(address instanceof PathAddress)) {
+            return address;
+        }
+        Entry entry = paths.get(address.absolutePath());
+        if (entry == null) {
+            return address;
+        }
+        resolved++;
+        return new IdAddress(entry.id);
+    }
+
+    /**
+     * Get the absolute path of a known item
+     * 
+     * @param itemId String identifier of the item
+     * @return String path like "/drive/root:/Documents" or {@code null}
+     */
+    public synchronized String getPath(String itemId) {
+        return ids.get(itemId);
+    }
+
+    /**
+     * Get the eTag of a known folder
+     * 
+     * @param address ItemAddress path or identifier address of the folder
+     * @return String eTag or {@code null} if unknown
+     */
+    public synchronized String getEtag(ItemAddress address) {
+        String path = (address instanceof IdAddress)
+            ? ids.get(address.getAddress()) : address.absolutePath();
+        Entry entry = (path == null) ? null : paths.get(path);
+        return (entry == null) ? null : entry.eTag;
+    }
+
+    /**
+     * Update the mapping of an item, a deleted item is removed. If the path of
+     * a known folder changed, the mappings below the previous path are removed
+     * 
+     * @param item Item having an identifier, name and parent path
+     */
+    public synchronized void update(Item item) {
+        if (maxSize <= 0 || item == null || item.getId() == null) {
+            return;
+        }
+        if (item.isDeleted()) {
+            remove(item.getId());
+            return;
+        }
+        if (item.getName() == null || item.getParentReference() == null
+            || item.getParentReference().getPath() == null) {
+            return;
+        }
+        String path = item.getAbsolutePath();
+        String previous = ids.get(item.getId());
+        if (previous != null && !previous.equals(path)) {
+            removePath(previous);
+        }
+        Entry replaced = paths.put(path, new Entry(item.getId(),
+                                                   item.isDirectory()
+                                                       ? item.geteTag()
+                                                       : null));
+        if (replaced != null && !replaced.id.equals(item.getId())) {
+            ids.remove(replaced.id);
+        }
+        ids.put(item.getId(), path);
+    }
+
+    /**
+     * Update the mapping of an item by its summary, which holds no parent
+     * path. A deleted item is removed, as is an item whose mapped path does
+     * not match the mapped path of its parent and its name.
+     * 
+     * @param item ItemSummary having an identifier, name and parent
+     *            identifier
+     */
+    public synchronized void update(ItemSummary item) {
+        if (maxSize <= 0 || item == null || item.getId() == null) {
+            return;
+        }
+        String path = ids.get(item.getId());
+        if (path == null) {
+            return;
+        }
+        String parentPath = (item.getParentId() == null) ? null
+            : ids.get(item.getParentId());
+        if (item.isDeleted() || parentPath == null
+            || !path.equals(parentPath + "/" + item.getName())) {
+            removePath(path);
+        }
+    }
+
+    /**
+     * Remove the mapping of an item and the mappings below it
+     * 
+     * @param itemId String identifier of the item
+     */
+    public synchronized void remove(String itemId) {
+        String path = ids.get(itemId);
+        if (path != null) {
+            removePath(path);
+        }
+    }
+
+    /**
+     * Remove the mapping of an address and the mappings below it
+     * 
+     * @param address ItemAddress path or identifier address
+     */
+    public synchronized void remove(ItemAddress address) {
+        if (address instanceof IdAddress) {
+            remove(address.getAddress());
+        } else {
+            removePath(address.absolutePath());
+        }
+    }
+
+    /**
+     * Remove all mappings
+     */
+    public synchronized void clear() {
+        paths.clear();
+        ids.clear();
+    }
+
+    /**
+     * Get the number of mappings
+     * 
+     * @return int
+     */
+    public synchronized int size() {
+        return paths.size();
+    }
+
+    /**
+     * Get the number of path addresses rewritten to identifier addresses
+     * 
+     * @return long
+     */
+    public synchronized long getResolved() {
+        return resolved;
+    }
+
+    private void removePath(String path) {
+        Entry entry = paths.remove(path);
+        if (entry != null) {
+            ids.remove(entry.id);
+        }
+        String prefix = path + "/";
+        for (Iterator<Map.Entry<String, Entry>> it = paths.entrySet()
+            .iterator(); it.hasNext();) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getKey().startsWith(prefix)) {
+                ids.remove(e.getValue().id);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Identifier of an item and eTag if the item is a folder
+     */
+    private static class Entry {
+
+        private final String id;
+
+        private final String eTag;
+
+        Entry(String id, String eTag) {
+            this.id = id;
+            this.eTag = eTag;
+        }
+    }
+}
@@ -0,0 +1,567 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.StatusLine;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+import org.glassfish.jersey.message.internal.OutboundMessageContext.StreamProvider;
+import org.glassfish.jersey.message.internal.Statuses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * PooledConnectorProvider sends requests through the pooled Apache connector.
+ * Requests carrying content, i.e. uploads of files, streams or multipart
+ * bodies, and entities with a Content-Length header are streamed by the
+ * {@link StreamingConnector} over the same pooled connections, because the
+ * Apache connector does not accept a Content-Length header and would either
+ * chunk or buffer the entity. Content of unknown length is chunked.
+ * <p>
+ * JSON entities without a Content-Length header are small and buffered by
+ * the Apache connector, so they are sent with a Content-Length.
+ * </p>
+ * <p>
+ * If a {@link ThrottlingController} is given, all requests pass through it so
+ * throttling by the service slows down the whole client. Transfers pass
+ * through the {@link ConcurrencyLimiter}, each attempt of a retried transfer
+ * counting as one transfer.
+ * </p>
+ * 
+ * @author yucca.io
+ */
+public class PooledConnectorProvider implements ConnectorProvider {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(PooledConnectorProvider.class);
+
+    private final ThrottlingController throttling;
+
+    private final ConcurrencyLimiter limiter;
+
+    /**
+     * Construct a PooledConnectorProvider without throttling control
+     */
+    public PooledConnectorProvider() {
+        this(null, null);
+    }
+
+    /**
+     * Construct a PooledConnectorProvider
+     * 
+     * @param throttling ThrottlingController shared by all requests, may be
+     *            null
+     * @param limiter ConcurrencyLimiter limiting transfers, may be null
+     */
+    public PooledConnectorProvider(ThrottlingController throttling,
+                                   ConcurrencyLimiter limiter) {
+        this.throttling = throttling;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Connector getConnector(Client client, Configuration runtimeConfig) {
+        Connector connector = new RoutingConnector(new ApacheConnectorProvider()
+            .getConnector(client, runtimeConfig),
+                                                   new StreamingConnector(runtimeConfig));
+        if (limiter != null) {
+            connector = new LimitingConnector(connector, limiter);
+        }
+        if (throttling != null) {
+            connector = new ThrottlingConnector(connector, throttling);
+        }
+        return connector;
+    }
+
+    /**
+     * Apply an asynchronous request on the calling thread, the wrapped
+     * connectors block on asynchronous requests as well
+     * 
+     * @param connector Connector
+     * @param request ClientRequest
+     * @param callback AsyncConnectorCallback
+     * @return Future<?> completed future
+     */
+    static Future<?> applyBlocking(Connector connector, ClientRequest request,
+                                   AsyncConnectorCallback callback) {
+        try {
+            ClientResponse response = connector.apply(request);
+            callback.response(response);
+            return CompletableFuture.completedFuture(response);
+        } catch (ProcessingException e) {
+            callback.failure(e);
+            CompletableFuture<ClientResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * Get the Content-Length of a request, unlike
+     * {@link ClientRequest#getLength()} lengths above 2GB are supported
+     * 
+     * @param request ClientRequest
+     * @return long length or -1 if unknown
+     */
+    static long contentLength(ClientRequest request) {
+        String length = request.getHeaderString(HttpHeaders.CONTENT_LENGTH);
+        if (length == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(length.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Connector dispatching requests to the pooled or streaming connector
+     */
+    static class RoutingConnector implements Connector {
+
+        private final Connector pooled;
+
+        private final Connector streaming;
+
+        RoutingConnector(Connector pooled, Connector streaming) {
+            this.pooled = pooled;
+            this.streaming = streaming;
+        }
+
+        @Override
+        public ClientResponse apply(ClientRequest request) {
+            return route(request).apply(request);
+        }
+
+        @Override
+        public Future<?> apply(ClientRequest request,
+                               AsyncConnectorCallback callback) {
+            return route(request).apply(request, callback);
+        }
+
+        Connector route(ClientRequest request) {
+            long length = contentLength(request);
+            if (request.hasEntity()
+                && (length > 0 || !MediaType.APPLICATION_JSON_TYPE
+                    .isCompatible(request.getMediaType()))) {
+                if (length < 0) {
+                    request.setProperty(ClientProperties.REQUEST_ENTITY_PROCESSING,
+                                        RequestEntityProcessing.CHUNKED);
+                }
+                return streaming;
+            }
+            if (request.getProperty(ClientProperties.REQUEST_ENTITY_PROCESSING) == null) {
+                request.setProperty(ClientProperties.REQUEST_ENTITY_PROCESSING,
+                                    RequestEntityProcessing.BUFFERED);
+            }
+            return pooled;
+        }
+
+        @Override
+        public String getName() {
+            return pooled.getName() + ", " + streaming.getName();
+        }
+
+        @Override
+        public void close() {
+            try {
+                streaming.close();
+            } finally {
+                pooled.close();
+            }
+        }
+    }
+
+    /**
+     * Connector streaming entities over the connections of the pooled
+     * connection manager configured by
+     * {@link ApacheClientProperties#CONNECTION_MANAGER}. The entity is written
+     * directly to the connection, with the Content-Length of the request if
+     * known, otherwise chunked. It is never buffered. If no connection manager
+     * is configured, the connector pools its own connections.
+     */
+    static class StreamingConnector implements Connector {
+
+        private final CloseableHttpClient client;
+
+        StreamingConnector(Configuration runtimeConfig) {
+            Object manager = runtimeConfig
+                .getProperty(ApacheClientProperties.CONNECTION_MANAGER);
+            Object requestConfig = runtimeConfig
+                .getProperty(ApacheClientProperties.REQUEST_CONFIG);
+            RequestConfig.Builder config = requestConfig instanceof RequestConfig
+                ? RequestConfig.copy((RequestConfig)requestConfig)
+                : RequestConfig.custom();
+            config
+                .setConnectTimeout(ClientProperties
+                    .getValue(runtimeConfig.getProperties(),
+                              ClientProperties.CONNECT_TIMEOUT, 0))
+                .setSocketTimeout(ClientProperties
+                    .getValue(runtimeConfig.getProperties(),
+                              ClientProperties.READ_TIMEOUT, 0));
+            HttpClientBuilder builder = HttpClients.custom()
+                .setDefaultRequestConfig(config.build())
+                .disableCookieManagement().disableRedirectHandling();
+            if (manager instanceof HttpClientConnectionManager) {
+                builder
+                    .setConnectionManager((HttpClientConnectionManager)manager)
+                    .setConnectionManagerShared(true);
+            }
+            this.client = builder.build();
+        }
+
+        @Override
+        public ClientResponse apply(final ClientRequest request) {
+            HttpEntityEnclosingRequestBase httpRequest = new HttpEntityEnclosingRequestBase() {
+
+                @Override
+                public String getMethod() {
+                    return request.getMethod();
+                }
+            };
+            httpRequest.setURI(request.getUri());
+            for (Map.Entry<String, List<String>> header : request
+                .getStringHeaders().entrySet()) {
+                // the length is taken from the entity
+                if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                    continue;
+                }
+                for (String value : header.getValue()) {
+                    httpRequest.addHeader(header.getKey(), value);
+                }
+            }
+            httpRequest.setEntity(new AbstractHttpEntity() {
+
+                @Override
+                public boolean isRepeatable() {
+                    return false;
+                }
+
+                @Override
+                public long getContentLength() {
+                    return contentLength(request);
+                }
+
+                @Override
+                public InputStream getContent() {
+                    throw new UnsupportedOperationException("Entity is only written");
+                }
+
+                @Override
+                public void writeTo(final OutputStream out) throws IOException {
+                    request.setStreamProvider(new StreamProvider() {
+
+                        @Override
+                        public OutputStream getOutputStream(int contentLength) {
+                            return out;
+                        }
+                    });
+                    request.writeEntity();
+                }
+
+                @Override
+                public boolean isStreaming() {
+                    return false;
+                }
+            });
+            final CloseableHttpResponse httpResponse;
+            try {
+                httpResponse = client.execute(httpRequest);
+            } catch (IOException e) {
+                throw new ProcessingException(e);
+            }
+            return toResponse(request, httpResponse);
+        }
+
+        private static ClientResponse toResponse(ClientRequest request,
+                                                 final CloseableHttpResponse httpResponse) {
+            StatusLine statusLine = httpResponse.getStatusLine();
+            ClientResponse response = new ClientResponse(statusLine
+                .getReasonPhrase() == null ? Statuses.from(statusLine
+                    .getStatusCode())
+                                           : Statuses
+                                               .from(statusLine.getStatusCode(),
+                                                     statusLine
+                                                         .getReasonPhrase()),
+                                                         request);
+            for (Header header : httpResponse.getAllHeaders()) {
+                response.getHeaders().add(header.getName(), header.getValue());
+            }
+            try {
+                HttpEntity entity = httpResponse.getEntity();
+                if (entity == null) {
+                    httpResponse.close();
+                    response.setEntityStream(new ByteArrayInputStream(new byte[0]));
+                    return response;
+                }
+                response.setEntityStream(new FilterInputStream(entity
+                    .getContent()) {
+
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            httpResponse.close();
+                        }
+                    }
+                });
+                return response;
+            } catch (IOException e) {
+                try {
+                    httpResponse.close();
+                } catch (IOException ignore) {
+                    // failure is reported
+                }
+                throw new ProcessingException(e);
+            }
+        }
+
+        @Override
+        public Future<?> apply(ClientRequest request,
+                               AsyncConnectorCallback callback) {
+            return applyBlocking(this, request, callback);
+        }
+
+        @Override
+        public String getName() {
+            return "Streaming Apache HttpClient";
+        }
+
+        @Override
+        public void close() {
+            try {
+                client.close();
+            } catch (IOException e) {
+                LOG.warn("Failure closing streaming connector", e);
+            }
+        }
+    }
+
+    /**
+     * Connector passing requests through the ThrottlingController. Requests
+     * throttled with 429 or 503 are retried when idempotent and without
+     * entity, other throttled requests are returned to the caller.
+     */
+    static class ThrottlingConnector implements Connector {
+
+        private static final int TOO_MANY_REQUESTS = 429;
+
+        private static final int SERVICE_UNAVAILABLE = 503;
+
+        private static final Set<String> IDEMPOTENT = new HashSet<>(Arrays
+            .asList(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.DELETE,
+                    HttpMethod.OPTIONS, HttpMethod.PUT));
+
+        private final Connector connector;
+
+        private final ThrottlingController throttling;
+
+        ThrottlingConnector(Connector connector,
+                            ThrottlingController throttling) {
+            this.connector = connector;
+            this.throttling = throttling;
+        }
+
+        @Override
+        public ClientResponse apply(ClientRequest request) {
+            URI uri = request.getUri();
+            boolean replayable = !request.hasEntity()
+                                 && IDEMPOTENT.contains(request.getMethod());
+            for (int attempt = 0;; attempt++) {
+                acquire(uri);
+                ClientResponse response = connector.apply(request);
+                int status = response.getStatus();
+                if (status != TOO_MANY_REQUESTS
+                    && status != SERVICE_UNAVAILABLE) {
+                    throttling.onSuccess(uri);
+                    return response;
+                }
+                long pause = throttling
+                    .onThrottled(uri,
+                                 ThrottlingController.retryAfter(response
+                                     .getHeaderString(ThrottlingController.RETRY_AFTER)),
+                                 attempt);
+                if (!replayable || !throttling.mayRetry(attempt, pause)) {
+                    return response;
+                }
+                LOG.debug("Request: {} {} throttled with status: {}, retrying after {} ms",
+                          new Object[] { request.getMethod(), uri, status,
+                                         pause });
+                response.close();
+            }
+        }
+
+        @Override
+        public Future<?> apply(ClientRequest request,
+                               AsyncConnectorCallback callback) {
+            return applyBlocking(this, request, callback);
+        }
+
+        private void acquire(URI uri) {
+            try {
+                throttling.acquire(uri);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessingException("Interrupted while waiting for throttled endpoint: "
+                                              + uri, e);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return connector.getName();
+        }
+
+        @Override
+        public void close() {
+            connector.close();
+        }
+    }
+
+    /**
+     * Connector limiting the transfers in flight. A permit is held until the
+     * entity stream of the response is closed, so downloads count as in flight
+     * until read.
+     */
+    static class LimitingConnector implements Connector {
+
+        private final Connector connector;
+
+        private final ConcurrencyLimiter limiter;
+
+        LimitingConnector(Connector connector, ConcurrencyLimiter limiter) {
+            this.connector = connector;
+            this.limiter = limiter;
+        }
+
+        @Override
+        public ClientResponse apply(ClientRequest request) {
+            if (!Boolean.TRUE
+                .equals(request.getProperty(ConcurrencyLimiter.TRANSFER))) {
+                return connector.apply(request);
+            }
+            final ConcurrencyLimiter.Permit permit = acquire(request.getUri());
+            ClientResponse response;
+            try {
+                response = connector.apply(request);
+            } catch (RuntimeException e) {
+                permit.dropped();
+                throw e;
+            }
+            // the time to respond to an upload includes sending its entity,
+            // so only transfers without entity are measured
+            final long latency = request.hasEntity() ? -1
+                                                     : System.nanoTime()
+                                                       - permit.getStarted();
+            final boolean dropped = response.getStatus() >= 500
+                                    || response.getStatus() == ThrottlingConnector.TOO_MANY_REQUESTS;
+            InputStream entity = response.getEntityStream();
+            if (entity == null) {
+                release(permit, dropped, latency);
+                return response;
+            }
+            response.setEntityStream(new FilterInputStream(entity) {
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release(permit, dropped, latency);
+                    }
+                }
+            });
+            return response;
+        }
+
+        private static void release(ConcurrencyLimiter.Permit permit,
+                                    boolean dropped, long latency) {
+            if (dropped) {
+                permit.dropped();
+            } else if (latency < 0) {
+                permit.success();
+            } else {
+                permit.success(latency);
+            }
+        }
+
+        @Override
+        public Future<?> apply(ClientRequest request,
+                               AsyncConnectorCallback callback) {
+            return applyBlocking(this, request, callback);
+        }
+
+        private ConcurrencyLimiter.Permit acquire(URI uri) {
+            try {
+                return limiter.acquire(uri);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessingException("Interrupted while waiting for a transfer to: "
+                                              + uri, e);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return connector.getName();
+        }
+
+        @Override
+        public void close() {
+            connector.close();
+        }
+    }
+}
@@ -148,6 +148,25 @@ public class QueryParameters {
             return this;
         }
 
+        /**
+         * Defines the relationship to expand and the list of properties to
+         * include for the expanded items, i.e. "children(select=id,name)". The
+         * mandatory fields are added if not provided
+         * 
+         * @param relationship Relationship relationship
+         * @param select String[] properties of the expanded items
+         * @return Builder
+         */
+        public Builder expand(Relationship relationship, String... select) {
+            this.qp.parameters
+                .put(EXPAND,
+                     relationship.getRelationship() + "(" + SELECT + "="
+                             + commaSeperated(addMandatory(select,
+                                                           MANDATORY_FIELDS))
+                             + ")");
+            return this;
+        }
+
         /**
          * Defines the list of properties to include in the response. Field "id"
          * is added if not provided
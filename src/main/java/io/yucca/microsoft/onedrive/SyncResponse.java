@@ -18,6 +18,7 @@ package io.yucca.microsoft.onedrive;
 import java.net.URL;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -53,9 +54,53 @@ public class SyncResponse extends ItemCollection {
         this.token = token;
     }
 
+    /**
+     * Get an iterator over the pages of this enumeration, starting with this
+     * page. Pages are fetched as they are requested.
+     * 
+     * @return SyncResponseIterator
+     */
+    public SyncResponseIterator pageIterator() {
+        return pageIterator(0, null);
+    }
+
+    /**
+     * Get an iterator over the pages of this enumeration, starting with this
+     * page. Up to lookAhead next pages are fetched in the background while
+     * the current page is processed.
+     * 
+     * @param lookAhead int maximum number of pages fetched ahead
+     * @param executor Executor fetching the pages
+     * @return SyncResponseIterator
+     */
+    public SyncResponseIterator pageIterator(int lookAhead, Executor executor) {
+        if (api == null) {
+            throw new IllegalStateException("OneDriveAPIConnection must be set");
+        }
+        return new SyncResponseIterator(api, this, lookAhead, executor);
+    }
+
+    /**
+     * Get an iterator over the changed items of all pages, next pages are
+     * fetched as delta pages so their changes are applied to the caches
+     * 
+     * @param lookAhead int maximum number of pages fetched ahead
+     * @param executor Executor fetching the pages
+     * @return ItemIterator
+     */
+    @Override
+    public ItemIterator iterator(int lookAhead, Executor executor) {
+        if (api == null) {
+            throw new IllegalStateException("OneDriveAPIConnection must be set");
+        }
+        return new ItemIterator(new PageIterator<>(this, SyncResponseIterator
+            .deltaLoader(api), lookAhead, executor));
+    }
+
     /**
      * Convert the syncResponse to a LinkedHashMap where items are identified by
-     * id
+     * id. All pages are fetched and held in memory, use {@link #pageIterator()}
+     * to process large enumerations.
      * 
      * @return LinkedHashMap<String, Item>
      */
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+
+import io.yucca.microsoft.onedrive.actions.SyncAction;
+
+/**
+ * SyncResponseIterator, iterates over the pages of a delta enumeration. By
+ * default a next page is only fetched when requested, so changes can be
+ * processed as they arrive without holding all changed items in memory. With
+ * a look-ahead next pages are fetched in the background, see
+ * {@link PageIterator}. The delta token of the last page is the state to use
+ * for a future enumeration.
+ * 
+ * @author yucca.io
+ */
+public class SyncResponseIterator
+    implements Iterator<SyncResponse>, AutoCloseable {
+
+    private final PageIterator<SyncResponse> pages;
+
+    /**
+     * Construct a SyncResponseIterator
+     * 
+     * @param api OneDriveAPIConnection connection to the OneDrive API, used for
+     *            fetching next pages
+     * @param response SyncResponse first page of the enumeration
+     */
+    public SyncResponseIterator(final OneDriveAPIConnection api,
+                                final SyncResponse response) {
+        this(api, response, 0, null);
+    }
+
+    /**
+     * Construct a SyncResponseIterator fetching next pages in the background
+     * 
+     * @param api OneDriveAPIConnection connection to the OneDrive API, used for
+     *            fetching next pages
+     * @param response SyncResponse first page of the enumeration
+     * @param lookAhead int maximum number of pages fetched ahead
+     * @param executor Executor fetching pages
+     */
+    public SyncResponseIterator(final OneDriveAPIConnection api,
+                                final SyncResponse response, int lookAhead,
+                                Executor executor) {
+        if (response == null) {
+            throw new IllegalArgumentException("SyncResponse is null");
+        }
+        this.pages = new PageIterator<>(response, deltaLoader(api), lookAhead,
+                                        executor);
+    }
+
+    /**
+     * Determines if the first page is not yet returned or a link for the next
+     * page exists
+     * 
+     * @return boolean true if a next page exists
+     */
+    @Override
+    public boolean hasNext() {
+        return pages.hasNext();
+    }
+
+    /**
+     * Obtain the next page, fetching it over the link of the current page
+     * 
+     * @return SyncResponse next page
+     */
+    @Override
+    public SyncResponse next() {
+        return pages.next();
+    }
+
+    /**
+     * Stop fetching next pages
+     */
+    @Override
+    public void close() {
+        pages.close();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * PageLoader fetching pages of a delta enumeration, changes are applied
+     * to the caches of the connection
+     * 
+     * @param api OneDriveAPIConnection
+     * @return PageLoader<SyncResponse>
+     */
+    static PageLoader<SyncResponse> deltaLoader(final OneDriveAPIConnection api) {
+        if (api == null) {
+            throw new IllegalArgumentException("OneDriveAPIConnection is null");
+        }
+        return new PageLoader<SyncResponse>() {
+
+            @Override
+            public SyncResponse load(URI uri) {
+                return SyncAction.byURI(api, uri);
+            }
+        };
+    }
+}
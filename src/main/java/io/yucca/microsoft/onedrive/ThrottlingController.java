@@ -0,0 +1,320 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ThrottlingController coordinates all requests of a client when the OneDrive
+ * service throttles with 429 (Too Many Requests) or 503 (Service
+ * Unavailable). Requests are grouped per endpoint, being the host they are
+ * sent to, each endpoint having a shared token bucket.
+ * <p>
+ * Unthrottled endpoints are not limited. A throttling response pauses all
+ * requests to the endpoint for the Retry-After period, or a jittered
+ * exponential backoff if absent, after which requests pass at throttleRate
+ * per second. Further throttling halves the rate, every quiet
+ * {@link #RECOVERY_PERIOD} doubles it until the endpoint is unlimited again.
+ * </p>
+ * 
+ * @author yucca.io
+ */
+public class ThrottlingController {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(ThrottlingController.class);
+
+    public static final String RETRY_AFTER = "Retry-After";
+
+    /**
+     * Backoff in ms after the first throttling response without Retry-After
+     */
+    static final long BASE_BACKOFF = 1000L;
+
+    /**
+     * Time in ms without throttling after which the rate is doubled
+     */
+    static final long RECOVERY_PERIOD = 30000L;
+
+    /**
+     * Lowest rate in requests per second an endpoint is slowed down to
+     */
+    private static final double MIN_RATE = 0.5;
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong throttled = new AtomicLong();
+
+    private final double throttleRate;
+
+    private final int maxRetries;
+
+    private final long maxBackoff;
+
+    /**
+     * Construct a ThrottlingController
+     * 
+     * @param configuration OneDriveConfiguration
+     */
+    public ThrottlingController(OneDriveConfiguration configuration) {
+        this(configuration.getThrottleRate(), configuration.getMaxRetries(),
+             configuration.getMaxBackoff());
+    }
+
+    /**
+     * Construct a ThrottlingController
+     * 
+     * @param throttleRate double requests per second after throttling
+     * @param maxRetries int maximum retries of a throttled request
+     * @param maxBackoff long maximum backoff in ms
+     */
+    public ThrottlingController(double throttleRate, int maxRetries,
+                                long maxBackoff) {
+        if (throttleRate <= 0) {
+            throw new IllegalArgumentException("throttleRate must be positive");
+        }
+        this.throttleRate = throttleRate;
+        this.maxRetries = maxRetries;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Wait until a request may be sent to the endpoint of the uri
+     * 
+     * @param uri URI of the request
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(URI uri) throws InterruptedException {
+        Bucket bucket = buckets.get(endpoint(uri));
+        if (bucket == null) {
+            return;
+        }
+        long wait;
+        while ((wait = bucket.reserve(System.currentTimeMillis())) > 0) {
+            Thread.sleep(wait);
+        }
+    }
+
+    /**
+     * Register a response that was not throttled
+     * 
+     * @param uri URI of the request
+     */
+    public void onSuccess(URI uri) {
+        String endpoint = endpoint(uri);
+        Bucket bucket = buckets.get(endpoint);
+        if (bucket != null
+            && bucket.recover(System.currentTimeMillis(), throttleRate)) {
+            buckets.remove(endpoint, bucket);
+            LOG.info("Endpoint: {} is no longer throttled", endpoint);
+        }
+    }
+
+    /**
+     * Register a throttling response, pausing all requests to the endpoint
+     * 
+     * @param uri URI of the request
+     * @param retryAfter long Retry-After in ms, negative if absent
+     * @param attempt int number of previous attempts of the request
+     * @return long pause in ms before requests to the endpoint are resumed
+     */
+    public long onThrottled(URI uri, long retryAfter, int attempt) {
+        String endpoint = endpoint(uri);
+        long pause = retryAfter >= 0 ? retryAfter : backoff(attempt);
+        Bucket bucket = buckets.get(endpoint);
+        if (bucket == null) {
+            Bucket created = new Bucket(throttleRate);
+            bucket = buckets.putIfAbsent(endpoint, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        double rate = bucket.throttle(System.currentTimeMillis(), pause);
+        throttled.incrementAndGet();
+        LOG.info("Endpoint: {} is throttled, pausing requests for {} ms, then allowing {} requests/s",
+                 new Object[] { endpoint, pause, rate });
+        return pause;
+    }
+
+    /**
+     * Jittered exponential backoff, a random duration up to
+     * {@link #BASE_BACKOFF} doubled for each attempt, capped by maxBackoff
+     * 
+     * @param attempt int number of previous attempts
+     * @return long backoff in ms
+     */
+    public long backoff(int attempt) {
+        long ceiling = BASE_BACKOFF << Math.min(attempt, 20);
+        if (ceiling > maxBackoff) {
+            ceiling = maxBackoff;
+        }
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    /**
+     * Determine if a throttled request may be retried after the pause
+     * 
+     * @param attempt int number of previous attempts
+     * @param pause long pause in ms
+     * @return boolean true if retry is allowed
+     */
+    public boolean mayRetry(int attempt, long pause) {
+        return attempt < maxRetries && pause <= maxBackoff;
+    }
+
+    /**
+     * Determine if requests to the endpoint of the uri are throttled
+     * 
+     * @param uri URI
+     * @return boolean true if throttled
+     */
+    public boolean isThrottled(URI uri) {
+        return buckets.containsKey(endpoint(uri));
+    }
+
+    /**
+     * Get number of throttling responses received
+     * 
+     * @return long
+     */
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    /**
+     * Parse the Retry-After header, either delay-seconds or an HTTP-date
+     * 
+     * @param value String header value, may be null
+     * @return long Retry-After in ms, -1 if absent or invalid
+     */
+    public static long retryAfter(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(trimmed) * 1000);
+        } catch (NumberFormatException e) {
+            // not delay-seconds, try an HTTP-date
+        }
+        try {
+            long at = ZonedDateTime
+                .parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME)
+                .toInstant().toEpochMilli();
+            return Math.max(0, at - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            LOG.debug("Ignoring invalid Retry-After: {}", value);
+            return -1;
+        }
+    }
+
+    static String endpoint(URI uri) {
+        String authority = uri.getAuthority();
+        return authority == null ? "" : authority.toLowerCase();
+    }
+
+    /**
+     * Token bucket of a throttled endpoint
+     */
+    static class Bucket {
+
+        private double rate;
+
+        private double tokens;
+
+        private long refilledAt;
+
+        private long pausedUntil;
+
+        private long throttledAt;
+
+        Bucket(double rate) {
+            this.rate = rate;
+        }
+
+        /**
+         * Reserve a token
+         * 
+         * @param now long current time in ms
+         * @return long 0 if a token was reserved, else time in ms to wait
+         */
+        synchronized long reserve(long now) {
+            if (now < pausedUntil) {
+                return pausedUntil - now;
+            }
+            if (now > refilledAt) {
+                tokens = Math.min(Math.max(1, rate),
+                                  tokens + (now - refilledAt) * rate / 1000);
+                refilledAt = now;
+            }
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+            return Math.max(1, (long)Math.ceil((1 - tokens) * 1000 / rate));
+        }
+
+        /**
+         * Pause the bucket and slow down the rate, an endpoint throttled again
+         * while slowed down gets half the rate
+         * 
+         * @param now long current time in ms
+         * @param pause long pause in ms
+         * @return double new rate
+         */
+        synchronized double throttle(long now, long pause) {
+            if (throttledAt > 0 && now >= pausedUntil) {
+                rate = Math.max(MIN_RATE, rate / 2);
+            }
+            pausedUntil = Math.max(pausedUntil, now + pause);
+            refilledAt = pausedUntil;
+            tokens = 0;
+            throttledAt = now;
+            return rate;
+        }
+
+        /**
+         * Double the rate if not throttled during the recovery period
+         * 
+         * @param now long current time in ms
+         * @param ceiling double rate above which the endpoint is unlimited
+         * @return boolean true if the endpoint is no longer throttled
+         */
+        synchronized boolean recover(long now, double ceiling) {
+            if (now - throttledAt < RECOVERY_PERIOD) {
+                return false;
+            }
+            throttledAt = now;
+            rate *= 2;
+            return rate > ceiling;
+        }
+
+        synchronized double getRate() {
+            return rate;
+        }
+    }
+}
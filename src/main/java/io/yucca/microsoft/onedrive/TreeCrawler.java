@@ -0,0 +1,280 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.yucca.microsoft.onedrive.ItemVisitor.VisitResult;
+import io.yucca.microsoft.onedrive.actions.ListChildrenAction;
+import io.yucca.microsoft.onedrive.actions.MetadataAction;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.resources.Relationship;
+
+/**
+ * Crawls a remote folder tree breadth-first. Folders are listed concurrently
+ * by a bounded pool of workers, each listing is a single request expanding
+ * the children of the folder with only the selected properties, further pages
+ * of children are followed by their next link. Folders known to be empty are
+ * not listed.
+ * <p>
+ * Found items are handed over to the {@link ItemVisitor} through a bounded
+ * queue and visited on the thread invoking {@link #crawl}, workers block when
+ * the queue is full so the visitor determines the pace of the crawl.
+ * </p>
+ * 
+ * @author yucca.io
+ */
+public class TreeCrawler {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(TreeCrawler.class);
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final OneDriveAPIConnection api;
+
+    private final int parallelism;
+
+    private final int capacity;
+
+    /**
+     * Constructor
+     * 
+     * @param api OneDriveAPIConnection
+     */
+    public TreeCrawler(OneDriveAPIConnection api) {
+        this(api, DEFAULT_PARALLELISM, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param api OneDriveAPIConnection
+     * @param parallelism int number of folders listed concurrently
+     * @param capacity int number of found items waiting to be visited before
+     *            the workers block
+     */
+    public TreeCrawler(OneDriveAPIConnection api, int parallelism,
+                       int capacity) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.api = api;
+        this.parallelism = parallelism;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Crawl the tree below a folder, the folder itself is not visited
+     * 
+     * @param folder ItemAddress of the folder to start at
+     * @param visitor ItemVisitor receiving the items
+     * @param select String[] properties to retrieve for each item, the
+     *            mandatory properties like "id" and "folder" are always
+     *            retrieved
+     * @throws OneDriveException if the start folder cannot be listed or the
+     *             crawl is interrupted
+     */
+    public void crawl(ItemAddress folder, ItemVisitor visitor,
+                      String... select) {
+        QueryParameters parameters = QueryParameters.Builder
+            .newQueryParameters().expand(Relationship.CHILDREN, select)
+            .build();
+        new Crawl(visitor, parameters).run(folder);
+    }
+
+    /**
+     * See if a folder must be listed, a folder is empty if the childCount is
+     * known to be zero
+     */
+    static boolean hasChildren(Item item) {
+        if (item.getFolder() == null) {
+            return false;
+        }
+        Long childCount = item.getFolder().getChildCount();
+        return childCount == null || childCount > 0;
+    }
+
+    /**
+     * Message from a worker to the visiting thread
+     */
+    private static class Event {
+
+        private final Item item;
+
+        private final Item folder;
+
+        private final OneDriveException failure;
+
+        private final boolean done;
+
+        Event(Item item, Item folder, OneDriveException failure,
+              boolean done) {
+            this.item = item;
+            this.folder = folder;
+            this.failure = failure;
+            this.done = done;
+        }
+    }
+
+    /**
+     * State of a single crawl
+     */
+    private class Crawl {
+
+        private final ItemVisitor visitor;
+
+        private final QueryParameters parameters;
+
+        private final BlockingQueue<Event> events;
+
+        private final ExecutorService workers;
+
+        private volatile boolean terminated = false;
+
+        private int pending = 0;
+
+        Crawl(ItemVisitor visitor, QueryParameters parameters) {
+            this.visitor = visitor;
+            this.parameters = parameters;
+            this.events = new ArrayBlockingQueue<>(capacity);
+            this.workers = Executors.newFixedThreadPool(parallelism);
+        }
+
+        void run(ItemAddress root) {
+            LOG.info("Crawling folder: {}", root);
+            try {
+                list(root, null);
+                while (pending > 0) {
+                    if (handle(events.take()) == VisitResult.TERMINATE) {
+                        LOG.info("Crawl of folder: {} terminated", root);
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OneDriveException("Interrupted crawling folder: "
+                                            + root, e);
+            } finally {
+                terminated = true;
+                workers.shutdownNow();
+            }
+        }
+
+        private VisitResult handle(Event event) {
+            if (event.done) {
+                pending--;
+                return VisitResult.CONTINUE;
+            }
+            if (event.failure != null) {
+                if (event.folder == null) {
+                    throw event.failure;
+                }
+                return visitor.visitFailed(event.folder, event.failure);
+            }
+            VisitResult result = visitor.visit(event.item);
+            if (result == VisitResult.CONTINUE && hasChildren(event.item)) {
+                list(new IdAddress(event.item), event.item);
+            }
+            return result;
+        }
+
+        /**
+         * Submit the listing of a folder, workers take the folders in order of
+         * submission which makes the crawl breadth-first
+         */
+        private void list(final ItemAddress address, final Item folder) {
+            pending++;
+            workers.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        listChildren(address, folder);
+                    } catch (InterruptedException e) {
+                        // crawl is terminated
+                    }
+                }
+            });
+        }
+
+        private void listChildren(ItemAddress address, Item folder)
+            throws InterruptedException {
+            try {
+                if (terminated) {
+                    return;
+                }
+                Item expanded = new MetadataAction(api, address, null,
+                                                   parameters).call();
+                if (expanded.getChildren() != null) {
+                    offer(expanded.getChildren().iterator());
+                }
+                URL next = expanded.getChildrenNextLink();
+                while (next != null && !terminated) {
+                    ItemIterable page = ListChildrenAction.byURI(api, next
+                        .toURI());
+                    offer(page.innerIterator());
+                    next = page.hasNextCollection() ? page.getNextLink() : null;
+                }
+            } catch (OneDriveException e) {
+                LOG.warn("Failure listing children of folder: {}", address, e);
+                put(new Event(null, folder, e, false));
+            } catch (URISyntaxException e) {
+                put(new Event(null, folder, new OneDriveException(
+                    "Invalid next link listing children of folder: " + address,
+                    e), false));
+            } finally {
+                put(new Event(null, null, null, true));
+            }
+        }
+
+        private void offer(Iterator<Item> children)
+            throws InterruptedException {
+            while (children.hasNext() && !terminated) {
+                put(new Event(children.next(), null, null, false));
+            }
+        }
+
+        /**
+         * Wait for room in the queue, gives up once the crawl is terminated
+         * so no worker is left blocked on a queue that is no longer taken
+         */
+        private void put(Event event) throws InterruptedException {
+            while (!terminated) {
+                if (events.offer(event, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -15,20 +15,33 @@
  */
 package io.yucca.microsoft.onedrive.actions;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 
+import io.yucca.microsoft.onedrive.ConcurrencyLimiter;
+import io.yucca.microsoft.onedrive.ItemCache;
+import io.yucca.microsoft.onedrive.JsonBody;
 import io.yucca.microsoft.onedrive.NotModifiedException;
 import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
+import io.yucca.microsoft.onedrive.OneDriveContent;
 import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.OneDriveInputStream;
+import io.yucca.microsoft.onedrive.PathResolver;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.resources.ErrorCode;
 import io.yucca.microsoft.onedrive.resources.HttpErrorCode;
+import io.yucca.microsoft.onedrive.resources.Item;
 import io.yucca.microsoft.onedrive.resources.ItemReference;
 import io.yucca.microsoft.onedrive.resources.OneDriveError;
 
@@ -61,6 +74,152 @@ public abstract class AbstractAction {
         this.api = api;
     }
 
+    /**
+     * Handles the response of a request
+     * 
+     * @param <T> type of result
+     */
+    protected interface ResponseHandler<T> {
+
+        /**
+         * Handle the response, the response must be closed or handed over
+         * 
+         * @param response Response
+         * @return T result
+         */
+        T handle(Response response);
+    }
+
+    /**
+     * Request for the metadata of an item address
+     */
+    protected interface AddressedRequest {
+
+        /**
+         * Invoke the request
+         * 
+         * @param address ItemAddress to request
+         * @return Item result
+         */
+        Item invoke(ItemAddress address);
+    }
+
+    /**
+     * Invoke a metadata request for an address, a known path address is
+     * rewritten to the identifier address it resolves to. If the identifier is
+     * not found or the returned item is no longer at the path, the mapping is
+     * removed and the request is retried by path.
+     * <p>
+     * Only metadata is resolved, because only the returned item tells whether
+     * it still lives at the path. Content and children are requested by path,
+     * an identifier could serve those of an item moved away from the path.
+     * </p>
+     * 
+     * @param address ItemAddress to request
+     * @param request AddressedRequest
+     * @return Item result
+     */
+    protected Item invokeResolved(ItemAddress address,
+                                  AddressedRequest request) {
+        PathResolver resolver = api.getPathResolver();
+        ItemAddress resolved = resolver.resolve(address);
+        if (resolved == address) {
+            return request.invoke(address);
+        }
+        try {
+            Item result = request.invoke(resolved);
+            if (isAtPath(result, address)) {
+                return result;
+            }
+        } catch (OneDriveException e) {
+            if (!isNotFound(e)) {
+                throw e;
+            }
+        }
+        resolver.remove(address);
+        return request.invoke(address);
+    }
+
+    private boolean isAtPath(Item item, ItemAddress address) {
+        if (item.getParentReference() == null
+            || item.getParentReference().getPath() == null) {
+            return true;
+        }
+        return item.getAbsolutePath().equals(address.absolutePath());
+    }
+
+    /**
+     * Determine if a failure indicates the item does not exist
+     * 
+     * @param e OneDriveException
+     * @return true if the error code is itemNotFound
+     */
+    protected static boolean isNotFound(OneDriveException e) {
+        return e.getError() != null && e.getError().getError() != null
+               && ErrorCode.ITEM_NOT_FOUND.getCode()
+                   .equals(e.getError().getError().getCode());
+    }
+
+    /**
+     * Mark a request as transfer of content, so it is limited by the
+     * {@link ConcurrencyLimiter} of the connection pool
+     * 
+     * @param builder Invocation.Builder
+     * @return Invocation.Builder
+     */
+    protected static Invocation.Builder transfer(Invocation.Builder builder) {
+        return builder.property(ConcurrencyLimiter.TRANSFER, Boolean.TRUE);
+    }
+
+    /**
+     * Submit a request with the asynchronous invoker of the client, the
+     * response is handled on the executor so the invoker threads are not
+     * occupied with reading entities. If the returned future is cancelled
+     * before the response is handled, the response is closed.
+     * 
+     * @param invocation Invocation request to submit
+     * @param executor Executor on which the response is handled
+     * @param handler ResponseHandler<T>
+     * @return CompletableFuture<T>
+     */
+    protected static <T> CompletableFuture<T> submit(Invocation invocation,
+                                                     final Executor executor,
+                                                     final ResponseHandler<T> handler) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        invocation.submit(new InvocationCallback<Response>() {
+
+            @Override
+            public void completed(final Response response) {
+                try {
+                    executor.execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            if (future.isCancelled()) {
+                                response.close();
+                                return;
+                            }
+                            try {
+                                future.complete(handler.handle(response));
+                            } catch (Throwable e) {
+                                future.completeExceptionally(e);
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    response.close();
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        });
+        return future;
+    }
+
     /**
      * Handles a error if successCode is not returned
      * 
@@ -71,8 +230,8 @@ public abstract class AbstractAction {
     protected void handleError(Response response, Status successStatus,
                                String errorMessage) {
         if (!equalsStatus(response, successStatus)) {
-            OneDriveError e = response.readEntity(OneDriveError.class);
-            throw new OneDriveException(errorMessage, response.getStatus(), e);
+            throw new OneDriveException(errorMessage, response.getStatus(),
+                                        readError(response));
         }
     }
 
@@ -88,8 +247,77 @@ public abstract class AbstractAction {
         if (equalsStatus(response, successStatus)) {
             return;
         }
-        OneDriveError e = response.readEntity(OneDriveError.class);
-        throw new OneDriveException(errorMessage, response.getStatus(), e);
+        throw new OneDriveException(errorMessage, response.getStatus(),
+                                    readError(response));
+    }
+
+    /**
+     * Read the error of a failed response, the response is closed afterwards
+     * so the connection is returned
+     * 
+     * @param response Response
+     * @return OneDriveError or {@code null} if the error cannot be read
+     */
+    protected static OneDriveError readError(Response response) {
+        try {
+            return response.readEntity(OneDriveError.class);
+        } catch (ProcessingException | IllegalStateException e) {
+            return null;
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Read the entity of a response, the response is closed afterwards so the
+     * connection is returned, also if reading fails
+     * 
+     * @param response Response
+     * @param entityType Class<T> type of entity
+     * @return T entity
+     */
+    protected static <T> T readEntity(Response response,
+                                      Class<T> entityType) {
+        try {
+            return response.readEntity(entityType);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Read the content of a response as a stream. The response is only closed
+     * if reading fails, otherwise the connection is returned when the content
+     * is closed. The stream handed to the reader cannot be closed by itself,
+     * so closing the content closes the response.
+     * 
+     * @param response Response
+     * @return OneDriveContent
+     */
+    protected static OneDriveContent readContent(final Response response) {
+        try {
+            OneDriveContent content = response
+                .readEntity(OneDriveContent.class);
+            return new OneDriveInputStream(content.getInputStream(),
+                                          content.getName(),
+                                          content.getLength()) {
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        response.close();
+                    }
+                }
+            };
+        } catch (IOException e) {
+            response.close();
+            throw new OneDriveException("Failure reading content", e);
+        } catch (RuntimeException e) {
+            response.close();
+            throw e;
+        }
     }
 
     /**
@@ -102,6 +330,7 @@ public abstract class AbstractAction {
     protected void handleNotModified(Response response)
         throws NotModifiedException {
         if (response.getStatus() == Status.NOT_MODIFIED.getStatusCode()) {
+            response.close();
             throw new NotModifiedException();
         }
     }
@@ -143,9 +372,8 @@ public abstract class AbstractAction {
      */
     protected String formatError(int status, String message,
                                  OneDriveError cause) {
-        throw new OneDriveException(message + ", reason: " + status + " "
-                                    + HttpErrorCode.getMessage(status)
-                                    + ", cause: " + cause);
+        return message + ", reason: " + status + " "
+               + HttpErrorCode.getMessage(status) + ", cause: " + cause;
     }
 
     /**
@@ -156,8 +384,8 @@ public abstract class AbstractAction {
      * @return String
      */
     protected String formatError(int status, String message) {
-        throw new OneDriveException(message + ", reason: " + status + " "
-                                    + HttpErrorCode.getMessage(status));
+        return message + ", reason: " + status + " "
+               + HttpErrorCode.getMessage(status);
     }
 
     /**
@@ -165,16 +393,22 @@ public abstract class AbstractAction {
      * 
      * @param name String
      * @param parentRef ItemReference
-     * @return Map<String, Object>
-     */
-    protected Map<String, Object> newParentRefBody(String name,
-                                                   ItemReference parentRef) {
-        Map<String, Object> map = new HashMap<>();
-        map.put(PARENT_REFERENCE, parentRef);
-        if (name != null && !name.isEmpty()) {
-            map.put("name", name);
-        }
-        return map;
+     * @return JsonBody
+     */
+    protected JsonBody newParentRefBody(final String name,
+                                        final ItemReference parentRef) {
+        return new JsonBody() {
+
+            @Override
+            public void writeTo(JsonGenerator generator) throws IOException {
+                generator.writeStartObject();
+                generator.writeObjectField(PARENT_REFERENCE, parentRef);
+                if (name != null && !name.isEmpty()) {
+                    generator.writeStringField("name", name);
+                }
+                generator.writeEndObject();
+            }
+        };
     }
 
     protected ItemReference getItemReference(ItemAddress address) {
@@ -194,16 +428,43 @@ public abstract class AbstractAction {
     }
 
     /**
-     * Maps a Map<String, Object> to JSON
+     * Update the item cache with an item created in a folder, the cached
+     * folder is invalidated because its children changed
      * 
-     * @param map Map<String, Object>
-     * @return String json
+     * @param item Item created item
+     * @param parentAddress ItemAddress of the folder
+     * @return Item
      */
-    public String toJson(Map<String, Object> map) {
-        try {
-            return api.getMapper().writeValueAsString(map);
-        } catch (JsonProcessingException e) {
-            throw new OneDriveException("Failure mapping to JSON", e);
+    protected Item cacheCreated(Item item, ItemAddress parentAddress) {
+        api.getPathResolver().update(item);
+        ItemCache cache = api.getItemCache();
+        cache.invalidate(parentAddress);
+        cacheParentChanged(cache, item);
+        cache.put(item);
+        return item;
+    }
+
+    /**
+     * Update the item cache with an item which is updated or moved, the
+     * previous version with its previous and current parent are removed
+     * 
+     * @param itemAddress ItemAddress of the item before the change
+     * @param item Item changed item
+     * @return Item
+     */
+    protected Item cacheChanged(ItemAddress itemAddress, Item item) {
+        api.getPathResolver().update(item);
+        ItemCache cache = api.getItemCache();
+        cache.remove(itemAddress);
+        cacheParentChanged(cache, item);
+        cache.put(item);
+        return item;
+    }
+
+    private void cacheParentChanged(ItemCache cache, Item item) {
+        if (item != null && item.getParentReference() != null
+            && item.getParentReference().getId() != null) {
+            cache.invalidate(item.getParentReference().getId());
         }
     }
 }
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Action which can be submitted without blocking the calling thread. The
+ * request is sent by the asynchronous invoker of the client, the response is
+ * handled on the executor supplied by the caller
+ * 
+ * @author yucca.io
+ * @param <T> type of result
+ */
+public interface AsyncAction<T> {
+
+    /**
+     * Submit the action
+     * 
+     * @param executor Executor on which the response is handled
+     * @return CompletableFuture<T> completed with the result, or exceptionally
+     *         with the OneDriveException in case of failure
+     */
+    CompletableFuture<T> submit(Executor executor);
+
+}
@@ -0,0 +1,407 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.yucca.microsoft.onedrive.JsonBody;
+import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
+import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.QueryParameters;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.resources.BatchResponse;
+import io.yucca.microsoft.onedrive.resources.BatchResponseCollection;
+import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+/**
+ * Action to execute metadata requests in JSON batches, saving a round trip per
+ * request. The steps are sent in batches of at most {@link #MAX_REQUESTS}
+ * requests, one batch after the other. Steps without dependencies may be
+ * executed by the service in any order. A step depending on a step in an
+ * earlier batch is only sent when that step succeeded.
+ * 
+ * <pre>
+ * BatchAction.Builder builder = BatchAction.Builder.newBatch(api);
+ * BatchStep&lt;Item&gt; folder = builder.create("folder", parent, null);
+ * builder.move(address, null, new PathAddress("folder")).dependsOn(folder);
+ * builder.build().call();
+ * Item created = folder.get();
+ * </pre>
+ * 
+ * @author yucca.io
+ */
+public class BatchAction extends AbstractAction
+    implements Callable<List<BatchStep<?>>> {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(BatchAction.class);
+
+    public static final String ACTION = "$batch";
+
+    /**
+     * Maximum number of requests in a single batch allowed by the service
+     */
+    public static final int MAX_REQUESTS = 20;
+
+    private final List<BatchStep<?>> steps = new ArrayList<>();
+
+    private final Map<BatchStep<?>, Integer> index = new HashMap<>();
+
+    private BatchAction(OneDriveAPIConnection api) {
+        super(api);
+    }
+
+    /**
+     * Execute all steps, the result of each step is available from the step
+     * 
+     * @return List<BatchStep<?>> steps in the order they were added
+     * @throws OneDriveException if a batch request fails as a whole, the steps
+     *             which are not executed fail with the same exception
+     */
+    @Override
+    public List<BatchStep<?>> call() throws OneDriveException {
+        for (int start = 0; start < steps.size(); start += MAX_REQUESTS) {
+            List<BatchStep<?>> batch = steps
+                .subList(start, Math.min(start + MAX_REQUESTS, steps.size()));
+            try {
+                execute(batch);
+                updateCache(batch);
+            } catch (OneDriveException e) {
+                for (BatchStep<?> step : steps.subList(start, steps.size())) {
+                    if (!step.isDone()) {
+                        step.fail(e);
+                    }
+                }
+                throw e;
+            }
+        }
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * Send the steps in a single batch, steps of which a dependency failed are
+     * not sent
+     * 
+     * @param batch List<BatchStep<?>> steps
+     */
+    private void execute(List<BatchStep<?>> batch) {
+        final List<Map<String, Object>> requests = new LinkedList<>();
+        Map<String, BatchStep<?>> sent = new HashMap<>();
+        for (BatchStep<?> step : batch) {
+            List<String> dependsOn = new LinkedList<>();
+            boolean failed = false;
+            for (BatchStep<?> dependency : step.getDependencies()) {
+                if (dependency.isDone()) {
+                    failed |= !dependency.isSuccessful();
+                } else if (sent.containsKey(dependency.getId())) {
+                    dependsOn.add(dependency.getId());
+                } else {
+                    failed = true;
+                }
+            }
+            if (failed) {
+                step.failDependency();
+            } else {
+                requests.add(step.toRequest(dependsOn));
+                sent.put(step.getId(), step);
+            }
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+        LOG.info("Executing batch of {} requests", requests.size());
+        JsonBody body = new JsonBody() {
+
+            @Override
+            public void writeTo(JsonGenerator generator) throws IOException {
+                generator.writeStartObject();
+                generator.writeObjectField("requests", requests);
+                generator.writeEndObject();
+            }
+        };
+        Response response = api.webTarget().path(ACTION)
+            .request(MediaType.APPLICATION_JSON_TYPE)
+            .post(Entity.json(body));
+        handleError(response, Status.OK, "Failure executing batch of "
+                                         + requests.size() + " requests");
+        BatchResponseCollection responses = readEntity(response,
+                                                       BatchResponseCollection.class);
+        if (responses.getResponses() != null) {
+            for (BatchResponse r : responses.getResponses()) {
+                BatchStep<?> step = sent.remove(r.getId());
+                if (step != null) {
+                    step.complete(r, api.getMapper());
+                }
+            }
+        }
+        for (BatchStep<?> step : sent.values()) {
+            step.fail(new OneDriveException("No response in batch for step: "
+                                            + step));
+        }
+    }
+
+    /**
+     * Update the item cache with the successful steps changing, deleting or
+     * creating items
+     * 
+     * @param batch List<BatchStep<?>> executed steps
+     */
+    private void updateCache(List<BatchStep<?>> batch) {
+        for (BatchStep<?> step : batch) {
+            if (!step.isSuccessful()) {
+                continue;
+            }
+            Object result = step.get();
+            if (step.getParentAddress() != null) {
+                cacheCreated((Item)result, step.getParentAddress());
+            } else if (step.getChangedAddress() != null) {
+                if (result instanceof Item) {
+                    cacheChanged(step.getChangedAddress(), (Item)result);
+                } else {
+                    api.getItemCache().remove(step.getChangedAddress());
+                }
+            }
+        }
+    }
+
+    int indexOf(BatchStep<?> step) {
+        Integer i = index.get(step);
+        return i == null ? Integer.MAX_VALUE : i;
+    }
+
+    /**
+     * Get the steps in this batch
+     * 
+     * @return List<BatchStep<?>>
+     */
+    public List<BatchStep<?>> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    private <T> BatchStep<T> add(String method, WebTarget target, Object body,
+                                 Status successStatus, Class<T> resultType,
+                                 String errorMessage) {
+        BatchStep<T> step = new BatchStep<>(this,
+                                            String.valueOf(steps.size() + 1),
+                                            method, relativeUrl(target), body,
+                                            successStatus, resultType,
+                                            errorMessage);
+        index.put(step, steps.size());
+        steps.add(step);
+        return step;
+    }
+
+    /**
+     * Get the URL of a target relative to the API root, as required for
+     * requests in a batch
+     * 
+     * @param target WebTarget
+     * @return String
+     */
+    private String relativeUrl(WebTarget target) {
+        String base = api.webTarget().getUri().toString();
+        String uri = target.getUri().toString();
+        return uri.startsWith(base) ? uri.substring(base.length()) : uri;
+    }
+
+    private WebTarget target(ItemAddress address, String path) {
+        return api.webTarget().path(path)
+            .resolveTemplateFromEncoded(ITEM_ADDRESS, address.getAddress());
+    }
+
+    /**
+     * Builder for BatchAction, each request added returns a step holding its
+     * result once the batch is executed
+     * 
+     * @author yucca.io
+     */
+    public static class Builder {
+
+        private final BatchAction batch;
+
+        private Builder(OneDriveAPIConnection api) {
+            this.batch = new BatchAction(api);
+        }
+
+        public static Builder newBatch(OneDriveAPIConnection api) {
+            return new Builder(api);
+        }
+
+        /**
+         * Request Item metadata, equivalent to {@link MetadataAction}
+         * 
+         * @param itemAddress ItemAddress of item
+         * @return BatchStep<Item>
+         */
+        public BatchStep<Item> metadata(ItemAddress itemAddress) {
+            return metadata(itemAddress, null, null);
+        }
+
+        /**
+         * Request Item metadata, equivalent to {@link MetadataAction}
+         * 
+         * @param itemAddress ItemAddress of item
+         * @param eTag String an optional etag value of the cached item, if it
+         *            matches the step fails with NotModifiedException
+         * @param parameters QueryParameters optional parameters influencing
+         *            the way the item is returned
+         * @return BatchStep<Item>
+         */
+        public BatchStep<Item> metadata(ItemAddress itemAddress, String eTag,
+                                        QueryParameters parameters) {
+            WebTarget target = batch
+                .target(itemAddress, itemAddress.getPathWithAddress());
+            if (parameters != null) {
+                target = parameters.configure(target);
+            }
+            BatchStep<Item> step = batch
+                .add("GET", target, null, Status.OK, Item.class,
+                     "Failure getting metadata for item: " + itemAddress);
+            addEtag(step, HEADER_IF_NONE_MATCH, eTag);
+            return step;
+        }
+
+        /**
+         * Update the writable metadata properties of an Item, equivalent to
+         * {@link UpdateAction}
+         * 
+         * @param item Item containing properties to update
+         * @param eTag String an optional etag value of the cached item, if set
+         *            this must match the etag value of remote item
+         * @return BatchStep<Item>
+         */
+        public BatchStep<Item> update(Item item, String eTag) {
+            ItemAddress itemAddress = new IdAddress(item);
+            if (item.getParentReference() != null) {
+                item.setParentReference(null);
+            }
+            BatchStep<Item> step = batch
+                .add(METHOD_PATCH,
+                     batch.target(itemAddress,
+                                  itemAddress.getPathWithAddress()),
+                     item, Status.OK, Item.class,
+                     "Failure updating item: " + itemAddress);
+            addEtag(step, HEADER_IF_MATCH, eTag);
+            return step.changes(itemAddress);
+        }
+
+        /**
+         * Delete an Item, equivalent to {@link DeleteAction}
+         * 
+         * @param itemAddress ItemAddress of item to delete
+         * @param eTag String an optional etag value of the cached item, if set
+         *            this must match the etag value of remote item
+         * @return BatchStep<Void>
+         */
+        public BatchStep<Void> delete(ItemAddress itemAddress, String eTag) {
+            BatchStep<Void> step = batch
+                .add("DELETE",
+                     batch.target(itemAddress,
+                                  itemAddress.getPathWithAddress()),
+                     null, Status.NO_CONTENT, Void.class,
+                     "Failure deleting item: " + itemAddress);
+            addEtag(step, HEADER_IF_MATCH, eTag);
+            return step.changes(itemAddress);
+        }
+
+        /**
+         * Create a folder, equivalent to {@link CreateAction}
+         * 
+         * @param name String name of folder
+         * @param parentAddress ItemAddress of parent folder
+         * @param behavior ConflictBehavior behaviour if a naming conflict
+         *            occurs, if {@code null} then defaults to
+         *            {@link ConflictBehavior#FAIL}
+         * @return BatchStep<Item>
+         */
+        public BatchStep<Item> create(String name, ItemAddress parentAddress,
+                                      ConflictBehavior behavior) {
+            return batch
+                .add("POST",
+                     batch.target(parentAddress, parentAddress
+                         .getPathWithAddress(CreateAction.ACTION)),
+                     CreateAction.newFolderBody(name, behavior),
+                     Status.CREATED, Item.class,
+                     "Failure creating folder: " + name
+                                                 + " in parent folder: "
+                                                 + parentAddress)
+                .createsIn(parentAddress);
+        }
+
+        /**
+         * Move an Item to a folder, equivalent to {@link MoveAction}
+         * 
+         * @param itemAddress ItemAddress of item to move
+         * @param name String optional new name of moved item, if {@code null}
+         *            the original name is used
+         * @param parentAddress ItemAddress of parent folder
+         * @return BatchStep<Item>
+         */
+        public BatchStep<Item> move(ItemAddress itemAddress, String name,
+                                    ItemAddress parentAddress) {
+            return batch
+                .add(METHOD_PATCH,
+                     batch.target(itemAddress,
+                                  itemAddress.getPathWithAddress()),
+                     batch.newParentRefBody(name,
+                                            batch.getItemReference(parentAddress)),
+                     Status.OK, Item.class, "Failure moving item: "
+                                            + itemAddress
+                                            + " to parent folder: "
+                                            + parentAddress)
+                .changes(itemAddress);
+        }
+
+        /**
+         * Get the number of steps added
+         * 
+         * @return int
+         */
+        public int size() {
+            return batch.steps.size();
+        }
+
+        public BatchAction build() {
+            return batch;
+        }
+
+        private void addEtag(BatchStep<?> step, String header, String eTag) {
+            if (eTag != null && !eTag.isEmpty()) {
+                step.addHeader(header, batch.createEtag(eTag).toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.yucca.microsoft.onedrive.NotModifiedException;
+import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.resources.BatchResponse;
+import io.yucca.microsoft.onedrive.resources.HttpErrorCode;
+import io.yucca.microsoft.onedrive.resources.OneDriveError;
+
+/**
+ * A single request in a {@link BatchAction}. After the batch is executed the
+ * step holds the result of the request, mapped to the type the equivalent
+ * action returns, or the OneDriveException in case of failure
+ *
+ * @author yucca.io
+ * @param <T> type of result
+ */
+public class BatchStep<T> {
+
+    private final BatchAction batch;
+
+    private final String id;
+
+    private final String method;
+
+    private final String url;
+
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    private final Object body;
+
+    private final Status successStatus;
+
+    private final Class<T> resultType;
+
+    private final String errorMessage;
+
+    private final List<BatchStep<?>> dependencies = new LinkedList<>();
+
+    private ItemAddress changedAddress;
+
+    private ItemAddress parentAddress;
+
+    private boolean done;
+
+    private int status;
+
+    private T result;
+
+    private RuntimeException failure;
+
+    /**
+     * Constructor
+     * 
+     * @param batch BatchAction to which the step belongs
+     * @param id String identifier of the request within the batch
+     * @param method String HTTP method
+     * @param url String url relative to the API root
+     * @param body Object optional JSON body
+     * @param successStatus Status indicating success response
+     * @param resultType Class<T> type of result, {@code Void} if the response
+     *            has no content
+     * @param errorMessage String in case of failure
+     */
+    BatchStep(BatchAction batch, String id, String method, String url,
+              Object body, Status successStatus, Class<T> resultType,
+              String errorMessage) {
+        this.batch = batch;
+        this.id = id;
+        this.method = method;
+        this.url = url;
+        this.body = body;
+        this.successStatus = successStatus;
+        this.resultType = resultType;
+        this.errorMessage = errorMessage;
+        if (body != null) {
+            headers.put("Content-Type", MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * Execute this step only after another step in the same batch succeeded.
+     * If the other step fails, this step fails with 424 Failed Dependency
+     * 
+     * @param step BatchStep<?> step added to the batch before this step
+     * @return BatchStep<T>
+     */
+    public BatchStep<T> dependsOn(BatchStep<?> step) {
+        if (step.batch != batch || batch.indexOf(step) >= batch.indexOf(this)) {
+            throw new IllegalArgumentException("Step: " + id
+                                               + " can only depend on a step added before it to the same batch");
+        }
+        dependencies.add(step);
+        return this;
+    }
+
+    /**
+     * Get the result of the request
+     * 
+     * @return T result, {@code null} for requests without content
+     * @throws OneDriveException if the request failed
+     * @throws NotModifiedException if an eTag was provided and matched
+     * @throws IllegalStateException if the batch was not executed
+     */
+    public T get() {
+        if (!done) {
+            throw new IllegalStateException("Batch containing step: " + id
+                                            + " is not executed");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return result;
+    }
+
+    /**
+     * Determine if the request is executed
+     * 
+     * @return true if a result or failure is available
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Determine if the request succeeded
+     * 
+     * @return true if executed without failure
+     */
+    public boolean isSuccessful() {
+        return done && failure == null;
+    }
+
+    /**
+     * Get the status code of the response, 0 if no response was received
+     * 
+     * @return int
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    List<BatchStep<?>> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Get the address of the item changed or deleted by this step
+     * 
+     * @return ItemAddress or {@code null} if no item is changed
+     */
+    ItemAddress getChangedAddress() {
+        return changedAddress;
+    }
+
+    /**
+     * Get the address of the folder in which this step creates an item
+     * 
+     * @return ItemAddress or {@code null} if no item is created
+     */
+    ItemAddress getParentAddress() {
+        return parentAddress;
+    }
+
+    BatchStep<T> changes(ItemAddress address) {
+        this.changedAddress = address;
+        return this;
+    }
+
+    BatchStep<T> createsIn(ItemAddress address) {
+        this.parentAddress = address;
+        return this;
+    }
+
+    void addHeader(String name, String value) {
+        headers.put(name, value);
+    }
+
+    /**
+     * Create the JSON batch request for this step
+     * 
+     * @param dependsOn List<String> identifiers of steps in the same request
+     *            this step depends on
+     * @return Map<String, Object>
+     */
+    Map<String, Object> toRequest(List<String> dependsOn) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        map.put("method", method);
+        map.put("url", url);
+        if (!headers.isEmpty()) {
+            map.put("headers", headers);
+        }
+        if (body != null) {
+            map.put("body", body);
+        }
+        if (!dependsOn.isEmpty()) {
+            map.put("dependsOn", dependsOn);
+        }
+        return map;
+    }
+
+    /**
+     * Complete the step with its response
+     * 
+     * @param response BatchResponse
+     * @param mapper ObjectMapper
+     */
+    void complete(BatchResponse response, ObjectMapper mapper) {
+        status = response.getStatus();
+        try {
+            if (status == successStatus.getStatusCode()) {
+                done(resultType == Void.class || response.getBody() == null
+                    ? null : mapper.treeToValue(response.getBody(), resultType));
+            } else if (status == Status.NOT_MODIFIED.getStatusCode()) {
+                fail(new NotModifiedException());
+            } else {
+                OneDriveError error = response.getBody() == null
+                    ? null : mapper.treeToValue(response.getBody(),
+                                                OneDriveError.class);
+                fail(new OneDriveException(errorMessage, status, error));
+            }
+        } catch (JsonProcessingException e) {
+            fail(new OneDriveException("Failure mapping response of step: "
+                                       + id, e));
+        }
+    }
+
+    /**
+     * Fail the step without sending it, because a step it depends on failed
+     */
+    void failDependency() {
+        status = HttpErrorCode.FAILED_DEPENDENCY.getCode();
+        fail(new OneDriveException(errorMessage, status));
+    }
+
+    void done(T value) {
+        this.result = value;
+        this.done = true;
+    }
+
+    void fail(RuntimeException e) {
+        this.failure = e;
+        this.done = true;
+    }
+
+    @Override
+    public String toString() {
+        return id + " " + method + " " + url;
+    }
+}
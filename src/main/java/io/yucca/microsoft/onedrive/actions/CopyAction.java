@@ -16,16 +16,19 @@
 package io.yucca.microsoft.onedrive.actions;
 
 import java.net.URI;
-import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.yucca.microsoft.onedrive.JsonBody;
 import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
 import io.yucca.microsoft.onedrive.OneDriveException;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
@@ -36,7 +39,8 @@ import io.yucca.microsoft.onedrive.addressing.PathAddress;
  * 
  * @author yucca.io
  */
-public class CopyAction extends AbstractAction implements Callable<URI> {
+public class CopyAction extends AbstractAction
+    implements Callable<URI>, AsyncAction<URI> {
 
     private static final Logger LOG = LoggerFactory.getLogger(CopyAction.class);
 
@@ -94,26 +98,55 @@ public class CopyAction extends AbstractAction implements Callable<URI> {
         return copy();
     }
 
+    /**
+     * Copy Item to a folder without blocking
+     * 
+     * @param executor Executor on which the response is handled
+     * @return CompletableFuture<URI> location to get of asynchronous job
+     *         status, used in polling
+     */
+    @Override
+    public CompletableFuture<URI> submit(Executor executor) {
+        return submit(invocation(), executor, new ResponseHandler<URI>() {
+
+            @Override
+            public URI handle(Response response) {
+                return handleResponse(response);
+            }
+        });
+    }
+
     /**
      * Copy Item to a folder
      * 
      * @return URI location to get of asynchronous job status, used in polling
      */
     private URI copy() {
+        return handleResponse(invocation().invoke());
+    }
+
+    private Invocation invocation() {
         LOG.info("Copying item: {} to folder: {}", itemAddress, parentAddress);
-        Map<String, Object> map = newParentRefBody(name,
-                                                   getItemReference(parentAddress));
-        Response response = api.webTarget()
-            .path(itemAddress.getPathWithAddress(ACTION))
+        JsonBody body = newParentRefBody(name,
+                                         getItemReference(parentAddress));
+        return api.webTarget().path(itemAddress.getPathWithAddress(ACTION))
             .resolveTemplateFromEncoded(ITEM_ADDRESS,
                                         itemAddress.getAddress())
             .request().header(HEADER_PREFER, RESPOND_ASYNC)
-            .post(Entity.json(map));
-        handleError(response,
-                    Status.ACCEPTED, "Failed to copy item: " + itemAddress
-                                     + " to: "
-                                     + parentAddress.getPathWithAddress());
-        return response.getLocation();
+            .buildPost(Entity.json(body));
+    }
+
+    private URI handleResponse(Response response) {
+        try {
+            handleError(response,
+                        Status.ACCEPTED, "Failed to copy item: " + itemAddress
+                                         + " to: "
+                                         + parentAddress.getPathWithAddress());
+            api.getItemCache().invalidate(parentAddress);
+            return response.getLocation();
+        } finally {
+            response.close();
+        }
     }
 
 
@@ -15,8 +15,7 @@
  */
 package io.yucca.microsoft.onedrive.actions;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
 import java.util.concurrent.Callable;
 
 import javax.ws.rs.client.Entity;
@@ -26,13 +25,16 @@ import javax.ws.rs.core.Response.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.yucca.microsoft.onedrive.JsonBody;
 import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
 import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.QueryParameters;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.addressing.RootAddress;
 import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
 import io.yucca.microsoft.onedrive.resources.Item;
-import io.yucca.microsoft.onedrive.resources.facets.FolderFacet;
 
 /**
  * Action to create a folder
@@ -87,16 +89,16 @@ public class CreateAction extends AbstractAction implements Callable<Item> {
      */
     private Item create() {
         LOG.info("Creating new folder: {} in folder: {}", name, parentAddress);
-        Map<String, Object> map = newFolderBody(name, behavior);
         Response response = api.webTarget()
             .path(parentAddress.getPathWithAddress(ACTION))
             .resolveTemplateFromEncoded(ITEM_ADDRESS,
                                         parentAddress.getAddress())
-            .request().post(Entity.json(toJson(map)));
+            .request()
+            .post(Entity.json(newFolderBody(name, behavior)));
         handleError(response, Status.CREATED,
                     "Failure creating folder: " + name + " in parent folder: "
                                               + parentAddress);
-        return response.readEntity(Item.class);
+        return cacheCreated(readEntity(response, Item.class), parentAddress);
     }
 
     /**
@@ -120,16 +122,25 @@ public class CreateAction extends AbstractAction implements Callable<Item> {
      * 
      * @param name String
      * @param behavior ConflictBehavior
-     * @return Map<String, Object>
+     * @return JsonBody
      */
-    Map<String, Object> newFolderBody(String name, ConflictBehavior behavior) {
-        String conflictBehavior = (behavior == null)
+    static JsonBody newFolderBody(final String name,
+                                  ConflictBehavior behavior) {
+        final String conflictBehavior = (behavior == null)
             ? ConflictBehavior.FAIL.getName() : behavior.getName();
-        Map<String, Object> map = new HashMap<>();
-        map.put("name", name);
-        map.put("folder", new FolderFacet());
-        map.put("@name.conflictBehavior", conflictBehavior);
-        return map;
+        return new JsonBody() {
+
+            @Override
+            public void writeTo(JsonGenerator generator) throws IOException {
+                generator.writeStartObject();
+                generator.writeStringField("name", name);
+                generator.writeObjectFieldStart("folder");
+                generator.writeEndObject();
+                generator.writeStringField(QueryParameters.CONFLICT_BEHAVIOR,
+                                           conflictBehavior);
+                generator.writeEndObject();
+            }
+        };
     }
 
 }
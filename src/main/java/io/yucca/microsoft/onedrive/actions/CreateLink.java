@@ -90,7 +90,7 @@ public class CreateLink extends AbstractAction
         Status[] successCodes = { Status.CREATED, Status.OK };
         handleError(response, successCodes,
                     "Failure creating sharing link for item: " + itemAddress);
-        return response.readEntity(PermissionFacet.class);
+        return readEntity(response, PermissionFacet.class);
     }
 
 }
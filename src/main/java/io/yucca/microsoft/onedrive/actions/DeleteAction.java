@@ -16,7 +16,10 @@
 package io.yucca.microsoft.onedrive.actions;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -34,7 +37,8 @@ import io.yucca.microsoft.onedrive.addressing.ItemAddress;
  * 
  * @author yucca.io
  */
-public class DeleteAction extends AbstractAction implements Callable<Void> {
+public class DeleteAction extends AbstractAction
+    implements Callable<Void>, AsyncAction<Void> {
 
     private static final Logger LOG = LoggerFactory.getLogger(DeleteAction.class);
 
@@ -80,17 +84,38 @@ public class DeleteAction extends AbstractAction implements Callable<Void> {
         return delete();
     }
 
+    @Override
+    public CompletableFuture<Void> submit(Executor executor) {
+        return submit(invocation(), executor, new ResponseHandler<Void>() {
+
+            @Override
+            public Void handle(Response response) {
+                return handleResponse(response);
+            }
+        });
+    }
+
     private Void delete() {
+        return handleResponse(invocation().invoke());
+    }
+
+    private Invocation invocation() {
         LOG.info("Deleting item: {}", itemAddress);
         EntityTag tag = createEtag(eTag);
-        Response response = api.webTarget()
+        return api.webTarget()
             .path(itemAddress.getPathWithAddress())
             .resolveTemplateFromEncoded(ITEM_ADDRESS,
                                         itemAddress.getAddress())
             .request(MediaType.APPLICATION_JSON_TYPE)
-            .header(HEADER_IF_MATCH, tag).delete();
+            .header(HEADER_IF_MATCH, tag).buildDelete();
+    }
+
+    private Void handleResponse(Response response) {
         handleError(response, Status.NO_CONTENT,
                     "Failure deleting item: " + itemAddress);
+        response.close();
+        api.getItemCache().remove(itemAddress);
+        api.getPathResolver().remove(itemAddress);
         return null;
     }
 
@@ -17,7 +17,10 @@ package io.yucca.microsoft.onedrive.actions;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -37,7 +40,7 @@ import io.yucca.microsoft.onedrive.addressing.ItemAddress;
  * @author yucca.io
  */
 public class DownloadAction extends AbstractAction
-    implements Callable<OneDriveContent> {
+    implements Callable<OneDriveContent>, AsyncAction<OneDriveContent> {
 
     private static final Logger LOG = LoggerFactory.getLogger(DownloadAction.class);
 
@@ -87,6 +90,25 @@ public class DownloadAction extends AbstractAction
         return download();
     }
 
+    /**
+     * Download Item content without blocking, the content is streamed when
+     * read so it should be read outside of the invoker threads
+     * 
+     * @param executor Executor on which the response is handled
+     * @return CompletableFuture<OneDriveContent>
+     */
+    @Override
+    public CompletableFuture<OneDriveContent> submit(Executor executor) {
+        return submit(invocation(itemAddress), executor,
+                      new ResponseHandler<OneDriveContent>() {
+
+                          @Override
+                          public OneDriveContent handle(Response response) {
+                              return handleResponse(response);
+                          }
+                      });
+    }
+
     /**
      * Download Item content
      * <p>
@@ -102,15 +124,22 @@ public class DownloadAction extends AbstractAction
      *             the Item has not changed
      */
     private OneDriveContent download() {
-        LOG.info("Downloading item: {}", itemAddress);
-        Response response = api.webTarget()
-            .path(itemAddress.getPathWithAddress(ACTION))
-            .resolveTemplateFromEncoded(ITEM_ADDRESS, itemAddress.getAddress())
-            .request().header(HEADER_IF_NONE_MATCH, createEtag(eTag)).get();
+        return handleResponse(invocation(itemAddress).invoke());
+    }
+
+    private Invocation invocation(ItemAddress address) {
+        LOG.info("Downloading item: {}", address);
+        return transfer(api.webTarget().path(address.getPathWithAddress(ACTION))
+            .resolveTemplateFromEncoded(ITEM_ADDRESS, address.getAddress())
+            .request()).header(HEADER_IF_NONE_MATCH, createEtag(eTag))
+            .buildGet();
+    }
+
+    private OneDriveContent handleResponse(Response response) {
         handleNotModified(response);
         handleError(response, Status.OK,
                     "Failure downloading item: " + itemAddress);
-        return response.readEntity(OneDriveContent.class);
+        return readContent(response);
     }
 
     /**
@@ -121,12 +150,13 @@ public class DownloadAction extends AbstractAction
      * @return OneDriveContent
      */
     public static OneDriveContent byURI(OneDriveAPIConnection api, URI uri) {
-        Response response = api.webTarget(uri)
-            .request(MediaType.APPLICATION_OCTET_STREAM).get();
+        Response response = transfer(api.webTarget(uri)
+            .request(MediaType.APPLICATION_OCTET_STREAM)).get();
         if (response.getStatus() != Status.OK.getStatusCode()) {
+                response.close();
             throw new OneDriveException("Failure downloading item by URI: "
                                         + uri, response.getStatus());
         }
-        return response.readEntity(OneDriveContent.class);
+        return readContent(response);
     }
 }
@@ -88,7 +88,7 @@ public class DriveAction extends AbstractAction implements Callable<Drive> {
             .get();
         handleError(response, Status.OK,
                     "Failed to get properties for drive: " + name);
-        return response.readEntity(Drive.class);
+        return readEntity(response, Drive.class);
     }
 
 }
@@ -17,7 +17,10 @@ package io.yucca.microsoft.onedrive.actions;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -28,12 +31,16 @@ import org.slf4j.LoggerFactory;
 
 import io.yucca.microsoft.onedrive.ItemCollection;
 import io.yucca.microsoft.onedrive.ItemIterable;
+import io.yucca.microsoft.onedrive.ItemSummaryCollection;
 import io.yucca.microsoft.onedrive.NotModifiedException;
 import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
 import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.PageLoader;
 import io.yucca.microsoft.onedrive.QueryParameters;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.addressing.RootAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.resources.ItemSummary;
 
 /**
  * Action to list children in a folder or drive item
@@ -41,12 +48,15 @@ import io.yucca.microsoft.onedrive.addressing.RootAddress;
  * @author yucca.io
  */
 public class ListChildrenAction extends AbstractAction
-    implements Callable<ItemIterable> {
+    implements Callable<ItemIterable>, AsyncAction<ItemIterable> {
 
     private static final Logger LOG = LoggerFactory.getLogger(DriveAction.class);
 
     public static final String ACTION = "children";
 
+    private static final QueryParameters SUMMARY_PARAMETERS = QueryParameters.Builder
+        .newQueryParameters().select(ItemSummary.SELECT).build();
+
     private final ItemAddress itemAddress;
 
     private final String eTag;
@@ -126,20 +136,90 @@ public class ListChildrenAction extends AbstractAction
      *             the folder has not changed
      */
     public ItemIterable listChildren() {
+        return handleResponse(invocation(itemAddress).invoke());
+    }
+
+    /**
+     * List children in folder without blocking, only the first collection is
+     * requested asynchronously, following collections are requested while
+     * iterating
+     * 
+     * @param executor Executor on which the response is handled
+     * @return CompletableFuture<ItemIterable>
+     */
+    @Override
+    public CompletableFuture<ItemIterable> submit(Executor executor) {
+        return submit(invocation(itemAddress), executor,
+                      new ResponseHandler<ItemIterable>() {
+
+                          @Override
+                          public ItemIterable handle(Response response) {
+                              return handleResponse(response);
+                          }
+                      });
+    }
+
+    /**
+     * List children in folder as compact summaries, only the properties of
+     * {@link ItemSummary#SELECT} are requested. A select parameter is
+     * replaced by these properties.
+     * 
+     * @return ItemSummaryCollection
+     * @throws NotModifiedException if an eTag was provided and matched, meaning
+     *             the folder has not changed
+     */
+    public ItemSummaryCollection summaries() {
+        return handleSummaries(invocation(itemAddress, true).invoke());
+    }
+
+    private Invocation invocation(ItemAddress address) {
+        return invocation(address, false);
+    }
+
+    private Invocation invocation(ItemAddress address, boolean summaries) {
         LOG.info("Listing children in folder: {} with query parameters: {}",
-                 itemAddress, parameters);
+                 address, parameters);
         WebTarget target = api.webTarget()
-            .path(itemAddress.getPathWithAddress(ACTION))
-            .resolveTemplateFromEncoded(ITEM_ADDRESS, itemAddress.getAddress());
-        if (parameters != null) {
+            .path(address.getPathWithAddress(ACTION))
+            .resolveTemplateFromEncoded(ITEM_ADDRESS, address.getAddress());
+        if (parameters != null && summaries) {
+            target = parameters.configure(target, QueryParameters.EXPAND,
+                                          QueryParameters.SELECT);
+        } else if (parameters != null) {
             target = parameters.configure(target, QueryParameters.EXPAND);
         }
-        Response response = target.request(MediaType.APPLICATION_JSON_TYPE)
-            .header(HEADER_IF_NONE_MATCH, createEtag(eTag)).get();
+        if (summaries) {
+            target = SUMMARY_PARAMETERS.configure(target);
+        }
+        return target.request(MediaType.APPLICATION_JSON_TYPE)
+            .header(HEADER_IF_NONE_MATCH, createEtag(eTag)).buildGet();
+    }
+
+    private ItemIterable handleResponse(Response response) {
+        handleNotModified(response);
+        handleError(response, Status.OK,
+                    "Failed to list children for item:" + itemAddress);
+        ItemCollection children = readEntity(response, ItemCollection.class);
+        if (children.getValue() != null) {
+            for (Item child : children.getValue()) {
+                api.getPathResolver().update(child);
+            }
+        }
+        return children.setApi(api);
+    }
+
+    private ItemSummaryCollection handleSummaries(Response response) {
         handleNotModified(response);
         handleError(response, Status.OK,
                     "Failed to list children for item:" + itemAddress);
-        return response.readEntity(ItemCollection.class).setApi(api);
+        return readSummaries(api, response);
+    }
+
+    private static ItemSummaryCollection readSummaries(OneDriveAPIConnection api,
+                                                       Response response) {
+        ItemSummaryCollection children = readEntity(response,
+                                                    ItemSummaryCollection.class);
+        return children.setLoader(summaryLoader(api));
     }
 
     /**
@@ -154,9 +234,46 @@ public class ListChildrenAction extends AbstractAction
         Response response = api.webTarget(uri)
             .request(MediaType.APPLICATION_JSON_TYPE).get();
         if (response.getStatus() != Status.OK.getStatusCode()) {
+                response.close();
             throw new OneDriveException("Failure listing children by URL: "
                                         + uri, response.getStatus());
         }
-        return response.readEntity(ItemCollection.class).setApi(api);
+        return readEntity(response, ItemCollection.class).setApi(api);
+    }
+
+    /**
+     * List children summaries by URL, used to get the next collection using
+     * {@link ItemSummaryCollection#getNextLink()}
+     * 
+     * @param api OneDriveAPIConnection
+     * @param uri URI to as returned in the Location header
+     * @return ItemSummaryCollection
+     */
+    public static ItemSummaryCollection summariesByURI(OneDriveAPIConnection api,
+                                                       URI uri) {
+        Response response = api.webTarget(uri)
+            .request(MediaType.APPLICATION_JSON_TYPE).get();
+        if (response.getStatus() != Status.OK.getStatusCode()) {
+            response.close();
+            throw new OneDriveException("Failure listing children by URL: "
+                                        + uri, response.getStatus());
+        }
+        return readSummaries(api, response);
+    }
+
+    /**
+     * PageLoader fetching pages of children summaries
+     * 
+     * @param api OneDriveAPIConnection
+     * @return PageLoader<ItemSummaryCollection>
+     */
+    public static PageLoader<ItemSummaryCollection> summaryLoader(final OneDriveAPIConnection api) {
+        return new PageLoader<ItemSummaryCollection>() {
+
+            @Override
+            public ItemSummaryCollection load(URI uri) {
+                return summariesByURI(api, uri);
+            }
+        };
     }
 }
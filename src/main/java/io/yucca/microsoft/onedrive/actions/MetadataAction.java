@@ -16,7 +16,10 @@
 package io.yucca.microsoft.onedrive.actions;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -36,7 +39,8 @@ import io.yucca.microsoft.onedrive.resources.Item;
  * 
  * @author yucca.io
  */
-public class MetadataAction extends AbstractAction implements Callable<Item> {
+public class MetadataAction extends AbstractAction
+    implements Callable<Item>, AsyncAction<Item> {
 
     private static final Logger LOG = LoggerFactory
         .getLogger(MetadataAction.class);
@@ -103,6 +107,18 @@ public class MetadataAction extends AbstractAction implements Callable<Item> {
         return metadata();
     }
 
+    @Override
+    public CompletableFuture<Item> submit(Executor executor) {
+        return submit(invocation(itemAddress), executor,
+                      new ResponseHandler<Item>() {
+
+                          @Override
+                          public Item handle(Response response) {
+                              return handleResponse(response);
+                          }
+                      });
+    }
+
     /**
      * Get metadata for an Item
      * 
@@ -112,19 +128,33 @@ public class MetadataAction extends AbstractAction implements Callable<Item> {
      *             provided
      */
     private Item metadata() throws NotModifiedException {
-        LOG.info("Get metadata for item: {}", itemAddress);
-        WebTarget target = api.webTarget()
-            .path(itemAddress.getPathWithAddress())
-            .resolveTemplateFromEncoded(ITEM_ADDRESS, itemAddress.getAddress());
+        return invokeResolved(itemAddress, new AddressedRequest() {
+
+            @Override
+            public Item invoke(ItemAddress address) {
+                return handleResponse(invocation(address).invoke());
+            }
+        });
+    }
+
+    private Invocation invocation(ItemAddress address) {
+        LOG.info("Get metadata for item: {}", address);
+        WebTarget target = api.webTarget().path(address.getPathWithAddress())
+            .resolveTemplateFromEncoded(ITEM_ADDRESS, address.getAddress());
         if (parameters != null) {
             target = parameters.configure(target);
         }
-        Response response = target.request()
-            .header(HEADER_IF_NONE_MATCH, createEtag(eTag)).get();
+        return target.request().header(HEADER_IF_NONE_MATCH, createEtag(eTag))
+            .buildGet();
+    }
+
+    private Item handleResponse(Response response) {
         handleNotModified(response);
         handleError(response, Status.OK,
                     "Failure getting metadata for item: " + itemAddress);
-        return response.readEntity(Item.class);
+        Item item = readEntity(response, Item.class);
+        api.getPathResolver().update(item);
+        return item;
     }
 
 }
@@ -15,10 +15,12 @@
  */
 package io.yucca.microsoft.onedrive.actions;
 
-import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -26,6 +28,7 @@ import org.glassfish.jersey.client.HttpUrlConnectorProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.yucca.microsoft.onedrive.JsonBody;
 import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
 import io.yucca.microsoft.onedrive.OneDriveException;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
@@ -37,7 +40,8 @@ import io.yucca.microsoft.onedrive.resources.Item;
  * 
  * @author yucca.io
  */
-public class MoveAction extends AbstractAction implements Callable<Item> {
+public class MoveAction extends AbstractAction
+    implements Callable<Item>, AsyncAction<Item> {
 
     private static final Logger LOG = LoggerFactory.getLogger(MoveAction.class);
 
@@ -92,6 +96,17 @@ public class MoveAction extends AbstractAction implements Callable<Item> {
         return move();
     }
 
+    @Override
+    public CompletableFuture<Item> submit(Executor executor) {
+        return submit(invocation(), executor, new ResponseHandler<Item>() {
+
+            @Override
+            public Item handle(Response response) {
+                return handleResponse(response);
+            }
+        });
+    }
+
     /**
      * Move Item by itemId to a folder
      * 
@@ -102,22 +117,28 @@ public class MoveAction extends AbstractAction implements Callable<Item> {
      * @return Item moved Item
      */
     private Item move() {
+        return handleResponse(invocation().invoke());
+    }
+
+    private Invocation invocation() {
         LOG.info("Moving item: {} to folder: {}", itemAddress, parentAddress);
-        Map<String, Object> map = newParentRefBody(name,
-                                                   getItemReference(parentAddress));
-        Response response = api.webTarget()
-            .path(itemAddress.getPathWithAddress())
+        JsonBody body = newParentRefBody(name,
+                                         getItemReference(parentAddress));
+        return api.webTarget().path(itemAddress.getPathWithAddress())
             .resolveTemplateFromEncoded(ITEM_ADDRESS,
                                         itemAddress.getAddress())
             .request()
             // https://stackoverflow.com/questions/22355235/patch-request-using-jersey-client
             .property(HttpUrlConnectorProvider.SET_METHOD_WORKAROUND, true)
-            .method(METHOD_PATCH, Entity.json(map));
+            .build(METHOD_PATCH, Entity.json(body));
+    }
+
+    private Item handleResponse(Response response) {
         handleError(response, Status.OK,
                     "Failure moving item: " + itemAddress
                                          + " to parent folder: "
                                          + parentAddress);
-        return response.readEntity(Item.class);
+        return cacheChanged(itemAddress, readEntity(response, Item.class));
     }
 
 }
@@ -95,25 +95,28 @@ public class PollAction extends AbstractAction implements Callable<Item> {
         while (true) {
             Response response = api.webTarget(uri).request().get();
             if (equalsStatus(response, Status.ACCEPTED)) {
-                AsyncOperationStatus status = response
-                    .readEntity(AsyncOperationStatus.class);
+                AsyncOperationStatus status = readEntity(response,
+                                                         AsyncOperationStatus.class);
                 LOG.info(status.toString());
             } else if (equalsStatus(response, Status.SEE_OTHER)) {
                 // 303 See Other is never returned on completion instead 200 Ok
                 // with the Item as response body. Understanding is untested XXX
                 LOG.info("Operation: {} for item: {} completed.", action,
                          itemAddress);
-                return byURI(response.getLocation(), api);
+                URI location = response.getLocation();
+                response.close();
+                return byURI(location, api);
             } else if (equalsStatus(response, Status.OK)) {
                 LOG.info("Operation: {} for item: {} completed.", action,
                          itemAddress);
-                return response.readEntity(Item.class);
+                return readEntity(response, Item.class);
             } else if (equalsStatus(response, Status.INTERNAL_SERVER_ERROR)) {
-                AsyncOperationStatus status = response
-                    .readEntity(AsyncOperationStatus.class);
+                AsyncOperationStatus status = readEntity(response,
+                                                         AsyncOperationStatus.class);
                 throw new OneDriveException(formatError(response.getStatus(),
                                                         status.toString()));
             } else {
+                response.close();
                 if (--errorcount < 0) {
                     throw new OneDriveException(formatError(response
                         .getStatus(), "Too many polling errors, aborting the polling for the completion of action: "
@@ -140,9 +143,10 @@ public class PollAction extends AbstractAction implements Callable<Item> {
     public Item byURI(URI uri, OneDriveAPIConnection api) {
         Response response = api.webTarget(uri).request().get();
         if (response.getStatus() != Status.OK.getStatusCode()) {
+                response.close();
             throw new OneDriveException("Failure acquiring metadata for item: "
                                         + uri, response.getStatus());
         }
-        return response.readEntity(Item.class);
+        return readEntity(response, Item.class);
     }
 }
@@ -0,0 +1,366 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
+import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.ThrottlingController;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.io.Range;
+import io.yucca.microsoft.onedrive.resources.HttpErrorCode;
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.util.SimpleBackOffWaitStrategy;
+
+/**
+ * Action to download Item content in multiple byte ranges concurrently. The
+ * target file is preallocated to the size of the item and every range is
+ * written at its offset using positional writes on a shared FileChannel.
+ * <p>
+ * Each range request is guarded by the eTag of the item, if the item changes
+ * while downloading the action fails. The parallelism should not exceed the
+ * maximum connections per route configured in {@link
+ * io.yucca.microsoft.onedrive.ClientFactory}.
+ * </p>
+ * 
+ * @author yucca.io
+ */
+public class RangedDownloadAction extends AbstractAction
+    implements Callable<Path> {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(RangedDownloadAction.class);
+
+    public static final String ACTION = DownloadAction.ACTION;
+
+    public static final long FRAGMENTSIZE_10MB = 1024 * 1024 * 10;
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int failureThreshold = 5;
+
+    private final ItemAddress itemAddress;
+
+    private final Item item;
+
+    private final Path target;
+
+    private final long fragmentSize;
+
+    private final int parallelism;
+
+    /**
+     * Constructor
+     * 
+     * @param api OneDriveAPIConnection
+     * @param item Item to download, size and eTag must be known
+     * @param target Path file to which content is written, an existing file
+     *            is overwritten
+     */
+    public RangedDownloadAction(OneDriveAPIConnection api, Item item,
+                                Path target) {
+        this(api, item, target, FRAGMENTSIZE_10MB, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param api OneDriveAPIConnection
+     * @param item Item to download, size and eTag must be known
+     * @param target Path file to which content is written, an existing file
+     *            is overwritten
+     * @param fragmentSize long maximum size of a range
+     * @param parallelism int maximum number of ranges downloaded at the same
+     *            time
+     */
+    public RangedDownloadAction(OneDriveAPIConnection api, Item item,
+                                Path target, long fragmentSize,
+                                int parallelism) {
+        super(api);
+        if (item.getSize() == null) {
+            throw new IllegalArgumentException("size of item: " + item.getId()
+                                               + " is unknown");
+        }
+        if (fragmentSize <= 0 || parallelism < 1) {
+            throw new IllegalArgumentException("fragmentSize or parallelism is invalid");
+        }
+        this.item = item;
+        this.itemAddress = new IdAddress(item.getId());
+        this.target = target;
+        this.fragmentSize = fragmentSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Download Item content
+     * 
+     * @return Path target file
+     */
+    @Override
+    public Path call() throws OneDriveException {
+        return download();
+    }
+
+    /**
+     * Download Item content into the target file
+     * 
+     * @return Path target file
+     */
+    private Path download() {
+        long size = item.getSize();
+        LOG.info("Downloading item: {} of {} bytes in ranges of {} bytes into: {}",
+                 new Object[] { itemAddress, size, fragmentSize, target });
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (RandomAccessFile raf = new RandomAccessFile(target.toFile(),
+                                                         "rw")) {
+            raf.setLength(size);
+            if (size == 0) {
+                return target;
+            }
+            FileChannel channel = raf.getChannel();
+            CompletionService<Range> completion = new ExecutorCompletionService<>(executor);
+            Set<Range> ranges = Range.getRanges(fragmentSize, size);
+            for (Range range : ranges) {
+                completion.submit(new RangeDownload(channel, range));
+            }
+            for (int i = 0; i < ranges.size(); i++) {
+                takeCompleted(completion);
+            }
+            channel.force(false);
+            LOG.info("Successfully downloaded all ranges of item: {}",
+                     itemAddress);
+            return target;
+        } catch (IOException e) {
+            throw new OneDriveException("Failure writing content of item: "
+                                        + itemAddress + " to: " + target, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for the next completed range download
+     * 
+     * @param completion CompletionService<Range>
+     * @return Range downloaded range
+     */
+    private Range takeCompleted(CompletionService<Range> completion) {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OneDriveException("Downloading of item: " + itemAddress
+                                        + " was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OneDriveException) {
+                throw (OneDriveException)e.getCause();
+            }
+            throw new OneDriveException("Failure downloading item: "
+                                        + itemAddress, e.getCause());
+        }
+    }
+
+    /**
+     * Request a range of the item content
+     * 
+     * @param range Range
+     * @return Response
+     */
+    private Response requestRange(Range range) {
+        return transfer(api.webTarget()
+            .path(itemAddress.getPathWithAddress(ACTION))
+            .resolveTemplateFromEncoded(ITEM_ADDRESS, itemAddress.getAddress())
+            .request(MediaType.APPLICATION_OCTET_STREAM))
+            .header("Range", range.getRangeHeader())
+            .header(HEADER_IF_MATCH, createEtag(item.geteTag())).get();
+    }
+
+    /**
+     * Downloads a single range and writes it at its offset in the target
+     * file. Throttling, server and connection failures are retried with a
+     * back off, a Retry-After demanded by the service is respected. Failures
+     * writing to the target file are not retried.
+     */
+    private class RangeDownload implements Callable<Range> {
+
+        private final FileChannel channel;
+
+        private final Range range;
+
+        private long retryAfter = -1;
+
+        RangeDownload(FileChannel channel, Range range) {
+            this.channel = channel;
+            this.range = range;
+        }
+
+        @Override
+        public Range call() throws IOException {
+            SimpleBackOffWaitStrategy waitStrategy = new SimpleBackOffWaitStrategy();
+            int failureCount = 0;
+            while (true) {
+                try {
+                    retryAfter = -1;
+                    if (transfer()) {
+                        return range;
+                    }
+                } catch (ProcessingException | ContentReadException e) {
+                    LOG.debug("Failure downloading range: {} of item: {}",
+                              new Object[] { range.getRangeHeader(),
+                                             itemAddress, e });
+                }
+                if (++failureCount > failureThreshold) {
+                    throw new OneDriveException("Too many failures while downloading range: "
+                                                + range.getRangeHeader()
+                                                + " of item: " + itemAddress);
+                }
+                LOG.debug("Resuming download of range: {} of item: {} after {} ms.",
+                          new Object[] { range.getRangeHeader(), itemAddress,
+                                         Math.max(retryAfter, waitStrategy
+                                             .getDuration()) });
+                waitStrategy.sleep(retryAfter);
+            }
+        }
+
+        /**
+         * Transfer the range into the channel
+         * 
+         * @return true if range is transferred, false if a retry is needed
+         * @throws ContentReadException if reading the content fails
+         * @throws IOException if writing the content fails
+         */
+        private boolean transfer() throws IOException {
+            Response response = requestRange(range);
+            try {
+                if (response.getStatus() == HttpErrorCode.TOO_MANY_REQUESTS
+                    .getCode()
+                    || equalsStatus(response,
+                                    new Status[] { Status.INTERNAL_SERVER_ERROR,
+                                                   Status.BAD_GATEWAY,
+                                                   Status.SERVICE_UNAVAILABLE,
+                                                   Status.GATEWAY_TIMEOUT })) {
+                    retryAfter = ThrottlingController.retryAfter(response
+                        .getHeaderString(ThrottlingController.RETRY_AFTER));
+                    return false;
+                }
+                if (equalsStatus(response, Status.OK)
+                    && range.getLength() != item.getSize()) {
+                    throw new OneDriveException("Range requests are not supported for item: "
+                                                + itemAddress);
+                }
+                handleError(response,
+                            new Status[] { Status.OK, Status.PARTIAL_CONTENT },
+                            "Failure downloading range: "
+                                + range.getRangeHeader() + " of item: "
+                                + itemAddress);
+                write(response.readEntity(InputStream.class));
+                return true;
+            } finally {
+                response.close();
+            }
+        }
+
+        /**
+         * Write the content of the range at its offset
+         * 
+         * @param in InputStream
+         * @throws ContentReadException if reading the content fails or ends
+         *             prematurely
+         * @throws IOException if writing to the channel fails
+         */
+        private void write(InputStream in) throws IOException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = range.getLower();
+            long end = range.getUpper() + 1;
+            try {
+                int read;
+                while (position < end
+                       && (read = read(in, buffer, (int)Math
+                           .min(buffer.length, end - position))) != -1) {
+                    ByteBuffer buf = ByteBuffer.wrap(buffer, 0, read);
+                    while (buf.hasRemaining()) {
+                        position += channel.write(buf, position);
+                    }
+                }
+            } finally {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // do nothing; content is read or connection is broken
+                }
+            }
+            if (position < end) {
+                throw new ContentReadException(new IOException("Premature end of content for range: "
+                                                               + range
+                                                                   .getRangeHeader()));
+            }
+        }
+
+        /**
+         * Read content from the connection into the buffer
+         * 
+         * @param in InputStream
+         * @param buffer byte[]
+         * @param length int maximum number of bytes to read
+         * @return int number of bytes read or -1 at the end of content
+         * @throws ContentReadException if reading the content fails
+         */
+        private int read(InputStream in, byte[] buffer, int length)
+            throws ContentReadException {
+            try {
+                return in.read(buffer, 0, length);
+            } catch (IOException | ProcessingException e) {
+                throw new ContentReadException(e);
+            }
+        }
+    }
+
+    /**
+     * Signals a failure reading the content from the connection
+     */
+    private static class ContentReadException extends IOException {
+
+        private static final long serialVersionUID = 6140557817427135524L;
+
+        ContentReadException(Exception cause) {
+            super(cause);
+        }
+    }
+}
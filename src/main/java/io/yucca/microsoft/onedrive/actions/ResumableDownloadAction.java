@@ -0,0 +1,417 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
+import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.util.SimpleBackOffWaitStrategy;
+
+/**
+ * Action to download Item content into a file, resuming after failures.
+ * Content is written to a ".partial" file next to the target, the committed
+ * byte offset and eTag of the item are checkpointed in a ".checkpoint" file.
+ * After a dropped connection or a restart the download continues with a
+ * "Range: bytes=N-" request guarded by the eTag, so content of different
+ * versions of the item is never mixed. An item without an eTag is downloaded
+ * from offset zero on every attempt.
+ * 
+ * <pre>
+ * 1. retry on connection failures and 500, 502, 503, 504 with back off
+ * 2. on 412 the item has changed, the partial content is discarded
+ * 3. eventually fail after the failure threshold is reached
+ * </pre>
+ * 
+ * @author yucca.io
+ */
+public class ResumableDownloadAction extends AbstractAction
+    implements Callable<Path> {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(ResumableDownloadAction.class);
+
+    public static final String ACTION = DownloadAction.ACTION;
+
+    public static final String PARTIAL_EXTENSION = ".partial";
+
+    public static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
+    /**
+     * Number of bytes written between checkpoints
+     */
+    public static final long CHECKPOINT_INTERVAL = 1024 * 1024 * 4;
+
+    static final String KEY_ETAG = "eTag";
+
+    static final String KEY_OFFSET = "offset";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int failureThreshold = 5;
+
+    private final ItemAddress itemAddress;
+
+    private final Path target;
+
+    private final Path partial;
+
+    private final Path checkpoint;
+
+    private String eTag;
+
+    private long offset;
+
+    /**
+     * Constructor
+     * 
+     * @param api OneDriveAPIConnection
+     * @param itemAddress ItemAddress of item to download
+     * @param target Path file to which content is written, an existing file
+     *            is replaced when the download completes
+     */
+    public ResumableDownloadAction(OneDriveAPIConnection api,
+                                   ItemAddress itemAddress, Path target) {
+        super(api);
+        this.itemAddress = itemAddress;
+        this.target = target;
+        this.partial = target
+            .resolveSibling(target.getFileName() + PARTIAL_EXTENSION);
+        this.checkpoint = target.resolveSibling(target.getFileName()
+                                                + PARTIAL_EXTENSION
+                                                + CHECKPOINT_EXTENSION);
+    }
+
+    /**
+     * Download Item content
+     * 
+     * @return Path target file
+     */
+    @Override
+    public Path call() throws OneDriveException {
+        return download();
+    }
+
+    /**
+     * Download Item content, resuming from a checkpoint if present
+     * 
+     * @return Path target file
+     */
+    private Path download() {
+        LOG.info("Downloading item: {} into: {}", itemAddress, target);
+        SimpleBackOffWaitStrategy waitStrategy = new SimpleBackOffWaitStrategy();
+        int failureCount = 0;
+        try {
+            readCheckpoint();
+            if (eTag == null) {
+                restart();
+            }
+            try (FileChannel channel = FileChannel
+                .open(partial, StandardOpenOption.CREATE,
+                      StandardOpenOption.WRITE)) {
+                // discard content written after the last checkpoint
+                channel.truncate(offset);
+                while (true) {
+                    long committed = offset;
+                    if (transfer(channel)) {
+                        break;
+                    }
+                    if (offset > committed) {
+                        waitStrategy.reset();
+                        failureCount = 0;
+                    } else if (++failureCount > failureThreshold) {
+                        throw new OneDriveException("Too many failures while downloading item: "
+                                                    + itemAddress
+                                                    + ", download can be resumed from offset: "
+                                                    + offset);
+                    }
+                    LOG.debug("Resuming download of item: {} from offset: {} after {} ms.",
+                              new Object[] { itemAddress, offset,
+                                             waitStrategy.getDuration() });
+                    waitStrategy.sleep();
+                }
+            }
+            complete();
+            LOG.info("Successfully downloaded item: {}", itemAddress);
+            return target;
+        } catch (IOException e) {
+            throw new OneDriveException("Failure writing content of item: "
+                                        + itemAddress + " to: " + partial, e);
+        }
+    }
+
+    /**
+     * Request the content from the current offset and append it to the
+     * partial file
+     * 
+     * @param channel FileChannel of the partial file
+     * @return true if download completed, false if a retry is needed
+     * @throws IOException if the partial file cannot be written
+     */
+    private boolean transfer(FileChannel channel) throws IOException {
+        if (eTag == null && offset > 0) {
+            // without an eTag the remaining content cannot be guarded
+            offset = 0;
+            channel.truncate(0);
+        }
+        Response response;
+        try {
+            response = requestContent();
+        } catch (ProcessingException e) {
+            LOG.debug("Failure requesting content of item: {}", itemAddress,
+                      e);
+            return false;
+        }
+        try {
+            if (equalsStatus(response, Status.PRECONDITION_FAILED)) {
+                LOG.info("Item: {} has changed, restarting download",
+                         itemAddress);
+                restart();
+                channel.truncate(0);
+                return false;
+            } else if (equalsStatus(response,
+                                    Status.REQUESTED_RANGE_NOT_SATISFIABLE)) {
+                // all content is already downloaded
+                return true;
+            } else if (equalsStatus(response,
+                                    new Status[] { Status.INTERNAL_SERVER_ERROR,
+                                                   Status.BAD_GATEWAY,
+                                                   Status.SERVICE_UNAVAILABLE,
+                                                   Status.GATEWAY_TIMEOUT })) {
+                return false;
+            }
+            handleError(response,
+                        new Status[] { Status.OK, Status.PARTIAL_CONTENT },
+                        "Failure downloading item: " + itemAddress);
+            if (equalsStatus(response, Status.OK) && offset > 0) {
+                LOG.info("Range request for item: {} was ignored, restarting from offset: 0",
+                         itemAddress);
+                offset = 0;
+                channel.truncate(0);
+            }
+            return write(channel, response.readEntity(InputStream.class));
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Request the content from the current offset
+     * 
+     * @return Response
+     */
+    private Response requestContent() {
+        return transfer(api.webTarget()
+            .path(itemAddress.getPathWithAddress(ACTION))
+            .resolveTemplateFromEncoded(ITEM_ADDRESS, itemAddress.getAddress())
+            .request(MediaType.APPLICATION_OCTET_STREAM))
+            .header("Range", "bytes=" + offset + "-")
+            .header(HEADER_IF_MATCH, createEtag(eTag)).get();
+    }
+
+    /**
+     * Append content to the partial file, checkpointing progress
+     * 
+     * @param channel FileChannel
+     * @param in InputStream
+     * @return true if the end of content was reached, false if reading the
+     *         content failed
+     * @throws IOException if the partial file cannot be written
+     */
+    private boolean write(FileChannel channel, InputStream in)
+        throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long checkpointed = offset;
+        try {
+            int read;
+            while ((read = read(in, buffer)) != -1) {
+                ByteBuffer buf = ByteBuffer.wrap(buffer, 0, read);
+                while (buf.hasRemaining()) {
+                    offset += channel.write(buf, offset);
+                }
+                if (offset - checkpointed >= CHECKPOINT_INTERVAL) {
+                    commit(channel);
+                    checkpointed = offset;
+                }
+            }
+            commit(channel);
+            return true;
+        } catch (ContentReadException e) {
+            LOG.debug("Connection failure downloading item: {} at offset: {}",
+                      new Object[] { itemAddress, offset, e.getCause() });
+            commit(channel);
+            return false;
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // do nothing; connection is already broken
+            }
+        }
+    }
+
+    /**
+     * Read content from the response, failures are wrapped so they can be
+     * told apart from failures writing the partial file
+     * 
+     * @param in InputStream
+     * @param buffer byte[]
+     * @return int number of bytes read or -1 at the end of content
+     * @throws ContentReadException if reading the content fails
+     */
+    private int read(InputStream in, byte[] buffer)
+        throws ContentReadException {
+        try {
+            return in.read(buffer);
+        } catch (IOException | ProcessingException e) {
+            throw new ContentReadException(e);
+        }
+    }
+
+    /**
+     * Flush the partial file to disk and checkpoint the offset
+     * 
+     * @param channel FileChannel
+     * @throws IOException
+     */
+    private void commit(FileChannel channel) throws IOException {
+        channel.force(false);
+        writeCheckpoint();
+    }
+
+    /**
+     * Start the download from offset zero with the current eTag of the item
+     * 
+     * @throws IOException if the checkpoint cannot be written
+     */
+    private void restart() throws IOException {
+        Item item = new MetadataAction(api, itemAddress).call();
+        this.eTag = item.geteTag();
+        this.offset = 0;
+        writeCheckpoint();
+    }
+
+    /**
+     * Read the checkpoint, the offset is limited to the size of the partial
+     * file
+     * 
+     * @throws IOException
+     */
+    private void readCheckpoint() throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(checkpoint)) {
+            props.load(in);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        try {
+            long size = Files.exists(partial) ? Files.size(partial) : 0;
+            this.offset = Math.min(Long.parseLong(props
+                .getProperty(KEY_OFFSET)), size);
+            this.eTag = props.getProperty(KEY_ETAG);
+            LOG.info("Resuming download of item: {} from offset: {}",
+                     itemAddress, offset);
+        } catch (NumberFormatException e) {
+            LOG.warn("Discarding corrupt checkpoint: {}", checkpoint);
+            this.offset = 0;
+            this.eTag = null;
+        }
+    }
+
+    /**
+     * Write the checkpoint atomically by replacing it with a temporary file
+     * 
+     * @throws IOException
+     */
+    private void writeCheckpoint() throws IOException {
+        Properties props = new Properties();
+        if (eTag != null) {
+            props.setProperty(KEY_ETAG, eTag);
+        }
+        props.setProperty(KEY_OFFSET, Long.toString(offset));
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName()
+                                             + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "OneDrive download checkpoint");
+        }
+        move(tmp, checkpoint);
+    }
+
+    /**
+     * Replace the target with the completed partial file and remove the
+     * checkpoint
+     * 
+     * @throws IOException
+     */
+    private void complete() throws IOException {
+        move(partial, target);
+        Files.deleteIfExists(checkpoint);
+    }
+
+    private void move(Path source, Path destination) throws IOException {
+        try {
+            Files.move(source, destination,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, destination,
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Get the offset of the content committed to the partial file
+     * 
+     * @return long
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Signals a failure reading the content from the connection
+     */
+    private static class ContentReadException extends IOException {
+
+        private static final long serialVersionUID = 3419427325466094810L;
+
+        ContentReadException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -44,7 +44,7 @@ public class ResyncNeededException extends Exception {
      * @param errorResponse Response
      */
     public ResyncNeededException(Response errorResponse) {
-        this.error = errorResponse.readEntity(OneDriveError.class);
+        this.error = AbstractAction.readError(errorResponse);
         this.nextLink = errorResponse.getLocation();
     }
 
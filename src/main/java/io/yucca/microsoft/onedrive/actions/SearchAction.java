@@ -126,20 +126,18 @@ public class SearchAction extends AbstractAction
                                         parentAddress.getAddress())
             .queryParam("q", URLHelper.encodeURIComponent(query));
         if (parameters != null) {
-            // XXX
             // https://github.com/OneDrive/onedrive-api-docs/issues/250
             // when the top parameter is set, the last page of the total
-            // resultset contains no values, leading to a
-            // NoSuchElementException. Therefor top parameter is removed
+            // resultset contains no values, ItemIterator skips such a page
+            // so top is kept as page size
             target = parameters.configure(target,
-                                          new String[] { QueryParameters.EXPAND,
-                                                         QueryParameters.TOP });
+                                          new String[] { QueryParameters.EXPAND });
         }
         Response response = target.request().get();
         handleError(response, Status.OK,
                     "Failure searching for items that match query: " + query
                                          + " within folder: " + parentAddress);
-        return response.readEntity(ItemCollection.class).setApi(api);
+        return readEntity(response, ItemCollection.class).setApi(api);
     }
 
 }
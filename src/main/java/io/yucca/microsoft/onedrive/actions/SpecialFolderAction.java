@@ -100,7 +100,7 @@ public class SpecialFolderAction extends AbstractAction
             .get();
         handleError(response, Status.OK,
                     "Failed to get special folder: " + folder.getName());
-        return response.readEntity(Item.class);
+        return readEntity(response, Item.class);
     }
 
 }
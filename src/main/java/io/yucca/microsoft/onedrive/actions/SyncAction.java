@@ -18,6 +18,7 @@ package io.yucca.microsoft.onedrive.actions;
 import java.net.URI;
 import java.util.concurrent.Callable;
 
+import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -25,12 +26,18 @@ import javax.ws.rs.core.Response.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.yucca.microsoft.onedrive.ItemCache;
+import io.yucca.microsoft.onedrive.ItemSummaryCollection;
 import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
 import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.PageLoader;
 import io.yucca.microsoft.onedrive.QueryParameters;
 import io.yucca.microsoft.onedrive.SyncResponse;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.addressing.RootAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.resources.ItemSummary;
 
 /**
  * Action enumerate the changes for a folder for a specific state, which can be
@@ -45,6 +52,9 @@ public class SyncAction extends AbstractAction
 
     public static final String ACTION = "view.delta";
 
+    private static final QueryParameters SUMMARY_PARAMETERS = QueryParameters.Builder
+        .newQueryParameters().select(ItemSummary.SELECT).build();
+
     private final ItemAddress parentAddress;
 
     private final String token;
@@ -121,8 +131,35 @@ public class SyncAction extends AbstractAction
         }
         handleError(response, Status.OK,
                     "Failure enumerating changes for folder: " + parentAddress);
-        return (SyncResponse)response.readEntity(SyncResponse.class)
-            .setApi(api);
+        return applyChanges(api, readEntity(response, SyncResponse.class));
+    }
+
+    /**
+     * Enumerate the sync changes as compact summaries, only the properties of
+     * {@link ItemSummary#SELECT} are requested. Iterating the returned
+     * collection fetches next pages as summaries as well.
+     * 
+     * @return ItemSummaryCollection
+     * @throws ResyncNeededException if a new delta synchronization is needed
+     */
+    public ItemSummaryCollection summaries() throws ResyncNeededException {
+        LOG.info("Enumerate the synchronization changes as summaries for folder: {}",
+                 parentAddress);
+        WebTarget target = api.webTarget()
+            .path(parentAddress.getPathWithAddress(ACTION))
+            .queryParam(QueryParameters.TOKEN, token)
+            .queryParam(QueryParameters.TOP, top)
+            .resolveTemplateFromEncoded(ITEM_ADDRESS,
+                                        parentAddress.getAddress());
+        Response response = SUMMARY_PARAMETERS.configure(target).request()
+            .get();
+        if (equalsStatus(response, Status.GONE)) {
+            throw new ResyncNeededException(response);
+        }
+        handleError(response, Status.OK,
+                    "Failure enumerating changes for folder: " + parentAddress);
+        return applyChanges(api, readEntity(response,
+                                            ItemSummaryCollection.class));
     }
 
     /**
@@ -137,11 +174,97 @@ public class SyncAction extends AbstractAction
         Response response = api.webTarget(uri)
             .request(MediaType.APPLICATION_JSON_TYPE).get();
         if (response.getStatus() != Status.OK.getStatusCode()) {
+                response.close();
             throw new OneDriveException("Failure acquiring enumerating changes for URI: "
                                         + uri, response.getStatus());
         }
-        return (SyncResponse)response.readEntity(SyncResponse.class)
-            .setApi(api);
+        return applyChanges(api, readEntity(response, SyncResponse.class));
+    }
+
+    /**
+     * Get a page of summaries by URL, as returned in
+     * {@link ItemSummaryCollection#getNextLink()}
+     * 
+     * @param api OneDriveAPIConnection
+     * @param uri URI to the next page
+     * @return ItemSummaryCollection
+     */
+    public static ItemSummaryCollection summariesByURI(OneDriveAPIConnection api,
+                                                       URI uri) {
+        Response response = api.webTarget(uri)
+            .request(MediaType.APPLICATION_JSON_TYPE).get();
+        if (response.getStatus() != Status.OK.getStatusCode()) {
+            response.close();
+            throw new OneDriveException("Failure acquiring enumerating changes for URI: "
+                                        + uri, response.getStatus());
+        }
+        return applyChanges(api, readEntity(response,
+                                            ItemSummaryCollection.class));
+    }
+
+    /**
+     * PageLoader fetching delta pages of summaries, applying their changes
+     * 
+     * @param api OneDriveAPIConnection
+     * @return PageLoader<ItemSummaryCollection>
+     */
+    public static PageLoader<ItemSummaryCollection> summaryLoader(final OneDriveAPIConnection api) {
+        return new PageLoader<ItemSummaryCollection>() {
+
+            @Override
+            public ItemSummaryCollection load(URI uri) {
+                return summariesByURI(api, uri);
+            }
+        };
+    }
+
+    /**
+     * Apply the enumerated changes to the path resolver and item cache of the
+     * connection, so that moved, renamed or deleted items are not resolved or
+     * returned in their previous state
+     * 
+     * @param api OneDriveAPIConnection
+     * @param response SyncResponse page of enumerated changes
+     * @return SyncResponse
+     */
+    private static SyncResponse applyChanges(OneDriveAPIConnection api,
+                                             SyncResponse response) {
+        if (response.getValue() != null) {
+            ItemCache cache = api.getItemCache();
+            for (Item item : response.getValue()) {
+                api.getPathResolver().update(item);
+                if (item.isDeleted()) {
+                    cache.remove(new IdAddress(item.getId()));
+                } else {
+                    cache.invalidate(item.getId());
+                }
+            }
+        }
+        return (SyncResponse)response.setApi(api);
+    }
+
+    /**
+     * Apply the enumerated changes of summaries to the path resolver and item
+     * cache of the connection
+     * 
+     * @param api OneDriveAPIConnection
+     * @param response ItemSummaryCollection page of enumerated changes
+     * @return ItemSummaryCollection
+     */
+    private static ItemSummaryCollection applyChanges(OneDriveAPIConnection api,
+                                                      ItemSummaryCollection response) {
+        if (response.getValue() != null) {
+            ItemCache cache = api.getItemCache();
+            for (ItemSummary item : response.getValue()) {
+                api.getPathResolver().update(item);
+                if (item.isDeleted()) {
+                    cache.remove(new IdAddress(item.getId()));
+                } else {
+                    cache.invalidate(item.getId());
+                }
+            }
+        }
+        return response.setLoader(summaryLoader(api));
     }
 
 }
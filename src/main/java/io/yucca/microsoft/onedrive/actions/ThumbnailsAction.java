@@ -79,7 +79,7 @@ public class ThumbnailsAction extends AbstractAction
             .request().get();
         handleError(response, Status.OK,
                     "Failure acquiring thumbnails for item: " + itemAddress);
-        return response.readEntity(ThumbnailSet.class);
+        return readEntity(response, ThumbnailSet.class);
     }
 
 }
@@ -114,7 +114,7 @@ public class UpdateAction extends AbstractAction implements Callable<Item> {
             .method(METHOD_PATCH, Entity.json(item));
         handleError(response, Status.OK,
                     "Failure updating item: " + itemAddress);
-        return response.readEntity(Item.class);
+        return cacheChanged(itemAddress, readEntity(response, Item.class));
     }
 
 }
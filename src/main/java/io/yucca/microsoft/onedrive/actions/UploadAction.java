@@ -17,8 +17,12 @@ package io.yucca.microsoft.onedrive.actions;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -41,7 +45,8 @@ import io.yucca.microsoft.onedrive.resources.Item;
  * 
  * @author yucca.io
  */
-public class UploadAction extends AbstractAction implements Callable<Item> {
+public class UploadAction extends AbstractAction
+    implements Callable<Item>, AsyncAction<Item> {
 
     private static final Logger LOG = LoggerFactory.getLogger(UploadAction.class);
 
@@ -82,6 +87,17 @@ public class UploadAction extends AbstractAction implements Callable<Item> {
         return upload();
     }
 
+    @Override
+    public CompletableFuture<Item> submit(Executor executor) {
+        return submit(invocation(), executor, new ResponseHandler<Item>() {
+
+            @Override
+            public Item handle(Response response) {
+                return handleResponse(response);
+            }
+        });
+    }
+
     /**
      * Upload an Item with content size below 100MB, larger files should be
      * uploaded with {@link UploadResumableAction}
@@ -95,23 +111,31 @@ public class UploadAction extends AbstractAction implements Callable<Item> {
      * @return Item representing uploaded content
      */
     private Item upload() {
+        return handleResponse(invocation().invoke());
+    }
+
+    private Invocation invocation() {
         String conflictBehavior = (behavior == null)
             ? null : behavior.getName();
         LOG.info("Uploading file: {} into folder: {}", content.getName(),
                  parentAddress);
         String path = parentAddress.getPathWithAddressAndFilename(ACTION);
-        Status[] successCodes = { Status.CREATED, Status.OK };
-        Response response = api.webTarget().path(path)
+        WebTarget target = api.webTarget().path(path)
             .resolveTemplateFromEncoded(ITEM_ADDRESS,
                                         parentAddress.getAddress())
             .resolveTemplateFromEncoded(FILENAME, content.getName())
-            .queryParam(QueryParameters.CONFLICT_BEHAVIOR, conflictBehavior)
-            .request(MediaType.TEXT_PLAIN)
-            .put(Entity.entity(content, MediaType.APPLICATION_OCTET_STREAM));
+            .queryParam(QueryParameters.CONFLICT_BEHAVIOR, conflictBehavior);
+        return transfer(target.request(MediaType.TEXT_PLAIN))
+            .buildPut(Entity.entity(content,
+                                    MediaType.APPLICATION_OCTET_STREAM));
+    }
+
+    private Item handleResponse(Response response) {
+        Status[] successCodes = { Status.CREATED, Status.OK };
         handleError(response, successCodes,
                     "Failure uploading file: " + content.getName() + " into: "
                                             + parentAddress);
-        return response.readEntity(Item.class);
+        return cacheCreated(readEntity(response, Item.class), parentAddress);
     }
 
     /**
@@ -125,9 +149,10 @@ public class UploadAction extends AbstractAction implements Callable<Item> {
         Response response = api.webTarget(uri)
             .request(MediaType.APPLICATION_OCTET_STREAM).get();
         if (response.getStatus() != Status.FOUND.getStatusCode()) {
+                response.close();
             throw new OneDriveException("Failure downloading item by URI: "
                                         + uri, response.getStatus());
         }
-        return response.readEntity(OneDriveContent.class);
+        return readContent(response);
     }
 }
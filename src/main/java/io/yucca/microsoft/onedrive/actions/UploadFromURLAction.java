@@ -15,9 +15,8 @@
  */
 package io.yucca.microsoft.onedrive.actions;
 
+import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.Callable;
 
 import javax.ws.rs.client.Entity;
@@ -27,12 +26,14 @@ import javax.ws.rs.core.Response.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.yucca.microsoft.onedrive.JsonBody;
 import io.yucca.microsoft.onedrive.NotModifiedException;
 import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
 import io.yucca.microsoft.onedrive.OneDriveException;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.addressing.URLAddress;
-import io.yucca.microsoft.onedrive.resources.facets.FileFacet;
 
 /**
  * Action to upload an Item from a specified URL
@@ -85,25 +86,38 @@ public class UploadFromURLAction extends AbstractAction
     private URI upload() {
         LOG.info("Uploading content from URL: {} into folder: {}",
                  url.toString(), parentAddress);
-        Map<String, Object> map = newUploadURLBody(url, name);
+        JsonBody body = newUploadURLBody(url, name);
         Status successCodes = Status.ACCEPTED;
         Response response = api.webTarget()
             .path(parentAddress.getPathWithAddress(ACTION))
             .resolveTemplateFromEncoded(ITEM_ADDRESS,
                                         parentAddress.getAddress())
             .request().header(HEADER_PREFER, RESPOND_ASYNC)
-            .post(Entity.json(map));
-        handleError(response, successCodes, "Failure uploading file from URL: "
-                                            + url + " to: " + parentAddress);
-        return response.getLocation();
+            .post(Entity.json(body));
+        try {
+            handleError(response, successCodes,
+                        "Failure uploading file from URL: " + url + " to: "
+                                                + parentAddress);
+            return response.getLocation();
+        } finally {
+            response.close();
+        }
     }
 
-    protected Map<String, Object> newUploadURLBody(URLAddress url,
-                                                   String name) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("@content.sourceUrl", url.getAddress());
-        map.put("name", name);
-        map.put("file", new FileFacet());
-        return map;
+    protected JsonBody newUploadURLBody(final URLAddress url,
+                                        final String name) {
+        return new JsonBody() {
+
+            @Override
+            public void writeTo(JsonGenerator generator) throws IOException {
+                generator.writeStartObject();
+                generator.writeStringField("@content.sourceUrl",
+                                           url.getAddress());
+                generator.writeStringField("name", name);
+                generator.writeObjectFieldStart("file");
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+        };
     }
 }
@@ -15,11 +15,11 @@
  */
 package io.yucca.microsoft.onedrive.actions;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
 import java.util.concurrent.Callable;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -30,6 +30,9 @@ import org.glassfish.jersey.media.multipart.file.FileDataBodyPart;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.yucca.microsoft.onedrive.JsonBody;
 import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
 import io.yucca.microsoft.onedrive.OneDriveException;
 import io.yucca.microsoft.onedrive.OneDriveFile;
@@ -37,7 +40,6 @@ import io.yucca.microsoft.onedrive.QueryParameters;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
 import io.yucca.microsoft.onedrive.resources.Item;
-import io.yucca.microsoft.onedrive.resources.facets.FileFacet;
 
 /**
  * Action to upload an Item as multipart. Only files below 100MB can be uploaded
@@ -102,16 +104,18 @@ public class UploadMultipartAction extends AbstractAction
         // TODO add check for file above 100MB
         MultiPart multipart = createMultipart(content, behavior);
         Status[] successCodes = { Status.CREATED };
-        Response response = api.webTarget()
+        Invocation.Builder builder = api.webTarget()
             .path(parentAddress.getPathWithAddress(ACTION))
             .resolveTemplateFromEncoded(ITEM_ADDRESS,
                                         parentAddress.getAddress())
-            .request().post(Entity.entity(multipart, MULTIPART_RELATED_TYPE));
+            .request();
+        Response response = transfer(builder)
+            .post(Entity.entity(multipart, MULTIPART_RELATED_TYPE));
         handleError(response, successCodes,
                     "Failure uploading file: " + content.getName()
                                             + " as multipart into folder: "
                                             + parentAddress);
-        return response.readEntity(Item.class);
+        return cacheCreated(readEntity(response, Item.class), parentAddress);
     }
 
     /**
@@ -124,8 +128,8 @@ public class UploadMultipartAction extends AbstractAction
     public MultiPart createMultipart(OneDriveFile content,
                                      ConflictBehavior behavior) {
         MultiPart multipart = new MultiPart();
-        BodyPart metadataPart = new BodyPart(toJson(newMetadataMultiPartBody(content
-            .getName(), behavior)), MediaType.APPLICATION_JSON_TYPE);
+        BodyPart metadataPart = new BodyPart(newMetadataMultiPartBody(content
+            .getName(), behavior), MediaType.APPLICATION_JSON_TYPE);
         metadataPart.getHeaders().putSingle("Content-ID", "<metadata>");
         multipart.bodyPart(metadataPart);
 
@@ -141,17 +145,26 @@ public class UploadMultipartAction extends AbstractAction
      * 
      * @param name String
      * @param behaviour ConflictBehavior
-     * @return Map<String, Object>
+     * @return JsonBody
      */
-    Map<String, Object> newMetadataMultiPartBody(String name,
-                                                 ConflictBehavior behaviour) {
-        String conflictBehavior = (behaviour == null)
+    JsonBody newMetadataMultiPartBody(final String name,
+                                      ConflictBehavior behaviour) {
+        final String conflictBehavior = (behaviour == null)
             ? ConflictBehavior.FAIL.getName() : behaviour.getName();
-        Map<String, Object> map = new HashMap<>();
-        map.put("name", name);
-        map.put("file", new FileFacet());
-        map.put("@content.sourceUrl", "cid:content");
-        map.put(QueryParameters.CONFLICT_BEHAVIOR, conflictBehavior);
-        return map;
+        return new JsonBody() {
+
+            @Override
+            public void writeTo(JsonGenerator generator) throws IOException {
+                generator.writeStartObject();
+                generator.writeStringField("name", name);
+                generator.writeObjectFieldStart("file");
+                generator.writeEndObject();
+                generator.writeStringField("@content.sourceUrl",
+                                           "cid:content");
+                generator.writeStringField(QueryParameters.CONFLICT_BEHAVIOR,
+                                           conflictBehavior);
+                generator.writeEndObject();
+            }
+        };
     }
 }
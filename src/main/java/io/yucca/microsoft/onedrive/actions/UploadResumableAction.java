@@ -17,11 +17,19 @@ package io.yucca.microsoft.onedrive.actions;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.Callable;
-
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
@@ -30,30 +38,43 @@ import javax.ws.rs.core.Response.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import io.yucca.microsoft.onedrive.JsonBody;
 import io.yucca.microsoft.onedrive.NotModifiedException;
 import io.yucca.microsoft.onedrive.OneDriveAPIConnection;
 import io.yucca.microsoft.onedrive.OneDriveContent;
 import io.yucca.microsoft.onedrive.OneDriveException;
 import io.yucca.microsoft.onedrive.OneDriveFile;
 import io.yucca.microsoft.onedrive.QueryParameters;
+import io.yucca.microsoft.onedrive.ThrottlingController;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
-import io.yucca.microsoft.onedrive.io.FileFragmentStreamingOutput;
+import io.yucca.microsoft.onedrive.io.ChannelFragmentStreamingOutput;
 import io.yucca.microsoft.onedrive.io.Range;
+import io.yucca.microsoft.onedrive.io.UploadSessionJournal;
 import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
+import io.yucca.microsoft.onedrive.resources.HttpErrorCode;
 import io.yucca.microsoft.onedrive.resources.Item;
 import io.yucca.microsoft.onedrive.resources.OneDriveError;
 import io.yucca.microsoft.onedrive.resources.UploadSession;
+import io.yucca.microsoft.onedrive.resources.UploadStatus;
 import io.yucca.microsoft.onedrive.util.SimpleBackOffWaitStrategy;
 
 /**
  * Action to upload item content larger than 100MB. Content is uploaded in
  * fragments and can be resumed after failures.
+ * <p>
+ * By default fragments are uploaded sequentially. If a parallelism larger than
+ * one is passed, multiple fragments are kept in flight at the same time over
+ * the pooled connections of the client. The parallelism should therefore not
+ * exceed the maximum connections per route configured in {@link
+ * io.yucca.microsoft.onedrive.ClientFactory}.
+ * </p>
  * 
  * <pre>
  * TODO refactor:
  * 1. Split response handling to a seperate method.
  * 2. Perform uploading in background thread and make it cancelable.
- * 3. Eventually fail after waitStrategy reaches threshold.
  * </pre>
  * 
  * @author yucca.io
@@ -73,6 +94,8 @@ public class UploadResumableAction extends AbstractAction
     public static final long FRAGMENTSIZE_4MB = OPTIMAL_FRAGMENTSIZE_ALIGNMENT
                                                 * 12;
 
+    public static final int DEFAULT_PARALLELISM = 1;
+
     private final OneDriveFile content;
 
     private final ItemAddress parentAddress;
@@ -83,8 +106,24 @@ public class UploadResumableAction extends AbstractAction
 
     private final int unknownFailureThreshold = 5;
 
+    private final int parallelism;
+
+    /**
+     * Ranges acknowledged by the service, updated concurrently on parallel
+     * uploading
+     */
+    private final Set<Range> acknowledged = Collections
+        .newSetFromMap(new ConcurrentHashMap<Range, Boolean>());
+
+    private final UploadSessionJournal journal;
+
     private UploadSession session;
 
+    /**
+     * Longest Retry-After in ms demanded for a fragment on parallel uploading
+     */
+    private long retryAfter = -1;
+
     /**
      * Constructor
      * 
@@ -103,6 +142,8 @@ public class UploadResumableAction extends AbstractAction
         this.parentAddress = parentAddress;
         this.behavior = behavior;
         this.maxFragmentSize = FRAGMENTSIZE_4MB;
+        this.parallelism = DEFAULT_PARALLELISM;
+        this.journal = null;
     }
 
     /**
@@ -125,10 +166,68 @@ public class UploadResumableAction extends AbstractAction
         this.parentAddress = parentAddress;
         this.behavior = behavior;
         this.maxFragmentSize = maxFragmentSize;
+        this.parallelism = DEFAULT_PARALLELISM;
+        this.journal = null;
         assertOptimalFragmentSize(maxFragmentSize);
 
     }
 
+    /**
+     * Constructor
+     * 
+     * @param api OneDriveAPIConnection
+     * @param content OneDriveContent to upload
+     * @param parentAddress ItemAddress identifier or path of parent folder
+     *            relative to the root folder i.e. "/drive/root:/".
+     * @param behavior ConflictBehavior behaviour if a naming conflict occurs
+     * @param maxFragmentSize long maximum size of a fragment
+     * @param parallelism int maximum number of fragments uploaded at the same
+     *            time, {@link #DEFAULT_PARALLELISM} uploads sequentially
+     */
+    public UploadResumableAction(OneDriveAPIConnection api,
+                                 OneDriveFile content,
+                                 ItemAddress parentAddress,
+                                 ConflictBehavior behavior,
+                                 long maxFragmentSize, int parallelism) {
+        this(api, content, parentAddress, behavior, maxFragmentSize,
+             parallelism, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param api OneDriveAPIConnection
+     * @param content OneDriveContent to upload
+     * @param parentAddress ItemAddress identifier or path of parent folder
+     *            relative to the root folder i.e. "/drive/root:/".
+     * @param behavior ConflictBehavior behaviour if a naming conflict occurs
+     * @param maxFragmentSize long maximum size of a fragment
+     * @param parallelism int maximum number of fragments uploaded at the same
+     *            time, {@link #DEFAULT_PARALLELISM} uploads sequentially
+     * @param journal UploadSessionJournal in which the upload session is
+     *            recorded, an upload of the same unchanged file is resumed
+     *            from a recorded session. May be {@code null}.
+     */
+    public UploadResumableAction(OneDriveAPIConnection api,
+                                 OneDriveFile content,
+                                 ItemAddress parentAddress,
+                                 ConflictBehavior behavior,
+                                 long maxFragmentSize, int parallelism,
+                                 UploadSessionJournal journal) {
+        super(api);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism is invalid: "
+                                               + parallelism);
+        }
+        this.content = content;
+        this.parentAddress = parentAddress;
+        this.behavior = behavior;
+        this.maxFragmentSize = maxFragmentSize;
+        this.parallelism = parallelism;
+        this.journal = journal;
+        assertOptimalFragmentSize(maxFragmentSize);
+    }
+
     /**
      * Upload Item content
      * 
@@ -149,6 +248,7 @@ public class UploadResumableAction extends AbstractAction
      * 2. for other errors use a retry counter with maximum: done
      * 3. on 404, restart upload entirely: done
      * 4. ranges should be rounded by 320K: done
+     * 5. resume a journaled session after restart: done
      * 
      * TODO
      * Handle commit errors
@@ -159,18 +259,32 @@ public class UploadResumableAction extends AbstractAction
     public Item upload() {
         LOG.info("Uploading file: {} using resumable method into folder: {}",
                  content.getName(), parentAddress);
-        createSession();
         try {
-            return uploadFragments();
+            Set<Range> ranges = resumeSession();
+            if (ranges == null) {
+                createSession();
+                recordSession();
+                ranges = Range.getRanges(maxFragmentSize, content.getLength());
+            }
+            Item item = (parallelism > DEFAULT_PARALLELISM)
+                ? uploadFragmentsParallel(ranges) : uploadFragments(ranges);
+            removeSessionRecord();
+            return cacheCreated(item, parentAddress);
         } catch (IOException e) {
             throw new OneDriveException("Failure uploading of file: "
                                         + content.getName()
                                         + ", file does not exist", e);
         } catch (OneDriveResumableUploadException e) {
+            removeSessionRecord();
             cancelSession();
             throw new OneDriveException("Failure uploading of file: "
                                         + content.getName()
                                         + ", session must be restarted", e);
+        } catch (UploadConflictException e) {
+            // session cannot be completed, other failures are transient and
+            // keep the session recorded so the upload can be resumed
+            removeSessionRecord();
+            throw e;
         }
     }
 
@@ -180,14 +294,99 @@ public class UploadResumableAction extends AbstractAction
     public void createSession() {
         LOG.info("Creating session for uploading file: {} into folder: {}",
                  content.getName(), parentAddress);
-        Map<String, Object> map = newCreateSessionBody(content, behavior);
         Response response = createUploadTarget(parentAddress, content).request()
-            .post(Entity.json(toJson(map)));
+            .post(Entity.json(newCreateSessionBody(content, behavior)));
         handleError(response, Status.OK,
                     "Failure creating session to upload item: "
                                          + content.getName() + " into folder: "
                                          + parentAddress);
-        this.session = response.readEntity(UploadSession.class);
+        this.session = readEntity(response, UploadSession.class);
+    }
+
+    /**
+     * Resume a session recorded in the journal. The session is only resumed
+     * if the file is unchanged and the session has not expired, the ranges
+     * still expected by the service are then returned.
+     * 
+     * @return Set<Range> ranges to upload or {@code null} if no session could
+     *         be resumed
+     */
+    private Set<Range> resumeSession() {
+        if (journal == null) {
+            return null;
+        }
+        try {
+            UploadSessionJournal.Entry entry = journal.read(content.getFile());
+            if (entry == null) {
+                return null;
+            }
+            UploadSession recorded = entry.getSession();
+            if (!entry.matches(content.getFile())
+                || recorded.hasSessionExpired()) {
+                LOG.info("Recorded session for file: {} is expired or file has changed, creating new session",
+                         content.getName());
+                journal.remove(content.getFile());
+                return null;
+            }
+            this.session = recorded;
+            UploadStatus status = getSessionStatus();
+            Set<Range> ranges = Range
+                .getExpectedRanges(status.getNextExpectedRanges(),
+                                   maxFragmentSize, content.getLength());
+            if (ranges.isEmpty()) {
+                journal.remove(content.getFile());
+                this.session = null;
+                return null;
+            }
+            session.setExpirationDateTime(status.getExpirationDateTime());
+            session.setNextExpectedRanges(status.getNextExpectedRanges());
+            LOG.info("Resuming upload of file: {}, {} fragments remaining",
+                     content.getName(), ranges.size());
+            return ranges;
+        } catch (IOException e) {
+            LOG.warn("Failure reading recorded session for file: {}",
+                     content.getName(), e);
+            return null;
+        } catch (OneDriveException e) {
+            LOG.info("Recorded session for file: {} is no longer valid, creating new session",
+                     content.getName());
+            journal.remove(content.getFile());
+            this.session = null;
+            return null;
+        }
+    }
+
+    /**
+     * Record the created session in the journal
+     */
+    private void recordSession() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.create(content.getFile(), session);
+        } catch (IOException e) {
+            LOG.warn("Failure recording session for file: {}, upload cannot be resumed after restart",
+                     content.getName(), e);
+        }
+    }
+
+    /**
+     * Remove the session from the journal
+     */
+    private void removeSessionRecord() {
+        if (journal != null) {
+            journal.remove(content.getFile());
+        }
+    }
+
+    /**
+     * Mark range as acknowledged by the service
+     * 
+     * @param range Range
+     */
+    private void acknowledge(Range range) {
+        acknowledged.add(range);
     }
 
     private WebTarget createUploadTarget(ItemAddress itemAddress,
@@ -203,98 +402,282 @@ public class UploadResumableAction extends AbstractAction
      * 
      * @param content OneDriveContent
      * @param behavior ConflictBehavior
-     * @return Map<String, Object>
+     * @return JsonBody
      */
-    private Map<String, Object> newCreateSessionBody(OneDriveContent content,
-                                                     ConflictBehavior behavior) {
-        Map<String, Object> item = new HashMap<>();
-        item.put(QueryParameters.CONFLICT_BEHAVIOR,
-                 (behavior == null
-                     ? ConflictBehavior.REPLACE.getName()
-                     : behavior.getName()));
-        item.put("name", content.getName());
-        Map<String, Object> map = new HashMap<>();
-        map.put("item", item);
-        return map;
+    private JsonBody newCreateSessionBody(final OneDriveContent content,
+                                          ConflictBehavior behavior) {
+        final String conflictBehavior = (behavior == null)
+            ? ConflictBehavior.REPLACE.getName() : behavior.getName();
+        return new JsonBody() {
+
+            @Override
+            public void writeTo(JsonGenerator generator) throws IOException {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("item");
+                generator.writeStringField(QueryParameters.CONFLICT_BEHAVIOR,
+                                           conflictBehavior);
+                generator.writeStringField("name", content.getName());
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+        };
     }
 
     /**
      * Upload OneDriveFile in multiple fragments
      * 
+     * @param ranges Set<Range> ranges to upload
      * @return Item uploaded item
      * @throws OneDriveResumableUploadException if service indicated uploading
      *             failed or the failure threshold was reached
      * @throws IOException if file cannot be read
      */
-    private Item uploadFragments()
+    private Item uploadFragments(Set<Range> ranges)
         throws OneDriveResumableUploadException, IOException {
 
         int unknownFailureCount = 0;
         SimpleBackOffWaitStrategy waitStrategy = new SimpleBackOffWaitStrategy();
-        Set<Range> ranges = Range.getRanges(maxFragmentSize,
-                                            content.getLength());
 
         // loop over ranges until all fragments are uploaded
         while (!ranges.isEmpty()) {
             Range range = ranges.iterator().next();
             Response response = streamFragment(content, range, session);
-            if (equalsStatus(response, Status.ACCEPTED)) {
-                ranges.remove(range);
-                waitStrategy.reset();
-                unknownFailureCount = 0;
-                LOG.info("Successfully uploaded file fragment {}, for: {}",
-                         range.getContentRangeHeader(), content.getName());
-            } else if (equalsStatus(response, Status.OK)
-                       || equalsStatus(response, Status.CREATED)) {
-                LOG.info("Successfully uploaded all file fragments for: {}",
-                         content.getName());
-                return response.readEntity(Item.class);
-            } else if (equalsStatus(response,
-                                    Status.REQUESTED_RANGE_NOT_SATISFIABLE)) {
-                ranges.remove(range);
-                LOG.info("Fragment: {} is already uploaded, skipping this fragment",
-                         range.getContentRangeHeader());
-                // could request UploadStatus and get expected range and upload
-                // that, if this not exists fail completely
-            } else if (equalsStatus(response, Status.CONFLICT)) {
-                OneDriveError e = response.readEntity(OneDriveError.class);
-                throw new OneDriveException(formatError(response.getStatus(),
-                                                        "File: " + content
-                                                            .getName() + " already exists, skipping upload"),
-                                            e);
-            } else if (equalsStatus(response, Status.NOT_FOUND)) {
-                throw new OneDriveResumableUploadException(formatError(response
-                    .getStatus(), "Upload failed for file: "
-                                  + content.getName()));
-            } else if (equalsStatus(response,
-                                    new Status[] { Status.INTERNAL_SERVER_ERROR,
-                                                   Status.BAD_GATEWAY,
-                                                   Status.SERVICE_UNAVAILABLE,
-                                                   Status.GATEWAY_TIMEOUT })) {
-                LOG.debug("Failure uploading fragment: {} for file: {}, resuming after {} ms.",
-                          new Object[] { range.getContentRangeHeader(),
-                                         content.getName(),
-                                         waitStrategy.getDuration() });
-                unknownFailureCount++;
-                waitStrategy.sleep();
-            } else {
-                unknownFailureCount++;
-                waitStrategy.sleep();
-                LOG.info("Unknown failure: {} while uploading fragment: {} for file: {}",
-                         new Object[] { response.getStatus(),
-                                        range.getContentRangeHeader(),
-                                        content.getName() });
-                if (unknownFailureCount > unknownFailureThreshold) {
+            try {
+                if (equalsStatus(response, Status.ACCEPTED)) {
+                    ranges.remove(range);
+                    acknowledge(range);
+                    waitStrategy.reset();
+                    unknownFailureCount = 0;
+                    LOG.info("Successfully uploaded file fragment {}, for: {}",
+                             range.getContentRangeHeader(), content.getName());
+                } else if (equalsStatus(response, Status.OK)
+                           || equalsStatus(response, Status.CREATED)) {
+                    LOG.info("Successfully uploaded all file fragments for: {}",
+                             content.getName());
+                    return readEntity(response, Item.class);
+                } else if (equalsStatus(response,
+                                        Status.REQUESTED_RANGE_NOT_SATISFIABLE)) {
+                    ranges.remove(range);
+                    acknowledge(range);
+                    LOG.info("Fragment: {} is already uploaded, skipping this fragment",
+                             range.getContentRangeHeader());
+                    // could request UploadStatus and get expected range and upload
+                    // that, if this not exists fail completely
+                } else if (equalsStatus(response, Status.CONFLICT)) {
+                    OneDriveError e = readError(response);
+                    throw new UploadConflictException(formatError(response
+                        .getStatus(), "File: " + content.getName()
+                                      + " already exists, skipping upload"),
+                                                      e);
+                } else if (equalsStatus(response, Status.NOT_FOUND)) {
                     throw new OneDriveResumableUploadException(formatError(response
-                        .getStatus(), "Too many unknown failures while trying to upload file: "
+                        .getStatus(), "Upload failed for file: "
                                       + content.getName()));
+                } else if (response.getStatus() == HttpErrorCode.TOO_MANY_REQUESTS
+                    .getCode()
+                           || equalsStatus(response,
+                                           new Status[] { Status.INTERNAL_SERVER_ERROR,
+                                                          Status.BAD_GATEWAY,
+                                                          Status.SERVICE_UNAVAILABLE,
+                                                          Status.GATEWAY_TIMEOUT })) {
+                    long retryAfter = ThrottlingController.retryAfter(response
+                        .getHeaderString(ThrottlingController.RETRY_AFTER));
+                    if (++unknownFailureCount > unknownFailureThreshold) {
+                        throw new OneDriveException(formatError(response
+                            .getStatus(), "Too many failures while trying to upload file: "
+                                          + content.getName()));
+                    }
+                    LOG.debug("Failure uploading fragment: {} for file: {}, resuming after {} ms.",
+                              new Object[] { range.getContentRangeHeader(),
+                                             content.getName(),
+                                             Math.max(retryAfter, waitStrategy
+                                                 .getDuration()) });
+                    waitStrategy.sleep(retryAfter);
+                } else {
+                    unknownFailureCount++;
+                    waitStrategy.sleep();
+                    LOG.info("Unknown failure: {} while uploading fragment: {} for file: {}",
+                             new Object[] { response.getStatus(),
+                                            range.getContentRangeHeader(),
+                                            content.getName() });
+                    if (unknownFailureCount > unknownFailureThreshold) {
+                        throw new OneDriveResumableUploadException(formatError(response
+                            .getStatus(), "Too many unknown failures while trying to upload file: "
+                                          + content.getName()));
+                    }
                 }
+            } finally {
+                response.close();
             }
         }
         throw new OneDriveException("Failure uploading file: "
                                     + content.getName());
     }
 
+    /**
+     * Upload OneDriveFile in multiple fragments, keeping up to parallelism
+     * fragments in flight. When all fragments are sent but the upload was not
+     * completed, the session status is requested and the fragments in
+     * nextExpectedRanges are resent after backing off, at least for the
+     * longest Retry-After demanded. Rounds that acknowledge no fragment count
+     * as failure.
+     * 
+     * @param ranges Set<Range> ranges to upload
+     * @return Item uploaded item
+     * @throws OneDriveResumableUploadException if service indicated uploading
+     *             failed
+     * @throws OneDriveException if the failure threshold was reached, the
+     *             session remains valid
+     * @throws IOException if file cannot be read
+     */
+    private Item uploadFragmentsParallel(Set<Range> ranges)
+        throws OneDriveResumableUploadException, IOException {
+        int failureCount = 0;
+        SimpleBackOffWaitStrategy waitStrategy = new SimpleBackOffWaitStrategy();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            while (true) {
+                int acknowledgedBefore = acknowledged.size();
+                Item item = uploadRanges(executor, ranges);
+                if (item != null) {
+                    LOG.info("Successfully uploaded all file fragments for: {}",
+                             content.getName());
+                    return item;
+                }
+                ranges = Range.getExpectedRanges(getSessionStatus()
+                    .getNextExpectedRanges(), maxFragmentSize, content
+                        .getLength());
+                if (ranges.isEmpty()) {
+                    throw new OneDriveException("Failure uploading file: "
+                                                + content.getName()
+                                                + ", all fragments are acknowledged but no item was returned");
+                }
+                if (acknowledged.size() > acknowledgedBefore) {
+                    failureCount = 0;
+                    waitStrategy.reset();
+                }
+                if (++failureCount > unknownFailureThreshold) {
+                    throw new OneDriveException("Too many failures while trying to upload file: "
+                                                + content.getName());
+                }
+                long retryAfter = takeRetryAfter();
+                LOG.debug("{} fragments of file: {} must be resent, resuming after {} ms.",
+                          new Object[] { ranges.size(), content.getName(),
+                                         Math.max(retryAfter, waitStrategy
+                                             .getDuration()) });
+                waitStrategy.sleep(retryAfter);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Record the Retry-After demanded for a throttled fragment, the longest
+     * is kept until the fragments are resent
+     * 
+     * @param delay long Retry-After in ms, negative if absent
+     */
+    private synchronized void retryAfter(long delay) {
+        retryAfter = Math.max(retryAfter, delay);
+    }
+
+    private synchronized long takeRetryAfter() {
+        long delay = retryAfter;
+        retryAfter = -1;
+        return delay;
+    }
+
+    /**
+     * Upload the ranges with at most parallelism fragments in flight
+     * 
+     * @param executor ExecutorService executing the fragment uploads
+     * @param ranges Set<Range> ranges to upload
+     * @return Item uploaded item if the service completed the upload,
+     *         {@code null} if fragments are still expected
+     * @throws OneDriveResumableUploadException if service indicated uploading
+     *             failed
+     */
+    private Item uploadRanges(ExecutorService executor, Set<Range> ranges)
+        throws OneDriveResumableUploadException {
+        CompletionService<Item> completion = new ExecutorCompletionService<>(executor);
+        Iterator<Range> pending = ranges.iterator();
+        int inFlight = 0;
+        while (inFlight < parallelism && pending.hasNext()) {
+            completion.submit(new FragmentUpload(pending.next()));
+            inFlight++;
+        }
+        Item uploaded = null;
+        while (inFlight > 0) {
+            Item item = takeCompleted(completion);
+            inFlight--;
+            if (item != null) {
+                uploaded = item;
+            }
+            if (pending.hasNext()) {
+                completion.submit(new FragmentUpload(pending.next()));
+                inFlight++;
+            }
+        }
+        return uploaded;
+    }
+
+    /**
+     * Wait for the next completed fragment upload
+     * 
+     * @param completion CompletionService<Item>
+     * @return Item uploaded item or {@code null}
+     * @throws OneDriveResumableUploadException if service indicated uploading
+     *             failed
+     */
+    private Item takeCompleted(CompletionService<Item> completion)
+        throws OneDriveResumableUploadException {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OneDriveException("Uploading of file: "
+                                        + content.getName()
+                                        + " was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof OneDriveResumableUploadException) {
+                throw (OneDriveResumableUploadException)cause;
+            } else if (cause instanceof OneDriveException) {
+                throw (OneDriveException)cause;
+            }
+            throw new OneDriveException("Failure uploading fragment of file: "
+                                        + content.getName(), cause);
+        }
+    }
+
+    /**
+     * Get the status of the upload session, holding the ranges the service
+     * still expects
+     * 
+     * @return UploadStatus
+     */
+    public UploadStatus getSessionStatus() {
+        LOG.info("Requesting session status for uploading file: {}",
+                 content.getName());
+        Response response = api.getClient().target(session.getUploadUrl())
+            .request().get();
+        handleError(response, Status.OK,
+                    "Failure requesting status of upload session: "
+                                         + session.getUploadUrl());
+        return readEntity(response, UploadStatus.class);
+    }
+
+    /**
+     * Get the ranges that are acknowledged by the service on parallel
+     * uploading
+     * 
+     * @return Set<Range>
+     */
+    public Set<Range> getAcknowledgedRanges() {
+        return Collections.unmodifiableSet(acknowledged);
+    }
+
     /**
      * Cancel the upload session
      */
@@ -306,6 +689,7 @@ public class UploadResumableAction extends AbstractAction
         handleError(response, Status.NO_CONTENT,
                     "Failure cancelling upload session:"
                                                  + session.getUploadUrl());
+        response.close();
     }
 
     /**
@@ -344,12 +728,16 @@ public class UploadResumableAction extends AbstractAction
     private Response streamFragment(OneDriveFile content, Range range,
                                     UploadSession session)
                                         throws FileNotFoundException {
-        FileFragmentStreamingOutput ffso = new FileFragmentStreamingOutput(content
+        if (!Files.isReadable(content.getFile())) {
+            throw new FileNotFoundException("File: " + content.getFile()
+                                            + " does not exist or is not readable");
+        }
+        ChannelFragmentStreamingOutput cfso = new ChannelFragmentStreamingOutput(content
             .getFile(), range);
-        return api.getClient().target(session.getUploadUrl()).request()
-            .header("Content-Length", range.getLength())
+        return transfer(api.getClient().target(session.getUploadUrl())
+            .request()).header("Content-Length", range.getLength())
             .header("Content-Range", range.getContentRangeHeader())
-            .put(Entity.json(ffso));
+            .put(Entity.json(cfso));
     }
 
     /**
@@ -365,4 +753,95 @@ public class UploadResumableAction extends AbstractAction
         }
     }
 
+    /**
+     * Uploads a single fragment, used on parallel uploading. Fragments that
+     * fail with a recoverable status or a connection failure are not
+     * acknowledged and will be resent based on the nextExpectedRanges of the
+     * upload session.
+     */
+    private class FragmentUpload implements Callable<Item> {
+
+        private final Range range;
+
+        FragmentUpload(Range range) {
+            this.range = range;
+        }
+
+        @Override
+        public Item call() throws Exception {
+            Response response = send();
+            if (response == null) {
+                return null;
+            }
+            try {
+                if (equalsStatus(response, Status.ACCEPTED)) {
+                    acknowledge(range);
+                    LOG.info("Successfully uploaded file fragment {}, for: {}",
+                             range.getContentRangeHeader(), content.getName());
+                    return null;
+                } else if (equalsStatus(response, Status.OK)
+                           || equalsStatus(response, Status.CREATED)) {
+                    acknowledge(range);
+                    return readEntity(response, Item.class);
+                } else if (equalsStatus(response,
+                                        Status.REQUESTED_RANGE_NOT_SATISFIABLE)) {
+                    acknowledge(range);
+                    LOG.info("Fragment: {} is already uploaded, skipping this fragment",
+                             range.getContentRangeHeader());
+                    return null;
+                } else if (equalsStatus(response, Status.CONFLICT)) {
+                    OneDriveError e = readError(response);
+                    throw new UploadConflictException(formatError(response
+                        .getStatus(), "File: " + content.getName()
+                                      + " already exists, skipping upload"),
+                                                      e);
+                } else if (equalsStatus(response, Status.NOT_FOUND)) {
+                    throw new OneDriveResumableUploadException(formatError(response
+                        .getStatus(), "Upload failed for file: "
+                                      + content.getName()));
+                }
+                retryAfter(ThrottlingController.retryAfter(response
+                    .getHeaderString(ThrottlingController.RETRY_AFTER)));
+                LOG.info("Failure: {} while uploading fragment: {} for file: {}, fragment will be resent",
+                         new Object[] { response.getStatus(),
+                                        range.getContentRangeHeader(),
+                                        content.getName() });
+                return null;
+            } finally {
+                response.close();
+            }
+        }
+
+        /**
+         * Stream the fragment, a connection failure leaves the fragment
+         * unacknowledged so it is resent
+         * 
+         * @return Response or {@code null} if the connection failed
+         * @throws FileNotFoundException if file does not exist
+         */
+        private Response send() throws FileNotFoundException {
+            try {
+                return streamFragment(content, range, session);
+            } catch (ProcessingException e) {
+                LOG.info("Failure: {} while uploading fragment: {} for file: {}, fragment will be resent",
+                         new Object[] { e.getMessage(),
+                                        range.getContentRangeHeader(),
+                                        content.getName() });
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Thrown if the upload cannot complete because the item already exists,
+     * the recorded session is then removed
+     */
+    private static class UploadConflictException extends OneDriveException {
+
+        private static final long serialVersionUID = -2950873012749371023L;
+
+        UploadConflictException(String message, OneDriveError error) {
+            super(message, error);
+        }
+    }
 }
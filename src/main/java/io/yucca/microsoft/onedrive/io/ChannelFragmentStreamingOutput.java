@@ -0,0 +1,83 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Streams a file fragment using {@link FileChannel#transferTo}, the fragment
+ * is never copied into a buffer sized to the range. When the underlying
+ * stream is not backed by a channel the JDK transfers through a small cached
+ * direct buffer, keeping memory usage constant regardless of fragment size.
+ * 
+ * @author yucca.io
+ */
+public class ChannelFragmentStreamingOutput implements StreamingOutput {
+
+    /**
+     * Maximum number of bytes handed to a single transferTo call
+     */
+    public static final long MAX_TRANSFER_SIZE = 8 * 1024 * 1024;
+
+    private final Path file;
+
+    private final Range range;
+
+    /**
+     * Constructor
+     * 
+     * @param file Path from which a fragment is streamed, the file is opened
+     *            and closed in {@link #write(OutputStream)}
+     * @param range Range range to stream
+     */
+    public ChannelFragmentStreamingOutput(Path file, Range range) {
+        this.file = file;
+        this.range = range;
+    }
+
+    /**
+     * Stream a fragment to OutputStream
+     * 
+     * @param output OutputStream flushed but not closed after writing
+     * @throws IOException
+     */
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            // channel is not closed, that would close the OutputStream
+            WritableByteChannel out = Channels.newChannel(output);
+            long position = range.getLower();
+            long end = Math.min(range.getUpper() + 1, in.size());
+            while (position < end) {
+                long transferred = in.transferTo(position, Math
+                    .min(end - position, MAX_TRANSFER_SIZE), out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            output.flush();
+        }
+    }
+}
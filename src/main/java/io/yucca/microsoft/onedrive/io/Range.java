@@ -39,7 +39,7 @@ public class Range {
      * @param total long total length of file
      */
     public Range(long lower, long upper, long total) {
-        if (lower < 0 || upper < 0 || lower >= upper || lower > total
+        if (lower < 0 || upper < 0 || lower > upper || lower > total
             || upper > total) {
             throw new IllegalArgumentException("Range is invalid");
         }
@@ -76,6 +76,15 @@ public class Range {
             .append(String.valueOf(total)).toString();
     }
 
+    /**
+     * Format this range for usage in 'Range' header of a download request
+     * 
+     * @return String i.e. "bytes=0-1023"
+     */
+    public String getRangeHeader() {
+        return "bytes=" + lower + "-" + upper;
+    }
+
     /**
      * Get a set of Ranges defining file/stream fragments for uploading
      * 
@@ -123,4 +132,77 @@ public class Range {
         }
         return ranges;
     }
+
+    /**
+     * Get a set of Ranges defining the file fragments that still must be
+     * uploaded, based on the nextExpectedRanges reported by an upload session.
+     * Each expected range is split in fragments of maximum size.
+     * 
+     * <pre>
+     * Example size: 26, length 67, expected ranges ["26-", "10-15"]
+     * Range: 26-51, 26, 67
+     * Range: 52-66, 15, 67
+     * Range: 10-15,  6, 67
+     * </pre>
+     * 
+     * @param expectedRanges String[] ranges formatted as "lower-upper" or
+     *            "lower-" in which case the range ends at the last byte
+     * @param size long maximum size of a range
+     * @param length long total length of file or stream
+     * @return Set<Range> LinkedHashSet, empty if no ranges are expected
+     */
+    public static Set<Range> getExpectedRanges(String[] expectedRanges,
+                                               long size, long length) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size is invalid: " + size);
+        }
+        Set<Range> ranges = new LinkedHashSet<>();
+        if (expectedRanges == null) {
+            return ranges;
+        }
+        for (String expected : expectedRanges) {
+            int idx = expected.indexOf('-');
+            if (idx < 1) {
+                throw new IllegalArgumentException("expected range is invalid: "
+                                                   + expected);
+            }
+            long lower = Long.parseLong(expected.substring(0, idx).trim());
+            String end = expected.substring(idx + 1).trim();
+            long upper = end.isEmpty() ? length - 1 : Long.parseLong(end);
+            while (lower <= upper) {
+                long fragmentUpper = Math.min(lower + size - 1, upper);
+                ranges.add(new Range(lower, fragmentUpper, length));
+                lower = fragmentUpper + 1;
+            }
+        }
+        return ranges;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + (int)(lower ^ (lower >>> 32));
+        result = prime * result + (int)(upper ^ (upper >>> 32));
+        result = prime * result + (int)(total ^ (total >>> 32));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        Range other = (Range)obj;
+        return lower == other.lower && upper == other.upper
+               && total == other.total;
+    }
+
+    @Override
+    public String toString() {
+        return getContentRangeHeader();
+    }
 }
@@ -0,0 +1,298 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Formatter;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.resources.UploadSession;
+
+/**
+ * UploadSessionJournal persists resumable upload sessions on disk, allowing
+ * an upload to be continued after the JVM is restarted. For every file being
+ * uploaded a small properties file is kept in the journal directory, holding
+ * the upload url, expiration and identity of the file (path, size, last
+ * modified time and file key). The entry is written once when the session is
+ * created, on resuming the ranges still expected are taken from the session
+ * status of the service.
+ * 
+ * @author yucca.io
+ */
+public class UploadSessionJournal {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(UploadSessionJournal.class);
+
+    public static final String DEFAULT_DIRECTORY = ".onedriveuploads";
+
+    public static final String JOURNAL_EXTENSION = ".upload";
+
+    static final String KEY_UPLOAD_URL = "uploadUrl";
+
+    static final String KEY_EXPIRATION = "expirationDateTime";
+
+    static final String KEY_PATH = "path";
+
+    static final String KEY_SIZE = "size";
+
+    static final String KEY_LAST_MODIFIED = "lastModified";
+
+    static final String KEY_FILE_KEY = "fileKey";
+
+    private final Path directory;
+
+    /**
+     * Constructor, journal is kept in "~/.onedriveuploads"
+     */
+    public UploadSessionJournal() {
+        this(Paths.get(System.getProperty("user.home"), DEFAULT_DIRECTORY));
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param directory Path directory holding the journal, created if not
+     *            existing
+     */
+    public UploadSessionJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Record a newly created upload session for a file, an existing entry for
+     * the file is replaced
+     * 
+     * @param file Path file being uploaded
+     * @param session UploadSession
+     * @return Entry
+     * @throws IOException if the file attributes cannot be read or the entry
+     *             written
+     */
+    public Entry create(Path file, UploadSession session) throws IOException {
+        BasicFileAttributes attributes = Files
+            .readAttributes(file, BasicFileAttributes.class);
+        Entry entry = new Entry(file.toAbsolutePath(), session.getUploadUrl(),
+                                session.getExpirationDateTime(),
+                                attributes.size(),
+                                attributes.lastModifiedTime().toMillis(),
+                                fileKey(attributes));
+        write(entry);
+        return entry;
+    }
+
+    /**
+     * Read the journal entry of a file
+     * 
+     * @param file Path file being uploaded
+     * @return Entry or {@code null} if no session is recorded
+     * @throws IOException if the entry cannot be read
+     */
+    public Entry read(Path file) throws IOException {
+        Path journalFile = getJournalFile(file);
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(journalFile)) {
+            props.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            return new Entry(Paths.get(props.getProperty(KEY_PATH)),
+                             props.getProperty(KEY_UPLOAD_URL),
+                             props.getProperty(KEY_EXPIRATION),
+                             Long.parseLong(props.getProperty(KEY_SIZE)),
+                             Long.parseLong(props
+                                 .getProperty(KEY_LAST_MODIFIED)),
+                             props.getProperty(KEY_FILE_KEY));
+        } catch (NullPointerException | IllegalArgumentException e) {
+            LOG.warn("Discarding corrupt upload journal: {}", journalFile);
+            Files.deleteIfExists(journalFile);
+            return null;
+        }
+    }
+
+    /**
+     * Remove the journal entry of a file, after completing or cancelling the
+     * upload
+     * 
+     * @param file Path file being uploaded
+     */
+    public void remove(Path file) {
+        try {
+            Files.deleteIfExists(getJournalFile(file));
+        } catch (IOException e) {
+            LOG.warn("Failure removing upload journal for file: {}", file, e);
+        }
+    }
+
+    /**
+     * Write an entry atomically by replacing the journal file with a
+     * temporary file
+     * 
+     * @param entry Entry
+     * @throws IOException
+     */
+    private synchronized void write(Entry entry) throws IOException {
+        Files.createDirectories(directory);
+        Properties props = new Properties();
+        props.setProperty(KEY_UPLOAD_URL, entry.uploadUrl);
+        if (entry.expirationDateTime != null) {
+            props.setProperty(KEY_EXPIRATION, entry.expirationDateTime);
+        }
+        props.setProperty(KEY_PATH, entry.path.toString());
+        props.setProperty(KEY_SIZE, Long.toString(entry.size));
+        props.setProperty(KEY_LAST_MODIFIED,
+                          Long.toString(entry.lastModified));
+        if (entry.fileKey != null) {
+            props.setProperty(KEY_FILE_KEY, entry.fileKey);
+        }
+        Path journalFile = getJournalFile(entry.path);
+        Path tmp = Files.createTempFile(directory, "journal", ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "OneDrive upload session");
+        }
+        Files.move(tmp, journalFile, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Get the file key identifying the file on the file system, i.e. device
+     * and inode
+     * 
+     * @param attributes BasicFileAttributes
+     * @return String or {@code null} if not supported by the file system
+     */
+    static String fileKey(BasicFileAttributes attributes) {
+        Object key = attributes.fileKey();
+        return key == null ? null : key.toString();
+    }
+
+    /**
+     * Get the journal file for a file, named after the digest of its absolute
+     * path
+     * 
+     * @param file Path
+     * @return Path
+     */
+    Path getJournalFile(Path file) {
+        String name = file.toAbsolutePath().toString();
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA1");
+            byte[] digest = md.digest(name.getBytes(StandardCharsets.UTF_8));
+            try (Formatter formatter = new Formatter()) {
+                for (byte b : digest) {
+                    formatter.format("%02x", b);
+                }
+                return directory.resolve(formatter.toString()
+                                         + JOURNAL_EXTENSION);
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new OneDriveException("SHA1 digest is not supported", e);
+        }
+    }
+
+    /**
+     * Entry of an upload session recorded in the journal
+     */
+    public static class Entry {
+
+        private final Path path;
+
+        private final String uploadUrl;
+
+        private final String expirationDateTime;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final String fileKey;
+
+        Entry(Path path, String uploadUrl, String expirationDateTime,
+              long size, long lastModified, String fileKey) {
+            this.path = path;
+            this.uploadUrl = uploadUrl;
+            this.expirationDateTime = expirationDateTime;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fileKey = fileKey;
+        }
+
+        /**
+         * Determine if the file is identical to the file when the session was
+         * created, by path, size, last modified time and file key. The content
+         * is not read, so resuming a large upload does not read it twice.
+         * 
+         * @param file Path
+         * @return true if identical
+         * @throws IOException if the file attributes cannot be read
+         */
+        public boolean matches(Path file) throws IOException {
+            if (!Files.exists(file) || !path.equals(file.toAbsolutePath())) {
+                return false;
+            }
+            BasicFileAttributes attributes = Files
+                .readAttributes(file, BasicFileAttributes.class);
+            String key = fileKey(attributes);
+            return size == attributes.size()
+                   && lastModified == attributes.lastModifiedTime().toMillis()
+                   && (fileKey == null ? key == null : fileKey.equals(key));
+        }
+
+        /**
+         * Get the recorded UploadSession
+         * 
+         * @return UploadSession
+         */
+        public UploadSession getSession() {
+            UploadSession session = new UploadSession();
+            session.setUploadUrl(uploadUrl);
+            session.setExpirationDateTime(expirationDateTime);
+            return session;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getFileKey() {
+            return fileKey;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.resources;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * BatchResponseCollection, the responses to the requests in a JSON batch. The
+ * order of responses may differ from the order of requests
+ *
+ * @author yucca.io
+ */
+public class BatchResponseCollection {
+
+    @JsonDeserialize(as = LinkedList.class)
+    private List<BatchResponse> responses;
+
+    public List<BatchResponse> getResponses() {
+        return responses;
+    }
+
+    public void setResponses(List<BatchResponse> responses) {
+        this.responses = responses;
+    }
+
+}
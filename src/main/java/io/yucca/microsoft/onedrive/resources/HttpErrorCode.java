@@ -58,6 +58,9 @@ public enum HttpErrorCode {
     UNPROCESSABLE_ENTITY(
         422,
         "Cannot process the request because it is semantically incorrect."),
+    FAILED_DEPENDENCY(
+        424,
+        "The request depends on another request in the batch which failed."),
     TOO_MANY_REQUESTS(
         429,
         "Client application has been throttled and should not attempt to repeat the request until an amount of time has elapsed."),
@@ -16,6 +16,7 @@
 package io.yucca.microsoft.onedrive.resources;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -96,6 +97,9 @@ public class Item {
     // used with expand=true query parameter
     @JsonIgnore
     private List<Item> children;
+    // Link to the next page of expanded children
+    @JsonIgnore
+    private URL childrenNextLink;
     @JsonIgnore
     private List<ThumbnailSet> thumbnails;
 
@@ -106,6 +110,45 @@ public class Item {
         this.id = id;
     }
 
+    /**
+     * Create a copy of an item, the parent reference and the list of children
+     * are copied, facets are shared with the original item
+     * 
+     * @param item Item to copy
+     */
+    public Item(Item item) {
+        this.id = item.id;
+        this.name = item.name;
+        this.eTag = item.eTag;
+        this.cTag = item.cTag;
+        this.createdBy = item.createdBy;
+        this.lastModifiedBy = item.lastModifiedBy;
+        this.createdDateTime = item.createdDateTime;
+        this.lastModifiedDateTime = item.lastModifiedDateTime;
+        this.size = item.size;
+        this.parentReference = (item.parentReference == null) ? null
+            : new ItemReference(item.parentReference);
+        this.webUrl = item.webUrl;
+        this.folder = item.folder;
+        this.file = item.file;
+        this.fileSystemInfo = item.fileSystemInfo;
+        this.image = item.image;
+        this.photo = item.photo;
+        this.audio = item.audio;
+        this.video = item.video;
+        this.location = item.location;
+        this.deleted = item.deleted;
+        this.specialFolder = item.specialFolder;
+        this.conflictBehavior = item.conflictBehavior;
+        this.downloadUrl = item.downloadUrl;
+        this.sourceUrl = item.sourceUrl;
+        this.content = item.content;
+        this.children = (item.children == null) ? null
+            : new ArrayList<>(item.children);
+        this.childrenNextLink = item.childrenNextLink;
+        this.thumbnails = item.thumbnails;
+    }
+
     @JsonIgnore // only read on deserialization
     public String getId() {
         return id;
@@ -368,6 +411,16 @@ public class Item {
         this.children = children;
     }
 
+    @JsonIgnore // only read on deserialization
+    public URL getChildrenNextLink() {
+        return childrenNextLink;
+    }
+
+    @JsonProperty("children@odata.nextLink")
+    public void setChildrenNextLink(URL childrenNextLink) {
+        this.childrenNextLink = childrenNextLink;
+    }
+
     @JsonIgnore // only read on deserialization
     public List<ThumbnailSet> getThumbnails() {
         return thumbnails;
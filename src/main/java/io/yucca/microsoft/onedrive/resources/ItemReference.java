@@ -27,6 +27,20 @@ public class ItemReference {
     private String id;
     private String path;
 
+    public ItemReference() {
+    }
+
+    /**
+     * Create a copy of an item reference
+     * 
+     * @param reference ItemReference to copy
+     */
+    public ItemReference(ItemReference reference) {
+        this.driveId = reference.driveId;
+        this.id = reference.id;
+        this.path = reference.path;
+    }
+
     public String getDriveId() {
         return driveId;
     }
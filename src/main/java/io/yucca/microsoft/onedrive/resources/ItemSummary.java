@@ -0,0 +1,227 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.resources;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.yucca.microsoft.onedrive.resources.facets.DeletedFacet;
+import io.yucca.microsoft.onedrive.resources.facets.FileFacet;
+import io.yucca.microsoft.onedrive.resources.facets.FolderFacet;
+import io.yucca.microsoft.onedrive.util.ISO8061;
+
+/**
+ * ItemSummary is a compact, read-only representation of an Item for
+ * enumerating large numbers of items, i.e. children listings and delta
+ * enumerations. Only the properties in {@link #SELECT} are kept, the facets
+ * are reduced to a few values and timestamps are held as milliseconds since
+ * epoch, so an instance takes a fraction of the memory of an Item.
+ * 
+ * @author yucca.io
+ */
+public class ItemSummary {
+
+    /**
+     * Properties to select when requesting summaries
+     */
+    public static final String[] SELECT = new String[] { "id", "name", "size",
+                                                         "eTag", "cTag",
+                                                         "file", "folder",
+                                                         "deleted",
+                                                         "parentReference",
+                                                         "createdDateTime",
+                                                         "lastModifiedDateTime" };
+
+    private String id;
+
+    private String parentId;
+
+    private String name;
+
+    private long size;
+
+    private String eTag;
+
+    private String cTag;
+
+    private String sha1;
+
+    private long createdDateTime;
+
+    private long lastModifiedDateTime;
+
+    private int childCount = -1;
+
+    private boolean directory;
+
+    private boolean deleted;
+
+    @JsonIgnore
+    public String getId() {
+        return id;
+    }
+
+    @JsonProperty("id")
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the identifier of the parent folder
+     * 
+     * @return String, {@code null} for the root folder
+     */
+    @JsonIgnore
+    public String getParentId() {
+        return parentId;
+    }
+
+    @JsonProperty("parentReference")
+    public void setParentReference(ItemReference parentReference) {
+        this.parentId = (parentReference == null) ? null
+            : parentReference.getId();
+    }
+
+    @JsonIgnore
+    public String getName() {
+        return name;
+    }
+
+    @JsonProperty("name")
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @JsonIgnore
+    public long getSize() {
+        return size;
+    }
+
+    @JsonProperty("size")
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    @JsonIgnore
+    public String geteTag() {
+        return eTag;
+    }
+
+    @JsonProperty("eTag")
+    public void seteTag(String eTag) {
+        this.eTag = eTag;
+    }
+
+    @JsonIgnore
+    public String getcTag() {
+        return cTag;
+    }
+
+    @JsonProperty("cTag")
+    public void setcTag(String cTag) {
+        this.cTag = cTag;
+    }
+
+    /**
+     * Get the SHA1 hash of the file content
+     * 
+     * @return String, {@code null} for a folder or if no hash is known
+     */
+    @JsonIgnore
+    public String getSha1() {
+        return sha1;
+    }
+
+    @JsonProperty("file")
+    public void setFile(FileFacet file) {
+        this.sha1 = (file == null || file.getHashes() == null) ? null
+            : file.getHashes().getSha1Hash();
+    }
+
+    /**
+     * Get the creation time
+     * 
+     * @return long milliseconds since epoch, 0 if unknown
+     */
+    @JsonIgnore
+    public long getCreatedDateTime() {
+        return createdDateTime;
+    }
+
+    @JsonProperty("createdDateTime")
+    public void setCreatedDateTime(String createdDateTime) {
+        this.createdDateTime = (createdDateTime == null) ? 0
+            : ISO8061.toEpochMillis(createdDateTime);
+    }
+
+    /**
+     * Get the last modification time
+     * 
+     * @return long milliseconds since epoch, 0 if unknown
+     */
+    @JsonIgnore
+    public long getLastModifiedDateTime() {
+        return lastModifiedDateTime;
+    }
+
+    @JsonProperty("lastModifiedDateTime")
+    public void setLastModifiedDateTime(String lastModifiedDateTime) {
+        this.lastModifiedDateTime = (lastModifiedDateTime == null) ? 0
+            : ISO8061.toEpochMillis(lastModifiedDateTime);
+    }
+
+    /**
+     * Get the number of children of a folder
+     * 
+     * @return int, -1 if unknown or not a folder
+     */
+    @JsonIgnore
+    public int getChildCount() {
+        return childCount;
+    }
+
+    @JsonProperty("folder")
+    public void setFolder(FolderFacet folder) {
+        this.directory = folder != null;
+        this.childCount = (folder == null || folder.getChildCount() == null)
+            ? -1 : folder.getChildCount().intValue();
+    }
+
+    /**
+     * Determine if item is folder
+     * 
+     * @return true if a folderFacet is present
+     */
+    @JsonIgnore
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    /**
+     * Determine if item is deleted
+     * 
+     * @return true if a deletedFacet is present
+     */
+    @JsonIgnore
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    @JsonProperty("deleted")
+    public void setDeleted(DeletedFacet deleted) {
+        this.deleted = deleted != null;
+    }
+}
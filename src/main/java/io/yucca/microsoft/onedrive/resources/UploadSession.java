@@ -16,6 +16,9 @@
 package io.yucca.microsoft.onedrive.resources;
 
 import java.net.URL;
+import java.text.ParseException;
+
+import io.yucca.microsoft.onedrive.util.ISO8061;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -57,9 +60,22 @@ public class UploadSession {
         this.nextExpectedRanges = nextExpectedRanges;
     }
 
+    /**
+     * Determine if the session has expired based on expirationDateTime i.e.
+     * "2015-01-29T09:21:55.523Z"
+     * 
+     * @return true if expired, false if not expired or expiration is unknown
+     */
     public boolean hasSessionExpired() {
-        // TODO add date check "2015-01-29T09:21:55.523Z"
-        return false;
+        if (expirationDateTime == null) {
+            return false;
+        }
+        try {
+            return ISO8061.toMS(expirationDateTime) <= System
+                .currentTimeMillis();
+        } catch (ParseException e) {
+            return false;
+        }
     }
 
     public URL getContextUrl() {
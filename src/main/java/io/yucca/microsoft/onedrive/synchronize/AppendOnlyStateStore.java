@@ -0,0 +1,464 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AppendOnlyStateStore stores StateRecords in an append-only log file. Only
+ * the offsets of the records are held in memory, a record is read on lookup
+ * with a single positional read.
+ * <p>
+ * Every modification is appended as an entry protected by a CRC32 checksum,
+ * {@link #commit()} appends a commit marker and forces the log to disk. On
+ * opening, the log is replayed up to the last commit marker, entries written
+ * after it, for example by a process that crashed, are discarded. When the
+ * log holds many superseded entries it is compacted into a new file which
+ * atomically replaces the log.
+ * </p>
+ * 
+ * <pre>
+ * file  : magic(4) version(4) entry*
+ * entry : op(1) length(4) payload(length) crc32(4)
+ * </pre>
+ * 
+ * @author yucca.io
+ */
+public class AppendOnlyStateStore implements LocalStateStore {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(AppendOnlyStateStore.class);
+
+    static final int MAGIC = 0x4F445353;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 8;
+
+    static final byte OP_PUT = 1;
+
+    static final byte OP_REMOVE = 2;
+
+    static final byte OP_CLEAR = 3;
+
+    static final byte OP_COMMIT = 4;
+
+    private static final int ENTRY_OVERHEAD = 9;
+
+    private static final int MAX_PAYLOAD = 1024 * 1024;
+
+    private static final long REMOVED = -1L;
+
+    /**
+     * Minimum number of superseded entries before the log is compacted
+     */
+    private static final int COMPACTION_THRESHOLD = 10000;
+
+    private final Path file;
+
+    private FileChannel channel;
+
+    /**
+     * Offsets of committed records by identifier
+     */
+    private Map<String, Long> index = new HashMap<>();
+
+    /**
+     * Offsets of uncommitted records, {@link #REMOVED} for removals
+     */
+    private final Map<String, Long> pending = new LinkedHashMap<>();
+
+    private boolean pendingClear;
+
+    private long position;
+
+    private long entries;
+
+    /**
+     * Open or create a store
+     * 
+     * @param file Path of the log file
+     * @throws IOException if the file cannot be opened or is not a state store
+     */
+    public AppendOnlyStateStore(Path file) throws IOException {
+        this.file = file;
+        open();
+    }
+
+    private void open() throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                        StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            write(channel, header, 0);
+            channel.force(true);
+            this.position = HEADER_SIZE;
+            return;
+        }
+        ByteBuffer header = read(0, HEADER_SIZE);
+        if (header == null || header.getInt() != MAGIC
+            || header.getInt() != VERSION) {
+            channel.close();
+            throw new IOException("File: " + file
+                                  + " is not a valid state store");
+        }
+        load();
+    }
+
+    /**
+     * Replay the log up to the last commit marker
+     * 
+     * @throws IOException
+     */
+    private void load() throws IOException {
+        Map<String, Long> uncommitted = new LinkedHashMap<>();
+        boolean clear = false;
+        long pos = HEADER_SIZE;
+        long committed = HEADER_SIZE;
+        long count = 0;
+        Entry entry;
+        while ((entry = readEntry(pos)) != null) {
+            switch (entry.op) {
+            case OP_PUT:
+                uncommitted.put(decodeId(entry.payload), pos);
+                break;
+            case OP_REMOVE:
+                uncommitted.put(decodeId(entry.payload), REMOVED);
+                break;
+            case OP_CLEAR:
+                uncommitted.clear();
+                clear = true;
+                break;
+            case OP_COMMIT:
+                apply(clear, uncommitted);
+                uncommitted.clear();
+                clear = false;
+                committed = pos + entry.size();
+                break;
+            default:
+                throw new IOException("Unknown entry at offset: " + pos
+                                      + " in state store: " + file);
+            }
+            pos += entry.size();
+            count++;
+        }
+        if (committed < channel.size()) {
+            LOG.warn("Discarding {} bytes of uncommitted state in: {}",
+                     channel.size() - committed, file);
+            channel.truncate(committed);
+        }
+        this.position = committed;
+        this.entries = count;
+    }
+
+    @Override
+    public synchronized StateRecord get(String id) throws IOException {
+        Long offset = pending.get(id);
+        if (offset == null && !pendingClear) {
+            offset = index.get(id);
+        }
+        if (offset == null || offset == REMOVED) {
+            return null;
+        }
+        Entry entry = readEntry(offset);
+        if (entry == null || entry.op != OP_PUT) {
+            throw new IOException("Corrupt record: " + id + " at offset: "
+                                  + offset + " in state store: " + file);
+        }
+        return decodeRecord(entry.payload);
+    }
+
+    @Override
+    public synchronized void put(StateRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(record.getId());
+        out.writeByte(record.getType() == null
+            ? ResourceType.FILE.ordinal() : record.getType().ordinal());
+        out.writeUTF(record.getPath() == null ? "" : record.getPath());
+        out.writeLong(record.getLastModified());
+        out.writeLong(record.getSize());
+        out.writeUTF(record.getSha1() == null ? "" : record.getSha1());
+        out.flush();
+        pending.put(record.getId(), append(OP_PUT, bytes.toByteArray()));
+    }
+
+    @Override
+    public synchronized void remove(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(id);
+        out.flush();
+        append(OP_REMOVE, bytes.toByteArray());
+        pending.put(id, REMOVED);
+    }
+
+    @Override
+    public synchronized void clear() throws IOException {
+        append(OP_CLEAR, new byte[0]);
+        pending.clear();
+        pendingClear = true;
+    }
+
+    @Override
+    public synchronized Iterable<String> ids() {
+        return new ArrayList<>(liveIds());
+    }
+
+    @Override
+    public synchronized int size() {
+        if (pending.isEmpty() && !pendingClear) {
+            return index.size();
+        }
+        return liveIds().size();
+    }
+
+    /**
+     * Get the identifiers of committed and uncommitted records
+     * 
+     * @return Set<String>
+     */
+    private Set<String> liveIds() {
+        Set<String> ids = new LinkedHashSet<>();
+        if (!pendingClear) {
+            ids.addAll(index.keySet());
+        }
+        for (Map.Entry<String, Long> e : pending.entrySet()) {
+            if (e.getValue() == REMOVED) {
+                ids.remove(e.getKey());
+            } else {
+                ids.add(e.getKey());
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public synchronized void commit() throws IOException {
+        if (pending.isEmpty() && !pendingClear) {
+            return;
+        }
+        append(OP_COMMIT, new byte[0]);
+        channel.force(true);
+        apply(pendingClear, pending);
+        pending.clear();
+        pendingClear = false;
+        if (entries - index.size() > Math.max(COMPACTION_THRESHOLD,
+                                              index.size())) {
+            compact();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!pending.isEmpty() || pendingClear) {
+            LOG.warn("Closing state store: {} with uncommitted modifications",
+                     file);
+        }
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+
+    /**
+     * Rewrite the committed records into a new log file, which atomically
+     * replaces the current log
+     * 
+     * @throws IOException
+     */
+    synchronized void compact() throws IOException {
+        LOG.info("Compacting state store: {}, {} entries for {} records",
+                 new Object[] { file, entries, index.size() });
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        Map<String, Long> compacted = new HashMap<>();
+        long pos = HEADER_SIZE;
+        try (FileChannel out = FileChannel
+            .open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                  StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            write(out, header, 0);
+            for (Map.Entry<String, Long> e : index.entrySet()) {
+                Entry entry = readEntry(e.getValue());
+                ByteBuffer raw = encode(entry.op, entry.payload);
+                compacted.put(e.getKey(), pos);
+                pos += write(out, raw, pos);
+            }
+            pos += write(out, encode(OP_COMMIT, new byte[0]), pos);
+            out.force(true);
+        }
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        this.channel = FileChannel.open(file, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        this.index = compacted;
+        this.position = pos;
+        this.entries = compacted.size() + 1;
+    }
+
+    private void apply(boolean clear, Map<String, Long> modifications) {
+        if (clear) {
+            index.clear();
+        }
+        for (Map.Entry<String, Long> e : modifications.entrySet()) {
+            if (e.getValue() == REMOVED) {
+                index.remove(e.getKey());
+            } else {
+                index.put(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * Append an entry to the log
+     * 
+     * @param op byte operation
+     * @param payload byte[]
+     * @return long offset of the entry
+     * @throws IOException
+     */
+    private long append(byte op, byte[] payload) throws IOException {
+        long offset = position;
+        position += write(channel, encode(op, payload), offset);
+        entries++;
+        return offset;
+    }
+
+    private ByteBuffer encode(byte op, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(payload);
+        ByteBuffer buf = ByteBuffer.allocate(ENTRY_OVERHEAD + payload.length);
+        buf.put(op).putInt(payload.length).put(payload)
+            .putInt((int)crc.getValue()).flip();
+        return buf;
+    }
+
+    /**
+     * Read an entry, an incomplete or corrupt entry indicates the end of the
+     * valid log
+     * 
+     * @param offset long
+     * @return Entry or {@code null} if incomplete or corrupt
+     * @throws IOException
+     */
+    private Entry readEntry(long offset) throws IOException {
+        ByteBuffer header = read(offset, 5);
+        if (header == null) {
+            return null;
+        }
+        byte op = header.get();
+        int length = header.getInt();
+        if (length < 0 || length > MAX_PAYLOAD) {
+            return null;
+        }
+        ByteBuffer body = read(offset + 5, length + 4);
+        if (body == null) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        body.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(payload);
+        if (body.getInt() != (int)crc.getValue()) {
+            return null;
+        }
+        return new Entry(op, payload);
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, offset + buf.position()) == -1) {
+                return null;
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static int write(FileChannel channel, ByteBuffer buf, long offset)
+        throws IOException {
+        int written = 0;
+        while (buf.hasRemaining()) {
+            written += channel.write(buf, offset + written);
+        }
+        return written;
+    }
+
+    private static String decodeId(byte[] payload) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(payload))
+            .readUTF();
+    }
+
+    private static StateRecord decodeRecord(byte[] payload)
+        throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String id = in.readUTF();
+        ResourceType type = ResourceType.values()[in.readByte()];
+        String path = in.readUTF();
+        long lastModified = in.readLong();
+        long size = in.readLong();
+        String sha1 = in.readUTF();
+        return new StateRecord(id, type, path.isEmpty() ? null : path,
+                               lastModified, size,
+                               sha1.isEmpty() ? null : sha1);
+    }
+
+    private static class Entry {
+
+        private final byte op;
+
+        private final byte[] payload;
+
+        Entry(byte op, byte[] payload) {
+            this.op = op;
+            this.payload = payload;
+        }
+
+        long size() {
+            return ENTRY_OVERHEAD + payload.length;
+        }
+    }
+}
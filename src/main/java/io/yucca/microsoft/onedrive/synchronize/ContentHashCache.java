@@ -0,0 +1,120 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.yucca.microsoft.onedrive.util.ChecksumUtil;
+
+/**
+ * ContentHashCache keeps the SHA1 hash of a file in an extended attribute
+ * together with the file key, size and last modification time at the moment
+ * of hashing. As long as these attributes are unchanged the cached hash is
+ * returned, otherwise the file is hashed again and the attribute is updated.
+ * 
+ * @author yucca.io
+ */
+public final class ContentHashCache {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(ContentHashCache.class);
+
+    public static final String ATTRIBUTE_ONEDRIVE_SHA1 = "onedrive.sha1";
+
+    static final String SEPARATOR = "|";
+
+    private ContentHashCache() {
+    }
+
+    /**
+     * Get the SHA1 hash of a file, the file is only read if no valid cached
+     * hash exists
+     * 
+     * @param path Path to file
+     * @return String SHA1 hash in hexadecimal format
+     * @throws IOException if the file cannot be read
+     */
+    public static String sha1(Path path) throws IOException {
+        BasicFileAttributes attrs = Files
+            .readAttributes(path, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+        String key = key(attrs);
+        String cached = readCached(path);
+        if (cached != null && cached.startsWith(key)) {
+            return cached.substring(key.length());
+        }
+        String sha1 = ChecksumUtil.sha1(path);
+        writeCached(path, key, sha1);
+        return sha1;
+    }
+
+    /**
+     * Remove the cached hash of a file
+     * 
+     * @param path Path to file
+     */
+    public static void invalidate(Path path) {
+        try {
+            MetadataUtil.removeAttribute(path, ATTRIBUTE_ONEDRIVE_SHA1);
+        } catch (UnsupportedOperationException | IOException e) {
+            LOG.debug("Failure removing cached hash for file: {}", path, e);
+        }
+    }
+
+    /**
+     * Build the cache key from the file key, size and last modification time
+     * 
+     * @param attrs BasicFileAttributes
+     * @return String key including trailing separator
+     */
+    static String key(BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        return (fileKey == null ? "-" : fileKey.toString()) + SEPARATOR
+               + attrs.size() + SEPARATOR
+               + attrs.lastModifiedTime().toMillis() + SEPARATOR;
+    }
+
+    private static String readCached(Path path) {
+        try {
+            return MetadataUtil.readAttribute(path, ATTRIBUTE_ONEDRIVE_SHA1);
+        } catch (UnsupportedOperationException | IOException e) {
+            LOG.debug("Failure reading cached hash for file: {}", path, e);
+            return null;
+        }
+    }
+
+    private static void writeCached(Path path, String key, String sha1) {
+        try {
+            // the file may have been modified while it was being hashed
+            BasicFileAttributes after = Files
+                .readAttributes(path, BasicFileAttributes.class,
+                                LinkOption.NOFOLLOW_LINKS);
+            if (key.equals(key(after))) {
+                MetadataUtil.writeAttribute(path, ATTRIBUTE_ONEDRIVE_SHA1,
+                                            key + sha1);
+            }
+        } catch (UnsupportedOperationException | IOException e) {
+            LOG.debug("Failure caching hash for file: {}", path, e);
+        }
+    }
+}
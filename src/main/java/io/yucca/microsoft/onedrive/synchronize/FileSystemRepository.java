@@ -177,6 +177,7 @@ public class FileSystemRepository implements LocalDriveRepository {
 
     private void write(LocalItem resource, OneDriveContent content)
         throws IOException {
+        ContentHashCache.invalidate(resource.getPath());
         InputStreamingOutput iso = new InputStreamingOutput(content
             .getInputStream());
         OutputStream out = Files
@@ -199,7 +200,12 @@ public class FileSystemRepository implements LocalDriveRepository {
         BasicFileAttributeView basicView = Files
             .getFileAttributeView(resource.getPath(),
                                   BasicFileAttributeView.class);
-        BasicFileAttributes basicAttrs = basicView.readAttributes();
+        readMetadata(resource, basicView.readAttributes());
+    }
+
+    @Override
+    public void readMetadata(LocalItem resource, BasicFileAttributes basicAttrs)
+        throws IOException {
         resource.setId(MetadataUtil.readAttribute(resource.getPath(),
                                                   ATTRIBUTE_ONEDRIVE_ITEMID));
         resource.setPath(resource.getPath());
@@ -21,15 +21,16 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -57,18 +58,21 @@ public class FileSystemSynchronizer implements LocalDriveSynchronizer {
     /**
      * Map with items that were localy added and must be created in OneDrive
      */
-    private final List<LocalItem> additions = new LinkedList<>();
+    private final List<LocalItem> additions = Collections
+        .synchronizedList(new LinkedList<LocalItem>());
 
     /**
      * Map with synchronized items in the LocalDrive which are possibly changed
      */
-    private final Map<String, LocalItem> items = new LinkedHashMap<>();
+    private final Map<String, LocalItem> items = Collections
+        .synchronizedMap(new LinkedHashMap<String, LocalItem>());
 
     /**
      * Map with local synchronized folders, used in the processing of items to
      * acquire the parent folder
      */
-    private final Map<String, LocalFolder> folders = new HashMap<>();
+    private final Map<String, LocalFolder> folders = Collections
+        .synchronizedMap(new HashMap<String, LocalFolder>());
 
     /**
      * Map holding the previous state of the LocalDrive, used to determine
@@ -78,11 +82,18 @@ public class FileSystemSynchronizer implements LocalDriveSynchronizer {
 
     private String itemId;
 
+    /**
+     * Store holding the state of the LocalDrive, if {@code null} the state is
+     * serialized to a file in the home directory of the user
+     */
+    private final LocalStateStore store;
+
     private final LocalDriveRepository repository;
 
     public FileSystemSynchronizer(Path localPath, OneDrive onedrive)
         throws IOException {
         this.repository = new FileSystemRepository(localPath, onedrive);
+        this.store = null;
     }
 
     /**
@@ -91,7 +102,21 @@ public class FileSystemSynchronizer implements LocalDriveSynchronizer {
      * @param repository LocalDriveRepository
      */
     public FileSystemSynchronizer(LocalDriveRepository repository) {
+        this(repository, null);
+    }
+
+    /**
+     * FileSystemSynchronizer
+     * 
+     * @param repository LocalDriveRepository
+     * @param store LocalStateStore holding the state of the LocalDrive between
+     *            synchronizations, if {@code null} the state is serialized to
+     *            a file in the home directory of the user
+     */
+    public FileSystemSynchronizer(LocalDriveRepository repository,
+                                  LocalStateStore store) {
         this.repository = repository;
+        this.store = store;
         // TODO https://github.com/robses/onedrive-sdk/issues/10
         // prevent accidental deletion of complete OneDrive if LocalDrive is not
         // present. if root folder does not exist but state is available stop,
@@ -115,6 +140,10 @@ public class FileSystemSynchronizer implements LocalDriveSynchronizer {
 
     @Override
     public void saveSession() {
+        if (store != null) {
+            saveState();
+            return;
+        }
         Path savedStatePath = localDriveStateFile();
         LOG.info("Writing state to file: {}", savedStatePath);
         try (
@@ -129,6 +158,55 @@ public class FileSystemSynchronizer implements LocalDriveSynchronizer {
         }
     }
 
+    /**
+     * Save the state incrementally to the LocalStateStore, only records of
+     * new, moved or modified items are written
+     * 
+     * @throws OneDriveException if the state cannot be saved
+     */
+    private void saveState() {
+        LOG.info("Writing state to store: {}", store);
+        try {
+            List<LocalItem> current;
+            synchronized (items) {
+                current = new ArrayList<>(items.values());
+            }
+            for (LocalItem item : current) {
+                StateRecord record = store.get(item.getId());
+                String path = (item.getPath() == null)
+                    ? null : item.getPath().toString();
+                if (record == null || record.getLastModified() != item
+                    .getLastModifiedDateTime()
+                    || !String.valueOf(path)
+                        .equals(String.valueOf(record.getPath()))) {
+                    store.put(newStateRecord(item, path));
+                }
+            }
+            for (String id : store.ids()) {
+                if (!items.containsKey(id)) {
+                    store.remove(id);
+                }
+            }
+            store.commit();
+        } catch (IOException e) {
+            throw new OneDriveException("Failure writing local state to store: "
+                                        + store, e);
+        }
+    }
+
+    private StateRecord newStateRecord(LocalItem item, String path)
+        throws IOException {
+        long size = 0;
+        String sha1 = null;
+        if (ResourceType.FILE.equals(item.type()) && item.getPath() != null
+            && Files.exists(item.getPath())) {
+            size = Files.size(item.getPath());
+            sha1 = ContentHashCache.sha1(item.getPath());
+        }
+        return new StateRecord(item.getId(), item.type(), path,
+                               item.getLastModifiedDateTime(), size, sha1);
+    }
+
     /**
      * Walk the LocalDrive enumerating files and folders
      * 
@@ -139,15 +217,30 @@ public class FileSystemSynchronizer implements LocalDriveSynchronizer {
         try {
             LOG.info("Walking the LocalDrive: {}, enumerate files and folders used in synchronization",
                      folder.getPath());
-            LocalFileVisitor visitor = new LocalFileVisitor(this);
-            Files.walkFileTree(folder.getPath(), new HashSet<FileVisitOption>(),
-                               Integer.MAX_VALUE, visitor);
+            new ParallelLocalTreeWalker(this).walk(folder.getPath());
+            sortAdditions();
         } catch (IOException e) {
             throw new OneDriveException("Failure enumerating LocalDrive: "
                                         + folder.getPath(), e);
         }
     }
 
+    /**
+     * Sort the additions by path, so folders are created before their
+     * children
+     */
+    private void sortAdditions() {
+        synchronized (additions) {
+            Collections.sort(additions, new Comparator<LocalItem>() {
+
+                @Override
+                public int compare(LocalItem o1, LocalItem o2) {
+                    return o1.getPath().compareTo(o2.getPath());
+                }
+            });
+        }
+    }
+
     /**
      * Reads the state
      * 
@@ -155,6 +248,19 @@ public class FileSystemSynchronizer implements LocalDriveSynchronizer {
      *            create a clean state
      */
     private void initializeState(boolean useSavedState) {
+        if (store != null) {
+            savedState = new LinkedList<>();
+            if (!useSavedState) {
+                try {
+                    // only committed on saving the session
+                    store.clear();
+                } catch (IOException e) {
+                    throw new OneDriveException("Failure clearing local state store: "
+                                                + store, e);
+                }
+            }
+            return;
+        }
         if (useSavedState) {
             try {
                 savedState = deserializeState();
@@ -258,9 +364,38 @@ public class FileSystemSynchronizer implements LocalDriveSynchronizer {
                 deletions.add(local);
             }
         }
+        if (store != null) {
+            for (String id : store.ids()) {
+                if (!items.containsKey(id)) {
+                    deletions.add(deletedItem(id));
+                }
+            }
+        }
         return deletions;
     }
 
+    /**
+     * Build the LocalItem of a localy deleted item from its StateRecord
+     * 
+     * @param id String item identifier
+     * @return LocalItem
+     * @throws OneDriveException if the record cannot be read
+     */
+    private LocalItem deletedItem(String id) {
+        try {
+            StateRecord record = store.get(id);
+            Path path = Paths.get(record.getPath());
+            LocalItem local = ResourceType.FILE.equals(record.getType())
+                ? new LocalFileImpl(path, this) : new LocalFolderImpl(path, this);
+            local.setId(record.getId());
+            local.setLastModifiedDateTime(record.getLastModified());
+            return local;
+        } catch (IOException e) {
+            throw new OneDriveException("Failure reading state of item: " + id,
+                                        e);
+        }
+    }
+
     @Override
     public LocalDrive getLocalDrive() {
         return repository.getLocalDrive();
@@ -351,6 +486,12 @@ public class FileSystemSynchronizer implements LocalDriveSynchronizer {
         repository.readMetadata(resource);
     }
 
+    @Override
+    public void readMetadata(LocalItem resource, BasicFileAttributes attrs)
+        throws IOException {
+        repository.readMetadata(resource, attrs);
+    }
+
     @Override
     public void writeMetadata(LocalItem resource) throws IOException {
         repository.writeMetadata(resource);
@@ -17,6 +17,7 @@ package io.yucca.microsoft.onedrive.synchronize;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import io.yucca.microsoft.onedrive.OneDrive;
 import io.yucca.microsoft.onedrive.OneDriveContent;
@@ -122,6 +123,17 @@ public interface LocalDriveRepository {
      */
     void readMetadata(LocalItem resource) throws IOException;
 
+    /**
+     * Read the metadata for a resource, using the already read basic file
+     * attributes
+     * 
+     * @param resource LocalItem
+     * @param attrs BasicFileAttributes of the resource
+     * @throws IOException
+     */
+    void readMetadata(LocalItem resource, BasicFileAttributes attrs)
+        throws IOException;
+
     /**
      * Write the metadata for the resource
      * 
@@ -18,11 +18,11 @@ package io.yucca.microsoft.onedrive.synchronize;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import io.yucca.microsoft.onedrive.OneDriveContent;
 import io.yucca.microsoft.onedrive.OneDriveFile;
 import io.yucca.microsoft.onedrive.resources.Item;
-import io.yucca.microsoft.onedrive.util.ChecksumUtil;
 
 /**
  * LocalFile acts as a local replica of a file stored in OneDrive.
@@ -53,6 +53,23 @@ public class LocalFileImpl extends LocalItemImpl implements LocalFile {
         }
     }
 
+    /**
+     * Construct a LocalFile stored in the LocalDrive from already read file
+     * attributes, only the OneDrive metadata attributes are read.
+     * 
+     * @param path Path to file
+     * @param attrs BasicFileAttributes of the file
+     * @param repository LocalDriveRepository
+     * @throws IOException if reading metadata fails
+     */
+    LocalFileImpl(Path path, BasicFileAttributes attrs,
+                  LocalDriveRepository repository) throws IOException {
+        this.name = path.getFileName().toString();
+        this.path = path;
+        this.repository = repository;
+        repository.readMetadata(this, attrs);
+    }
+
     /**
      * Construct a LocalFile stored in the LocalDrive. If the file exists the
      * OneDrive metadata attributes are read.
@@ -96,7 +113,7 @@ public class LocalFileImpl extends LocalItemImpl implements LocalFile {
     @Override
     public boolean isContentModified(Item item) throws IOException {
         String sha1 = item.getFile().getHashes().getSha1Hash();
-        return !sha1.equalsIgnoreCase(ChecksumUtil.sha1(path));
+        return !sha1.equalsIgnoreCase(ContentHashCache.sha1(path));
     }
 
 }
@@ -63,7 +63,7 @@ public class LocalFileVisitor implements FileVisitor<Path> {
     public FileVisitResult preVisitDirectory(Path dir,
                                              BasicFileAttributes attrs)
                                                  throws IOException {
-        LocalFolder folder = new LocalFolderImpl(dir, synchronizer);
+        LocalFolder folder = new LocalFolderImpl(dir, attrs, synchronizer);
         if (synchronizer.isLocalDriveRoot(folder)) {
             synchronizer.registerFolder(folder);
             return FileVisitResult.CONTINUE;
@@ -79,7 +79,7 @@ public class LocalFileVisitor implements FileVisitor<Path> {
     @Override
     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
         throws IOException {
-        LocalFile localFile = new LocalFileImpl(file, synchronizer);
+        LocalFile localFile = new LocalFileImpl(file, attrs, synchronizer);
         if (localFile.hasId()) {
             synchronizer.registerItem(localFile);
         } else {
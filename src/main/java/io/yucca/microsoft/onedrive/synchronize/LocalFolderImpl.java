@@ -17,6 +17,7 @@ package io.yucca.microsoft.onedrive.synchronize;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import io.yucca.microsoft.onedrive.OneDriveFolder;
 import io.yucca.microsoft.onedrive.resources.Item;
@@ -50,6 +51,23 @@ public class LocalFolderImpl extends LocalItemImpl implements LocalFolder {
         }
     }
 
+    /**
+     * Construct a LocalFolder from already read file attributes, only the
+     * OneDrive metadata attributes are read.
+     * 
+     * @param path Path local path
+     * @param attrs BasicFileAttributes of the folder
+     * @param repository LocalDriveRepository
+     * @throws IOException if reading metadata fails
+     */
+    LocalFolderImpl(Path path, BasicFileAttributes attrs,
+                    LocalDriveRepository repository) throws IOException {
+        this.name = path.getFileName().toString();
+        this.path = path;
+        this.repository = repository;
+        repository.readMetadata(this, attrs);
+    }
+
     /**
      * Construct a LocalFolder. If the folder exists the OneDrive metadata
      * attributes are read,
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * LocalStateStore persists the state of the LocalDrive between
+ * synchronizations, used to determine localy deleted items. Records are
+ * identified by the OneDrive item identifier.
+ * <p>
+ * Modifications only become durable after {@link #commit()}, if the process
+ * fails before committing, the previously committed state is retained.
+ * </p>
+ * 
+ * @author yucca.io
+ */
+public interface LocalStateStore extends Closeable {
+
+    /**
+     * Get the record of an item
+     * 
+     * @param id String item identifier
+     * @return StateRecord or {@code null} if not present
+     * @throws IOException if the record cannot be read
+     */
+    StateRecord get(String id) throws IOException;
+
+    /**
+     * Add or replace the record of an item
+     * 
+     * @param record StateRecord
+     * @throws IOException if the record cannot be written
+     */
+    void put(StateRecord record) throws IOException;
+
+    /**
+     * Remove the record of an item
+     * 
+     * @param id String item identifier
+     * @throws IOException if the removal cannot be written
+     */
+    void remove(String id) throws IOException;
+
+    /**
+     * Remove all records
+     * 
+     * @throws IOException if the store cannot be cleared
+     */
+    void clear() throws IOException;
+
+    /**
+     * Get the identifiers of all records
+     * 
+     * @return Iterable<String>
+     */
+    Iterable<String> ids();
+
+    /**
+     * Get the number of records
+     * 
+     * @return int
+     */
+    int size();
+
+    /**
+     * Atomically make all modifications since the previous commit durable
+     * 
+     * @throws IOException if committing fails
+     */
+    void commit() throws IOException;
+}
@@ -69,4 +69,20 @@ public final class MetadataUtil {
         userView.write(name, Charset.defaultCharset().encode(value));
     }
 
+    /**
+     * Remove a user defined metadata attribute, if it exists
+     * 
+     * @param path Path to remove from
+     * @param name String attribute name
+     * @throws IOException if attribute cannot be removed
+     */
+    public static void removeAttribute(Path path, String name)
+        throws IOException {
+        UserDefinedFileAttributeView userView = Files
+            .getFileAttributeView(path, UserDefinedFileAttributeView.class);
+        if (userView.list().contains(name)) {
+            userView.delete(name);
+        }
+    }
+
 }
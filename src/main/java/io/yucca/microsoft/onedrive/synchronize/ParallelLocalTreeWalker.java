@@ -0,0 +1,210 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.yucca.microsoft.onedrive.OneDriveException;
+
+/**
+ * Walks the LocalDrive in parallel registering items for synchronization, as
+ * alternative to the sequential {@link LocalFileVisitor}. Every directory is
+ * listed by a separate fork/join task and the attributes and metadata of each
+ * entry are read once.
+ * <p>
+ * Registrations are made concurrently, so the synchronizer registries must be
+ * thread-safe and the order of additions is not defined. Sort the additions
+ * by path before processing, so a folder is created before its children.
+ * </p>
+ *
+ * @author yucca.io
+ */
+public class ParallelLocalTreeWalker {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(ParallelLocalTreeWalker.class);
+
+    public static final int DEFAULT_PARALLELISM = Runtime.getRuntime()
+        .availableProcessors();
+
+    private final LocalDriveSynchronizer synchronizer;
+
+    private final int parallelism;
+
+    /**
+     * Constructor
+     * 
+     * @param synchronizer LocalDriveSynchronizer
+     */
+    public ParallelLocalTreeWalker(LocalDriveSynchronizer synchronizer) {
+        this(synchronizer, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param synchronizer LocalDriveSynchronizer
+     * @param parallelism int number of directories walked concurrently
+     */
+    public ParallelLocalTreeWalker(LocalDriveSynchronizer synchronizer,
+                                   int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.synchronizer = synchronizer;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Walk the directory tree starting at root
+     * 
+     * @param root Path to start directory
+     * @throws IOException if the start directory cannot be read
+     */
+    public void walk(Path root) throws IOException {
+        BasicFileAttributes attrs = Files
+            .readAttributes(root, BasicFileAttributes.class,
+                            LinkOption.NOFOLLOW_LINKS);
+        if (!attrs.isDirectory()) {
+            throw new NotDirectoryException(root.toString());
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryWalk(root, attrs, true));
+        } catch (OneDriveException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Register a directory, the LocalDrive root is only registered as folder,
+     * a folder without onedrive.id is registered for addition
+     */
+    private void preVisitDirectory(LocalFolder folder) {
+        if (synchronizer.isLocalDriveRoot(folder)) {
+            synchronizer.registerFolder(folder);
+        } else if (folder.hasId()) {
+            synchronizer.registerFolder(folder);
+        } else {
+            synchronizer.registerAddition(folder);
+        }
+    }
+
+    /**
+     * Register a visited directory as item, done after the children are
+     * registered
+     */
+    private void postVisitDirectory(LocalFolder folder) {
+        if (!synchronizer.isLocalDriveRoot(folder) && folder.hasId()) {
+            synchronizer.registerItem(folder);
+        }
+    }
+
+    private void visitFile(Path file, BasicFileAttributes attrs)
+        throws IOException {
+        LocalFile localFile = new LocalFileImpl(file, attrs, synchronizer);
+        if (localFile.hasId()) {
+            synchronizer.registerItem(localFile);
+        } else {
+            synchronizer.registerAddition(localFile);
+        }
+    }
+
+    /**
+     * Task registering a directory and its files, subdirectories are walked
+     * by forked tasks
+     */
+    private class DirectoryWalk extends RecursiveAction {
+
+        private static final long serialVersionUID = 3164297834527463614L;
+
+        private final Path dir;
+
+        private final BasicFileAttributes attrs;
+
+        private final boolean root;
+
+        DirectoryWalk(Path dir, BasicFileAttributes attrs, boolean root) {
+            this.dir = dir;
+            this.attrs = attrs;
+            this.root = root;
+        }
+
+        @Override
+        protected void compute() {
+            LocalFolder folder;
+            try {
+                folder = new LocalFolderImpl(dir, attrs, synchronizer);
+            } catch (IOException e) {
+                visitFailed(dir, e);
+                return;
+            }
+            preVisitDirectory(folder);
+            List<DirectoryWalk> subdirs = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    visitEntry(entry, subdirs);
+                }
+            } catch (IOException e) {
+                visitFailed(dir, e);
+            }
+            invokeAll(subdirs);
+            postVisitDirectory(folder);
+        }
+
+        private void visitEntry(Path entry, List<DirectoryWalk> subdirs) {
+            try {
+                BasicFileAttributes entryAttrs = Files
+                    .readAttributes(entry, BasicFileAttributes.class,
+                                    LinkOption.NOFOLLOW_LINKS);
+                if (entryAttrs.isDirectory()) {
+                    subdirs.add(new DirectoryWalk(entry, entryAttrs, false));
+                } else {
+                    visitFile(entry, entryAttrs);
+                }
+            } catch (IOException e) {
+                visitFailed(entry, e);
+            }
+        }
+
+        private void visitFailed(Path path, IOException e) {
+            if (root && dir.equals(path)) {
+                throw new OneDriveException("Failure walking directory: "
+                                            + path, e);
+            }
+            LOG.warn("Failure visiting file: {} for processing, skipping.",
+                     path.toUri(), e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+/**
+ * StateRecord holds the synchronized state of a single file or folder in the
+ * LocalDrive
+ * 
+ * @author yucca.io
+ */
+public class StateRecord {
+
+    private final String id;
+
+    private final ResourceType type;
+
+    private final String path;
+
+    private final long lastModified;
+
+    private final long size;
+
+    private final String sha1;
+
+    /**
+     * Constructor
+     * 
+     * @param id String OneDrive item identifier
+     * @param type ResourceType file or folder
+     * @param path String local path
+     * @param lastModified long last modification time in milliseconds
+     * @param size long size in bytes, zero for folders
+     * @param sha1 String content hash, {@code null} if unknown
+     */
+    public StateRecord(String id, ResourceType type, String path,
+                       long lastModified, long size, String sha1) {
+        if (id == null) {
+            throw new IllegalArgumentException("id is null");
+        }
+        this.id = id;
+        this.type = type;
+        this.path = path;
+        this.lastModified = lastModified;
+        this.size = size;
+        this.sha1 = sha1;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ResourceType getType() {
+        return type;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    @Override
+    public String toString() {
+        return "StateRecord: " + path + " id: " + id;
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.yucca.microsoft.onedrive.OneDriveException;
+
+/**
+ * SynchronizationExecutor executes the synchronization of individual files
+ * and folders concurrently with a bounded pool of threads.
+ * <p>
+ * Every task is submitted under a key, identifier or path of the item, and
+ * the key of its parent. A task is only started when no task for its parent
+ * is pending, so a folder is created before its children are processed. If a
+ * task fails, the failure is recorded and the tasks of its children are
+ * skipped, other tasks continue.
+ * </p>
+ * 
+ * @author yucca.io
+ */
+public class SynchronizationExecutor {
+
+    private static final Logger LOG = LoggerFactory
+        .getLogger(SynchronizationExecutor.class);
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final ExecutorService executor;
+
+    /**
+     * Keys of tasks that are submitted but not yet finished
+     */
+    private final Set<String> pending = new HashSet<>();
+
+    /**
+     * Tasks waiting on completion of the task of their parent
+     */
+    private final Map<String, List<TaskRunner>> waiting = new HashMap<>();
+
+    private final List<SynchronizationFailure> failures = new ArrayList<>();
+
+    /**
+     * Task executing the synchronization of a single item
+     */
+    public interface Task {
+
+        /**
+         * Execute the task
+         * 
+         * @throws IOException if the local drive cannot be modified
+         * @throws OneDriveException if OneDrive cannot be modified
+         */
+        void execute() throws IOException;
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param parallelism int maximum number of tasks executed at the same time
+     */
+    public SynchronizationExecutor(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism is invalid: "
+                                               + parallelism);
+        }
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    /**
+     * Submit a task
+     * 
+     * @param key String identifier or path of the item, must be unique until
+     *            the task is finished
+     * @param parentKey String identifier or path of the parent item, may be
+     *            {@code null}
+     * @param description String description used on reporting a failure
+     * @param task Task to execute
+     */
+    public synchronized void submit(String key, String parentKey,
+                                    String description, Task task) {
+        TaskRunner runner = new TaskRunner(key, description, task);
+        pending.add(key);
+        if (parentKey != null && pending.contains(parentKey)) {
+            List<TaskRunner> children = waiting.get(parentKey);
+            if (children == null) {
+                children = new LinkedList<>();
+                waiting.put(parentKey, children);
+            }
+            children.add(runner);
+        } else {
+            executor.execute(runner);
+        }
+    }
+
+    /**
+     * Wait until all submitted tasks are finished
+     * 
+     * @return List<SynchronizationFailure> failures recorded since the
+     *         previous call
+     */
+    public synchronized List<SynchronizationFailure> awaitCompletion() {
+        try {
+            while (!pending.isEmpty()) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OneDriveException("Synchronization was interrupted", e);
+        }
+        List<SynchronizationFailure> result = new ArrayList<>(failures);
+        failures.clear();
+        return result;
+    }
+
+    /**
+     * Shutdown the executor, unfinished tasks are cancelled
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Mark a task as finished, start the waiting tasks of its children or
+     * skip them if the task failed
+     * 
+     * @param runner TaskRunner
+     * @param failure SynchronizationFailure or {@code null} if succeeded
+     */
+    private synchronized void finished(TaskRunner runner,
+                                       SynchronizationFailure failure) {
+        pending.remove(runner.key);
+        List<TaskRunner> children = waiting.remove(runner.key);
+        if (failure != null) {
+            failures.add(failure);
+            if (children != null) {
+                for (TaskRunner child : children) {
+                    finished(child,
+                             new SynchronizationFailure(child.key,
+                                                        child.description,
+                                                        new OneDriveException("Parent: "
+                                                                              + runner.key
+                                                                              + " failed to synchronize")));
+                }
+            }
+        } else if (children != null) {
+            for (TaskRunner child : children) {
+                executor.execute(child);
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Runs a task, recording its failure
+     */
+    private class TaskRunner implements Runnable {
+
+        private final String key;
+
+        private final String description;
+
+        private final Task task;
+
+        TaskRunner(String key, String description, Task task) {
+            this.key = key;
+            this.description = description;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            SynchronizationFailure failure = null;
+            try {
+                task.execute();
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Failure: {}, skipped!", description, e);
+                failure = new SynchronizationFailure(key, description, e);
+            } finally {
+                finished(this, failure);
+            }
+        }
+    }
+
+    /**
+     * Get an unmodifiable view of the failures recorded since the previous
+     * call to {@link #awaitCompletion()}
+     * 
+     * @return List<SynchronizationFailure>
+     */
+    public synchronized List<SynchronizationFailure> getFailures() {
+        return Collections.unmodifiableList(new ArrayList<>(failures));
+    }
+}
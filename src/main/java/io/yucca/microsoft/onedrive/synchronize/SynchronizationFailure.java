@@ -0,0 +1,77 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+/**
+ * SynchronizationFailure describes the failed synchronization of a single
+ * file or folder, the synchronization of other items continues.
+ * 
+ * @author yucca.io
+ */
+public class SynchronizationFailure {
+
+    private final String key;
+
+    private final String description;
+
+    private final Throwable cause;
+
+    /**
+     * Constructor
+     * 
+     * @param key String identifier or path of the item
+     * @param description String description of the failed operation
+     * @param cause Throwable cause of failure
+     */
+    public SynchronizationFailure(String key, String description,
+                                  Throwable cause) {
+        this.key = key;
+        this.description = description;
+        this.cause = cause;
+    }
+
+    /**
+     * Get identifier or path of the item
+     * 
+     * @return String
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get description of the failed operation
+     * 
+     * @return String
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Get cause of failure
+     * 
+     * @return Throwable
+     */
+    public Throwable getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return description + ", cause: " + cause;
+    }
+}
@@ -17,8 +17,14 @@ package io.yucca.microsoft.onedrive.synchronize;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.configuration.ConfigurationException;
 import org.slf4j.Logger;
@@ -42,10 +48,17 @@ import io.yucca.microsoft.onedrive.addressing.IdAddress;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
 import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.resources.ItemReference;
 
 /**
  * Synchronizes a complete OneDrive with a LocalDrive or a specific folder with
  * the local folder and vise versa.
+ * <p>
+ * Deletions, additions and changes are each processed concurrently by a
+ * {@link SynchronizationExecutor}, a folder is always processed before its
+ * children. Failures of individual items do not stop the synchronization and
+ * are available by {@link #getFailures()}.
+ * </p>
  * 
  * @author yucca.io
  */
@@ -64,6 +77,10 @@ public class Synchronizer {
 
     private final LocalDriveSynchronizer repository;
 
+    private final int parallelism;
+
+    private final List<SynchronizationFailure> failures = new ArrayList<>();
+
     private LocalFolder localFolder;
 
     private ItemAddress remoteFolder;
@@ -80,11 +97,30 @@ public class Synchronizer {
                         OneDriveAPIConnection api,
                         OneDriveConfiguration configuration)
                             throws IOException {
+        this(synchronizer, api, configuration,
+             SynchronizationExecutor.DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Constructs a Synchronizer to synchronize a complete OneDrive.
+     * 
+     * @param synchronizer LocalDriveSynchronizer for the local drive
+     * @param api OneDriveAPIConnection connection used for synchronization
+     * @param configuration OneDriveConfiguration
+     * @param parallelism int maximum number of items synchronized at the same
+     *            time
+     * @throws IOException
+     */
+    public Synchronizer(LocalDriveSynchronizer synchronizer,
+                        OneDriveAPIConnection api,
+                        OneDriveConfiguration configuration, int parallelism)
+                            throws IOException {
         this.repository = synchronizer;
         this.localDrive = repository.getLocalDrive();
         this.oneDrive = OneDriveImpl.defaultDrive(api);
         this.api = api;
         this.configuration = configuration;
+        this.parallelism = parallelism;
     }
 
     /**
@@ -133,6 +169,7 @@ public class Synchronizer {
      *             configuration file
      */
     public void synchronize(SynchronizationMethod method) throws IOException {
+        failures.clear();
         String deltaToken = getDeltaToken(method);
         boolean delta = initializeSession(method, deltaToken, localFolder);
         try {
@@ -230,14 +267,15 @@ public class Synchronizer {
      * 1. On delta synchronization, compare the current state of the 
      * local drive with the saved state. Items that only exist in the saved 
      * states indicate a deletion and are therefor removed from OneDrive. If 
-     * the deleted item is on the change list, then remove it from this list 
-     * to prevent a recreation.
+     * the deleted item is on the change list, then it is skipped to prevent
+     * a recreation.
      * 2. Items registered for addition (not having an id) are created in OneDrive
      * and added to items list for an up-to-date drive state
-     * 3. Process the (delta) changes acquired from OneDrive and reflect these change
-     * to the local drive and vise-versa
+     * 3. Process the (delta) changes acquired from OneDrive page by page as
+     * they arrive and reflect these change to the local drive and vise-versa
      * 4. Save/serialize the local drive state to disk
-     * 5. Save the token for a future enumeration (XXX should be done per drive/folder/item)
+     * 5. Save the token of the last page for a future enumeration (XXX should
+     * be done per drive/folder/item)
      * </pre>
      * 
      * @param response SyncResponse enumerated changes
@@ -252,12 +290,11 @@ public class Synchronizer {
         try {
             LOG.info("Started a {} two-way synchronization of {} and {}",
                      syncMethod(deltaSynchronization), oneDrive, localDrive);
-            Map<String, Item> deltaMap = response.asMap();
-            processLocalDeletions(deltaSynchronization, deltaMap);
+            Set<String> deletions = processLocalDeletions(deltaSynchronization);
             processLocalAdditions();
-            processChanges(deltaMap);
+            String token = processChanges(response, deletions);
             saveSession();
-            saveDeltaToken(response.getToken());
+            saveDeltaToken(token);
             LOG.info("Succesfully synchronized {} and {} two-ways", oneDrive,
                      localDrive);
         } finally {
@@ -288,13 +325,12 @@ public class Synchronizer {
     private void resynchronizeChangesApplyDifferences(SyncResponse response) {
         LOG.info("Resynchronizing changes and apply differences on {} and {}",
                  oneDrive, localDrive);
-        Map<String, Item> deltaMap = response.asMap();
-        processLocalDeletions(true, deltaMap); // must check if server
-                                               // version exists
+        // must check if server version exists
+        Set<String> deletions = processLocalDeletions(true);
         processLocalAdditions(); // must check if server version exists
-        processChanges(deltaMap);
+        String token = processChanges(response, deletions);
         saveSession();
-        saveDeltaToken(response.getToken());
+        saveDeltaToken(token);
         LOG.info("Succesfully resynchronized and applied changes for {} and {}",
                  oneDrive, localDrive);
     }
@@ -302,11 +338,11 @@ public class Synchronizer {
     private void resynchronizeChangesUploadDifferences(SyncResponse response) {
         LOG.info("Resynchronizing changes and upload differences on {} and {}",
                  oneDrive, localDrive);
-        Map<String, Item> deltaMap = response.asMap();
-        processChanges(deltaMap); // keep both copies if you're not sure which
-                                  // one is more up-to-date?
+        // keep both copies if you're not sure which one is more up-to-date?
+        String token = processChanges(response,
+                                      Collections.<String> emptySet());
         saveSession();
-        saveDeltaToken(response.getToken());
+        saveDeltaToken(token);
         LOG.info("Succesfully resynchronized and uploaded differences for {} and {}",
                  oneDrive, localDrive);
     }
@@ -314,46 +350,108 @@ public class Synchronizer {
     /**
      * Process the changes acquired from the OneDrive API to the LocalDrive and
      * process localy changed files or folders to OneDrive.
+     * <p>
+     * Pages of the enumeration are processed as they arrive, the items of a
+     * page are processed concurrently and the next page is fetched when the
+     * page is completed. Only the identifiers of localy deleted items are kept
+     * to prevent their recreation. An item occurring more than once within a
+     * page is processed in its last state, an item reoccurring in a later page
+     * is processed again in its newer state.
+     * </p>
      * 
-     * @param deltaMap Map<String, Item> delta changes acquired from OneDrive
+     * @param response SyncResponse first page of enumerated changes
+     * @param deletions Set<String> identifiers of localy deleted items
+     * @return String delta token of the last page
      */
-    private void processChanges(Map<String, Item> deltaMap) {
+    private String processChanges(SyncResponse response,
+                                  Set<String> deletions) {
         LOG.info("Processing enumerated changes from {} with {}", oneDrive,
                  localDrive);
-        Iterator<Item> it = deltaMap.values().iterator();
-        while (it.hasNext()) {
-            Item updated = it.next();
-            try {
-                LocalItem local = repository.getLocalItem(updated.getId());
-                if (local != null) {
-                    LOG.info("Item: {}, id: {} is on the delta list will be synchronized",
-                             local.getPath(), local.getId());
-                    if (updated.isDeleted()) {
-                        deleteLocaly(local, updated);
-                        break;
-                    }
-                    switch (local.lastModificationStatus(updated)) {
-                    case NOTMODIFIED:
-                        break;
-                    case NEWER:
-                        updateOneDrive(local, updated);
-                        break;
-                    case OLDER:
-                        updateLocaly(local, updated);
-                        break;
-                    }
-                } else {
-                    addLocaly(updated);
-                }
-            } catch (IOException | OneDriveException e) {
-                LOG.error("Failure processing item: {}, name: {}, skipped!",
-                          updated.getId(), updated.getName(), e);
-            } finally {
-                it.remove();
+        SynchronizationExecutor executor = new SynchronizationExecutor(parallelism);
+        try {
+            SyncResponse page = response;
+            Iterator<SyncResponse> pages = response.pageIterator();
+            while (pages.hasNext()) {
+                page = pages.next();
+                processPage(executor, page, deletions);
+                failures.addAll(executor.awaitCompletion());
+            }
+            return page.getToken();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Submit the changes of a single page of the enumeration
+     * 
+     * @param executor SynchronizationExecutor
+     * @param page SyncResponse page of enumerated changes
+     * @param deletions Set<String> identifiers of localy deleted items
+     */
+    private void processPage(SynchronizationExecutor executor,
+                             SyncResponse page, Set<String> deletions) {
+        Map<String, Item> changes = new LinkedHashMap<>();
+        for (Item item : page.getValue()) {
+            if (!deletions.contains(item.getId())) {
+                changes.put(item.getId(), item);
+            }
+        }
+        for (final Item updated : changes.values()) {
+            String description = "Failure processing item: " + updated.getId()
+                                 + ", name: " + updated.getName();
+            executor.submit(updated.getId(), parentId(updated), description,
+                            new SynchronizationExecutor.Task() {
+
+                                @Override
+                                public void execute() throws IOException {
+                                    processChange(updated);
+                                }
+                            });
+        }
+    }
+
+    /**
+     * Process a single change acquired from the OneDrive API
+     * 
+     * @param updated Item changed in OneDrive
+     * @throws IOException
+     */
+    private void processChange(Item updated) throws IOException {
+        LocalItem local = repository.getLocalItem(updated.getId());
+        if (local != null) {
+            LOG.info("Item: {}, id: {} is on the delta list will be synchronized",
+                     local.getPath(), local.getId());
+            if (updated.isDeleted()) {
+                deleteLocaly(local, updated);
+                return;
             }
+            switch (local.lastModificationStatus(updated)) {
+            case NOTMODIFIED:
+                break;
+            case NEWER:
+                updateOneDrive(local, updated);
+                break;
+            case OLDER:
+                updateLocaly(local, updated);
+                break;
+            }
+        } else {
+            addLocaly(updated);
         }
     }
 
+    /**
+     * Get the identifier of the parent of an Item
+     * 
+     * @param item Item
+     * @return String or {@code null} if item has no parent reference
+     */
+    private String parentId(Item item) {
+        ItemReference parentRef = item.getParentReference();
+        return (parentRef == null) ? null : parentRef.getId();
+    }
+
     /**
      * Delete localy deleted files also OneDrive. Localy deleted files are
      * determined by comparing the current state of the LocalDrive with the
@@ -363,30 +461,49 @@ public class Synchronizer {
      * 
      * @param deltaSynchronization boolean true for deltaSynchronization and
      *            false for a full synchronization
-     * @param deltaMap Map<String, Item> delta changes acquired from OneDrive
+     * @return Set<String> identifiers of the deleted items
      */
-    private void processLocalDeletions(boolean deltaSynchronization,
-                                       Map<String, Item> deltaMap) {
+    private Set<String> processLocalDeletions(boolean deltaSynchronization) {
+        final Set<String> deletions = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
         if (deltaSynchronization) {
             LOG.info("Processing deletions in {} with {}", localDrive,
                      oneDrive);
-            for (LocalItem local : repository.getDeletions()) {
-                try {
-                    LOG.info("Item: {}, id: {}, was deleted localy, deleting item from OneDrive",
-                             local.getPath(), local.getId());
-                    new DeleteAction(api, new IdAddress(local.getId())).call();
-                    // remove the deleted item from delta list to prevent a
-                    // possible
-                    // recreation of the item
-                    deltaMap.remove(local.getId());
-                    LOG.info("Deleted item: {}, id: {} from OneDrive",
-                             local.getPath(), local.getId());
-                } catch (OneDriveException e) {
-                    LOG.error("Failure deleting OneDrive item triggered by local deletion of item: {}, path: {}, skipped!",
-                              local.getId(), local.getPath(), e);
+            SynchronizationExecutor executor = new SynchronizationExecutor(parallelism);
+            try {
+                for (final LocalItem local : repository.getDeletions()) {
+                    String description = "Failure deleting OneDrive item triggered by local deletion of item: "
+                                         + local.getId() + ", path: "
+                                         + local.getPath();
+                    executor.submit(local.getId(), null, description,
+                                    new SynchronizationExecutor.Task() {
+
+                                        @Override
+                                        public void execute() {
+                                            deleteOneDrive(local);
+                                            deletions.add(local.getId());
+                                        }
+                                    });
                 }
+                failures.addAll(executor.awaitCompletion());
+            } finally {
+                executor.shutdown();
             }
         }
+        return deletions;
+    }
+
+    /**
+     * Delete a localy deleted item in OneDrive
+     * 
+     * @param local LocalItem deleted in local drive
+     */
+    private void deleteOneDrive(LocalItem local) {
+        LOG.info("Item: {}, id: {}, was deleted localy, deleting item from OneDrive",
+                 local.getPath(), local.getId());
+        new DeleteAction(api, new IdAddress(local.getId())).call();
+        LOG.info("Deleted item: {}, id: {} from OneDrive", local.getPath(),
+                 local.getId());
     }
 
     /**
@@ -395,66 +512,81 @@ public class Synchronizer {
      */
     private void processLocalAdditions() {
         LOG.info("Processing additions in {} with {}", localDrive, oneDrive);
-        for (LocalItem local : repository.getAdditions()) {
-            try {
-                Item addition = null;
-                LocalResource parent = repository
-                    .getLocalFolder(local.getParentId());
-                LOG.info("Item: {} was added localy, adding item to OneDrive",
-                         local.getPath());
-                if (ResourceType.FILE.equals(local.type())) {
-                    ItemAddress parentAddress = new IdAddress(parent.getId());
-                    UploadAction action = new UploadAction(api,
-                                                           ((LocalFile)local)
-                                                               .getContent(),
-                                                           parentAddress,
-                                                           ConflictBehavior.FAIL);
-                    addition = action.call();
-                } else {
-                    ItemAddress parentAddress = new IdAddress(parent.getId());
-                    CreateAction action = new CreateAction(api, local
-                        .getName(), parentAddress, ConflictBehavior.FAIL);
-                    addition = action.call();
-                }
-                local.update(addition);
-                LOG.info("Added item: {} to OneDrive under id: {}",
-                         local.getPath(), local.getId());
-            } catch (IOException | OneDriveException e) {
-                LOG.error("Failure creating OneDrive item triggered by local addition of item: {}, path: {}, skipped!",
-                          local.getId(), local.getPath(), e);
+        SynchronizationExecutor executor = new SynchronizationExecutor(parallelism);
+        try {
+            for (final LocalItem local : repository.getAdditions()) {
+                Path path = local.getPath();
+                String parentKey = (path.getParent() == null)
+                    ? null : path.getParent().toString();
+                String description = "Failure creating OneDrive item triggered by local addition of item: "
+                                     + path;
+                executor.submit(path.toString(), parentKey, description,
+                                new SynchronizationExecutor.Task() {
+
+                                    @Override
+                                    public void execute() throws IOException {
+                                        addOneDrive(local);
+                                    }
+                                });
             }
+            failures.addAll(executor.awaitCompletion());
+        } finally {
+            executor.shutdown();
         }
     }
 
+    /**
+     * Upload or create a localy created file or folder in OneDrive
+     * 
+     * @param local LocalItem added in local drive
+     * @throws IOException
+     */
+    private void addOneDrive(LocalItem local) throws IOException {
+        Item addition = null;
+        LocalResource parent = repository.getLocalFolder(local.getParentId());
+        LOG.info("Item: {} was added localy, adding item to OneDrive",
+                 local.getPath());
+        if (ResourceType.FILE.equals(local.type())) {
+            ItemAddress parentAddress = new IdAddress(parent.getId());
+            UploadAction action = new UploadAction(api, ((LocalFile)local)
+                .getContent(), parentAddress, ConflictBehavior.FAIL);
+            addition = action.call();
+        } else {
+            ItemAddress parentAddress = new IdAddress(parent.getId());
+            CreateAction action = new CreateAction(api, local.getName(),
+                                                   parentAddress,
+                                                   ConflictBehavior.FAIL);
+            addition = action.call();
+        }
+        local.update(addition);
+        LOG.info("Added item: {} to OneDrive under id: {}", local.getPath(),
+                 local.getId());
+    }
+
     /**
      * Update a localy modified item in OneDrive
      * 
      * @param local LocalItem in local drive
      * @param item Item related item in OneDrive
+     * @throws IOException
      */
-    private void updateOneDrive(LocalItem local, Item item) {
-        try {
-            LOG.info("Item: {}, id: {} was modified localy, modifying item in OneDrive",
-                     local.getPath(), local.getId());
-            if (ResourceType.FILE.equals(local.type())
-                && local.isContentModified(item)) {
-                ItemAddress parentAddress = new IdAddress(local.getParentId());
-                UploadAction action = new UploadAction(api, ((LocalFile)local)
-                    .getContent(), parentAddress, ConflictBehavior.REPLACE);
-                action.call();
-            } else if (!repository.isLocalDriveRoot(local)) {
-                // updating of OneDrive root folder is prohibited by the API
-                local.updateItem(item);
-                new UpdateAction(api, item).call();
-            }
-            LOG.info("Updated item: {}, id: {} in OneDrive", local.getPath(),
-                     local.getId());
-        } catch (IOException | OneDriveException e) {
-            LOG.error("Failure updating OneDrive item: {} trigger by local modification of item: {}, id: {}, skipped!",
-                      new Object[] { item.getId(), local.getPath(),
-                                     local.getId() },
-                      e);
+    private void updateOneDrive(LocalItem local, Item item)
+        throws IOException {
+        LOG.info("Item: {}, id: {} was modified localy, modifying item in OneDrive",
+                 local.getPath(), local.getId());
+        if (ResourceType.FILE.equals(local.type())
+            && local.isContentModified(item)) {
+            ItemAddress parentAddress = new IdAddress(local.getParentId());
+            UploadAction action = new UploadAction(api, ((LocalFile)local)
+                .getContent(), parentAddress, ConflictBehavior.REPLACE);
+            action.call();
+        } else if (!repository.isLocalDriveRoot(local)) {
+            // updating of OneDrive root folder is prohibited by the API
+            local.updateItem(item);
+            new UpdateAction(api, item).call();
         }
+        LOG.info("Updated item: {}, id: {} in OneDrive", local.getPath(),
+                 local.getId());
     }
 
     /**
@@ -462,58 +594,40 @@ public class Synchronizer {
      * add it localy
      * 
      * @param addition Item
+     * @throws IOException
      */
-    private void addLocaly(Item addition) {
-        try {
-            if (!addition.isDeleted()) {
-                LOG.info("Item: {}, id: {} was added in OneDrive, adding item to LocalDrive",
-                         addition.getName(), addition.getId());
-                LocalItem local = LocalResourceFactory
-                    .newInstance(addition, api, repository);
-                local.update(addition);
-                LOG.info("Added item: {}, id: {} to LocalDrive",
-                         local.getPath(), local.getId());
-            }
-        } catch (IOException | OneDriveException e) {
-            LOG.error("Failure adding local item trigger by OneDrive addition of item: {}, id: {}, skipped!",
-                      addition.getName(), addition.getId(), e);
+    private void addLocaly(Item addition) throws IOException {
+        if (!addition.isDeleted()) {
+            LOG.info("Item: {}, id: {} was added in OneDrive, adding item to LocalDrive",
+                     addition.getName(), addition.getId());
+            LocalItem local = LocalResourceFactory.newInstance(addition, api,
+                                                               repository);
+            local.update(addition);
+            LOG.info("Added item: {}, id: {} to LocalDrive", local.getPath(),
+                     local.getId());
         }
     }
 
-    private void updateLocaly(LocalItem local, Item modified) {
-        try {
-            LOG.info("Item: {}, id: {} was modified in OneDrive, modifying item in LocalDrive",
-                     modified.getName(), modified.getId());
-            if (ResourceType.FILE.equals(local.type())
-                && local.isContentModified(modified)) {
-                local = LocalResourceFactory.newInstance(modified, api,
-                                                         repository);
-            }
-            local.update(modified);
-            LOG.info("Updated item: {}, id: {} to LocalDrive", local.getPath(),
-                     local.getId());
-        } catch (IOException | OneDriveException e) {
-            LOG.error("Failure updating local item: {} from OneDrive modification of item: {}, id: {}, skipped!",
-                      new Object[] { local.getPath(), modified.getName(),
-                                     modified.getId() },
-                      e);
+    private void updateLocaly(LocalItem local, Item modified)
+        throws IOException {
+        LOG.info("Item: {}, id: {} was modified in OneDrive, modifying item in LocalDrive",
+                 modified.getName(), modified.getId());
+        if (ResourceType.FILE.equals(local.type())
+            && local.isContentModified(modified)) {
+            local = LocalResourceFactory.newInstance(modified, api, repository);
         }
+        local.update(modified);
+        LOG.info("Updated item: {}, id: {} to LocalDrive", local.getPath(),
+                 local.getId());
     }
 
     private void deleteLocaly(LocalItem local, Item deleted)
         throws IOException {
-        try {
-            LOG.info("Item: {}, id: {} was deleted in OneDrive, deleting item in LocalDrive",
-                     deleted.getName(), deleted.getId());
-            local.delete();
-            LOG.info("Deleted item: {}, id: {} in LocalDrive", local.getPath(),
-                     local.getId());
-        } catch (IOException e) {
-            LOG.error("Failure deleting local item: {} triggered by OneDrive deletion of item: {}, id: {}, skipped!",
-                      new Object[] { local.getPath(), deleted.getName(),
-                                     deleted.getId(), },
-                      e);
-        }
+        LOG.info("Item: {}, id: {} was deleted in OneDrive, deleting item in LocalDrive",
+                 deleted.getName(), deleted.getId());
+        local.delete();
+        LOG.info("Deleted item: {}, id: {} in LocalDrive", local.getPath(),
+                 local.getId());
     }
 
     private void saveDeltaToken(String deltaToken) {
@@ -527,6 +641,16 @@ public class Synchronizer {
         }
     }
 
+    /**
+     * Get the failures of individual files or folders that occured during the
+     * last synchronization
+     * 
+     * @return List<SynchronizationFailure>
+     */
+    public List<SynchronizationFailure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
     /**
      * Get synchronization method
      * 
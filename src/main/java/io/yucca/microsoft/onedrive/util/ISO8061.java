@@ -17,6 +17,8 @@ package io.yucca.microsoft.onedrive.util;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
@@ -94,4 +96,16 @@ public final class ISO8061 {
         return toCalendar(iso8601).getTimeInMillis();
     }
 
+    /**
+     * Convert ISO 8601 String to milliseconds since epoch, accepts any number
+     * of fraction digits as returned by the OneDrive API
+     * 
+     * @param iso8601 String like "2015-06-01T10:11:12.1234567Z"
+     * @return long time in milliseconds
+     * @throws DateTimeParseException if parsing fails
+     */
+    public static long toEpochMillis(final String iso8601) {
+        return OffsetDateTime.parse(iso8601).toInstant().toEpochMilli();
+    }
+
 }
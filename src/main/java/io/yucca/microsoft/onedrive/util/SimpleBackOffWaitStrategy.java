@@ -15,11 +15,14 @@
  */
 package io.yucca.microsoft.onedrive.util;
 
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
  * BasicBackOffWaitStrategy, defaults to one second and increases
- * exponentionally on each call to sleep()
+ * exponentionally on each call to sleep() up to a maximum. The time slept is
+ * jittered between half and the full duration, so concurrent callers do not
+ * retry in lockstep.
  *
  * @author yucca.io
  */
@@ -27,8 +30,12 @@ public class SimpleBackOffWaitStrategy {
 
     private static final long DEFAULT_INITIAL = 1000L;
 
+    private static final long DEFAULT_MAXIMUM = 60000L;
+
     private final long initialDuration;
 
+    private final long maxDuration;
+
     private long duration;
 
     private TimeUnit unit = TimeUnit.MILLISECONDS;
@@ -37,8 +44,7 @@ public class SimpleBackOffWaitStrategy {
      * Constructor
      */
     public SimpleBackOffWaitStrategy() {
-        this.initialDuration = DEFAULT_INITIAL;
-        this.duration = DEFAULT_INITIAL;
+        this(DEFAULT_INITIAL, DEFAULT_MAXIMUM);
     }
 
     /**
@@ -47,7 +53,18 @@ public class SimpleBackOffWaitStrategy {
      * @param duration long initially sleep time in ms
      */
     public SimpleBackOffWaitStrategy(long duration) {
+        this(duration, Math.max(duration, DEFAULT_MAXIMUM));
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param duration long initially sleep time in ms
+     * @param maxDuration long maximum sleep time in ms
+     */
+    public SimpleBackOffWaitStrategy(long duration, long maxDuration) {
         this.initialDuration = duration;
+        this.maxDuration = maxDuration;
         this.duration = duration;
     }
 
@@ -57,15 +74,32 @@ public class SimpleBackOffWaitStrategy {
      * @return long next duration in ms
      */
     public long sleep() {
+        return sleep(0);
+    }
+
+    /**
+     * Sleep at least the given time, i.e. a Retry-After demanded by the
+     * service
+     * 
+     * @param minimum long minimum sleep time in ms
+     * @return long next duration in ms
+     */
+    public long sleep(long minimum) {
         try {
-            unit.sleep(duration);
+            unit.sleep(Math.max(minimum, jitter()));
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
         return increase();
     }
 
+    private long jitter() {
+        long half = duration / 2;
+        return half + ThreadLocalRandom.current().nextLong(duration - half + 1);
+    }
+
     private long increase() {
-        duration += duration;
+        duration = Math.min(duration + duration, maxDuration);
         return duration;
     }
 
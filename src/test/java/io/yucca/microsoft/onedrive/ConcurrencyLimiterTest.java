@@ -0,0 +1,224 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.actions.DownloadAction;
+import io.yucca.microsoft.onedrive.actions.MetadataAction;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+
+public class ConcurrencyLimiterTest {
+
+    private static final URI CONTENT = URI.create("https://public.bn1303.livefilestore.com/y3m");
+
+    private static final String ITEM = "{\"id\":\"item\",\"name\":\"file.txt\"}";
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile int throttledResponses;
+
+    private HttpServer server;
+
+    private URI serverURI;
+
+    private LocalAPIConnection api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                if (requests.incrementAndGet() <= throttledResponses) {
+                    exchange.getResponseHeaders()
+                        .add(ThrottlingController.RETRY_AFTER, "0");
+                    exchange.sendResponseHeaders(429, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] bytes = "content".getBytes("UTF-8");
+                if (!exchange.getRequestURI().getPath().endsWith("/content")) {
+                    bytes = ITEM.getBytes("UTF-8");
+                    exchange.getResponseHeaders()
+                        .add("Content-Type", MediaType.APPLICATION_JSON);
+                }
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        serverURI = URI.create("http://localhost:"
+                               + server.getAddress().getPort());
+        api = new LocalAPIConnection(serverURI,
+                                     new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testAdditiveIncrease() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 3);
+        for (int i = 0; i < 10; i++) {
+            ConcurrencyLimiter.Permit first = limiter.acquire(CONTENT);
+            ConcurrencyLimiter.Permit second = limiter.acquire(CONTENT);
+            first.success(1000);
+            second.success(1000);
+        }
+        assertEquals(3, limiter.getLimit(CONTENT));
+        assertEquals(0, limiter.getInFlight(CONTENT));
+    }
+
+    @Test
+    public void testUnusedLimitNotRaised() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 10);
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire(CONTENT).success(1000);
+        }
+        assertEquals(4, limiter.getLimit(CONTENT));
+    }
+
+    @Test
+    public void testMultiplicativeDecrease() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 10);
+        limiter.acquire(CONTENT).dropped();
+        assertEquals(4, limiter.getLimit(CONTENT));
+        limiter.acquire(CONTENT).success(1000);
+        // latency far above the lowest seen
+        limiter.acquire(CONTENT).success(10000);
+        assertEquals(3, limiter.getLimit(CONTENT));
+        limiter.acquire(CONTENT).dropped();
+        limiter.acquire(CONTENT).dropped();
+        limiter.acquire(CONTENT).dropped();
+        assertEquals(1, limiter.getLimit(CONTENT));
+    }
+
+    @Test
+    public void testUnmeasuredTransferNotLowered()
+        throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 3);
+        // a small transfer sets a low baseline
+        limiter.acquire(CONTENT).success(1000);
+        for (int i = 0; i < 10; i++) {
+            ConcurrencyLimiter.Permit first = limiter.acquire(CONTENT);
+            ConcurrencyLimiter.Permit second = limiter.acquire(CONTENT);
+            first.success();
+            second.success();
+        }
+        assertEquals(3, limiter.getLimit(CONTENT));
+    }
+
+    @Test
+    public void testMaxLimitPerHost() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 10);
+        limiter.setMaxLimit(serverURI, 2);
+        assertEquals(2, limiter.getLimit(serverURI));
+        assertEquals(4, limiter.getLimit(CONTENT));
+    }
+
+    @Test
+    public void testAcquireBlocksAtLimit() throws InterruptedException {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1);
+        ConcurrencyLimiter.Permit permit = limiter.acquire(CONTENT);
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    limiter.acquire(CONTENT).success(1000);
+                    acquired.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        waiter.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        permit.success(1000);
+        // releasing twice has no effect
+        permit.success(1000);
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getInFlight(CONTENT));
+    }
+
+    @Test
+    public void testDownloadHeldUntilClosed() throws IOException {
+        ConcurrencyLimiter limiter = api.getConnectionPool()
+            .getConcurrencyLimiter();
+        try (OneDriveContent content = new DownloadAction(api,
+                                                          new IdAddress("item"))
+                                                              .call()) {
+            assertEquals(1, limiter.getInFlight(serverURI));
+            content.getInputStream().close();
+        }
+        assertEquals(0, limiter.getInFlight(serverURI));
+    }
+
+    @Test
+    public void testThrottledTransferLowersLimit() throws IOException {
+        ConcurrencyLimiter limiter = api.getConnectionPool()
+            .getConcurrencyLimiter();
+        int initial = limiter.getLimit(serverURI);
+        throttledResponses = 1;
+        try (OneDriveContent content = new DownloadAction(api,
+                                                          new IdAddress("item"))
+                                                              .call()) {
+            content.getInputStream().close();
+        }
+        assertEquals(2, requests.get());
+        assertEquals(initial / 2, limiter.getLimit(serverURI));
+        assertEquals(0, limiter.getInFlight(serverURI));
+    }
+
+    @Test
+    public void testMetadataNotLimited() {
+        new MetadataAction(api, new IdAddress("item")).call();
+        assertTrue(api.getConnectionPool().getConcurrencyLimiter().getLimits()
+            .isEmpty());
+    }
+}
@@ -21,6 +21,10 @@ import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 import org.apache.commons.configuration.ConfigurationException;
 import org.junit.After;
@@ -32,6 +36,8 @@ public class ConfigurationUtilTest {
 
     private static final String TEST_ONEDRIVE_PROPERTIES_SAVED = "onedrive-config-test-saved.properties";
 
+    private static final String TEST_ONEDRIVE_PROPERTIES_COPY = "onedrive-config-test-copy.properties";
+
     @Test
     public void testRead()
         throws FileNotFoundException, ConfigurationException {
@@ -47,15 +53,26 @@ public class ConfigurationUtilTest {
         assertEquals(2000, config.getReadTimeout());
         assertEquals(500, config.getConnectionTimeout());
         assertEquals(true, config.isDebugLogging());
+        assertEquals(50, config.getMaxConnections());
+        assertEquals(10, config.getMaxApiConnections());
+        assertEquals(OneDriveConfiguration.MAX_CONTENT_CONNECTIONS_DEFAULT,
+                     config.getMaxContentConnections());
+        assertEquals(OneDriveConfiguration.KEEP_ALIVE_DEFAULT,
+                     config.getKeepAlive());
     }
 
     @Test
-    public void testSave()
-        throws FileNotFoundException, ConfigurationException {
+    public void testSave() throws IOException, ConfigurationException {
+        // save to a copy, saving adds all settings to the file read
+        Files.copy(Paths.get(TEST_ONEDRIVE_PROPERTIES),
+                   Paths.get(TEST_ONEDRIVE_PROPERTIES_COPY),
+                   StandardCopyOption.REPLACE_EXISTING);
         OneDriveConfiguration config = ConfigurationUtil
-            .read(TEST_ONEDRIVE_PROPERTIES);
+            .read(TEST_ONEDRIVE_PROPERTIES_COPY);
         ConfigurationUtil.save(config);
         ConfigurationUtil.save(config);
+        assertEquals(config.getMaxContentConnections(), ConfigurationUtil
+            .read(TEST_ONEDRIVE_PROPERTIES_COPY).getMaxContentConnections());
     }
 
     @Test
@@ -79,9 +96,12 @@ public class ConfigurationUtilTest {
 
     @After
     public void tearDown() {
-        File file = new File(TEST_ONEDRIVE_PROPERTIES_SAVED);
-        if (file.exists()) {
-            file.delete();
+        for (String name : new String[] { TEST_ONEDRIVE_PROPERTIES_SAVED,
+                                          TEST_ONEDRIVE_PROPERTIES_COPY }) {
+            File file = new File(name);
+            if (file.exists()) {
+                file.delete();
+            }
         }
     }
 }
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.actions.DeleteAction;
+import io.yucca.microsoft.onedrive.actions.DownloadAction;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+
+public class ConnectionLeakDetectorTest {
+
+    private static final String ERROR = "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"Item does not exist\"}}";
+
+    private HttpServer server;
+
+    private ConnectionLeakDetector detector;
+
+    private LocalAPIConnection api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                String path = exchange.getRequestURI().getPath();
+                int status = path.contains("missing") ? 404 : 200;
+                byte[] body = (status == 404 ? ERROR : "content")
+                    .getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Content-Type", status == 404
+                    ? MediaType.APPLICATION_JSON
+                    : MediaType.APPLICATION_OCTET_STREAM);
+                exchange.sendResponseHeaders(status, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+        server.start();
+        detector = new ConnectionLeakDetector(1);
+        api = new LocalAPIConnection(URI.create("http://localhost:"
+                                                + server.getAddress()
+                                                    .getPort()),
+                                     new OneDriveConfiguration(null), detector);
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testUnreturned() {
+        Response first = api.webTarget().path("first").request().get();
+        Response second = api.webTarget().path("second").request().get();
+        assertEquals(2, detector.getUnreturned());
+        assertEquals(2, api.getConnectionPool().getApiStats().getLeased());
+        assertEquals(true, detector.getUnreturnedRequests().get(0)
+            .startsWith("GET http://localhost:"));
+        first.close();
+        second.readEntity(String.class);
+        assertEquals(0, detector.getUnreturned());
+        assertEquals(0, api.getConnectionPool().getApiStats().getLeased());
+    }
+
+    @Test
+    public void testErrorReturnsConnection() {
+        try {
+            new DeleteAction(api, new IdAddress("missing")).call();
+            fail("Expected OneDriveException");
+        } catch (OneDriveException e) {
+            assertEquals("itemNotFound", e.getError().getError().getCode());
+        }
+        assertEquals(0, detector.getUnreturned());
+        assertEquals(0, api.getConnectionPool().getApiStats().getLeased());
+    }
+
+    @Test
+    public void testContentReturnedOnClose() throws IOException {
+        OneDriveContent content = new DownloadAction(api,
+                                                     new IdAddress("item"))
+                                                         .call();
+        assertEquals(1, detector.getUnreturned());
+        content.close();
+        assertEquals(0, detector.getUnreturned());
+        assertEquals(0, api.getConnectionPool().getApiStats().getLeased());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreshold() {
+        new ConnectionLeakDetector(0);
+    }
+}
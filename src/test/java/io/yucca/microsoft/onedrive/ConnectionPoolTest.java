@@ -0,0 +1,161 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ConnectionPoolTest {
+
+    private HttpServer server;
+
+    private URI serverURI;
+
+    private OneDriveConfiguration configuration;
+
+    private ConnectionPool pool;
+
+    private Client client;
+
+    private volatile String contentLength;
+
+    private volatile String transferEncoding;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                contentLength = exchange.getRequestHeaders()
+                    .getFirst("Content-Length");
+                transferEncoding = exchange.getRequestHeaders()
+                    .getFirst("Transfer-Encoding");
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                byte[] body = "{}".getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Content-Type",
+                                                  MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+        server.start();
+        serverURI = URI
+            .create("http://localhost:" + server.getAddress().getPort());
+        configuration = new OneDriveConfiguration(null);
+        configuration.setMaxConnections(10);
+        configuration.setMaxApiConnections(4);
+        configuration.setMaxContentConnections(2);
+        pool = new ConnectionPool(configuration, serverURI);
+        client = ClientFactory.create(configuration, pool);
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testLimits() {
+        assertEquals(10, pool.getTotalStats().getMax());
+        assertEquals(4, pool.getApiStats().getMax());
+        assertEquals(2, pool.getStats(URI.create("https://public.bn1302.livefilestore.com/y3m"))
+            .getMax());
+    }
+
+    @Test
+    public void testPooledRequest() {
+        Response response = client.target(serverURI).path("items").request()
+            .get();
+        assertEquals(200, response.getStatus());
+        assertEquals(1, pool.getApiStats().getLeased());
+        response.readEntity(String.class);
+
+        PoolStats stats = pool.getApiStats();
+        assertEquals(0, stats.getLeased());
+        assertEquals(1, stats.getAvailable());
+
+        response = client.target(serverURI).path("items").request().get();
+        response.close();
+        // the connection is reused
+        assertEquals(1, pool.getTotalStats().getAvailable());
+    }
+
+    @Test
+    public void testPooledEntityBuffered() {
+        Response response = client.target(serverURI).path("items").request()
+            .post(Entity.json("{\"name\":\"folder\"}"));
+        response.close();
+        assertEquals(200, response.getStatus());
+        assertEquals("17", contentLength);
+        assertNull(transferEncoding);
+        assertEquals(1, pool.getApiStats().getAvailable());
+    }
+
+    @Test
+    public void testStreamedEntityPooled() {
+        Response response = client.target(serverURI).path("content").request()
+            .header("Content-Length", 4)
+            .put(Entity.entity("data", MediaType.APPLICATION_OCTET_STREAM));
+        assertEquals(1, pool.getApiStats().getLeased());
+        response.close();
+        assertEquals(200, response.getStatus());
+        assertEquals("4", contentLength);
+        assertNull(transferEncoding);
+        // the connection is returned to the pool and reused
+        assertEquals(1, pool.getApiStats().getAvailable());
+        client.target(serverURI).path("content").request()
+            .header("Content-Length", 4)
+            .put(Entity.entity("data", MediaType.APPLICATION_OCTET_STREAM))
+            .close();
+        assertEquals(1, pool.getTotalStats().getAvailable());
+    }
+
+    @Test
+    public void testRoute() {
+        assertEquals(443, ConnectionPool
+            .route(URI.create(OneDriveAPIConnectionImpl.ONEDRIVE_URL))
+            .getTargetHost().getPort());
+        assertEquals(80, ConnectionPool.route(URI.create("http://localhost/"))
+            .getTargetHost().getPort());
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.media.multipart.BodyPart;
+import org.glassfish.jersey.media.multipart.MultiPart;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ContentLengthFilterTest {
+
+    private static final long CONTENT_SIZE = 128 * 1024 * 1024L;
+
+    /**
+     * Number of bytes read from gated content before the server must have
+     * received content, exceeds the buffers between client and server
+     */
+    private static final int GATE_SIZE = 4 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private HttpServer server;
+
+    private Client client;
+
+    private CountDownLatch receiving;
+
+    private volatile String contentLength;
+
+    private volatile String transferEncoding;
+
+    private volatile long received;
+
+    @Before
+    public void setUp() throws IOException {
+        receiving = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/upload", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                contentLength = exchange.getRequestHeaders()
+                    .getFirst("Content-Length");
+                transferEncoding = exchange.getRequestHeaders()
+                    .getFirst("Transfer-Encoding");
+                long count = 0;
+                try (InputStream in = exchange.getRequestBody()) {
+                    byte[] buffer = new byte[64 * 1024];
+                    for (int read = 0; (read = in.read(buffer)) != -1;) {
+                        count += read;
+                        receiving.countDown();
+                    }
+                }
+                received = count;
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        client = ClientFactory.create(new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testFixedLengthStreaming() throws IOException {
+        Path file = testFolder.newFile("large.bin").toPath();
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(CONTENT_SIZE);
+        }
+
+        Response response = put(Entity
+            .entity(new OneDriveFile(file), MediaType.APPLICATION_OCTET_STREAM));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT_SIZE, received);
+        assertEquals(Long.toString(CONTENT_SIZE), contentLength);
+        assertNull(transferEncoding);
+    }
+
+    @Test
+    public void testContentNotBuffered() throws IOException {
+        Response response = put(Entity
+            .entity(new OneDriveInputStream(new GatedInputStream(CONTENT_SIZE),
+                                            "gated", CONTENT_SIZE),
+                    MediaType.APPLICATION_OCTET_STREAM));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT_SIZE, received);
+        assertEquals(Long.toString(CONTENT_SIZE), contentLength);
+        assertNull(transferEncoding);
+    }
+
+    @Test
+    public void testUnknownLength() throws IOException {
+        long size = GATE_SIZE * 2L;
+        Response response = put(Entity
+            .entity(new OneDriveInputStream(new GatedInputStream(size),
+                                            "unknown"),
+                    MediaType.APPLICATION_OCTET_STREAM));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(size, received);
+        assertNull(contentLength);
+        assertEquals("chunked", transferEncoding);
+    }
+
+    @Test
+    public void testMultipartNotBuffered() throws IOException {
+        long size = GATE_SIZE * 2L;
+        MultiPart multipart = new MultiPart();
+        multipart.bodyPart(new BodyPart("{}", MediaType.APPLICATION_JSON_TYPE));
+        multipart.bodyPart(new BodyPart(new GatedInputStream(size),
+                                        MediaType.APPLICATION_OCTET_STREAM_TYPE));
+        Response response = put(Entity
+            .entity(multipart, new MediaType("multipart", "related")));
+
+        assertEquals(200, response.getStatus());
+        assertTrue(received > size);
+        assertNull(contentLength);
+        assertEquals("chunked", transferEncoding);
+    }
+
+    @Test
+    public void testJsonBuffered() throws IOException {
+        Response response = put(Entity.json("{}".getBytes("UTF-8")));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("2", contentLength);
+        assertNull(transferEncoding);
+    }
+
+    private Response put(Entity<?> entity) {
+        Response response = client
+            .target("http://localhost:" + server.getAddress().getPort())
+            .path("upload").request().put(entity);
+        response.close();
+        return response;
+    }
+
+    /**
+     * Content of zeros which, after the first bytes, can only be read once
+     * the server receives content. Buffering all content before sending it
+     * fails the request.
+     */
+    private class GatedInputStream extends InputStream {
+
+        private final long length;
+
+        private long position;
+
+        GatedInputStream(long length) {
+            this.length = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0];
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= length) {
+                return -1;
+            }
+            if (position >= GATE_SIZE) {
+                try {
+                    if (!receiving.await(10, TimeUnit.SECONDS)) {
+                        throw new IOException("content is read before it is sent");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            int n = (int)Math.min(len, length - position);
+            Arrays.fill(b, off, off + n, (byte)0);
+            position += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.actions.DeleteAction;
+import io.yucca.microsoft.onedrive.actions.MoveAction;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.addressing.PathAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.resources.ItemReference;
+
+public class ItemCacheTest {
+
+    private static final String ETAG = "aETag";
+
+    private static final String ITEM = "{\"id\":\"item\",\"name\":\"file.txt\",\"eTag\":\""
+                                       + ETAG
+                                       + "\",\"parentReference\":{\"id\":\"parent\",\"path\":\"/drive/root:/Documents\"}}";
+
+    private static final String MOVED = "{\"id\":\"item\",\"name\":\"file.txt\",\"eTag\":\"bETag\","
+                                        + "\"parentReference\":{\"id\":\"other\",\"path\":\"/drive/root:/Other\"}}";
+
+    private final List<String> requests = new ArrayList<>();
+
+    private HttpServer server;
+
+    private LocalAPIConnection api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                String method = exchange.getRequestMethod();
+                String ifNoneMatch = exchange.getRequestHeaders()
+                    .getFirst("If-None-Match");
+                synchronized (requests) {
+                    requests.add(method + " " + ifNoneMatch);
+                }
+                byte[] body = new byte[0];
+                int status;
+                if ("DELETE".equals(method)) {
+                    status = 204;
+                } else if (ifNoneMatch != null && ifNoneMatch.contains(ETAG)) {
+                    status = 304;
+                } else {
+                    status = 200;
+                    body = ("PATCH".equals(method) ? MOVED : ITEM)
+                        .getBytes("UTF-8");
+                }
+                exchange.getResponseHeaders()
+                    .add("Content-Type", MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(status,
+                                             body.length == 0 ? -1
+                                                              : body.length);
+                if (body.length > 0) {
+                    exchange.getResponseBody().write(body);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        api = new LocalAPIConnection(URI.create("http://localhost:"
+                                                + server.getAddress()
+                                                    .getPort()),
+                                     new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testHitWithinTimeToLive() {
+        ItemCache cache = new ItemCache(10, 1, TimeUnit.HOURS);
+        Item item = cache.metadata(api, new IdAddress("item"));
+        assertEquals(item.geteTag(),
+                     cache.metadata(api, new IdAddress("item")).geteTag());
+        assertEquals(1, requests.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testRevalidateWithEtag() {
+        ItemCache cache = new ItemCache(10, 0, TimeUnit.MILLISECONDS);
+        Item item = cache.metadata(api, new IdAddress("item"));
+        assertEquals(item.geteTag(),
+                     cache.metadata(api, new IdAddress("item")).geteTag());
+        assertEquals(2, requests.size());
+        assertEquals("GET null", requests.get(0));
+        assertEquals("GET \"" + ETAG + "\"", requests.get(1));
+        assertEquals(1, cache.getRevalidations());
+    }
+
+    @Test
+    public void testPathIndex() {
+        ItemCache cache = new ItemCache(10, 1, TimeUnit.HOURS);
+        Item item = cache.metadata(api, new IdAddress("item"));
+        assertEquals(item.getId(), cache
+            .metadata(api, new PathAddress("Documents/file.txt")).getId());
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void testReturnsCopy() {
+        ItemCache cache = new ItemCache(10, 1, TimeUnit.HOURS);
+        Item item = cache.metadata(api, new IdAddress("item"));
+        // as done by an update before sending the item
+        item.setParentReference(null);
+        item.setName("changed.txt");
+        Item cached = cache.getIfPresent(new IdAddress("item"));
+        assertNotSame(item, cached);
+        assertEquals("file.txt", cached.getName());
+        assertEquals("parent", cached.getParentReference().getId());
+        cached.getParentReference().setPath("/drive/root:/Other");
+        assertEquals("/drive/root:/Documents",
+                     cache.metadata(api, new IdAddress("item"))
+                         .getParentReference().getPath());
+        assertNotNull(cache.getIfPresent(new PathAddress("Documents/file.txt")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        ItemCache cache = new ItemCache(2, 1, TimeUnit.HOURS);
+        cache.put(newItem("1", "/drive/root:", "one"));
+        cache.put(newItem("2", "/drive/root:", "two"));
+        assertNotNull(cache.getIfPresent(new IdAddress("1")));
+        cache.put(newItem("3", "/drive/root:", "three"));
+        assertEquals(2, cache.size());
+        assertNull(cache.getIfPresent(new IdAddress("2")));
+        assertNull(cache.getIfPresent(new PathAddress("two")));
+        assertNotNull(cache.getIfPresent(new PathAddress("one")));
+    }
+
+    @Test
+    public void testRenamedFolderRemovesDescendants() {
+        ItemCache cache = new ItemCache(10, 1, TimeUnit.HOURS);
+        cache.put(newItem("folder", "/drive/root:", "A"));
+        cache.put(newItem("child", "/drive/root:/A", "file.txt"));
+        cache.put(newItem("other", "/drive/root:", "AB"));
+        cache.put(newItem("folder", "/drive/root:", "B"));
+        assertNull(cache.getIfPresent(new IdAddress("child")));
+        assertNull(cache.getIfPresent(new PathAddress("A")));
+        assertNotNull(cache.getIfPresent(new PathAddress("B")));
+        assertNotNull(cache.getIfPresent(new PathAddress("AB")));
+    }
+
+    @Test
+    public void testDeleteInvalidates() {
+        ItemCache cache = api.getItemCache();
+        cache.put(newItem("parent", "/drive/root:", "Documents"));
+        cache.metadata(api, new IdAddress("item"));
+        new DeleteAction(api, new IdAddress("item")).call();
+        assertNull(cache.getIfPresent(new IdAddress("item")));
+        assertNull(cache.getIfPresent(new PathAddress("Documents/file.txt")));
+        assertNull(cache.getIfPresent(new IdAddress("parent")));
+    }
+
+    @Test
+    public void testMoveUpdates() {
+        ItemCache cache = api.getItemCache();
+        cache.metadata(api, new IdAddress("item"));
+        new MoveAction(api, new IdAddress("item"), null, "Other").call();
+        assertNull(cache.getIfPresent(new PathAddress("Documents/file.txt")));
+        assertEquals("bETag", cache.getIfPresent(new PathAddress("Other/file.txt"))
+            .geteTag());
+    }
+
+    @Test
+    public void testDisabled() {
+        ItemCache cache = new ItemCache(0, 1, TimeUnit.HOURS);
+        cache.metadata(api, new IdAddress("item"));
+        cache.metadata(api, new IdAddress("item"));
+        assertEquals(2, requests.size());
+        assertEquals(0, cache.size());
+    }
+
+    private Item newItem(String id, String parentPath, String name) {
+        Item item = new Item(id);
+        item.setName(name);
+        ItemReference parent = new ItemReference();
+        parent.setPath(parentPath);
+        item.setParentReference(parent);
+        return item;
+    }
+}
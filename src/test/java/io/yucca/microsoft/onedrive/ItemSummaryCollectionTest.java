@@ -0,0 +1,180 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.actions.ListChildrenAction;
+import io.yucca.microsoft.onedrive.actions.ResyncNeededException;
+import io.yucca.microsoft.onedrive.actions.SyncAction;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.resources.ItemReference;
+import io.yucca.microsoft.onedrive.resources.ItemSummary;
+import io.yucca.microsoft.onedrive.resources.facets.FolderFacet;
+
+public class ItemSummaryCollectionTest {
+
+    private final List<URI> requests = new ArrayList<>();
+
+    private final Map<String, String> responses = new HashMap<>();
+
+    private HttpServer server;
+
+    private String serverURI;
+
+    private LocalAPIConnection api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                URI uri = exchange.getRequestURI();
+                synchronized (requests) {
+                    requests.add(uri);
+                }
+                byte[] bytes = responses.get(uri.getPath()).getBytes("UTF-8");
+                exchange.getResponseHeaders()
+                    .add("Content-Type", MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        serverURI = "http://localhost:" + server.getAddress().getPort();
+        api = new LocalAPIConnection(URI.create(serverURI),
+                                     new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    private static String summary(String id, String parentId) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + id
+               + "\",\"size\":1,\"parentReference\":{\"id\":\"" + parentId
+               + "\"},\"file\":{}}";
+    }
+
+    @Test
+    public void testListChildrenSummaries() {
+        responses.put("/drive/items/folder/children",
+                      "{\"value\":[" + summary("a", "folder") + ","
+                                                      + summary("b", "folder")
+                                                      + "],\"@odata.nextLink\":\""
+                                                      + serverURI
+                                                      + "/page/1\"}");
+        responses.put("/page/1",
+                      "{\"value\":[" + summary("c", "folder") + "]}");
+        QueryParameters parameters = QueryParameters.Builder
+            .newQueryParameters().top(2).select("name").build();
+        ItemSummaryCollection children = new ListChildrenAction(api,
+                                                                new IdAddress("folder"),
+                                                                null,
+                                                                parameters)
+                                                                    .summaries();
+        List<String> ids = new ArrayList<>();
+        for (ItemSummary child : children) {
+            assertEquals("folder", child.getParentId());
+            ids.add(child.getId());
+        }
+        assertEquals("[a, b, c]", ids.toString());
+        assertEquals(2, requests.size());
+        String query = requests.get(0).getQuery();
+        assertTrue(query, query.contains("top=2"));
+        assertTrue(query, query.contains("lastModifiedDateTime"));
+    }
+
+    @Test
+    public void testSyncSummaries() throws ResyncNeededException {
+        PathResolver resolver = api.getPathResolver();
+        resolver.update(item("moved", "old", "/drive/root:"));
+        resolver.update(item("kept", "kept", "/drive/root:/folder"));
+        resolver.update(item("folder", "folder", "/drive/root:"));
+        responses.put("/drive/items/folder/view.delta",
+                      "{\"value\":[" + summary("moved", "folder") + ","
+                                                + summary("kept", "folder")
+                                                + "],\"@odata.nextLink\":\""
+                                                + serverURI + "/delta/1\"}");
+        responses.put("/delta/1",
+                      "{\"value\":[{\"id\":\"folder\",\"deleted\":{}}],"
+                                  + "\"@odata.deltaLink\":\"" + serverURI
+                                  + "/delta/2\",\"@delta.token\":\"t2\"}");
+        SyncAction action = new SyncAction(api, new IdAddress("folder"), null,
+                                           null);
+        ItemSummaryCollection changes = action.summaries();
+        assertTrue(changes.hasNextCollection());
+        assertNull(resolver.getPath("moved"));
+        assertEquals("/drive/root:/folder/kept", resolver.getPath("kept"));
+        ItemSummaryCollection last = null;
+        try (PageIterator<ItemSummaryCollection> pages = changes
+            .pageIterator(0, null)) {
+            while (pages.hasNext()) {
+                last = pages.next();
+            }
+        }
+        assertNotNull(last);
+        assertEquals("t2", last.getToken());
+        assertNull(resolver.getPath("folder"));
+        assertNull(resolver.getPath("kept"));
+        String query = requests.get(0).getQuery();
+        assertTrue(query, query.contains("select="));
+    }
+
+    private static Item item(String id, String name, String parentPath) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        ItemReference parent = new ItemReference();
+        parent.setPath(parentPath);
+        item.setParentReference(parent);
+        item.setFolder(new FolderFacet());
+        return item;
+    }
+}
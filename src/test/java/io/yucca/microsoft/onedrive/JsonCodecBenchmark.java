@@ -0,0 +1,269 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.yucca.microsoft.onedrive.resources.Item;
+
+/**
+ * Repeatable micro-measurement of the JSON handling of the common resources,
+ * comparing the {@link JsonCodec} with plain ObjectMapper calls as used
+ * before. Not a unit test, run it with:
+ * 
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; \
+ *     io.yucca.microsoft.onedrive.JsonCodecBenchmark [iterations]
+ * </pre>
+ * 
+ * Every measurement is warmed up, then the median of several rounds is
+ * reported in nanoseconds per operation.
+ * 
+ * @author yucca.io
+ */
+public final class JsonCodecBenchmark {
+
+    private static final int ROUNDS = 7;
+
+    private static final int ITEMS = 100;
+
+    private static final String ITEM = "{\"id\":\"F0A1B2C3D4E5F6!%d\",\"name\":\"document-%d.docx\","
+                                       + "\"eTag\":\"aRjBBMUIyQzNENEU1RjYhMTIzLjE\",\"cTag\":\"aYzpGMEExQjJDM0Q0RTVGNiExMjMuMjU3\","
+                                       + "\"createdBy\":{\"application\":{\"displayName\":\"OneDrive website\",\"id\":\"44048800\"},"
+                                       + "\"user\":{\"displayName\":\"Rob Sessink\",\"id\":\"f0a1b2c3d4e5f6\"}},"
+                                       + "\"createdDateTime\":\"2015-10-18T13:41:03.563Z\","
+                                       + "\"lastModifiedBy\":{\"user\":{\"displayName\":\"Rob Sessink\",\"id\":\"f0a1b2c3d4e5f6\"}},"
+                                       + "\"lastModifiedDateTime\":\"2015-10-18T13:41:08.717Z\",\"size\":23456,"
+                                       + "\"parentReference\":{\"driveId\":\"f0a1b2c3d4e5f6\",\"id\":\"F0A1B2C3D4E5F6!103\","
+                                       + "\"path\":\"/drive/root:/Documents\"},"
+                                       + "\"webUrl\":\"https://onedrive.live.com/redir?resid=F0A1B2C3D4E5F6!%d\","
+                                       + "\"file\":{\"hashes\":{\"crc32Hash\":\"2F2B4C17\",\"sha1Hash\":\"A94A8FE5CCB19BA61C4C0873D391E987982FBBD3\"},"
+                                       + "\"mimeType\":\"application/vnd.openxmlformats-officedocument.wordprocessingml.document\"},"
+                                       + "\"fileSystemInfo\":{\"createdDateTime\":\"2015-10-18T13:41:03.563Z\","
+                                       + "\"lastModifiedDateTime\":\"2015-10-18T13:41:08.717Z\"}}";
+
+    private final ObjectMapper mapper = ClientFactory.createMapper();
+
+    private final JsonCodec codec = new JsonCodec(ClientFactory
+        .createMapper());
+
+    private final int iterations;
+
+    /**
+     * Prevents the measured work from being optimized away
+     */
+    private long sink;
+
+    private JsonCodecBenchmark(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        new JsonCodecBenchmark(iterations).run();
+    }
+
+    private void run() throws IOException {
+        final byte[] item = item(0).getBytes("UTF-8");
+        final byte[] collection = ("{\"value\":" + items()
+                                   + ",\"@odata.nextLink\":\"https://api.onedrive.com/v1.0/drive/root/children?$skiptoken=1\"}")
+                                       .getBytes("UTF-8");
+        final byte[] sync = ("{\"value\":" + items()
+                             + ",\"@odata.nextLink\":\"https://api.onedrive.com/v1.0/drive/root/view.delta?token=1\","
+                             + "\"@delta.token\":\"aTE09NjM1ODI4MDM2NjgzOTM\"}")
+                                 .getBytes("UTF-8");
+        final Item written = mapper.readValue(item, Item.class);
+        System.out.println("iterations per round: " + iterations
+                           + ", rounds: " + ROUNDS + ", items per collection: "
+                           + ITEMS);
+
+        measure("read Item", new Operation() {
+
+            @Override
+            public void mapper() throws IOException {
+                consume(mapper.readValue(item, Item.class));
+            }
+
+            @Override
+            public void codec() throws IOException {
+                consume(codec.read(new ByteArrayInputStream(item), Item.class));
+            }
+        });
+        measure("read ItemCollection", new Operation() {
+
+            @Override
+            public void mapper() throws IOException {
+                consume(mapper.readValue(collection, ItemCollection.class));
+            }
+
+            @Override
+            public void codec() throws IOException {
+                consume(codec.read(new ByteArrayInputStream(collection),
+                                   ItemCollection.class));
+            }
+        });
+        measure("read SyncResponse", new Operation() {
+
+            @Override
+            public void mapper() throws IOException {
+                consume(mapper.readValue(sync, SyncResponse.class));
+            }
+
+            @Override
+            public void codec() throws IOException {
+                consume(codec.read(new ByteArrayInputStream(sync),
+                                   SyncResponse.class));
+            }
+        });
+        measure("write Item", new Operation() {
+
+            @Override
+            public void mapper() throws IOException {
+                consume(mapper.writeValueAsBytes(written).length);
+            }
+
+            @Override
+            public void codec() throws IOException {
+                CountingOutputStream out = new CountingOutputStream();
+                codec.write(written, out);
+                consume(out.count);
+            }
+        });
+        measure("write body", new Operation() {
+
+            @Override
+            public void mapper() throws IOException {
+                Map<String, Object> map = new HashMap<>();
+                map.put("name", "folder");
+                map.put("folder", new HashMap<String, Object>());
+                map.put("@name.conflictBehavior", "fail");
+                consume(mapper.writeValueAsBytes(map).length);
+            }
+
+            @Override
+            public void codec() throws IOException {
+                CountingOutputStream out = new CountingOutputStream();
+                codec.write(new JsonBody() {
+
+                    @Override
+                    public void writeTo(JsonGenerator generator)
+                        throws IOException {
+                        generator.writeStartObject();
+                        generator.writeStringField("name", "folder");
+                        generator.writeObjectFieldStart("folder");
+                        generator.writeEndObject();
+                        generator.writeStringField("@name.conflictBehavior",
+                                                   "fail");
+                        generator.writeEndObject();
+                    }
+                }, out);
+                consume(out.count);
+            }
+        });
+        System.out.println("sink: " + sink);
+    }
+
+    private void measure(String name, Operation operation)
+        throws IOException {
+        long[] mapper = new long[ROUNDS];
+        long[] codec = new long[ROUNDS];
+        // warm up both paths before measuring
+        for (int i = 0; i < iterations * 5; i++) {
+            operation.mapper();
+            operation.codec();
+        }
+        // alternate the rounds so drift affects both paths alike
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                operation.mapper();
+            }
+            mapper[round] = (System.nanoTime() - start) / iterations;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                operation.codec();
+            }
+            codec[round] = (System.nanoTime() - start) / iterations;
+        }
+        System.out.println(String.format("%-20s mapper: %8d ns/op  codec: %8d ns/op",
+                                         name, median(mapper), median(codec)));
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private void consume(Object value) {
+        sink += (value == null) ? 0 : value.hashCode();
+    }
+
+    private void consume(long value) {
+        sink += value;
+    }
+
+    private static String item(int i) {
+        return String.format(ITEM, i, i, i);
+    }
+
+    private static String items() {
+        StringBuilder b = new StringBuilder("[");
+        for (int i = 0; i < ITEMS; i++) {
+            if (i > 0) {
+                b.append(',');
+            }
+            b.append(item(i));
+        }
+        return b.append(']').toString();
+    }
+
+    /**
+     * Both ways of performing a measured operation
+     */
+    private interface Operation {
+
+        void mapper() throws IOException;
+
+        void codec() throws IOException;
+    }
+
+    /**
+     * OutputStream only counting the bytes written
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Collections;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class JsonCodecTest {
+
+    private static final String FOLDER_BODY = "{\"name\":\"folder\",\"folder\":{}}";
+
+    private final JsonBody body = new JsonBody() {
+
+        @Override
+        public void writeTo(JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("name", "folder");
+            generator.writeObjectFieldStart("folder");
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    };
+
+    private JsonCodec codec;
+
+    @Before
+    public void setUp() {
+        codec = new JsonCodec(ClientFactory.createMapper());
+    }
+
+    @Test
+    public void testReaderIsReused() {
+        assertSame(codec.reader(Item.class), codec.reader(Item.class));
+        assertSame(codec.writer(Item.class), codec.writer(Item.class));
+    }
+
+    @Test
+    public void testWriteCompact() throws IOException {
+        Item item = new Item();
+        item.setId("1");
+        item.setName("file.txt");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(item, out);
+        String json = out.toString("UTF-8");
+        // the identifier is not serialized, it is read-only
+        assertEquals("{\"name\":\"file.txt\"}", json);
+    }
+
+    @Test
+    public void testReadLeavesStreamOpen() throws IOException {
+        final boolean[] closed = new boolean[1];
+        InputStream in = new FilterInputStream(new ByteArrayInputStream("{\"id\":\"1\",\"unknown\":true}"
+            .getBytes("UTF-8"))) {
+
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        Item item = codec.read(in, Item.class);
+        assertEquals("1", item.getId());
+        assertFalse(closed[0]);
+    }
+
+    @Test
+    public void testReadEmpty() throws IOException {
+        assertNull(codec.read(new ByteArrayInputStream(new byte[0]),
+                              Item.class));
+    }
+
+    @Test
+    public void testToBytes() throws IOException {
+        assertArrayEquals(FOLDER_BODY.getBytes("UTF-8"), codec.toBytes(body));
+    }
+
+    @Test
+    public void testNestedBody() throws IOException {
+        ObjectMapper mapper = codec.getMapper();
+        assertEquals("{\"body\":" + FOLDER_BODY + "}", mapper
+            .writeValueAsString(Collections.singletonMap("body", body)));
+    }
+
+    @Test
+    public void testProvider() throws IOException {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        HttpServer server = HttpServer
+            .create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    int b;
+                    while ((b = in.read()) != -1) {
+                        received.write(b);
+                    }
+                }
+                byte[] bytes = "{\"id\":\"2\",\"name\":\"folder\",\"folder\":{}}"
+                    .getBytes("UTF-8");
+                exchange.getResponseHeaders()
+                    .add("Content-Type", MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(201, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        LocalAPIConnection api = new LocalAPIConnection(URI
+            .create("http://localhost:" + server.getAddress().getPort()),
+                                                        new OneDriveConfiguration(null));
+        try {
+            Item item = api.webTarget().path("/drive/root/children")
+                .request().post(Entity.json(body), Item.class);
+            assertEquals("2", item.getId());
+            assertEquals(FOLDER_BODY, received.toString("UTF-8"));
+        } finally {
+            api.close();
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import java.net.URI;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.WebTarget;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * OneDriveAPIConnection to a local HTTP server without authorization, used
+ * to test actions against canned responses
+ */
+public class LocalAPIConnection implements OneDriveAPIConnection {
+
+    private final URI baseURI;
+
+    private final ConnectionPool pool;
+
+    private final ObjectMapper mapper;
+
+    private final JsonCodec codec;
+
+    private final ItemCache cache;
+
+    private final PathResolver resolver;
+
+    private final Client client;
+
+    public LocalAPIConnection(URI baseURI, OneDriveConfiguration configuration,
+                              Object... providers) {
+        this.baseURI = baseURI;
+        this.pool = new ConnectionPool(configuration, baseURI);
+        this.cache = new ItemCache(configuration);
+        this.resolver = new PathResolver(configuration);
+        this.codec = new JsonCodec(ClientFactory.createMapper());
+        this.mapper = codec.getMapper();
+        this.client = ClientFactory.create(configuration, pool,
+                                           new JsonCodecProvider(codec));
+        for (Object provider : providers) {
+            client.register(provider);
+        }
+    }
+
+    @Override
+    public Client getClient() {
+        return client;
+    }
+
+    @Override
+    public boolean isAuthorized() {
+        return true;
+    }
+
+    @Override
+    public WebTarget webTarget() {
+        return client.target(baseURI);
+    }
+
+    @Override
+    public WebTarget webTarget(URI uri) {
+        return client.target(uri);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    @Override
+    public void logOut() {
+        // not authorized
+    }
+
+    @Override
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    @Override
+    public JsonCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    @Override
+    public ItemCache getItemCache() {
+        return cache;
+    }
+
+    @Override
+    public PathResolver getPathResolver() {
+        return resolver;
+    }
+}
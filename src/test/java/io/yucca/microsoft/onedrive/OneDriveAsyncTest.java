@@ -0,0 +1,189 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class OneDriveAsyncTest {
+
+    private static final String ITEM = "{\"id\":\"item\",\"name\":\"item.txt\"}";
+
+    private static final String ERROR = "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"Item does not exist\"}}";
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private ExecutorService executor;
+
+    private final AtomicInteger handled = new AtomicInteger();
+
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private LocalAPIConnection api;
+
+    private OneDriveAsync async;
+
+    @Before
+    public void setUp() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                String path = exchange.getRequestURI().getPath();
+                int status = 200;
+                String body = ITEM;
+                String type = MediaType.APPLICATION_JSON;
+                if (path.contains("missing")) {
+                    status = 404;
+                    body = ERROR;
+                } else if (path.endsWith("/content")) {
+                    body = "content";
+                    type = MediaType.APPLICATION_OCTET_STREAM;
+                }
+                byte[] bytes = body.getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Content-Type", type);
+                exchange.sendResponseHeaders(status, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        executor = Executors.newFixedThreadPool(2);
+        api = new LocalAPIConnection(URI.create("http://localhost:"
+                                                + server.getAddress()
+                                                    .getPort()),
+                                     new OneDriveConfiguration(null));
+        async = new OneDriveAsyncImpl(api, new Executor() {
+
+            @Override
+            public void execute(Runnable command) {
+                handled.incrementAndGet();
+                executor.execute(command);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        api.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testMetadata() throws Exception {
+        Item item = async.metadata(new IdAddress("item")).get(10,
+                                                              TimeUnit.SECONDS);
+        assertEquals("item.txt", item.getName());
+        assertEquals(1, handled.get());
+    }
+
+    @Test
+    public void testSubmitDoesNotBlock() throws Exception {
+        release = new CountDownLatch(1);
+        List<CompletableFuture<Item>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(async.metadata(new IdAddress("item" + i)));
+        }
+        for (CompletableFuture<Item> future : futures) {
+            assertFalse(future.isDone());
+        }
+        release.countDown();
+        CompletableFuture
+            .allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+            .get(10, TimeUnit.SECONDS);
+        assertEquals(20, handled.get());
+        assertEquals(0, api.getConnectionPool().getApiStats().getLeased());
+    }
+
+    @Test
+    public void testFailureCompletesExceptionally() throws Exception {
+        CompletableFuture<Void> future = async
+            .delete(new IdAddress("missing"), null);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OneDriveException);
+            assertEquals("itemNotFound", ((OneDriveException)e.getCause())
+                .getError().getError().getCode());
+        }
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(0, api.getConnectionPool().getApiStats().getLeased());
+    }
+
+    @Test
+    public void testDownload() throws Exception {
+        try (OneDriveContent content = async.download(new IdAddress("item"))
+            .get(10, TimeUnit.SECONDS)) {
+            byte[] buffer = new byte[7];
+            InputStream in = content.getInputStream();
+            int read = 0;
+            while (read < buffer.length) {
+                read += in.read(buffer, read, buffer.length - read);
+            }
+            assertEquals("content", new String(buffer, "UTF-8"));
+        }
+        assertEquals(0, api.getConnectionPool().getApiStats().getLeased());
+    }
+}
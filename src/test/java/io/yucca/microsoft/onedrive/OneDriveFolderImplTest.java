@@ -0,0 +1,146 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class OneDriveFolderImplTest {
+
+    private static final int PAGES = 5;
+
+    private final List<URI> requests = new ArrayList<>();
+
+    private HttpServer server;
+
+    private String serverURI;
+
+    private LocalAPIConnection api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                URI uri = exchange.getRequestURI();
+                synchronized (requests) {
+                    requests.add(uri);
+                }
+                int page = 0;
+                if (uri.getPath().startsWith("/page/")) {
+                    page = Integer.parseInt(uri.getPath().substring(6));
+                }
+                byte[] bytes = page(page).getBytes("UTF-8");
+                exchange.getResponseHeaders()
+                    .add("Content-Type", MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        serverURI = "http://localhost:" + server.getAddress().getPort();
+        api = new LocalAPIConnection(URI.create(serverURI),
+                                     new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    /**
+     * Pages of two files, the last page is empty as returned by a search with
+     * the top parameter
+     */
+    private String page(int page) {
+        StringBuilder json = new StringBuilder("{\"value\":[");
+        if (page < PAGES - 1) {
+            for (int i = 0; i < 2; i++) {
+                json.append(i == 0 ? "" : ",").append("{\"id\":\"")
+                    .append(page).append('.').append(i)
+                    .append("\",\"name\":\"").append(page).append('.')
+                    .append(i).append("\",\"file\":{}}");
+            }
+        }
+        json.append(']');
+        if (page < PAGES - 1) {
+            json.append(",\"@odata.nextLink\":\"").append(serverURI)
+                .append("/page/").append(page + 1).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    @Test
+    public void testStreamChildrenStopsEarly() {
+        OneDriveFolder folder = new OneDriveFolderImpl(api, "folder");
+        QueryParameters parameters = QueryParameters.Builder
+            .newQueryParameters().top(2).build();
+        try (Stream<OneDriveItem> children = folder
+            .streamChildren(parameters)) {
+            List<String> ids = new ArrayList<>();
+            Iterator<OneDriveItem> items = children.limit(3).iterator();
+            while (items.hasNext()) {
+                ids.add(items.next().getItemId());
+            }
+            assertEquals("[0.0, 0.1, 1.0]", ids.toString());
+        }
+        assertEquals(2, requests.size());
+        assertEquals("/drive/items/folder/children", requests.get(0)
+            .getPath());
+        assertTrue(requests.get(0).getQuery().contains("top=2"));
+    }
+
+    @Test
+    public void testStreamSearchSkipsEmptyLastPage() {
+        OneDriveFolder folder = new OneDriveFolderImpl(api, "folder");
+        QueryParameters parameters = QueryParameters.Builder
+            .newQueryParameters().top(2).build();
+        try (Stream<OneDriveItem> results = folder
+            .streamSearch("query", parameters)) {
+            assertEquals(8, results.count());
+        }
+        assertEquals(PAGES, requests.size());
+        assertTrue(requests.get(0).getQuery().contains("top=2"));
+    }
+}
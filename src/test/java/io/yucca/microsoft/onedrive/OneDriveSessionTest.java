@@ -0,0 +1,234 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.core.Feature;
+import javax.ws.rs.core.HttpHeaders;
+
+import org.glassfish.jersey.client.oauth2.OAuth2CodeGrantFlow;
+import org.glassfish.jersey.client.oauth2.TokenResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class OneDriveSessionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private OneDriveConfiguration configuration;
+
+    private Client client;
+
+    private StubFlow flow;
+
+    private OneDriveSession session;
+
+    @Before
+    public void setUp() throws IOException {
+        File file = folder.newFile("onedrive.properties");
+        configuration = new OneDriveConfiguration(file.getAbsolutePath());
+        configuration.setClientId("clientId");
+        configuration.setClientSecret("clientSecret");
+        configuration.setAuthorizationCode("code");
+        configuration.setRefreshToken("refresh-0");
+        client = ClientBuilder.newClient();
+        flow = new StubFlow(3600);
+    }
+
+    @After
+    public void tearDown() {
+        if (session != null) {
+            session.close();
+        }
+        client.close();
+    }
+
+    @Test
+    public void testSingleRefreshInFlight() throws Exception {
+        session = new OneDriveSession(configuration, client, flow);
+        int threads = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Client>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(new Callable<Client>() {
+
+                @Override
+                public Client call() throws Exception {
+                    start.await();
+                    return session.getClient();
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Client> result : results) {
+            assertEquals(client, result.get());
+        }
+        executor.shutdown();
+        assertEquals(1, flow.refreshes.get());
+        assertEquals("access-1", session.getAccessToken().getAccessToken());
+        assertFalse(session.isTokenExpired());
+    }
+
+    @Test
+    public void testRedeemWithoutRefreshToken() {
+        configuration.setRefreshToken(null);
+        session = new OneDriveSession(configuration, client, flow);
+        session.requestAccessToken();
+        session.requestAccessToken();
+        assertEquals(1, flow.redeems.get());
+        assertEquals(0, flow.refreshes.get());
+        assertTrue(session.hasRefreshToken());
+    }
+
+    @Test
+    public void testProactiveRenewal() throws InterruptedException {
+        configuration.setTokenRenewalMargin(900);
+        flow = new StubFlow(1);
+        session = new OneDriveSession(configuration, client, flow);
+        session.requestAccessToken();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (flow.refreshes.get() < 2
+               && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(flow.refreshes.get() >= 2);
+        assertFalse(session.isTokenExpired());
+    }
+
+    @Test
+    public void testRefreshTokenSavedOnClose() throws Exception {
+        session = new OneDriveSession(configuration, client, flow);
+        session.requestAccessToken();
+        session.refreshAccessToken();
+        session.close();
+        OneDriveConfiguration saved = ConfigurationUtil
+            .read(configuration.getConfigurationFile());
+        assertEquals("refresh-2", saved.getRefreshToken());
+    }
+
+    @Test
+    public void testBearerToken() throws IOException {
+        final List<String> authorization = new ArrayList<>();
+        HttpServer server = HttpServer
+            .create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                authorization.add(exchange.getRequestHeaders()
+                    .getFirst(HttpHeaders.AUTHORIZATION));
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            session = new OneDriveSession(configuration, client, flow);
+            String uri = "http://localhost:" + server.getAddress().getPort();
+            session.getClient().target(uri).request().get().close();
+            session.refreshAccessToken();
+            session.getClient().target(uri).request().get().close();
+        } finally {
+            server.stop(0);
+        }
+        assertEquals("Bearer access-1", authorization.get(0));
+        assertEquals("Bearer access-2", authorization.get(1));
+    }
+
+    /**
+     * Authorization flow handing out numbered tokens
+     */
+    private static class StubFlow implements OAuth2CodeGrantFlow {
+
+        private final AtomicInteger refreshes = new AtomicInteger();
+
+        private final AtomicInteger redeems = new AtomicInteger();
+
+        private final long expiresIn;
+
+        StubFlow(long expiresIn) {
+            this.expiresIn = expiresIn;
+        }
+
+        @Override
+        public String start() {
+            return OneDriveSession.ONEDRIVE_OAUTH20_AUTH_URI + "?state=state";
+        }
+
+        @Override
+        public TokenResult finish(String authorizationCode, String state) {
+            return token(redeems.incrementAndGet());
+        }
+
+        @Override
+        public TokenResult refreshAccessToken(String refreshToken) {
+            int count = refreshes.incrementAndGet();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return token(count);
+        }
+
+        private TokenResult token(int count) {
+            Map<String, Object> props = new LinkedHashMap<>();
+            props.put("access_token", "access-" + count);
+            props.put("refresh_token", "refresh-" + count);
+            props.put("expires_in", String.valueOf(expiresIn));
+            props.put("token_type", "bearer");
+            return new TokenResult(props);
+        }
+
+        @Override
+        public Client getAuthorizedClient() {
+            return null;
+        }
+
+        @Override
+        public Feature getOAuth2Feature() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class PageIteratorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFetchedWhenRequested() {
+        CountingLoader loader = new CountingLoader(3, -1);
+        PageIterator<ItemIterable> pages = new PageIterator<>(loader.page(0),
+                                                              loader);
+        assertTrue(pages.hasNext());
+        assertEquals("0.0", first(pages.next()));
+        assertEquals(0, loader.loaded.get());
+        assertEquals("1.0", first(pages.next()));
+        assertEquals("2.0", first(pages.next()));
+        assertEquals(2, loader.loaded.get());
+        assertFalse(pages.hasNext());
+    }
+
+    @Test
+    public void testBoundedLookAhead() throws InterruptedException {
+        CountingLoader loader = new CountingLoader(10, -1);
+        try (PageIterator<ItemIterable> pages = new PageIterator<>(loader
+            .page(0), loader, 2, executor)) {
+            awaitLoaded(loader, 2);
+            Thread.sleep(50);
+            // first page and two pages ahead, not more
+            assertEquals(2, loader.loaded.get());
+            assertEquals("0.0", first(pages.next()));
+            assertEquals("1.0", first(pages.next()));
+            awaitLoaded(loader, 3);
+            Thread.sleep(50);
+            assertEquals(3, loader.loaded.get());
+            int count = 2;
+            while (pages.hasNext()) {
+                assertEquals(count + ".0", first(pages.next()));
+                count++;
+            }
+            assertEquals(10, count);
+        }
+    }
+
+    @Test
+    public void testFailurePropagated() {
+        CountingLoader loader = new CountingLoader(10, 2);
+        try (PageIterator<ItemIterable> pages = new PageIterator<>(loader
+            .page(0), loader, 3, executor)) {
+            pages.next();
+            pages.next();
+            try {
+                pages.next();
+                fail("Expected OneDriveException");
+            } catch (OneDriveException e) {
+                assertEquals("Failure loading page: 2", e.getMessage());
+            }
+            assertFalse(pages.hasNext());
+        }
+    }
+
+    @Test
+    public void testCloseStopsFetching() throws InterruptedException {
+        CountingLoader loader = new CountingLoader(100, -1);
+        PageIterator<ItemIterable> pages = new PageIterator<>(loader.page(0),
+                                                              loader, 1,
+                                                              executor);
+        pages.next();
+        pages.close();
+        assertFalse(pages.hasNext());
+        int loaded = loader.loaded.get();
+        Thread.sleep(100);
+        assertTrue(loader.loaded.get() <= loaded + 1);
+    }
+
+    @Test
+    public void testItemIteratorSkipsEmptyPages() {
+        CountingLoader loader = new CountingLoader(4, -1);
+        loader.empty = 2;
+        List<String> names = new ArrayList<>();
+        try (ItemIterator items = new ItemIterator(new PageIterator<>(loader
+            .page(0), loader, 2, executor))) {
+            while (items.hasNext()) {
+                names.add(items.next().getName());
+            }
+        }
+        assertEquals("[0.0, 0.1, 1.0, 1.1, 3.0, 3.1]", names.toString());
+    }
+
+    private void awaitLoaded(CountingLoader loader, int count)
+        throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loader.loaded.get() < count
+               && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private String first(ItemIterable page) {
+        return page.innerIterator().next().getName();
+    }
+
+    /**
+     * Loader of numbered pages of two items
+     */
+    private static class CountingLoader implements PageLoader<ItemIterable> {
+
+        private final AtomicInteger loaded = new AtomicInteger();
+
+        private final int pages;
+
+        private final int failing;
+
+        private volatile int empty = -1;
+
+        CountingLoader(int pages, int failing) {
+            this.pages = pages;
+            this.failing = failing;
+        }
+
+        @Override
+        public ItemIterable load(URI uri) {
+            int number = Integer.parseInt(uri.getPath().substring(6));
+            loaded.incrementAndGet();
+            if (number == failing) {
+                throw new OneDriveException("Failure loading page: "
+                                            + number);
+            }
+            return page(number);
+        }
+
+        ItemCollection page(int number) {
+            ItemCollection page = new ItemCollection();
+            List<Item> items = new LinkedList<>();
+            if (number != empty) {
+                for (int i = 0; i < 2; i++) {
+                    Item item = new Item(number + "." + i);
+                    item.setName(number + "." + i);
+                    items.add(item);
+                }
+            }
+            page.setValue(items);
+            if (number + 1 < pages) {
+                try {
+                    page.setNextLink(new URL("http://localhost/page/"
+                                             + (number + 1)));
+                } catch (MalformedURLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return page;
+        }
+    }
+}
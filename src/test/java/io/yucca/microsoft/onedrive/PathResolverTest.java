@@ -0,0 +1,222 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.actions.ListChildrenAction;
+import io.yucca.microsoft.onedrive.actions.MetadataAction;
+import io.yucca.microsoft.onedrive.actions.SyncAction;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.addressing.PathAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+import io.yucca.microsoft.onedrive.resources.ItemReference;
+import io.yucca.microsoft.onedrive.resources.facets.FolderFacet;
+
+public class PathResolverTest {
+
+    private static final String ITEM = "{\"id\":\"item\",\"name\":\"file.txt\",\"parentReference\":{\"id\":\"parent\",\"path\":\"/drive/root:/Documents\"}}";
+
+    private static final String ERROR = "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"Item does not exist\"}}";
+
+    private static final String CHILDREN = "{\"value\":[]}";
+
+    private static final String DELTA = "{\"value\":[{\"id\":\"item\",\"name\":\"file.txt\",\"deleted\":{}}]}";
+
+    private final List<String> requests = new ArrayList<>();
+
+    private volatile boolean idGone;
+
+    private HttpServer server;
+
+    private LocalAPIConnection api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                String path = exchange.getRequestURI().getPath();
+                synchronized (requests) {
+                    requests.add(path);
+                }
+                int status = 200;
+                String body = ITEM;
+                if (path.equals("/delta")) {
+                    body = DELTA;
+                } else if (path.endsWith("/children")) {
+                    body = CHILDREN;
+                } else if (idGone && path.startsWith("/drive/items/")) {
+                    status = 404;
+                    body = ERROR;
+                }
+                byte[] bytes = body.getBytes("UTF-8");
+                exchange.getResponseHeaders()
+                    .add("Content-Type", MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(status, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        api = new LocalAPIConnection(URI.create("http://localhost:"
+                                                + server.getAddress()
+                                                    .getPort()),
+                                     new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testResolve() {
+        PathResolver resolver = new PathResolver(10);
+        ItemAddress address = new PathAddress("Documents/file.txt");
+        assertSame(address, resolver.resolve(address));
+        resolver.update(newItem("item", "/drive/root:/Documents", "file.txt",
+                                false));
+        ItemAddress resolved = resolver.resolve(address);
+        assertTrue(resolved instanceof IdAddress);
+        assertEquals("item", resolved.getAddress());
+        assertEquals("/drive/root:/Documents/file.txt",
+                     resolver.getPath("item"));
+        assertEquals(1, resolver.getResolved());
+    }
+
+    @Test
+    public void testFolderEtag() {
+        PathResolver resolver = new PathResolver(10);
+        Item folder = newItem("folder", "/drive/root:", "Documents", true);
+        folder.seteTag("aETag");
+        resolver.update(folder);
+        assertEquals("aETag", resolver.getEtag(new PathAddress("Documents")));
+        assertEquals("aETag", resolver.getEtag(new IdAddress("folder")));
+    }
+
+    @Test
+    public void testMovedFolderRemovesDescendants() {
+        PathResolver resolver = new PathResolver(10);
+        resolver.update(newItem("folder", "/drive/root:", "A", true));
+        resolver.update(newItem("child", "/drive/root:/A", "file.txt", false));
+        resolver.update(newItem("sibling", "/drive/root:", "AB", false));
+        resolver.update(newItem("folder", "/drive/root:/B", "A", true));
+        assertNull(resolver.getPath("child"));
+        assertEquals("/drive/root:/AB", resolver.getPath("sibling"));
+        assertEquals("folder", resolver.resolve(new PathAddress("B/A"))
+            .getAddress());
+        assertSame(IdAddress.class, resolver
+            .resolve(new PathAddress("B/A")).getClass());
+        assertEquals(2, resolver.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        PathResolver resolver = new PathResolver(2);
+        resolver.update(newItem("1", "/drive/root:", "one", false));
+        resolver.update(newItem("2", "/drive/root:", "two", false));
+        resolver.resolve(new PathAddress("one"));
+        resolver.update(newItem("3", "/drive/root:", "three", false));
+        assertNull(resolver.getPath("2"));
+        assertEquals("/drive/root:/one", resolver.getPath("1"));
+    }
+
+    @Test
+    public void testRepeatedPathRequestByIdentifier() {
+        ItemAddress address = new PathAddress("Documents/file.txt");
+        new MetadataAction(api, address).call();
+        new MetadataAction(api, address).call();
+        assertEquals(2, requests.size());
+        assertEquals("/drive/root:/Documents/file.txt", requests.get(0));
+        assertEquals("/drive/items/item", requests.get(1));
+    }
+
+    @Test
+    public void testStaleMappingRetriedByPath() {
+        ItemAddress address = new PathAddress("Documents/file.txt");
+        new MetadataAction(api, address).call();
+        idGone = true;
+        Item item = new MetadataAction(api, address).call();
+        assertEquals("item", item.getId());
+        assertEquals(3, requests.size());
+        assertEquals("/drive/items/item", requests.get(1));
+        assertEquals("/drive/root:/Documents/file.txt", requests.get(2));
+    }
+
+    @Test
+    public void testChildrenRequestedByPath() {
+        ItemAddress address = new PathAddress("Documents/file.txt");
+        new MetadataAction(api, address).call();
+        new ListChildrenAction(api, address, null, null).call();
+        assertEquals(2, requests.size());
+        assertEquals("/drive/root:/Documents/file.txt:/children",
+                     requests.get(1));
+    }
+
+    @Test
+    public void testDeltaRemovesMapping() {
+        new MetadataAction(api, new PathAddress("Documents/file.txt")).call();
+        assertEquals("/drive/root:/Documents/file.txt",
+                     api.getPathResolver().getPath("item"));
+        SyncAction.byURI(api, URI.create("http://localhost:"
+                                         + server.getAddress().getPort()
+                                         + "/delta"));
+        assertNull(api.getPathResolver().getPath("item"));
+    }
+
+    private Item newItem(String id, String parentPath, String name,
+                         boolean folder) {
+        Item item = new Item(id);
+        item.setName(name);
+        ItemReference parent = new ItemReference();
+        parent.setPath(parentPath);
+        item.setParentReference(parent);
+        if (folder) {
+            item.setFolder(new FolderFacet());
+        }
+        return item;
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.actions.CreateAction;
+import io.yucca.microsoft.onedrive.actions.MetadataAction;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class ThrottlingControllerTest {
+
+    private static final String ITEM = "{\"id\":\"item\",\"name\":\"file.txt\"}";
+
+    private static final URI ENDPOINT = URI.create("https://api.onedrive.com/v1.0/drive/root");
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile int throttledResponses;
+
+    private volatile String retryAfter;
+
+    private HttpServer server;
+
+    private LocalAPIConnection api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                if (requests.incrementAndGet() <= throttledResponses) {
+                    if (retryAfter != null) {
+                        exchange.getResponseHeaders()
+                            .add(ThrottlingController.RETRY_AFTER, retryAfter);
+                    }
+                    exchange.sendResponseHeaders(429, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] bytes = ITEM.getBytes("UTF-8");
+                exchange.getResponseHeaders()
+                    .add("Content-Type", MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        api = new LocalAPIConnection(URI.create("http://localhost:"
+                                                + server.getAddress()
+                                                    .getPort()),
+                                     new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testRetryAfter() {
+        assertEquals(-1, ThrottlingController.retryAfter(null));
+        assertEquals(-1, ThrottlingController.retryAfter("soon"));
+        assertEquals(5000, ThrottlingController.retryAfter("5"));
+        assertEquals(0, ThrottlingController.retryAfter("-5"));
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME
+            .format(ZonedDateTime.now().plusSeconds(30));
+        long delay = ThrottlingController.retryAfter(date);
+        assertTrue(delay > 25000 && delay <= 30000);
+    }
+
+    @Test
+    public void testBackoffJitteredAndCapped() {
+        ThrottlingController controller = new ThrottlingController(10, 5,
+                                                                   4000);
+        for (int i = 0; i < 100; i++) {
+            long backoff = controller.backoff(0);
+            assertTrue(backoff >= 500 && backoff <= 1000);
+            backoff = controller.backoff(10);
+            assertTrue(backoff >= 2000 && backoff <= 4000);
+        }
+        assertTrue(controller.mayRetry(4, 4000));
+        assertFalse(controller.mayRetry(5, 1000));
+        assertFalse(controller.mayRetry(0, 5000));
+    }
+
+    @Test
+    public void testPausedAndRateLimited() throws InterruptedException {
+        ThrottlingController controller = new ThrottlingController(20, 5,
+                                                                   60000);
+        long start = System.currentTimeMillis();
+        controller.acquire(ENDPOINT);
+        assertFalse(controller.isThrottled(ENDPOINT));
+        assertTrue(System.currentTimeMillis() - start < 50);
+
+        assertEquals(200, controller.onThrottled(ENDPOINT, 200, 0));
+        assertTrue(controller.isThrottled(ENDPOINT));
+        assertFalse(controller
+            .isThrottled(URI.create("https://public.bn1303.livefilestore.com/y3m")));
+        start = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            controller.acquire(ENDPOINT);
+        }
+        // pause of 200 ms, then 5 requests at 20 per second
+        assertTrue(System.currentTimeMillis() - start >= 400);
+        assertEquals(1, controller.getThrottled());
+    }
+
+    @Test
+    public void testBucketSlowdownAndRecovery() {
+        ThrottlingController.Bucket bucket = new ThrottlingController.Bucket(8);
+        assertEquals(8, bucket.throttle(1000, 100), 0);
+        // concurrent throttling responses during the pause do not slow down
+        assertEquals(8, bucket.throttle(1050, 100), 0);
+        assertEquals(4, bucket.throttle(2000, 100), 0);
+        assertFalse(bucket.recover(3000, 8));
+        long quiet = 2000 + ThrottlingController.RECOVERY_PERIOD;
+        assertFalse(bucket.recover(quiet, 8));
+        assertEquals(8, bucket.getRate(), 0);
+        assertTrue(bucket.recover(quiet + ThrottlingController.RECOVERY_PERIOD,
+                                  8));
+    }
+
+    @Test
+    public void testIdempotentRequestRetried() {
+        throttledResponses = 2;
+        retryAfter = "0";
+        Item item = new MetadataAction(api, new IdAddress("item")).call();
+        assertEquals("item", item.getId());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testRetryAfterHonored() {
+        throttledResponses = 1;
+        retryAfter = "1";
+        long start = System.currentTimeMillis();
+        new MetadataAction(api, new IdAddress("item")).call();
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testNonIdempotentRequestNotRetried() {
+        throttledResponses = 1;
+        retryAfter = "0";
+        try {
+            new CreateAction(api, "folder", new IdAddress("parent"),
+                             ConflictBehavior.FAIL).call();
+            fail("Expected OneDriveException");
+        } catch (OneDriveException e) {
+            assertEquals(1, requests.get());
+        }
+    }
+}
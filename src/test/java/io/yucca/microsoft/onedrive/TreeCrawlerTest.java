@@ -0,0 +1,233 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.ItemVisitor.VisitResult;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class TreeCrawlerTest {
+
+    private final List<URI> requests = new ArrayList<>();
+
+    private final Map<String, String> responses = new HashMap<>();
+
+    private HttpServer server;
+
+    private String serverURI;
+
+    private LocalAPIConnection api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    while (in.read() != -1) {
+                        // consume request
+                    }
+                }
+                URI uri = exchange.getRequestURI();
+                synchronized (requests) {
+                    requests.add(uri);
+                }
+                String json = responses.get(uri.getPath());
+                int status = 200;
+                if (json == null) {
+                    status = 404;
+                    json = "{\"error\":{\"code\":\"itemNotFound\",\"message\":\"not found\"}}";
+                }
+                byte[] bytes = json.getBytes("UTF-8");
+                exchange.getResponseHeaders()
+                    .add("Content-Type", MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(status, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        serverURI = "http://localhost:" + server.getAddress().getPort();
+        api = new LocalAPIConnection(URI.create(serverURI),
+                                     new OneDriveConfiguration(null));
+        // root: folders a and b (empty), file f1, next page with file f2
+        responses.put("/drive/items/root",
+                      "{\"id\":\"root\",\"folder\":{\"childCount\":4},"
+                                           + "\"children\":[" + folder("a", 2)
+                                           + "," + folder("b", 0) + ","
+                                           + file("f1") + "],"
+                                           + "\"children@odata.nextLink\":\""
+                                           + serverURI + "/page/root\"}");
+        responses.put("/page/root", "{\"value\":[" + file("f2") + "]}");
+        // a: file a1 and folder c without childCount
+        responses.put("/drive/items/a",
+                      "{\"id\":\"a\",\"folder\":{\"childCount\":2},"
+                                        + "\"children\":[" + file("a1")
+                                        + ",{\"id\":\"c\",\"folder\":{}}]}");
+        responses.put("/drive/items/c",
+                      "{\"id\":\"c\",\"folder\":{\"childCount\":1},"
+                                        + "\"children\":[" + file("c1")
+                                        + "]}");
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    private static String folder(String id, int childCount) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + id
+               + "\",\"folder\":{\"childCount\":" + childCount + "}}";
+    }
+
+    private static String file(String id) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + id + "\",\"file\":{}}";
+    }
+
+    private List<String> requestedPaths() {
+        List<String> paths = new ArrayList<>();
+        synchronized (requests) {
+            for (URI uri : requests) {
+                paths.add(uri.getPath());
+            }
+        }
+        return paths;
+    }
+
+    @Test
+    public void testCrawlBreadthFirst() {
+        // single worker and queue of one item, so workers block on the visitor
+        TreeCrawler crawler = new TreeCrawler(api, 1, 1);
+        RecordingVisitor visitor = new RecordingVisitor();
+        crawler.crawl(new IdAddress("root"), visitor, "name");
+        assertEquals("[a, b, f1, f2, a1, c, c1]", visitor.visited.toString());
+        List<String> paths = requestedPaths();
+        assertEquals(4, paths.size());
+        assertFalse("empty folder is not listed",
+                    paths.contains("/drive/items/b"));
+        String query = requests.get(0).getQuery();
+        assertTrue(query, query.contains("expand=children(select=name,id"));
+    }
+
+    @Test
+    public void testCrawlParallel() {
+        TreeCrawler crawler = new TreeCrawler(api, 4, 2);
+        RecordingVisitor visitor = new RecordingVisitor();
+        crawler.crawl(new IdAddress("root"), visitor);
+        assertEquals(7, visitor.visited.size());
+        assertTrue(visitor.visited.indexOf("c") < visitor.visited
+            .indexOf("c1"));
+    }
+
+    @Test
+    public void testSkipSubtree() {
+        TreeCrawler crawler = new TreeCrawler(api, 2, 10);
+        RecordingVisitor visitor = new RecordingVisitor() {
+
+            @Override
+            public VisitResult visit(Item item) {
+                super.visit(item);
+                return "a".equals(item.getId()) ? VisitResult.SKIP_SUBTREE
+                    : VisitResult.CONTINUE;
+            }
+        };
+        crawler.crawl(new IdAddress("root"), visitor);
+        assertEquals(4, visitor.visited.size());
+        assertFalse(requestedPaths().contains("/drive/items/a"));
+    }
+
+    @Test
+    public void testTerminate() {
+        TreeCrawler crawler = new TreeCrawler(api, 2, 1);
+        RecordingVisitor visitor = new RecordingVisitor() {
+
+            @Override
+            public VisitResult visit(Item item) {
+                super.visit(item);
+                return VisitResult.TERMINATE;
+            }
+        };
+        crawler.crawl(new IdAddress("root"), visitor);
+        assertEquals("[a]", visitor.visited.toString());
+    }
+
+    @Test
+    public void testVisitFailed() {
+        responses.remove("/drive/items/c");
+        TreeCrawler crawler = new TreeCrawler(api, 2, 10);
+        RecordingVisitor visitor = new RecordingVisitor();
+        crawler.crawl(new IdAddress("root"), visitor);
+        assertEquals(6, visitor.visited.size());
+        assertEquals("[c]", visitor.failed.toString());
+    }
+
+    @Test
+    public void testRootFailure() {
+        TreeCrawler crawler = new TreeCrawler(api);
+        try {
+            crawler.crawl(new IdAddress("missing"), new RecordingVisitor());
+            fail("OneDriveException expected");
+        } catch (OneDriveException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("missing"));
+        }
+    }
+
+    private static class RecordingVisitor implements ItemVisitor {
+
+        final List<String> visited = new ArrayList<>();
+
+        final List<String> failed = new ArrayList<>();
+
+        @Override
+        public VisitResult visit(Item item) {
+            visited.add(item.getId());
+            return VisitResult.CONTINUE;
+        }
+
+        @Override
+        public VisitResult visitFailed(Item folder, OneDriveException e) {
+            failed.add(folder.getId());
+            return VisitResult.CONTINUE;
+        }
+    }
+}
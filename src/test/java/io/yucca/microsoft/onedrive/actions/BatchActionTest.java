@@ -0,0 +1,267 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.LocalAPIConnection;
+import io.yucca.microsoft.onedrive.NotModifiedException;
+import io.yucca.microsoft.onedrive.OneDriveConfiguration;
+import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class BatchActionTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<JsonNode> batches = new ArrayList<>();
+
+    private HttpServer server;
+
+    private LocalAPIConnection api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                JsonNode batch;
+                try (InputStream in = exchange.getRequestBody()) {
+                    batch = mapper.readTree(in);
+                }
+                int status = 200;
+                JsonNode body = batch;
+                if (exchange.getRequestURI().getPath().equals("/$batch")
+                    && "POST".equals(exchange.getRequestMethod())) {
+                    synchronized (batches) {
+                        batches.add(batch);
+                    }
+                    body = respond(batch.get("requests"));
+                } else {
+                    status = 404;
+                }
+                byte[] bytes = mapper.writeValueAsBytes(body);
+                exchange.getResponseHeaders()
+                    .add("Content-Type", MediaType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(status, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        api = new LocalAPIConnection(URI.create("http://localhost:"
+                                                + server.getAddress()
+                                                    .getPort()),
+                                     new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    /**
+     * Stand-in for the batch endpoint, responses are returned in reverse
+     * order to verify mapping by identifier
+     */
+    private JsonNode respond(JsonNode requests) {
+        ObjectNode result = mapper.createObjectNode();
+        ArrayNode responses = result.putArray("responses");
+        Set<String> failed = new HashSet<>();
+        for (JsonNode request : requests) {
+            String id = request.get("id").asText();
+            String method = request.get("method").asText();
+            String url = request.get("url").asText();
+            ObjectNode response = mapper.createObjectNode();
+            response.put("id", id);
+            int status;
+            boolean dependencyFailed = false;
+            if (request.has("dependsOn")) {
+                for (JsonNode dependency : request.get("dependsOn")) {
+                    dependencyFailed |= failed.contains(dependency.asText());
+                }
+            }
+            if (dependencyFailed) {
+                status = 424;
+            } else if (url.contains("missing")) {
+                status = 404;
+                response.putObject("body").putObject("error")
+                    .put("code", "itemNotFound");
+            } else if (request.has("headers") && request.get("headers")
+                .has(AbstractAction.HEADER_IF_NONE_MATCH)) {
+                status = 304;
+            } else if ("DELETE".equals(method)) {
+                status = 204;
+            } else if ("POST".equals(method)) {
+                status = 201;
+                response.putObject("body").put("id", "new")
+                    .put("name", request.get("body").get("name").asText());
+            } else {
+                status = 200;
+                response.putObject("body").put("id", url
+                    .substring(url.lastIndexOf('/') + 1));
+            }
+            if (status >= 400) {
+                failed.add(id);
+            }
+            response.put("status", status);
+            responses.insert(0, response);
+        }
+        return result;
+    }
+
+    @Test
+    public void testResultMapping() {
+        BatchAction.Builder builder = BatchAction.Builder.newBatch(api);
+        BatchStep<Item> metadata = builder.metadata(new IdAddress("item1"));
+        BatchStep<Item> missing = builder.metadata(new IdAddress("missing"));
+        BatchStep<Void> delete = builder.delete(new IdAddress("item2"), null);
+        BatchStep<Item> create = builder.create("folder",
+                                                new IdAddress("parent"), null);
+        BatchStep<Item> move = builder.move(new IdAddress("item3"), null,
+                                            new IdAddress("parent"));
+        builder.build().call();
+
+        assertEquals(1, batches.size());
+        assertEquals("item1", metadata.get().getId());
+        assertNull(delete.get());
+        assertEquals(204, delete.getStatus());
+        assertEquals("folder", create.get().getName());
+        assertEquals("item3", move.get().getId());
+        JsonNode moveRequest = batches.get(0).get("requests").get(4);
+        assertEquals("PATCH", moveRequest.get("method").asText());
+        assertEquals("/drive/items/item3", moveRequest.get("url").asText());
+        assertEquals(MediaType.APPLICATION_JSON, moveRequest.get("headers")
+            .get("Content-Type").asText());
+        JsonNode moveBody = moveRequest.get("body");
+        assertTrue(moveBody.has(AbstractAction.PARENT_REFERENCE));
+        assertFalse(moveBody.has("name"));
+        try {
+            missing.get();
+            fail("Expected OneDriveException");
+        } catch (OneDriveException e) {
+            assertEquals("itemNotFound", e.getError().getError().getCode());
+            assertEquals(404, missing.getStatus());
+        }
+    }
+
+    @Test
+    public void testSplitInBatches() {
+        BatchAction.Builder builder = BatchAction.Builder.newBatch(api);
+        for (int i = 0; i < 45; i++) {
+            builder.metadata(new IdAddress("item" + i));
+        }
+        List<BatchStep<?>> steps = builder.build().call();
+
+        assertEquals(3, batches.size());
+        assertEquals(BatchAction.MAX_REQUESTS,
+                     batches.get(0).get("requests").size());
+        assertEquals(BatchAction.MAX_REQUESTS,
+                     batches.get(1).get("requests").size());
+        assertEquals(5, batches.get(2).get("requests").size());
+        for (int i = 0; i < 45; i++) {
+            assertEquals("item" + i, ((Item)steps.get(i).get()).getId());
+        }
+    }
+
+    @Test
+    public void testDependsOn() {
+        BatchAction.Builder builder = BatchAction.Builder.newBatch(api);
+        BatchStep<Item> missing = builder.metadata(new IdAddress("missing"));
+        BatchStep<Void> sameBatch = builder
+            .delete(new IdAddress("item1"), null).dependsOn(missing);
+        BatchStep<Item> create = builder.create("folder",
+                                                new IdAddress("parent"), null);
+        for (int i = 0; i < BatchAction.MAX_REQUESTS; i++) {
+            builder.metadata(new IdAddress("item" + i));
+        }
+        BatchStep<Void> nextBatchFailed = builder
+            .delete(new IdAddress("item2"), null).dependsOn(missing);
+        BatchStep<Item> nextBatchSucceeded = builder
+            .move(new IdAddress("item3"), null, new IdAddress("new"))
+            .dependsOn(create);
+        builder.build().call();
+
+        assertEquals(2, batches.size());
+        JsonNode dependent = batches.get(0).get("requests").get(1);
+        assertEquals(missing.getId(),
+                     dependent.get("dependsOn").get(0).asText());
+        assertEquals(424, sameBatch.getStatus());
+        assertTrue(sameBatch.isDone() && !sameBatch.isSuccessful());
+        assertEquals(424, nextBatchFailed.getStatus());
+        assertEquals("item3", nextBatchSucceeded.get().getId());
+        // the remaining metadata requests and the move, the failed dependent
+        // is not sent and the dependency on the earlier batch is dropped
+        JsonNode next = batches.get(1).get("requests");
+        assertEquals(4, next.size());
+        assertEquals("/drive/items/item3", next.get(3).get("url").asText());
+        assertTrue(!next.get(3).has("dependsOn"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDependsOnLaterStep() {
+        BatchAction.Builder builder = BatchAction.Builder.newBatch(api);
+        BatchStep<Item> first = builder.metadata(new IdAddress("item1"));
+        BatchStep<Item> second = builder.metadata(new IdAddress("item2"));
+        first.dependsOn(second);
+    }
+
+    @Test(expected = NotModifiedException.class)
+    public void testNotModified() {
+        BatchAction.Builder builder = BatchAction.Builder.newBatch(api);
+        BatchStep<Item> metadata = builder
+            .metadata(new IdAddress("item1"), "aEtag", null);
+        builder.build().call();
+        metadata.get();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotExecuted() {
+        BatchAction.Builder.newBatch(api).metadata(new IdAddress("item1"))
+            .get();
+    }
+}
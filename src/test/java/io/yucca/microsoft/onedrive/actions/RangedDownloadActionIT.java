@@ -0,0 +1,52 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.yucca.microsoft.onedrive.TestMother;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class RangedDownloadActionIT extends AbstractActionIT {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRangedDownload() throws IOException {
+        Item item = new MetadataAction(api, new IdAddress(uploadedItemId))
+            .call();
+        Path target = folder.getRoot().toPath().resolve(item.getName());
+        // ranges of 4 bytes to force multiple range requests
+        RangedDownloadAction action = new RangedDownloadAction(api, item,
+                                                               target, 4, 3);
+        assertEquals(target, action.call());
+        assertArrayEquals(Files.readAllBytes(Paths
+            .get(TestMother.ITEM_UPLOAD_1_PATH)), Files.readAllBytes(target));
+    }
+
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.LocalAPIConnection;
+import io.yucca.microsoft.onedrive.OneDriveConfiguration;
+import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class RangedDownloadActionTest {
+
+    private static final int FRAGMENT_SIZE = 64 * 1024;
+
+    private static final int LENGTH = FRAGMENT_SIZE * 5 + 123;
+
+    private static final String ETAG = "aETag";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Status to respond, once, to the range starting at an offset, 0 drops
+     * the connection halfway the range
+     */
+    private final Map<Long, Integer> failures = new HashMap<>();
+
+    private final List<String> requests = new ArrayList<>();
+
+    private HttpServer server;
+
+    private LocalAPIConnection api;
+
+    private Path target;
+
+    private byte[] data;
+
+    @Before
+    public void setUp() throws IOException {
+        data = new byte[LENGTH];
+        new Random(42).nextBytes(data);
+        target = folder.getRoot().toPath().resolve("download.bin");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try (InputStream in = exchange.getRequestBody()) {
+                    // no request content
+                }
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                String ifMatch = exchange.getRequestHeaders()
+                    .getFirst("If-Match");
+                synchronized (requests) {
+                    requests.add(range);
+                }
+                if (!("\"" + ETAG + "\"").equals(ifMatch)) {
+                    exchange.sendResponseHeaders(412, -1);
+                    exchange.close();
+                    return;
+                }
+                // Range: bytes=lower-upper
+                String[] bounds = range.substring(range.indexOf('=') + 1)
+                    .split("-");
+                int lower = Integer.parseInt(bounds[0]);
+                int upper = Integer.parseInt(bounds[1]);
+                Integer failure;
+                synchronized (failures) {
+                    failure = failures.remove((long)lower);
+                }
+                if (failure != null && failure != 0) {
+                    exchange.getResponseHeaders().add("Retry-After", "2");
+                    exchange.sendResponseHeaders(failure, -1);
+                    exchange.close();
+                    return;
+                }
+                int length = upper - lower + 1;
+                exchange.getResponseHeaders()
+                    .add("Content-Range", "bytes " + lower + "-" + upper + "/"
+                                          + LENGTH);
+                exchange.getResponseHeaders()
+                    .add("Content-Type", MediaType.APPLICATION_OCTET_STREAM);
+                exchange.sendResponseHeaders(206, length);
+                OutputStream out = exchange.getResponseBody();
+                if (failure != null) {
+                    // close the connection before all content is sent
+                    out.write(data, lower, length / 2);
+                    out.flush();
+                    exchange.close();
+                    return;
+                }
+                out.write(data, lower, length);
+                exchange.close();
+            }
+        });
+        server.start();
+        OneDriveConfiguration configuration = new OneDriveConfiguration(null);
+        // throttled requests are returned to the action
+        configuration.setMaxRetries(0);
+        api = new LocalAPIConnection(URI.create("http://localhost:"
+                                                + server.getAddress()
+                                                    .getPort()),
+                                     configuration);
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testDownloadRanges() throws IOException {
+        download(ETAG);
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(6, requests.size());
+        assertEquals(6, new HashSet<>(requests).size());
+        assertTrue(requests.contains("bytes=0-" + (FRAGMENT_SIZE - 1)));
+        assertTrue(requests.contains("bytes=" + FRAGMENT_SIZE * 5 + "-"
+                                     + (LENGTH - 1)));
+    }
+
+    @Test
+    public void testRetriesFailedRanges() throws IOException {
+        failures.put((long)FRAGMENT_SIZE * 2, 503);
+        failures.put((long)FRAGMENT_SIZE * 3, 0);
+        download(ETAG);
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(8, requests.size());
+    }
+
+    @Test
+    public void testRetriesThrottledRange() throws IOException {
+        failures.put((long)FRAGMENT_SIZE, 429);
+        long start = System.currentTimeMillis();
+        download(ETAG);
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(7, requests.size());
+        // the Retry-After of 2 seconds exceeds the initial back off
+        assertTrue(System.currentTimeMillis() - start >= 2000);
+    }
+
+    @Test
+    public void testChangedItemFails() {
+        try {
+            download("oldETag");
+            fail("Expected OneDriveException");
+        } catch (OneDriveException e) {
+            // expected
+        }
+    }
+
+    private void download(String eTag) {
+        Item item = new Item("item");
+        item.seteTag(eTag);
+        item.setSize((long)LENGTH);
+        assertEquals(target, new RangedDownloadAction(api, item, target,
+                                                      FRAGMENT_SIZE, 3).call());
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.yucca.microsoft.onedrive.TestMother;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+import io.yucca.microsoft.onedrive.addressing.ItemAddress;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class ResumableDownloadActionIT extends AbstractActionIT {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDownload() throws IOException {
+        ItemAddress itemAddress = new IdAddress(uploadedItemId);
+        Path target = folder.getRoot().toPath().resolve("download.txt");
+        new ResumableDownloadAction(api, itemAddress, target).call();
+        assertArrayEquals(Files.readAllBytes(Paths
+            .get(TestMother.ITEM_UPLOAD_1_PATH)), Files.readAllBytes(target));
+    }
+
+    @Test
+    public void testResumeDownload() throws IOException {
+        ItemAddress itemAddress = new IdAddress(uploadedItemId);
+        Item item = new MetadataAction(api, itemAddress).call();
+        byte[] content = Files.readAllBytes(Paths
+            .get(TestMother.ITEM_UPLOAD_1_PATH));
+        Path target = folder.getRoot().toPath().resolve("download.txt");
+        Path partial = folder.getRoot().toPath().resolve("download.txt"
+                                                         + ResumableDownloadAction.PARTIAL_EXTENSION);
+        Path checkpoint = folder.getRoot().toPath()
+            .resolve("download.txt" + ResumableDownloadAction.PARTIAL_EXTENSION
+                     + ResumableDownloadAction.CHECKPOINT_EXTENSION);
+        // simulate an interrupted download
+        Files.write(partial, Arrays.copyOf(content, 5));
+        Properties props = new Properties();
+        props.setProperty(ResumableDownloadAction.KEY_ETAG, item.geteTag());
+        props.setProperty(ResumableDownloadAction.KEY_OFFSET, "5");
+        try (OutputStream out = Files.newOutputStream(checkpoint)) {
+            props.store(out, null);
+        }
+        new ResumableDownloadAction(api, itemAddress, target).call();
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertFalse(Files.exists(partial));
+        assertFalse(Files.exists(checkpoint));
+    }
+
+}
@@ -0,0 +1,268 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.LocalAPIConnection;
+import io.yucca.microsoft.onedrive.OneDriveConfiguration;
+import io.yucca.microsoft.onedrive.addressing.IdAddress;
+
+public class ResumableDownloadActionTest {
+
+    private static final int LENGTH = 256 * 1024;
+
+    private static final int OFFSET = 100 * 1024;
+
+    private static final String ETAG = "aETag";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Requests received as method, path, Range and If-Match header
+     */
+    private final List<String> requests = new ArrayList<>();
+
+    private HttpServer server;
+
+    private LocalAPIConnection api;
+
+    private Path target;
+
+    private byte[] data;
+
+    private volatile String eTag = ETAG;
+
+    private volatile int dropAfter = -1;
+
+    private volatile boolean ignoreRange;
+
+    @Before
+    public void setUp() throws IOException {
+        data = new byte[LENGTH];
+        new Random(42).nextBytes(data);
+        target = folder.getRoot().toPath().resolve("download.bin");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                String ifMatch = exchange.getRequestHeaders()
+                    .getFirst("If-Match");
+                synchronized (requests) {
+                    requests.add(exchange.getRequestMethod() + " " + path + " "
+                                 + range + " " + ifMatch);
+                }
+                if (!path.endsWith(ResumableDownloadAction.ACTION)) {
+                    metadata(exchange);
+                } else if (ifMatch != null && (eTag == null || !ifMatch
+                    .equals("\"" + eTag + "\""))) {
+                    exchange.sendResponseHeaders(412, -1);
+                    exchange.close();
+                } else {
+                    content(exchange, range);
+                }
+            }
+        });
+        server.start();
+        api = new LocalAPIConnection(URI.create("http://localhost:"
+                                                + server.getAddress()
+                                                    .getPort()),
+                                     new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testDownload() throws IOException {
+        download();
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(Arrays.asList("GET /drive/items/item null null",
+                                   "GET /drive/items/item/content bytes=0- \""
+                                                                      + ETAG
+                                                                      + "\""),
+                     requests);
+        assertFalse(Files.exists(partial()));
+        assertFalse(Files.exists(checkpoint()));
+    }
+
+    @Test
+    public void testResumeAfterDroppedConnection() throws IOException {
+        dropAfter = OFFSET;
+        download();
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(3, requests.size());
+        String resumed = requests.get(2);
+        assertTrue(resumed.startsWith("GET /drive/items/item/content bytes="));
+        assertFalse(resumed.contains("bytes=0-"));
+        assertTrue(resumed.endsWith("\"" + ETAG + "\""));
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws IOException {
+        writeCheckpoint(ETAG);
+        download();
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(Arrays.asList("GET /drive/items/item/content bytes="
+                                   + OFFSET + "- \"" + ETAG + "\""),
+                     requests);
+        assertFalse(Files.exists(checkpoint()));
+    }
+
+    @Test
+    public void testChangedItemRestarts() throws IOException {
+        writeCheckpoint("oldETag");
+        download();
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(Arrays.asList("GET /drive/items/item/content bytes="
+                                   + OFFSET + "- \"oldETag\"",
+                                   "GET /drive/items/item null null",
+                                   "GET /drive/items/item/content bytes=0- \""
+                                                                      + ETAG
+                                                                      + "\""),
+                     requests);
+    }
+
+    @Test
+    public void testIgnoredRangeRestarts() throws IOException {
+        ignoreRange = true;
+        writeCheckpoint(ETAG);
+        download();
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void testItemWithoutEtag() throws IOException {
+        eTag = null;
+        dropAfter = OFFSET;
+        download();
+        assertArrayEquals(data, Files.readAllBytes(target));
+        // the unguarded download is not resumed from the dropped offset
+        assertEquals(Arrays.asList("GET /drive/items/item null null",
+                                   "GET /drive/items/item/content bytes=0- null",
+                                   "GET /drive/items/item/content bytes=0- null"),
+                     requests);
+    }
+
+    private void download() {
+        assertEquals(target, new ResumableDownloadAction(api,
+                                                         new IdAddress("item"),
+                                                         target).call());
+    }
+
+    private Path partial() {
+        return target.resolveSibling(target.getFileName()
+                                     + ResumableDownloadAction.PARTIAL_EXTENSION);
+    }
+
+    private Path checkpoint() {
+        return partial().resolveSibling(partial().getFileName()
+                                        + ResumableDownloadAction.CHECKPOINT_EXTENSION);
+    }
+
+    private void writeCheckpoint(String checkpointETag) throws IOException {
+        Files.write(partial(), Arrays.copyOf(data, OFFSET));
+        Properties props = new Properties();
+        props.setProperty(ResumableDownloadAction.KEY_ETAG, checkpointETag);
+        props.setProperty(ResumableDownloadAction.KEY_OFFSET,
+                          Integer.toString(OFFSET));
+        try (OutputStream out = Files.newOutputStream(checkpoint())) {
+            props.store(out, null);
+        }
+    }
+
+    private void metadata(HttpExchange exchange) throws IOException {
+        String item = "{\"id\":\"item\",\"name\":\"download.bin\""
+                      + (eTag == null ? "" : ",\"eTag\":\"" + eTag + "\"")
+                      + "}";
+        byte[] bytes = item.getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type",
+                                          MediaType.APPLICATION_JSON);
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private void content(HttpExchange exchange, String range)
+        throws IOException {
+        int lower = 0;
+        if (range != null && !ignoreRange) {
+            lower = Integer.parseInt(range.substring(range.indexOf('=') + 1,
+                                                     range.indexOf('-')));
+        }
+        int status = 200;
+        if (lower > 0) {
+            status = 206;
+            exchange.getResponseHeaders()
+                .add("Content-Range", "bytes " + lower + "-" + (LENGTH - 1)
+                                      + "/" + LENGTH);
+        }
+        exchange.getResponseHeaders().add("Content-Type",
+                                          MediaType.APPLICATION_OCTET_STREAM);
+        exchange.sendResponseHeaders(status, LENGTH - lower);
+        int drop = dropAfter;
+        dropAfter = -1;
+        try (InputStream in = exchange.getRequestBody()) {
+            // no request content
+        }
+        OutputStream out = exchange.getResponseBody();
+        if (drop > lower) {
+            // close the connection before all content is sent
+            out.write(data, lower, drop - lower);
+            out.flush();
+            exchange.close();
+            return;
+        }
+        out.write(data, lower, LENGTH - lower);
+        exchange.close();
+    }
+}
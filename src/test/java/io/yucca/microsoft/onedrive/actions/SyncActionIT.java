@@ -15,8 +15,11 @@
  */
 package io.yucca.microsoft.onedrive.actions;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.Iterator;
+
 import org.junit.Test;
 
 import io.yucca.microsoft.onedrive.SyncResponse;
@@ -52,6 +55,23 @@ public class SyncActionIT extends AbstractActionIT {
         }
     }
 
+    @Test
+    public void testSyncChangesByPage() throws ResyncNeededException {
+        ItemAddress itemAddress = new IdAddress(apiTestFolderId);
+        SyncAction action = new SyncAction(api, itemAddress, null, "1");
+        Iterator<SyncResponse> pages = action.call().pageIterator();
+        SyncResponse page = null;
+        while (pages.hasNext()) {
+            page = pages.next();
+            for (Item item : page.getValue()) {
+                assertNotNull(item);
+            }
+        }
+        assertNotNull(page);
+        assertFalse(page.hasNextCollection());
+        assertNotNull(page.getToken());
+    }
+
     @Test(expected = ResyncNeededException.class)
     public void testSyncOldToken() throws ResyncNeededException {
         ItemAddress itemAddress = new PathAddress(TestMother.FOLDER_APITEST);
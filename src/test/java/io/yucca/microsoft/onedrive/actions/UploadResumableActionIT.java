@@ -17,21 +17,30 @@ package io.yucca.microsoft.onedrive.actions;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import io.yucca.microsoft.onedrive.OneDriveFile;
 import io.yucca.microsoft.onedrive.TestMother;
 import io.yucca.microsoft.onedrive.addressing.IdAddress;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.addressing.PathAddress;
+import io.yucca.microsoft.onedrive.io.UploadSessionJournal;
 import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
 
 public class UploadResumableActionIT extends AbstractActionIT {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testCreateAndCancelSession() throws FileNotFoundException {
         ItemAddress parentAddress = new IdAddress(apiTestFolderId);
@@ -75,4 +84,21 @@ public class UploadResumableActionIT extends AbstractActionIT {
         assertFalse(UploadResumableAction.shouldUploadAsLargeContent(file));
     }
 
+    @Test
+    public void testResumableUploadWithJournal() throws IOException {
+        Path path = Paths.get(TestMother.ITEM_UPLOAD_3_PATH);
+        OneDriveFile file = new OneDriveFile(path, TestMother.ITEM_UPLOAD_3);
+        ItemAddress parentAddress = new IdAddress(apiTestFolderId);
+        UploadSessionJournal journal = new UploadSessionJournal(folder
+            .getRoot().toPath());
+        UploadResumableAction action = new UploadResumableAction(api, file,
+                                                                 parentAddress,
+                                                                 ConflictBehavior.REPLACE,
+                                                                 UploadResumableAction.FRAGMENTSIZE_4MB,
+                                                                 UploadResumableAction.DEFAULT_PARALLELISM,
+                                                                 journal);
+        assertNotNull(action.call());
+        assertNull(journal.read(path));
+    }
+
 }
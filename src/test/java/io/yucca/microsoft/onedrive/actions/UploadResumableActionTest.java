@@ -0,0 +1,317 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.actions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MediaType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.yucca.microsoft.onedrive.LocalAPIConnection;
+import io.yucca.microsoft.onedrive.OneDriveConfiguration;
+import io.yucca.microsoft.onedrive.OneDriveException;
+import io.yucca.microsoft.onedrive.OneDriveFile;
+import io.yucca.microsoft.onedrive.addressing.PathAddress;
+import io.yucca.microsoft.onedrive.io.UploadSessionJournal;
+import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
+import io.yucca.microsoft.onedrive.resources.Item;
+
+public class UploadResumableActionTest {
+
+    private static final long FRAGMENT_SIZE = UploadResumableAction.OPTIMAL_FRAGMENTSIZE_ALIGNMENT;
+
+    private static final int LENGTH = (int)(FRAGMENT_SIZE * 5);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Status to respond, once, to the first fragment starting at an offset,
+     * 0 drops the connection
+     */
+    private final Map<Long, Integer> failures = new HashMap<>();
+
+    private final List<String> requests = new ArrayList<>();
+
+    private byte[] received;
+
+    private BitSet receivedRanges;
+
+    private volatile int fragmentStatus;
+
+    private HttpServer server;
+
+    private String sessionUrl;
+
+    private LocalAPIConnection api;
+
+    private Path file;
+
+    private byte[] data;
+
+    @Before
+    public void setUp() throws IOException {
+        data = new byte[LENGTH];
+        new Random(42).nextBytes(data);
+        file = folder.newFile("upload.bin").toPath();
+        Files.write(file, data);
+        received = new byte[LENGTH];
+        receivedRanges = new BitSet(LENGTH);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = readBody(exchange);
+                String method = exchange.getRequestMethod();
+                String path = exchange.getRequestURI().getPath();
+                synchronized (requests) {
+                    requests.add(method + " " + path);
+                }
+                if ("POST".equals(method)
+                    && path.endsWith(UploadResumableAction.ACTION)) {
+                    respond(exchange, 200, "{\"uploadUrl\":\"" + sessionUrl
+                                           + "\",\"expirationDateTime\":\"2099-01-01T00:00:00Z\"}");
+                } else if ("PUT".equals(method)) {
+                    fragment(exchange, body);
+                } else if ("GET".equals(method)) {
+                    respond(exchange, 200,
+                            "{\"expirationDateTime\":\"2099-01-01T00:00:00Z\",\"nextExpectedRanges\":"
+                                           + expectedRanges() + "}");
+                } else if ("DELETE".equals(method)) {
+                    exchange.sendResponseHeaders(204, -1);
+                    exchange.close();
+                } else {
+                    respond(exchange, 404, "{}");
+                }
+            }
+        });
+        server.start();
+        URI uri = URI.create("http://localhost:"
+                             + server.getAddress().getPort());
+        sessionUrl = uri + "/session";
+        api = new LocalAPIConnection(uri, new OneDriveConfiguration(null));
+    }
+
+    @After
+    public void tearDown() {
+        api.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testParallelUpload() throws IOException {
+        Item item = upload(3);
+        assertEquals("uploaded", item.getId());
+        assertArrayEquals(data, received);
+        assertEquals(5, count("PUT"));
+        assertEquals(0, count("GET"));
+    }
+
+    @Test
+    public void testParallelResendsFailedFragments() throws IOException {
+        failures.put(FRAGMENT_SIZE, 0);
+        failures.put(FRAGMENT_SIZE * 3, 503);
+        Item item = upload(3);
+        assertEquals("uploaded", item.getId());
+        assertArrayEquals(data, received);
+        // the dropped and throttled fragments are resent
+        assertEquals(7, count("PUT"));
+        assertEquals(1, count("GET"));
+    }
+
+    @Test
+    public void testParallelNotFoundCancelsSession() throws IOException {
+        fragmentStatus = 404;
+        try {
+            upload(3);
+            fail("Expected OneDriveException");
+        } catch (OneDriveException e) {
+            assertTrue(e.getCause() instanceof OneDriveResumableUploadException);
+        }
+        assertEquals(1, count("DELETE"));
+    }
+
+    @Test
+    public void testConnectionFailureKeepsSessionRecord() throws IOException {
+        UploadSessionJournal journal = new UploadSessionJournal(folder
+            .newFolder("journal").toPath());
+        failures.put(FRAGMENT_SIZE * 2, 0);
+        try {
+            upload(1, journal);
+            fail("Expected ProcessingException");
+        } catch (ProcessingException e) {
+            // expected
+        }
+        assertNotNull(journal.read(file));
+        // the recorded session is resumed from the expected ranges
+        Item item = upload(1, journal);
+        assertEquals("uploaded", item.getId());
+        assertArrayEquals(data, received);
+        assertEquals(1, count("POST"));
+        assertEquals(1, count("GET"));
+        assertNull(journal.read(file));
+    }
+
+    @Test
+    public void testConflictRemovesSessionRecord() throws IOException {
+        UploadSessionJournal journal = new UploadSessionJournal(folder
+            .newFolder("journal").toPath());
+        fragmentStatus = 409;
+        try {
+            upload(3, journal);
+            fail("Expected OneDriveException");
+        } catch (OneDriveException e) {
+            // expected
+        }
+        assertNull(journal.read(file));
+        assertEquals(0, count("DELETE"));
+    }
+
+    private Item upload(int parallelism) throws IOException {
+        return upload(parallelism, null);
+    }
+
+    private Item upload(int parallelism, UploadSessionJournal journal)
+        throws IOException {
+        return new UploadResumableAction(api, new OneDriveFile(file),
+                                         new PathAddress("Documents"),
+                                         ConflictBehavior.FAIL,
+                                         FRAGMENT_SIZE, parallelism, journal)
+                                             .call();
+    }
+
+    private int count(String method) {
+        int count = 0;
+        synchronized (requests) {
+            for (String request : requests) {
+                if (request.startsWith(method + " ")) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void fragment(HttpExchange exchange, byte[] body)
+        throws IOException {
+        // Content-Range: bytes lower-upper/length
+        String range = exchange.getRequestHeaders().getFirst("Content-Range");
+        String[] bounds = range.substring(range.indexOf(' ') + 1,
+                                          range.indexOf('/'))
+            .split("-");
+        long lower = Long.parseLong(bounds[0]);
+        Integer failure;
+        synchronized (failures) {
+            failure = failures.remove(lower);
+        }
+        if (failure == null && fragmentStatus != 0) {
+            failure = fragmentStatus;
+        }
+        if (failure != null) {
+            if (failure == 0) {
+                // drop the connection without a response
+                exchange.getResponseBody().close();
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("Retry-After", "0");
+            respond(exchange, failure, "{}");
+            return;
+        }
+        boolean complete;
+        synchronized (this) {
+            System.arraycopy(body, 0, received, (int)lower, body.length);
+            receivedRanges.set((int)lower, (int)lower + body.length);
+            complete = receivedRanges.cardinality() == LENGTH;
+        }
+        if (complete) {
+            respond(exchange, 201,
+                    "{\"id\":\"uploaded\",\"name\":\"upload.bin\",\"size\":"
+                                   + LENGTH + "}");
+        } else {
+            respond(exchange, 202, "{\"nextExpectedRanges\":"
+                                   + expectedRanges() + "}");
+        }
+    }
+
+    private synchronized String expectedRanges() {
+        StringBuilder b = new StringBuilder("[");
+        int lower = receivedRanges.nextClearBit(0);
+        while (lower < LENGTH) {
+            int upper = receivedRanges.nextSetBit(lower);
+            upper = (upper == -1 ? LENGTH : upper) - 1;
+            if (b.length() > 1) {
+                b.append(',');
+            }
+            b.append("\"").append(lower).append('-').append(upper)
+                .append("\"");
+            lower = receivedRanges.nextClearBit(upper + 1);
+        }
+        return b.append("]").toString();
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status,
+                                String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type",
+                                          MediaType.APPLICATION_JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
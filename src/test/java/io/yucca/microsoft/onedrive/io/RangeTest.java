@@ -73,5 +73,53 @@ public class RangeTest {
     public void testRangeLengthZero() {
         Range.getRanges(126, 0);
     }
-    
+
+    @Test
+    public void testRangeHeader() {
+        Range range = new Range(26, 51, 67);
+        assertEquals("bytes=26-51", range.getRangeHeader());
+        assertEquals("bytes 26-51/67", range.getContentRangeHeader());
+    }
+
+    @Test
+    public void testExpectedRanges() {
+        Set<Range> ranges = Range
+            .getExpectedRanges(new String[] { "26-", "10-15" }, 26, 67);
+        assertEquals(3, ranges.size());
+        Iterator<Range> iter = ranges.iterator();
+
+        Range range1 = iter.next();
+        assertEquals(26, range1.getLower());
+        assertEquals(51, range1.getUpper());
+
+        Range range2 = iter.next();
+        assertEquals(52, range2.getLower());
+        assertEquals(66, range2.getUpper());
+
+        Range range3 = iter.next();
+        assertEquals(10, range3.getLower());
+        assertEquals(15, range3.getUpper());
+        assertEquals(6, range3.getLength());
+        assertEquals(67, range3.getTotal());
+    }
+
+    @Test
+    public void testExpectedRangesNone() {
+        assertTrue(Range.getExpectedRanges(null, 26, 67).isEmpty());
+        assertTrue(Range.getExpectedRanges(new String[0], 26, 67).isEmpty());
+    }
+
+    @Test
+    public void testExpectedRangesSingleByte() {
+        Set<Range> ranges = Range
+            .getExpectedRanges(new String[] { "66-" }, 26, 67);
+        assertEquals(1, ranges.size());
+        assertEquals(1, ranges.iterator().next().getLength());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExpectedRangesInvalid() {
+        Range.getExpectedRanges(new String[] { "-10" }, 26, 67);
+    }
+
 }
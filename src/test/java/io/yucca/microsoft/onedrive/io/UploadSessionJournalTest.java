@@ -0,0 +1,119 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.yucca.microsoft.onedrive.resources.UploadSession;
+
+public class UploadSessionJournalTest {
+
+    private static final String UPLOAD_URL = "https://sn3302.up.1drv.com/up/fe6987415ace7X4e1eF866337";
+
+    private static final String EXPIRATION = "2015-01-29T09:21:55.523Z";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private UploadSessionJournal journal;
+
+    private UploadSession session;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        journal = new UploadSessionJournal(folder.getRoot().toPath()
+            .resolve("journal"));
+        file = folder.newFile("upload.txt").toPath();
+        Files.write(file, "upload content".getBytes(StandardCharsets.UTF_8));
+        session = new UploadSession();
+        session.setUploadUrl(UPLOAD_URL);
+        session.setExpirationDateTime(EXPIRATION);
+    }
+
+    @Test
+    public void testCreateAndRead() throws IOException {
+        journal.create(file, session);
+        UploadSessionJournal.Entry entry = journal.read(file);
+        assertNotNull(entry);
+        assertEquals(file.toAbsolutePath(), entry.getPath());
+        assertEquals(Files.size(file), entry.getSize());
+        assertEquals(UPLOAD_URL, entry.getSession().getUploadUrl());
+        assertEquals(EXPIRATION, entry.getSession().getExpirationDateTime());
+        assertTrue(entry.matches(file));
+    }
+
+    @Test
+    public void testReadUnknown() throws IOException {
+        assertNull(journal.read(file));
+    }
+
+    @Test
+    public void testMatchesReplaced() throws IOException {
+        journal.create(file, session);
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        // same size and modification time, but another file
+        Path other = folder.newFile("other.txt").toPath();
+        Files.write(other, "upload content".getBytes(StandardCharsets.UTF_8));
+        Files.move(other, file, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(file, lastModified);
+        UploadSessionJournal.Entry entry = journal.read(file);
+        assertEquals(entry.getFileKey() == null,
+                     entry.matches(file));
+    }
+
+    @Test
+    public void testMatchesModified() throws IOException {
+        journal.create(file, session);
+        Files.write(file, "modified upload content"
+            .getBytes(StandardCharsets.UTF_8));
+        assertFalse(journal.read(file).matches(file));
+    }
+
+    @Test
+    public void testRemove() throws IOException {
+        journal.create(file, session);
+        journal.remove(file);
+        assertNull(journal.read(file));
+    }
+
+    @Test
+    public void testCorruptEntryDiscarded() throws IOException {
+        journal.create(file, session);
+        Path journalFile = journal.getJournalFile(file);
+        Files.write(journalFile, "size=abc".getBytes(StandardCharsets.UTF_8));
+        assertNull(journal.read(file));
+        assertFalse(Files.exists(journalFile));
+    }
+
+}
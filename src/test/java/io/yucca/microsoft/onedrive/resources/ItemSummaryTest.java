@@ -0,0 +1,72 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+
+import io.yucca.microsoft.onedrive.ClientFactory;
+
+public class ItemSummaryTest {
+
+    private final ObjectMapper mapper = ClientFactory
+        .createMapper(new JacksonJaxbJsonProvider());
+
+    @Test
+    public void testReadFile() throws IOException {
+        String json = "{\"id\":\"F1\",\"name\":\"file.txt\",\"size\":1024,"
+                      + "\"eTag\":\"e1\",\"cTag\":\"c1\","
+                      + "\"createdDateTime\":\"2015-06-01T10:11:12Z\","
+                      + "\"lastModifiedDateTime\":\"2015-06-01T10:11:12.1234567Z\","
+                      + "\"parentReference\":{\"driveId\":\"D\",\"id\":\"P1\",\"path\":\"/drive/root:\"},"
+                      + "\"file\":{\"mimeType\":\"text/plain\",\"hashes\":{\"sha1Hash\":\"ABC\"}},"
+                      + "\"thumbnails\":[],\"image\":{\"width\":1}}";
+        ItemSummary item = mapper.readValue(json, ItemSummary.class);
+        assertEquals("F1", item.getId());
+        assertEquals("P1", item.getParentId());
+        assertEquals("file.txt", item.getName());
+        assertEquals(1024, item.getSize());
+        assertEquals("e1", item.geteTag());
+        assertEquals("c1", item.getcTag());
+        assertEquals("ABC", item.getSha1());
+        assertEquals(1433153472000L, item.getCreatedDateTime());
+        assertEquals(1433153472123L, item.getLastModifiedDateTime());
+        assertFalse(item.isDirectory());
+        assertFalse(item.isDeleted());
+        assertEquals(-1, item.getChildCount());
+    }
+
+    @Test
+    public void testReadDeletedFolder() throws IOException {
+        String json = "{\"id\":\"D1\",\"folder\":{\"childCount\":3},\"deleted\":{}}";
+        ItemSummary item = mapper.readValue(json, ItemSummary.class);
+        assertTrue(item.isDirectory());
+        assertTrue(item.isDeleted());
+        assertEquals(3, item.getChildCount());
+        assertNull(item.getSha1());
+        assertNull(item.getParentId());
+        assertEquals(0, item.getLastModifiedDateTime());
+    }
+}
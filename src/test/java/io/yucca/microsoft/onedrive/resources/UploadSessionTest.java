@@ -0,0 +1,48 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.resources;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.yucca.microsoft.onedrive.util.ISO8061;
+
+public class UploadSessionTest {
+
+    @Test
+    public void testHasSessionExpired() {
+        UploadSession session = new UploadSession();
+        session.setExpirationDateTime("2015-01-29T09:21:55.523Z");
+        assertTrue(session.hasSessionExpired());
+    }
+
+    @Test
+    public void testHasSessionNotExpired() {
+        UploadSession session = new UploadSession();
+        session.setExpirationDateTime(ISO8061
+            .fromMillis(System.currentTimeMillis() + 3600000));
+        assertFalse(session.hasSessionExpired());
+    }
+
+    @Test
+    public void testHasSessionExpiredUnknown() {
+        UploadSession session = new UploadSession();
+        assertFalse(session.hasSessionExpired());
+    }
+
+}
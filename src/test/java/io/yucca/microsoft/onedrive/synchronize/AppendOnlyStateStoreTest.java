@@ -0,0 +1,167 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AppendOnlyStateStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+
+    private AppendOnlyStateStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.getRoot().toPath().resolve("state.log");
+        store = new AppendOnlyStateStore(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        store.put(record("1", "/drive/file-1.txt"));
+        StateRecord record = store.get("1");
+        assertEquals("1", record.getId());
+        assertEquals(ResourceType.FILE, record.getType());
+        assertEquals("/drive/file-1.txt", record.getPath());
+        assertEquals(1000L, record.getLastModified());
+        assertEquals(18L, record.getSize());
+        assertEquals("da39a3ee5e6b4b0d3255bfef95601890afd80709",
+                     record.getSha1());
+        assertNull(store.get("2"));
+    }
+
+    @Test
+    public void testCommitAndReopen() throws IOException {
+        store.put(record("1", "/drive/file-1.txt"));
+        store.put(record("2", "/drive/file-2.txt"));
+        store.put(new StateRecord("3", ResourceType.FOLDER, "/drive/folder",
+                                  2000L, 0, null));
+        store.remove("2");
+        store.commit();
+        store.close();
+
+        store = new AppendOnlyStateStore(file);
+        assertEquals(2, store.size());
+        assertEquals("/drive/file-1.txt", store.get("1").getPath());
+        assertNull(store.get("2"));
+        assertEquals(ResourceType.FOLDER, store.get("3").getType());
+        assertNull(store.get("3").getSha1());
+    }
+
+    @Test
+    public void testUncommittedDiscarded() throws IOException {
+        store.put(record("1", "/drive/file-1.txt"));
+        store.commit();
+        store.put(record("2", "/drive/file-2.txt"));
+        store.remove("1");
+        store.close();
+
+        store = new AppendOnlyStateStore(file);
+        assertEquals(1, store.size());
+        assertEquals("/drive/file-1.txt", store.get("1").getPath());
+        assertNull(store.get("2"));
+    }
+
+    @Test
+    public void testCorruptTailDiscarded() throws IOException {
+        store.put(record("1", "/drive/file-1.txt"));
+        store.commit();
+        store.close();
+        // simulate a partially written entry
+        try (OutputStream out = Files.newOutputStream(file,
+                                                      StandardOpenOption.APPEND)) {
+            out.write(new byte[] { AppendOnlyStateStore.OP_PUT, 0, 0, 1 });
+        }
+
+        store = new AppendOnlyStateStore(file);
+        assertEquals(1, store.size());
+        store.put(record("2", "/drive/file-2.txt"));
+        store.commit();
+        store.close();
+
+        store = new AppendOnlyStateStore(file);
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        store.put(record("1", "/drive/file-1.txt"));
+        store.commit();
+        store.clear();
+        assertNull(store.get("1"));
+        store.put(record("2", "/drive/file-2.txt"));
+        assertEquals(1, store.size());
+        store.commit();
+        store.close();
+
+        store = new AppendOnlyStateStore(file);
+        assertEquals(1, store.size());
+        assertNull(store.get("1"));
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            store.put(record("1", "/drive/file-" + i + ".txt"));
+        }
+        store.put(record("2", "/drive/file-2.txt"));
+        store.commit();
+        long size = Files.size(file);
+        store.compact();
+        assertEquals(true, Files.size(file) < size);
+        assertEquals("/drive/file-9.txt", store.get("1").getPath());
+        store.remove("2");
+        store.commit();
+        store.close();
+
+        store = new AppendOnlyStateStore(file);
+        assertEquals(1, store.size());
+        assertEquals("/drive/file-9.txt", store.get("1").getPath());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws IOException {
+        Path invalid = folder.newFile("invalid.log").toPath();
+        Files.write(invalid, "not a state store".getBytes("UTF-8"));
+        new AppendOnlyStateStore(invalid);
+    }
+
+    private StateRecord record(String id, String path) {
+        return new StateRecord(id, ResourceType.FILE, path, 1000L, 18L,
+                               "da39a3ee5e6b4b0d3255bfef95601890afd80709");
+    }
+}
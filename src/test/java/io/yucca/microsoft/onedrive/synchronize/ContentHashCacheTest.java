@@ -0,0 +1,87 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.yucca.microsoft.onedrive.util.ChecksumUtil;
+
+public class ContentHashCacheTest {
+
+    private static final String FAKE_SHA1 = "0000000000000000000000000000000000000000";
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = testFolder.newFile("content.txt").toPath();
+        Files.write(file, "content to be hashed".getBytes("UTF-8"));
+    }
+
+    @Test
+    public void testSha1() throws IOException {
+        assertEquals(ChecksumUtil.sha1(file), ContentHashCache.sha1(file));
+        String cached = MetadataUtil
+            .readAttribute(file, ContentHashCache.ATTRIBUTE_ONEDRIVE_SHA1);
+        assertTrue(cached.endsWith(ChecksumUtil.sha1(file)));
+    }
+
+    @Test
+    public void testSha1Cached() throws IOException {
+        MetadataUtil.writeAttribute(file,
+                                    ContentHashCache.ATTRIBUTE_ONEDRIVE_SHA1,
+                                    key() + FAKE_SHA1);
+        assertEquals(FAKE_SHA1, ContentHashCache.sha1(file));
+    }
+
+    @Test
+    public void testSha1Modified() throws IOException {
+        MetadataUtil.writeAttribute(file,
+                                    ContentHashCache.ATTRIBUTE_ONEDRIVE_SHA1,
+                                    key() + FAKE_SHA1);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1000L));
+        assertEquals(ChecksumUtil.sha1(file), ContentHashCache.sha1(file));
+    }
+
+    @Test
+    public void testInvalidate() throws IOException {
+        ContentHashCache.sha1(file);
+        ContentHashCache.invalidate(file);
+        assertNull(MetadataUtil
+            .readAttribute(file, ContentHashCache.ATTRIBUTE_ONEDRIVE_SHA1));
+    }
+
+    private String key() throws IOException {
+        return ContentHashCache
+            .key(Files.readAttributes(file, BasicFileAttributes.class));
+    }
+}
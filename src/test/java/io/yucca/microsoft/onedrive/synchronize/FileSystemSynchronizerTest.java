@@ -0,0 +1,81 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.yucca.microsoft.onedrive.util.ChecksumUtil;
+
+public class FileSystemSynchronizerTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private Path root;
+
+    private Path file;
+
+    private FileSystemRepository repository;
+
+    private AppendOnlyStateStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        root = testFolder.newFolder("drive").toPath();
+        repository = new FileSystemRepository(root, new OneDriveStub());
+        Path folder = Files.createDirectory(root.resolve("a"));
+        MetadataUtil.writeAttribute(folder,
+                                    FileSystemRepository.ATTRIBUTE_ONEDRIVE_ITEMID,
+                                    "A");
+        file = Files.write(folder.resolve("f.txt"), "content".getBytes("UTF-8"));
+        MetadataUtil.writeAttribute(file,
+                                    FileSystemRepository.ATTRIBUTE_ONEDRIVE_ITEMID,
+                                    "F");
+        store = new AppendOnlyStateStore(testFolder.getRoot().toPath()
+            .resolve("state.log"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void testSaveStateRecordsHash() throws IOException {
+        FileSystemSynchronizer synchronizer = new FileSystemSynchronizer(repository,
+                                                                         store);
+        synchronizer.initializeSession(false,
+                                       new LocalFolderImpl(root, repository));
+        synchronizer.saveSession();
+
+        StateRecord record = store.get("F");
+        assertEquals(file.toString(), record.getPath());
+        assertEquals(7, record.getSize());
+        assertEquals(ChecksumUtil.sha1(file), record.getSha1());
+        assertNull(store.get("A").getSha1());
+    }
+}
@@ -2,12 +2,14 @@ package io.yucca.microsoft.onedrive.synchronize;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import io.yucca.microsoft.onedrive.OneDrive;
 import io.yucca.microsoft.onedrive.OneDriveContent;
 import io.yucca.microsoft.onedrive.OneDriveFolder;
 import io.yucca.microsoft.onedrive.OneDriveItem;
 import io.yucca.microsoft.onedrive.QueryParameters;
+import io.yucca.microsoft.onedrive.actions.BatchAction;
 import io.yucca.microsoft.onedrive.addressing.ItemAddress;
 import io.yucca.microsoft.onedrive.resources.ConflictBehavior;
 import io.yucca.microsoft.onedrive.resources.Drive;
@@ -86,11 +88,22 @@ public class OneDriveStub implements OneDrive {
         return null;
     }
 
+    @Override
+    public Stream<OneDriveItem> streamChildren(QueryParameters parameters) {
+        return null;
+    }
+
     @Override
     public List<OneDriveItem> search(String query, QueryParameters parameters) {
         return null;
     }
 
+    @Override
+    public Stream<OneDriveItem> streamSearch(String query,
+                                             QueryParameters parameters) {
+        return null;
+    }
+
     @Override
     public OneDriveItem upload(OneDriveContent content,
                                ConflictBehavior behavior) {
@@ -102,6 +115,11 @@ public class OneDriveStub implements OneDrive {
         return null;
     }
 
+    @Override
+    public BatchAction.Builder newBatch() {
+        return null;
+    }
+
     @Override
     public ItemAddress getAddress() {
         return null;
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelLocalTreeWalkerTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private Path root;
+
+    private FileSystemSynchronizer synchronizer;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Paths.get(testFolder.getRoot().getAbsolutePath());
+        synchronizer = new FileSystemSynchronizer(new FileSystemRepository(root,
+                                                                           new OneDriveStub()));
+        Path folderA = Files.createDirectory(root.resolve("a"));
+        MetadataUtil.writeAttribute(folderA,
+                                    FileSystemRepository.ATTRIBUTE_ONEDRIVE_ITEMID,
+                                    "A");
+        Path fileA = Files.createFile(folderA.resolve("f2.txt"));
+        MetadataUtil.writeAttribute(fileA,
+                                    FileSystemRepository.ATTRIBUTE_ONEDRIVE_ITEMID,
+                                    "F2");
+        Path folderB = Files.createDirectory(folderA.resolve("b"));
+        Files.createFile(folderB.resolve("f1.txt"));
+        Files.createFile(root.resolve("c.txt"));
+    }
+
+    @Test
+    public void testWalk() throws IOException {
+        new ParallelLocalTreeWalker(synchronizer, 2).walk(root);
+
+        assertNotNull(synchronizer.getLocalFolder("1!0"));
+        assertNull(synchronizer.getLocalItem("1!0"));
+        assertEquals(root.resolve("a"),
+                     synchronizer.getLocalFolder("A").getPath());
+        assertEquals(ResourceType.FOLDER,
+                     synchronizer.getLocalItem("A").type());
+        assertEquals(root.resolve("a").resolve("f2.txt"),
+                     synchronizer.getLocalItem("F2").getPath());
+
+        List<Path> additions = new ArrayList<>();
+        for (LocalItem item : synchronizer.getAdditions()) {
+            additions.add(item.getPath());
+        }
+        Collections.sort(additions);
+        List<Path> expected = new ArrayList<>();
+        expected.add(root.resolve("a").resolve("b"));
+        expected.add(root.resolve("a").resolve("b").resolve("f1.txt"));
+        expected.add(root.resolve("c.txt"));
+        assertEquals(expected, additions);
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void testWalkMissingRoot() throws IOException {
+        new ParallelLocalTreeWalker(synchronizer).walk(root.resolve("missing"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() {
+        new ParallelLocalTreeWalker(synchronizer, 0);
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2015 Rob Sessink
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.yucca.microsoft.onedrive.synchronize;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SynchronizationExecutorTest {
+
+    private SynchronizationExecutor executor;
+
+    private List<String> executed;
+
+    @Before
+    public void setUp() {
+        executor = new SynchronizationExecutor(4);
+        executed = Collections.synchronizedList(new LinkedList<String>());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testParentBeforeChild() {
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.submit("folder", null, "folder",
+                        new SynchronizationExecutor.Task() {
+
+                            @Override
+                            public void execute() throws IOException {
+                                try {
+                                    // give children the chance to run early
+                                    latch.await(100, TimeUnit.MILLISECONDS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                executed.add("folder");
+                            }
+                        });
+        executor.submit("file-1", "folder", "file-1", new Record("file-1"));
+        executor.submit("file-2", "folder", "file-2", new Record("file-2"));
+        assertTrue(executor.awaitCompletion().isEmpty());
+        assertEquals(3, executed.size());
+        assertEquals("folder", executed.get(0));
+    }
+
+    @Test
+    public void testFailureSkipsChildren() {
+        final CountDownLatch submitted = new CountDownLatch(1);
+        executor.submit("folder", null, "folder",
+                        new SynchronizationExecutor.Task() {
+
+                            @Override
+                            public void execute() throws IOException {
+                                try {
+                                    // fail only once the child is waiting
+                                    submitted.await(5, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                throw new IOException("failure");
+                            }
+                        });
+        executor.submit("file-1", "folder", "file-1", new Record("file-1"));
+        submitted.countDown();
+        executor.submit("other", null, "other", new Record("other"));
+        List<SynchronizationFailure> failures = executor.awaitCompletion();
+        assertEquals(2, failures.size());
+        assertEquals(Collections.singletonList("other"), executed);
+    }
+
+    @Test
+    public void testAwaitCompletionResetsFailures() {
+        executor.submit("folder", null, "folder",
+                        new SynchronizationExecutor.Task() {
+
+                            @Override
+                            public void execute() throws IOException {
+                                throw new IOException("failure");
+                            }
+                        });
+        assertEquals(1, executor.awaitCompletion().size());
+        assertTrue(executor.awaitCompletion().isEmpty());
+    }
+
+    private class Record implements SynchronizationExecutor.Task {
+
+        private final String key;
+
+        Record(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void execute() throws IOException {
+            executed.add(key);
+        }
+    }
+}